@@ -0,0 +1,100 @@
+package no.unit.nva.cristin.institutions;
+
+import java.io.InputStreamReader;
+import java.lang.management.ManagementFactory;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Drives both handlers in a fresh JVM against a stubbed Cristin client and reports the time from process
+ * launch to the first response. Used as the AppCDS training run ({@code train} argument) and by the
+ * {@code coldStartBenchmark} Gradle task.
+ */
+public class ColdStartMain {
+
+    private static final String TRAIN = "train";
+    private static final String LAUNCHED_AT_PROPERTY = "coldstart.launchedAtMillis";
+    private static final String QUERY_INSTITUTIONS_RESPONSE = "/cristinQueryInstitutionsResponse.json";
+    private static final String GET_INSTITUTION_RESPONSE = "/cristinGetInstitutionResponse.json";
+    private static final String GET_UNIT_RESPONSE = "/cristinGetUnitWithSubunitsFirstResponse.json";
+    private static final int TRAINING_ROUNDS = 50;
+
+    /**
+     * Runs one request per handler, or {@value #TRAINING_ROUNDS} rounds when training.
+     *
+     * @param args {@code train} for a training run
+     */
+    public static void main(String[] args) {
+        long launchedAt = Long.getLong(LAUNCHED_AT_PROPERTY, ManagementFactory.getRuntimeMXBean().getStartTime());
+        long mainStarted = System.currentTimeMillis();
+
+        long handlersCreatedNanos = System.nanoTime();
+        FetchCristinInstitutions fetchCristinInstitutions = new FetchCristinInstitutions(new StubCristinApiClient());
+        FetchCristinUnit fetchCristinUnit = new FetchCristinUnit(new StubCristinApiClient());
+        long handlerInitMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - handlersCreatedNanos);
+
+        long firstRequestNanos = System.nanoTime();
+        int institutionsStatusCode = fetchCristinInstitutions.handleRequest(institutionsEvent(), null)
+                .getStatusCode();
+        int unitStatusCode = fetchCristinUnit.handleRequest(unitEvent(), null).getStatusCode();
+        long firstResponseMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - firstRequestNanos);
+        long timeToFirstResponse = System.currentTimeMillis() - launchedAt;
+
+        int rounds = args.length > 0 && TRAIN.equals(args[0]) ? TRAINING_ROUNDS : 0;
+        for (int i = 0; i < rounds; i++) {
+            fetchCristinInstitutions.handleRequest(institutionsEvent(), null);
+            fetchCristinUnit.handleRequest(unitEvent(), null);
+        }
+
+        System.out.println("COLD_START jvmStartupMs=" + (mainStarted - launchedAt)
+                + " initPhaseMs=" + InitPhase.getDurationMillis()
+                + " handlerInitMs=" + handlerInitMillis
+                + " firstResponseMs=" + firstResponseMillis
+                + " timeToFirstResponseMs=" + timeToFirstResponse
+                + " institutionsStatusCode=" + institutionsStatusCode
+                + " unitStatusCode=" + unitStatusCode);
+    }
+
+    private static Map<String, Object> institutionsEvent() {
+        Map<String, String> queryParameters = new HashMap<>();
+        queryParameters.put("name", "ntnu");
+        queryParameters.put("language", "nb");
+        Map<String, Object> event = new HashMap<>();
+        event.put("queryStringParameters", queryParameters);
+        return event;
+    }
+
+    private static Map<String, Object> unitEvent() {
+        Map<String, String> pathParameters = new HashMap<>();
+        pathParameters.put("id", "194.0.0.0");
+        Map<String, Object> event = new HashMap<>();
+        event.put("pathParameters", pathParameters);
+        return event;
+    }
+
+    private static class StubCristinApiClient extends CristinApiClient {
+
+        @Override
+        protected InputStreamReader fetchQueryInstitutionsResults(URL url) {
+            return resource(QUERY_INSTITUTIONS_RESPONSE);
+        }
+
+        @Override
+        protected InputStreamReader fetchGetInstitutionResult(URL url) {
+            return resource(GET_INSTITUTION_RESPONSE);
+        }
+
+        @Override
+        protected InputStreamReader fetchGetUnitResult(URL url) {
+            return resource(GET_UNIT_RESPONSE);
+        }
+
+        private InputStreamReader resource(String name) {
+            return new InputStreamReader(ColdStartMain.class.getResourceAsStream(name), StandardCharsets.UTF_8);
+        }
+    }
+
+}
@@ -0,0 +1,85 @@
+package no.unit.nva.cristin.institutions;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Synthetic Cristin API payloads shaped like real responses, including the fields the decoders skip.
+ */
+public final class BenchmarkPayloads {
+
+    private BenchmarkPayloads() {
+    }
+
+    /**
+     * Builds a unit payload with a parent unit and the given number of subunits.
+     *
+     * @param subunitCount number of direct subunits
+     * @return unit JSON
+     */
+    public static String unit(int subunitCount) {
+        StringBuilder json = new StringBuilder(256 + subunitCount * 160)
+                .append("{\"cristin_unit_id\":\"194.0.0.0\",")
+                .append("\"unit_name\":{\"en\":\"Norwegian University of Science and Technology\",")
+                .append("\"nb\":\"Norges teknisk-naturvitenskapelige universitet\"},")
+                .append("\"institution\":{\"cristin_institution_id\":\"194\",")
+                .append("\"url\":\"https://api.cristin.no/v2/institutions/194\"},")
+                .append("\"parent_unit\":{\"cristin_unit_id\":\"194.0.0.0\",\"unit_name\":{\"en\":\"Parent\"},")
+                .append("\"url\":\"https://api.cristin.no/v2/units/194.0.0.0\"},")
+                .append("\"subunits\":[");
+        for (int i = 0; i < subunitCount; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            String id = "194." + (i / 100 + 1) + '.' + (i % 100) + ".0";
+            json.append("{\"cristin_unit_id\":\"").append(id).append("\",")
+                    .append("\"unit_name\":{\"en\":\"Department of Subunit ").append(i).append("\",")
+                    .append("\"nb\":\"Institutt for underenhet ").append(i).append("\"},")
+                    .append("\"url\":\"https://api.cristin.no/v2/units/").append(id).append("\"}");
+        }
+        return json.append("]}").toString();
+    }
+
+    /**
+     * Builds an institution search result with the given number of institutions.
+     *
+     * @param count number of institutions
+     * @return institution array JSON
+     */
+    public static String institutions(int count) {
+        StringBuilder json = new StringBuilder(count * 320).append('[');
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append(institution(Integer.toString(194 + i)));
+        }
+        return json.append(']').toString();
+    }
+
+    /**
+     * Builds a single institution payload.
+     *
+     * @param id cristinInstitutionId
+     * @return institution JSON
+     */
+    public static String institution(String id) {
+        return "{\"cristin_institution_id\":\"" + id + "\","
+                + "\"institution_name\":{\"en\":\"Norwegian University of Science and Technology\","
+                + "\"nb\":\"Norges teknisk-naturvitenskapelige universitet\"},"
+                + "\"acronym\":\"NTNU\",\"country\":\"NO\",\"cristin_profile\":\"Institution\","
+                + "\"url\":\"https://api.cristin.no/v2/institutions/" + id + "\","
+                + "\"corresponding_unit\":{\"cristin_unit_id\":\"" + id + ".0.0.0\","
+                + "\"url\":\"https://api.cristin.no/v2/units/" + id + ".0.0.0\"}}";
+    }
+
+    public static InputStreamReader reader(byte[] payload) {
+        return new InputStreamReader(new ByteArrayInputStream(payload), StandardCharsets.UTF_8);
+    }
+
+    public static byte[] bytes(String payload) {
+        return payload.getBytes(StandardCharsets.UTF_8);
+    }
+
+}
@@ -0,0 +1,54 @@
+package no.unit.nva.cristin.institutions;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * CPU cost of compressing serialized unit responses against the bytes saved. The sizes are printed once per
+ * trial as a {@code compression} line next to the timings; the {@code identity} encoding measures the cost of
+ * the negotiation alone.
+ */
+@State(Scope.Benchmark)
+public class CompressionBenchmark {
+
+    @Param({"10", "60", "600"})
+    public int subunitCount;
+
+    @Param({"identity", "gzip", "deflate"})
+    public String encoding;
+
+    private String unitBody;
+
+    /**
+     * Serializes the unit and reports the encoded size for the parameters of the trial.
+     *
+     * @throws IOException if the payload cannot be decoded
+     */
+    @Setup
+    public void setUp() throws IOException {
+        Unit unit = CristinJsonDecoder.getInstance().decodeUnit(new StringReader(BenchmarkPayloads.unit(subunitCount)));
+        unitBody = PresentationJsonEncoder.getInstance().toJson(new PresentationConverter().asUnitPresentation(unit));
+        GatewayResponse encoded = encode();
+        int identityBytes = unitBody.getBytes(StandardCharsets.UTF_8).length;
+        int encodedBytes = encoded.getIsBase64Encoded()
+                ? Base64.getDecoder().decode(encoded.getBody()).length : identityBytes;
+        System.out.printf("compression subunitCount=%d encoding=%s identityBytes=%d encodedBytes=%d ratio=%.1f%n",
+                subunitCount, encoding, identityBytes, encodedBytes, (double) identityBytes / encodedBytes);
+    }
+
+    @Benchmark
+    public GatewayResponse encode() {
+        GatewayResponse response = new GatewayResponse(unitBody, 200);
+        response.applyContentEncoding(encoding, 0);
+        return response;
+    }
+
+}
@@ -0,0 +1,92 @@
+package no.unit.nva.cristin.institutions;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Typo-tolerant search over a synthetic catalog, sampled so that the report shows the latency percentiles per
+ * query when run with {@code -PjmhMode=sample}. The queries mix swapped letters, a dropped letter and a query that
+ * matches nothing.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class FuzzySearchBenchmark {
+
+    private static final int LIMIT = 5;
+    private static final long SEED = 42L;
+    private static final String[] KINDS = {"Universitetet", "Hogskolen", "Institutt for", "Senter for", "Stiftelsen"};
+    private static final String[] WORDS = {
+        "Oslo", "Bergen", "Innlandet", "Agder", "Nordland", "teknisk", "naturvitenskap", "helse", "miljo",
+        "forskning", "kultur", "energi", "havbruk", "samfunn", "okonomi", "medisin", "kunst", "design"
+    };
+    public static final String[] QUERIES = {
+        "Univeristetet i Olso", "hogskolen i innladet", "norges tekniks", "qwxzy", "ntnu"
+    };
+
+    @Param({"1000", "20000"})
+    public int catalogSize;
+
+    private InstitutionSearchIndex index;
+    private int next;
+
+    /**
+     * Builds the index once per trial.
+     */
+    @Setup
+    public void setUp() {
+        index = new InstitutionSearchIndex(syntheticCatalog(catalogSize), 0L);
+    }
+
+    @Benchmark
+    public List<Institution> fuzzySearch() {
+        next = (next + 1) % QUERIES.length;
+        return index.fuzzySearch(QUERIES[next], LIMIT);
+    }
+
+    @Benchmark
+    public List<Institution> exactSearch() {
+        next = (next + 1) % QUERIES.length;
+        return index.search(QUERIES[next], LIMIT);
+    }
+
+    /**
+     * Builds a catalog of institutions with generated Norwegian names.
+     *
+     * @param size number of institutions
+     * @return the institutions, the same for every call with the same size
+     */
+    public static List<Institution> syntheticCatalog(int size) {
+        Random random = new Random(SEED);
+        List<Institution> institutions = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            String name = KINDS[random.nextInt(KINDS.length)] + " i " + WORDS[random.nextInt(WORDS.length)] + ' '
+                    + WORDS[random.nextInt(WORDS.length)] + ' ' + Integer.toString(i, Character.MAX_RADIX);
+            institutions.add(institution(Integer.toString(i), name));
+        }
+        return institutions;
+    }
+
+    private static Institution institution(String id, String name) {
+        Institution institution = new Institution();
+        institution.cristinInstitutionId = id;
+        Map<String, String> names = new HashMap<>();
+        names.put("nb", name);
+        institution.institutionName = names;
+        return institution;
+    }
+
+}
@@ -0,0 +1,104 @@
+package no.unit.nva.cristin.institutions;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.InputStreamReader;
+import java.net.URL;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Full handler path, from the API Gateway event to the {@link GatewayResponse}, against a client that serves
+ * in-memory payloads. No cache sits in front of the client, so every invocation decodes. The {@code cached}
+ * benchmarks answer the same request from the {@link ResponseCache} instead.
+ */
+@State(Scope.Benchmark)
+public class HandleRequestBenchmark {
+
+    private static final int INSTITUTIONS_PER_PAGE = 5;
+
+    @Param({"10", "600"})
+    public int subunitCount;
+
+    private FetchCristinInstitutions fetchCristinInstitutions;
+    private FetchCristinUnit fetchCristinUnit;
+    private FetchCristinUnit cachedFetchCristinUnit;
+    private Map<String, Object> institutionsEvent;
+    private Map<String, Object> unitEvent;
+
+    /**
+     * Creates the handlers and events once per trial.
+     */
+    @Setup
+    public void setUp() {
+        StubCristinApiClient client = new StubCristinApiClient(
+                BenchmarkPayloads.bytes(BenchmarkPayloads.institutions(INSTITUTIONS_PER_PAGE)),
+                BenchmarkPayloads.bytes(BenchmarkPayloads.institution("194")),
+                BenchmarkPayloads.bytes(BenchmarkPayloads.unit(subunitCount)));
+        fetchCristinInstitutions = new FetchCristinInstitutions(client);
+        fetchCristinInstitutions.setResponseCache(ResponseCache.DISABLED);
+        fetchCristinUnit = new FetchCristinUnit(client);
+        fetchCristinUnit.setResponseCache(ResponseCache.DISABLED);
+        cachedFetchCristinUnit = new FetchCristinUnit(client);
+
+        Map<String, String> queryParameters = new HashMap<>();
+        queryParameters.put("name", "ntnu");
+        queryParameters.put("language", "nb");
+        institutionsEvent = new HashMap<>();
+        institutionsEvent.put("queryStringParameters", queryParameters);
+
+        Map<String, String> pathParameters = new HashMap<>();
+        pathParameters.put("id", "194.0.0.0");
+        unitEvent = new HashMap<>();
+        unitEvent.put("pathParameters", pathParameters);
+    }
+
+    @Benchmark
+    public GatewayResponse institutions() {
+        return fetchCristinInstitutions.handleRequest(institutionsEvent, null);
+    }
+
+    @Benchmark
+    public GatewayResponse unit() {
+        return fetchCristinUnit.handleRequest(unitEvent, null);
+    }
+
+    @Benchmark
+    public GatewayResponse cachedUnit() {
+        return cachedFetchCristinUnit.handleRequest(unitEvent, null);
+    }
+
+    private static class StubCristinApiClient extends CristinApiClient {
+
+        private final byte[] institutionsPayload;
+        private final byte[] institutionPayload;
+        private final byte[] unitPayload;
+
+        StubCristinApiClient(byte[] institutionsPayload, byte[] institutionPayload, byte[] unitPayload) {
+            super();
+            this.institutionsPayload = institutionsPayload;
+            this.institutionPayload = institutionPayload;
+            this.unitPayload = unitPayload;
+        }
+
+        @Override
+        protected InputStreamReader fetchQueryInstitutionsResults(URL url) {
+            return BenchmarkPayloads.reader(institutionsPayload);
+        }
+
+        @Override
+        protected InputStreamReader fetchGetInstitutionResult(URL url) {
+            return BenchmarkPayloads.reader(institutionPayload);
+        }
+
+        @Override
+        protected InputStreamReader fetchGetUnitResult(URL url) {
+            return BenchmarkPayloads.reader(unitPayload);
+        }
+    }
+
+}
@@ -0,0 +1,69 @@
+package no.unit.nva.cristin.institutions;
+
+import com.google.gson.reflect.TypeToken;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.lang.reflect.Type;
+import java.util.List;
+
+/**
+ * Decoding of Cristin payloads with reflective Gson ({@link CristinApiClient#fromJson}) and with the
+ * streaming {@link CristinJsonDecoder} used on the request path.
+ */
+@State(Scope.Benchmark)
+public class JsonDecodingBenchmark {
+
+    private static final Type INSTITUTION_LIST_TYPE = new TypeToken<List<Institution>>() {
+    }.getType();
+    private static final int INSTITUTIONS_PER_PAGE = 5;
+
+    @Param({"10", "600"})
+    public int subunitCount;
+
+    private byte[] unitPayload;
+    private byte[] institutionsPayload;
+
+    /**
+     * Builds the payloads once per trial.
+     */
+    @Setup
+    public void setUp() {
+        unitPayload = BenchmarkPayloads.bytes(BenchmarkPayloads.unit(subunitCount));
+        institutionsPayload = BenchmarkPayloads.bytes(BenchmarkPayloads.institutions(INSTITUTIONS_PER_PAGE));
+    }
+
+    @Benchmark
+    public Unit gsonUnit() throws IOException {
+        try (InputStreamReader reader = BenchmarkPayloads.reader(unitPayload)) {
+            return CristinApiClient.fromJson(reader, Unit.class);
+        }
+    }
+
+    @Benchmark
+    public Unit decoderUnit() throws IOException {
+        try (InputStreamReader reader = BenchmarkPayloads.reader(unitPayload)) {
+            return CristinJsonDecoder.getInstance().decodeUnit(reader);
+        }
+    }
+
+    @Benchmark
+    public List<Institution> gsonInstitutions() throws IOException {
+        try (InputStreamReader reader = BenchmarkPayloads.reader(institutionsPayload)) {
+            return CristinApiClient.fromJson(reader, INSTITUTION_LIST_TYPE);
+        }
+    }
+
+    @Benchmark
+    public List<Institution> decoderInstitutions() throws IOException {
+        try (InputStreamReader reader = BenchmarkPayloads.reader(institutionsPayload)) {
+            return CristinJsonDecoder.getInstance().decodeInstitutions(reader);
+        }
+    }
+
+}
@@ -0,0 +1,78 @@
+package no.unit.nva.cristin.institutions;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Conversion to the presentation model, serialization of the result and construction of the
+ * {@link GatewayResponse} wrapping it.
+ */
+@State(Scope.Benchmark)
+public class PresentationBenchmark {
+
+    private static final int INSTITUTIONS_PER_PAGE = 5;
+
+    @Param({"10", "600"})
+    public int subunitCount;
+
+    private final PresentationConverter presentationConverter = new PresentationConverter();
+    private final PresentationJsonEncoder presentationJsonEncoder = PresentationJsonEncoder.getInstance();
+    private Unit unit;
+    private Institution institution;
+    private UnitPresentation unitPresentation;
+    private List<InstitutionPresentation> institutionPresentations;
+    private String unitBody;
+
+    /**
+     * Decodes the payloads and prepares the intermediate results once per trial.
+     *
+     * @throws IOException if a payload cannot be decoded
+     */
+    @Setup
+    public void setUp() throws IOException {
+        CristinJsonDecoder decoder = CristinJsonDecoder.getInstance();
+        unit = decoder.decodeUnit(new StringReader(BenchmarkPayloads.unit(subunitCount)));
+        institution = decoder.decodeInstitution(new StringReader(BenchmarkPayloads.institution("194")));
+        unitPresentation = presentationConverter.asUnitPresentation(unit);
+        institutionPresentations = new ArrayList<>();
+        for (Institution each : decoder.decodeInstitutions(
+                new StringReader(BenchmarkPayloads.institutions(INSTITUTIONS_PER_PAGE)))) {
+            institutionPresentations.add(presentationConverter.asInstitutionPresentation(each));
+        }
+        unitBody = presentationJsonEncoder.toJson(unitPresentation);
+    }
+
+    @Benchmark
+    public UnitPresentation asUnitPresentation() {
+        return presentationConverter.asUnitPresentation(unit);
+    }
+
+    @Benchmark
+    public InstitutionPresentation asInstitutionPresentation() {
+        return presentationConverter.asInstitutionPresentation(institution);
+    }
+
+    @Benchmark
+    public String encodeUnit() {
+        return presentationJsonEncoder.toJson(unitPresentation);
+    }
+
+    @Benchmark
+    public String encodeInstitutions() {
+        return presentationJsonEncoder.toJson(institutionPresentations);
+    }
+
+    @Benchmark
+    public GatewayResponse gatewayResponse() {
+        return new GatewayResponse(unitBody, 200);
+    }
+
+}
@@ -0,0 +1,60 @@
+package no.unit.nva.cristin.institutions;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Typo-tolerant search over the whole institution catalog, as the handler runs it for the first page. The catalog
+ * is read from the crawled snapshot named by the {@code catalogSnapshot} system property, which the {@code jmh}
+ * task sets from {@code -PjmhCatalog} (default {@code dump/catalog.ndjson}); without a crawl at hand a synthetic
+ * catalog of {@value #SYNTHETIC_CATALOG_SIZE} institutions stands in. Run with {@code -PjmhMode=sample} to see the
+ * latency percentiles; the 99th should stay under 10 ms.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class WholeCatalogSearchBenchmark {
+
+    private static final String CATALOG_SNAPSHOT_PROPERTY = "catalogSnapshot";
+    private static final int SYNTHETIC_CATALOG_SIZE = 50_000;
+    private static final int FIRST_PAGE = 10;
+
+    private InstitutionSearchIndex index;
+    private int next;
+
+    /**
+     * Builds the index over the crawled catalog, or a synthetic one, once per trial.
+     *
+     * @throws IOException if the crawled snapshot cannot be read
+     */
+    @Setup
+    public void setUp() throws IOException {
+        Path snapshot = Paths.get(System.getProperty(CATALOG_SNAPSHOT_PROPERTY, ""));
+        List<Institution> institutions;
+        if (Files.isRegularFile(snapshot)) {
+            institutions = CatalogCrawler.readRecords(snapshot, CatalogCrawler.INSTITUTION, Institution.class);
+        } else {
+            institutions = FuzzySearchBenchmark.syntheticCatalog(SYNTHETIC_CATALOG_SIZE);
+        }
+        index = new InstitutionSearchIndex(institutions, 0L);
+    }
+
+    @Benchmark
+    public List<Institution> fuzzySearch() {
+        next = (next + 1) % FuzzySearchBenchmark.QUERIES.length;
+        return index.fuzzySearch(FuzzySearchBenchmark.QUERIES[next], FIRST_PAGE);
+    }
+
+}
@@ -0,0 +1,297 @@
+package no.unit.nva.cristin.institutions;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Local stand-in for the {@code /v2/institutions/} and {@code /v2/units/} endpoints of the Cristin API, serving
+ * payloads built from the recorded fixtures. Every response is delayed by a sample from the latency model, a
+ * share of the requests fail with 503 or 404, and the number of search results and subunits per unit can be
+ * raised to test larger payloads. Point the handlers at it with {@code CRISTIN_API_URL=http://localhost:<port>}.
+ */
+public class CristinStandIn implements AutoCloseable {
+
+    private static final String INSTITUTIONS_PATH = "/v2/institutions/";
+    private static final String UNITS_PATH = "/v2/units/";
+    private static final String QUERY_INSTITUTIONS_FIXTURE = "/cristinQueryInstitutionsResponse.json";
+    private static final String GET_INSTITUTION_FIXTURE = "/cristinGetInstitutionResponse.json";
+    private static final String GET_UNIT_FIXTURE = "/cristinGetUnitWithSubunitsFirstResponse.json";
+    private static final String ID_PLACEHOLDER = "__ID__";
+    private static final String CRISTIN_INSTITUTION_ID = "cristin_institution_id";
+    private static final String CRISTIN_UNIT_ID = "cristin_unit_id";
+    private static final String SUBUNITS = "subunits";
+    private static final String URL = "url";
+    private static final String CONTENT_TYPE = "Content-Type";
+    private static final String APPLICATION_JSON = "application/json; charset=utf-8";
+    private static final String TOTAL_COUNT_HEADER = "X-Total-Count";
+    private static final int HTTP_OK = 200;
+    private static final int HTTP_NOT_FOUND = 404;
+    private static final int HTTP_SERVICE_UNAVAILABLE = 503;
+    private static final int NO_BODY = -1;
+    private static final double PERCENT = 100.0;
+    private static final Gson GSON = new Gson();
+
+    private final transient Options options;
+    private final transient String queryInstitutionsBody;
+    private final transient String institutionTemplate;
+    private final transient String unitTemplate;
+    private final transient LongAdder requests = new LongAdder();
+    private final transient ExecutorService executor = Executors.newCachedThreadPool();
+    private final transient HttpServer server;
+
+    /**
+     * Starts the stand-in on the given port.
+     *
+     * @param options latency, error and payload settings
+     * @throws IOException if the port cannot be bound or a fixture cannot be read
+     */
+    public CristinStandIn(Options options) throws IOException {
+        this.options = options;
+        this.queryInstitutionsBody = buildQueryInstitutionsBody(options.searchResults);
+        this.institutionTemplate = buildInstitutionTemplate();
+        this.unitTemplate = buildUnitTemplate(options.subunits);
+        this.server = HttpServer.create(new InetSocketAddress(options.port), 0);
+        server.createContext(INSTITUTIONS_PATH, this::serveInstitutions);
+        server.createContext(UNITS_PATH, this::serveUnit);
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    /**
+     * Runs the stand-in until the process is stopped, e.g.
+     * {@code ./gradlew cristinStandIn -PstandInArgs="--port 8089 --latency 20/200 --error-percent 1"}.
+     *
+     * @param args options, see {@link Options#parse(String[])}
+     * @throws IOException if the stand-in cannot be started
+     */
+    public static void main(String[] args) throws IOException {
+        CristinStandIn standIn = new CristinStandIn(Options.parse(args));
+        System.out.println("Cristin stand-in listening on " + standIn.getBaseUrl());
+    }
+
+    public String getBaseUrl() {
+        return "http://localhost:" + server.getAddress().getPort();
+    }
+
+    public long getRequestCount() {
+        return requests.sum();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void serveInstitutions(HttpExchange exchange) throws IOException {
+        String id = exchange.getRequestURI().getPath().substring(INSTITUTIONS_PATH.length());
+        if (id.isEmpty()) {
+            exchange.getResponseHeaders().set(TOTAL_COUNT_HEADER, Integer.toString(options.searchResults));
+            respond(exchange, queryInstitutionsBody);
+        } else {
+            respond(exchange, institutionTemplate.replace(ID_PLACEHOLDER, id));
+        }
+    }
+
+    private void serveUnit(HttpExchange exchange) throws IOException {
+        String id = exchange.getRequestURI().getPath().substring(UNITS_PATH.length());
+        respond(exchange, unitTemplate.replace(ID_PLACEHOLDER, id));
+    }
+
+    private void respond(HttpExchange exchange, String body) throws IOException {
+        requests.increment();
+        try {
+            sleep(options.latency.sampleMillis(ThreadLocalRandom.current()));
+            double draw = ThreadLocalRandom.current().nextDouble() * PERCENT;
+            if (draw < options.errorPercent) {
+                exchange.sendResponseHeaders(HTTP_SERVICE_UNAVAILABLE, NO_BODY);
+                return;
+            }
+            if (draw < options.errorPercent + options.notFoundPercent) {
+                exchange.sendResponseHeaders(HTTP_NOT_FOUND, NO_BODY);
+                return;
+            }
+            byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set(CONTENT_TYPE, APPLICATION_JSON);
+            exchange.sendResponseHeaders(HTTP_OK, bytes.length);
+            try (OutputStream responseBody = exchange.getResponseBody()) {
+                responseBody.write(bytes);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private static void sleep(long millis) {
+        if (millis <= 0) {
+            return;
+        }
+        try {
+            TimeUnit.MILLISECONDS.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static String buildQueryInstitutionsBody(int results) throws IOException {
+        JsonArray fixture = readFixture(QUERY_INSTITUTIONS_FIXTURE).getAsJsonArray();
+        JsonArray institutions = new JsonArray();
+        for (int i = 0; i < results; i++) {
+            JsonObject institution = fixture.get(i % fixture.size()).getAsJsonObject().deepCopy();
+            String id = i < fixture.size()
+                    ? institution.get(CRISTIN_INSTITUTION_ID).getAsString()
+                    : Integer.toString(i + 1);
+            institution.addProperty(CRISTIN_INSTITUTION_ID, id);
+            institution.addProperty(URL, Config.DEFAULT_CRISTIN_API_URL + INSTITUTIONS_PATH + id);
+            institutions.add(institution);
+        }
+        return GSON.toJson(institutions);
+    }
+
+    private static String buildInstitutionTemplate() throws IOException {
+        JsonObject institution = readFixture(GET_INSTITUTION_FIXTURE).getAsJsonObject();
+        institution.addProperty(CRISTIN_INSTITUTION_ID, ID_PLACEHOLDER);
+        return GSON.toJson(institution);
+    }
+
+    private static String buildUnitTemplate(int subunitCount) throws IOException {
+        JsonObject unit = readFixture(GET_UNIT_FIXTURE).getAsJsonObject();
+        unit.addProperty(CRISTIN_UNIT_ID, ID_PLACEHOLDER);
+        JsonArray fixtureSubunits = unit.getAsJsonArray(SUBUNITS);
+        JsonArray subunits = new JsonArray();
+        for (int i = 0; i < subunitCount; i++) {
+            JsonObject subunit = fixtureSubunits.get(i % fixtureSubunits.size()).getAsJsonObject().deepCopy();
+            String id = ID_PLACEHOLDER + "." + i;
+            subunit.addProperty(CRISTIN_UNIT_ID, id);
+            subunit.addProperty(URL, Config.DEFAULT_CRISTIN_API_URL + UNITS_PATH + id);
+            subunits.add(subunit);
+        }
+        unit.add(SUBUNITS, subunits);
+        return GSON.toJson(unit);
+    }
+
+    private static JsonElement readFixture(String name) throws IOException {
+        InputStream inputStream = CristinStandIn.class.getResourceAsStream(name);
+        if (inputStream == null) {
+            throw new IOException("Fixture not found: " + name);
+        }
+        try (InputStreamReader reader = new InputStreamReader(inputStream, StandardCharsets.UTF_8)) {
+            return JsonParser.parseReader(reader);
+        }
+    }
+
+    /**
+     * Response latency: fixed, or log-normal given its median and 99th percentile.
+     */
+    public static final class Latency {
+
+        private static final double Z_99 = 2.326;
+        private static final String SEPARATOR = "/";
+
+        private final transient double medianMillis;
+        private final transient double sigma;
+
+        private Latency(double medianMillis, double p99Millis) {
+            this.medianMillis = medianMillis;
+            this.sigma = p99Millis > medianMillis ? Math.log(p99Millis / medianMillis) / Z_99 : 0;
+        }
+
+        /**
+         * Parses {@code <millis>} for a fixed latency or {@code <median>/<p99>} for a log-normal one.
+         *
+         * @param spec latency specification
+         * @return the latency model
+         */
+        public static Latency parse(String spec) {
+            String[] parts = spec.split(SEPARATOR);
+            double median = Double.parseDouble(parts[0]);
+            return new Latency(median, parts.length > 1 ? Double.parseDouble(parts[1]) : median);
+        }
+
+        long sampleMillis(Random random) {
+            return Math.round(medianMillis * Math.exp(sigma * random.nextGaussian()));
+        }
+    }
+
+    /**
+     * Stand-in settings, parsed from {@code --name value} pairs.
+     */
+    public static final class Options {
+
+        private static final String OPTION_PREFIX = "--";
+
+        private transient int port;
+        private transient Latency latency = Latency.parse("20/100");
+        private transient double errorPercent;
+        private transient double notFoundPercent;
+        private transient int searchResults = 10;
+        private transient int subunits = 20;
+
+        /**
+         * Parses {@code --port} (0 for any free port), {@code --latency} ({@code <millis>} or
+         * {@code <median>/<p99>}), {@code --error-percent} (503 responses), {@code --not-found-percent}
+         * (404 responses), {@code --search-results} and {@code --subunits}.
+         *
+         * @param args command line arguments
+         * @return the settings, with defaults for options not given
+         */
+        public static Options parse(String[] args) {
+            Options options = new Options();
+            for (int i = 0; i + 1 < args.length; i += 2) {
+                options.set(args[i], args[i + 1]);
+            }
+            return options;
+        }
+
+        /**
+         * Sets one option, ignoring names the stand-in does not know.
+         *
+         * @param name  option name with the leading dashes
+         * @param value option value
+         * @return whether the option belongs to the stand-in
+         */
+        public boolean set(String name, String value) {
+            switch (name.startsWith(OPTION_PREFIX) ? name.substring(OPTION_PREFIX.length()) : name) {
+                case "port":
+                    port = Integer.parseInt(value);
+                    return true;
+                case "latency":
+                    latency = Latency.parse(value);
+                    return true;
+                case "error-percent":
+                    errorPercent = Double.parseDouble(value);
+                    return true;
+                case "not-found-percent":
+                    notFoundPercent = Double.parseDouble(value);
+                    return true;
+                case "search-results":
+                    searchResults = Integer.parseInt(value);
+                    return true;
+                case "subunits":
+                    subunits = Integer.parseInt(value);
+                    return true;
+                default:
+                    return false;
+            }
+        }
+    }
+
+}
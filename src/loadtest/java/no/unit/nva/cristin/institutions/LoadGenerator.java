@@ -0,0 +1,252 @@
+package no.unit.nva.cristin.institutions;
+
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-loop load generator that drives {@link FetchCristinInstitutions} and {@link FetchCristinUnit} at a target
+ * request rate against a {@link CristinStandIn}, through the same client stack as in Lambda. Latency is measured
+ * from the time a request was due, so a backlog shows up in the percentiles instead of lowering the rate.
+ * Reports throughput, latency percentiles, status codes, Cristin requests per handler request and allocation.
+ */
+public class LoadGenerator {
+
+    private static final String OPTION_PREFIX = "--";
+    private static final String RESULT_PREFIX = "LOAD_TEST";
+    private static final String UNIT_ID_FORMAT = "194.%d.0.0";
+    private static final String SEARCH_NAME = "ntnu";
+    private static final String LANGUAGE = "nb";
+    private static final double[] PERCENTILES = {50, 90, 99, 100};
+    private static final String[] PERCENTILE_NAMES = {"p50Ms", "p90Ms", "p99Ms", "maxMs"};
+    private static final int ERROR_STATUS = 599;
+    private static final int PERCENT = 100;
+    private static final double KILOBYTE = 1024.0;
+    private static final long AWAIT_SECONDS = 60;
+
+    private transient int rate = 50;
+    private transient int durationSeconds = 30;
+    private transient int warmupSeconds = 10;
+    private transient int concurrency = 64;
+    private transient int unitPercent = 50;
+    private transient int distinctUnits = 1000;
+
+    /**
+     * Starts a stand-in, runs the load and prints one {@code LOAD_TEST} line per handler and one in total, e.g.
+     * {@code ./gradlew loadTest -PloadTestArgs="--rate 200 --duration 60 --latency 20/200 --subunits 100"}.
+     * Besides the stand-in options it takes {@code --rate} (requests per second), {@code --duration} and
+     * {@code --warmup} (seconds), {@code --concurrency} (worker threads), {@code --unit-percent} (share of unit
+     * lookups, the rest are institution searches) and {@code --distinct-units} (ids the lookups are spread over).
+     *
+     * @param args options as {@code --name value} pairs
+     * @throws IOException          if the stand-in cannot be started
+     * @throws InterruptedException if interrupted while waiting for the requests to finish
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        LoadGenerator generator = new LoadGenerator();
+        CristinStandIn.Options standInOptions = new CristinStandIn.Options();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            if (!standInOptions.set(args[i], args[i + 1])) {
+                generator.set(args[i], args[i + 1]);
+            }
+        }
+        try (CristinStandIn standIn = new CristinStandIn(standInOptions)) {
+            Config.getInstance().setCristinApiUrl(standIn.getBaseUrl());
+            generator.run(standIn);
+        }
+        System.exit(0);
+    }
+
+    private void set(String name, String value) {
+        int parsed = Integer.parseInt(value);
+        switch (name.substring(OPTION_PREFIX.length())) {
+            case "rate":
+                rate = parsed;
+                break;
+            case "duration":
+                durationSeconds = parsed;
+                break;
+            case "warmup":
+                warmupSeconds = parsed;
+                break;
+            case "concurrency":
+                concurrency = parsed;
+                break;
+            case "unit-percent":
+                unitPercent = parsed;
+                break;
+            case "distinct-units":
+                distinctUnits = parsed;
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown option " + name);
+        }
+    }
+
+    private void run(CristinStandIn standIn) throws InterruptedException {
+        FetchCristinInstitutions institutionsHandler = new FetchCristinInstitutions();
+        FetchCristinUnit unitHandler = new FetchCristinUnit();
+        Stats institutionStats = new Stats(FetchCristinInstitutions.class.getSimpleName());
+        Stats unitStats = new Stats(FetchCristinUnit.class.getSimpleName());
+        ExecutorService workers = Executors.newFixedThreadPool(concurrency);
+
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / rate;
+        long started = System.nanoTime();
+        long measuredFrom = started + TimeUnit.SECONDS.toNanos(warmupSeconds);
+        long end = measuredFrom + TimeUnit.SECONDS.toNanos(durationSeconds);
+        long upstreamRequestsBefore = 0;
+        long allocatedBefore = 0;
+        long[] gcBefore = null;
+        for (long due = started; due < end; due += intervalNanos) {
+            LockSupport.parkNanos(due - System.nanoTime());
+            if (gcBefore == null && due >= measuredFrom) {
+                upstreamRequestsBefore = standIn.getRequestCount();
+                allocatedBefore = allocatedBytes();
+                gcBefore = gcCountAndMillis();
+            }
+            boolean measured = due >= measuredFrom;
+            long dueAt = due;
+            if (ThreadLocalRandom.current().nextInt(PERCENT) < unitPercent) {
+                workers.execute(() -> unitStats.record(dueAt, measured, () -> unitHandler.handleRequest(
+                        unitEvent(ThreadLocalRandom.current().nextInt(distinctUnits)), null)));
+            } else {
+                workers.execute(() -> institutionStats.record(dueAt, measured,
+                        () -> institutionsHandler.handleRequest(institutionsEvent(), null)));
+            }
+        }
+        workers.shutdown();
+        workers.awaitTermination(AWAIT_SECONDS, TimeUnit.SECONDS);
+        long elapsedNanos = System.nanoTime() - measuredFrom;
+        long allocated = allocatedBytes() - allocatedBefore;
+        long[] gcAfter = gcCountAndMillis();
+        long upstreamRequests = standIn.getRequestCount() - upstreamRequestsBefore;
+
+        institutionStats.print(elapsedNanos);
+        unitStats.print(elapsedNanos);
+        long requests = institutionStats.count() + unitStats.count();
+        System.out.println(RESULT_PREFIX + " handler=all"
+                + " targetRate=" + rate
+                + " requests=" + requests
+                + " throughputPerSec=" + format(requests * 1e9 / elapsedNanos)
+                + " cristinRequestsPerRequest=" + format(requests == 0 ? 0 : (double) upstreamRequests / requests)
+                + " allocatedKbPerRequest=" + format(requests == 0 ? 0 : allocated / KILOBYTE / requests)
+                + " gcCount=" + (gcAfter[0] - gcBefore[0])
+                + " gcMs=" + (gcAfter[1] - gcBefore[1]));
+    }
+
+    private static Map<String, Object> institutionsEvent() {
+        Map<String, String> queryParameters = new HashMap<>();
+        queryParameters.put("name", SEARCH_NAME);
+        queryParameters.put("language", LANGUAGE);
+        Map<String, Object> event = new HashMap<>();
+        event.put("queryStringParameters", queryParameters);
+        return event;
+    }
+
+    private static Map<String, Object> unitEvent(int unit) {
+        Map<String, String> pathParameters = new HashMap<>();
+        pathParameters.put("id", String.format(UNIT_ID_FORMAT, unit));
+        Map<String, Object> event = new HashMap<>();
+        event.put("pathParameters", pathParameters);
+        return event;
+    }
+
+    /**
+     * Bytes allocated by all live threads. Threads that have ended are not counted, which is why the workers
+     * are a fixed pool.
+     *
+     * @return allocated bytes, or 0 if the JVM does not report allocation
+     */
+    private static long allocatedBytes() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (!(threads instanceof com.sun.management.ThreadMXBean)) {
+            return 0;
+        }
+        long total = 0;
+        for (long allocated : ((com.sun.management.ThreadMXBean) threads)
+                .getThreadAllocatedBytes(threads.getAllThreadIds())) {
+            total += Math.max(0, allocated);
+        }
+        return total;
+    }
+
+    private static long[] gcCountAndMillis() {
+        long[] totals = new long[2];
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            totals[0] += Math.max(0, collector.getCollectionCount());
+            totals[1] += Math.max(0, collector.getCollectionTime());
+        }
+        return totals;
+    }
+
+    private static String format(double value) {
+        return String.format("%.2f", value);
+    }
+
+    /**
+     * Latencies and status codes of the measured requests to one handler.
+     */
+    private static class Stats {
+
+        private final transient String handler;
+        private final transient LatencyHistogram latencies = new LatencyHistogram();
+        private final transient ConcurrentMap<Integer, LongAdder> statuses = new ConcurrentHashMap<>();
+
+        Stats(String handler) {
+            this.handler = handler;
+        }
+
+        void record(long dueNanos, boolean measured, Request request) {
+            int statusCode;
+            try {
+                statusCode = request.send().getStatusCode();
+            } catch (RuntimeException e) {
+                statusCode = ERROR_STATUS;
+            }
+            if (measured) {
+                latencies.record(System.nanoTime() - dueNanos);
+                statuses.computeIfAbsent(statusCode, status -> new LongAdder()).increment();
+            }
+        }
+
+        long count() {
+            return latencies.getCount();
+        }
+
+        void print(long elapsedNanos) {
+            StringBuilder line = new StringBuilder(RESULT_PREFIX)
+                    .append(" handler=").append(handler)
+                    .append(" requests=").append(count())
+                    .append(" throughputPerSec=").append(format(count() * 1e9 / elapsedNanos))
+                    .append(" meanMs=").append(format(latencies.getMeanMillis()));
+            for (int i = 0; i < PERCENTILES.length; i++) {
+                line.append(' ').append(PERCENTILE_NAMES[i]).append('=')
+                        .append(format(latencies.getPercentileMillis(PERCENTILES[i])));
+            }
+            line.append(" statuses=").append(new TreeMap<>(statuses));
+            System.out.println(line);
+        }
+    }
+
+    /**
+     * One handler invocation.
+     */
+    @FunctionalInterface
+    private interface Request {
+
+        GatewayResponse send();
+    }
+
+}
@@ -0,0 +1,282 @@
+package no.unit.nva.cristin.institutions;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * CristinApiClient that serves institution and unit lookups from an in-process cache, falling back to the
+ * delegate client on a miss. Concurrent misses for the same record share one upstream
+ * request. Expired entries that came with an {@code ETag} or {@code Last-Modified} validator are revalidated
+ * with a conditional request, and on {@code 304 Not Modified} the cached object is kept for another time-to-live.
+ *
+ * <p>An entry that expired less than the stale-while-revalidate window ago is served at once while a background
+ * refresh runs. An older entry is refetched, but served anyway if the upstream request fails and the entry
+ * expired less than the stale-if-error window ago.</p>
+ *
+ * <p>A record missing from the cache is taken from the bundled catalog snapshot if it is there. It is cached like
+ * a fetched record, so it is fetched from Cristin again once its time-to-live has passed, and the snapshot only
+ * saves the first lookup of each record in a container.</p>
+ *
+ * <p>Records are fetched and cached once with the names in all languages, whatever language the caller asks for,
+ * so callers pick the names for their language with {@link PresentationConverter}.</p>
+ *
+ * <p>Ids Cristin answers with {@code 404 Not Found} are remembered in a separate, smaller cache with a shorter
+ * time-to-live, and lookups of them fail with the same {@link UpstreamStatusException} without a request.</p>
+ */
+public class CachingCristinApiClient extends CristinApiClient {
+
+    private static final int REFRESH_PARALLELISM = 2;
+    private static final String NOT_FOUND = "Not found in Cristin: ";
+
+    private final transient CristinApiClient delegate;
+    private final transient Optional<CatalogSnapshot> catalogSnapshot;
+    private final transient CachedLookups<Institution> institutions;
+    private final transient CachedLookups<Unit> units;
+    private final transient long staleWhileRevalidateMillis;
+    private final transient long staleIfErrorMillis;
+    private final transient ParallelExecutor refreshExecutor = new ParallelExecutor(REFRESH_PARALLELISM);
+
+    public CachingCristinApiClient(CristinApiClient delegate) {
+        this(delegate, Config.getInstance(), CatalogSnapshot.bundled());
+    }
+
+    /**
+     * Creates a caching client with cache sizes, time-to-live and stale windows taken from the config.
+     *
+     * @param delegate        client used on cache misses
+     * @param config          cache settings
+     * @param catalogSnapshot snapshot seeding the cache on a miss, if any
+     */
+    public CachingCristinApiClient(CristinApiClient delegate, Config config,
+                                   Optional<CatalogSnapshot> catalogSnapshot) {
+        this(delegate, config, catalogSnapshot, System::currentTimeMillis);
+    }
+
+    /**
+     * Creates a caching client with cache sizes, time-to-live and stale windows taken from the config and entry
+     * ages measured with the given clock.
+     *
+     * @param delegate        client used on cache misses
+     * @param config          cache settings
+     * @param catalogSnapshot snapshot seeding the cache on a miss, if any
+     * @param clock           source of the current time in milliseconds
+     */
+    public CachingCristinApiClient(CristinApiClient delegate, Config config,
+                                   Optional<CatalogSnapshot> catalogSnapshot, LongSupplier clock) {
+        this.delegate = delegate;
+        this.catalogSnapshot = catalogSnapshot;
+        long ttlMillis = TimeUnit.SECONDS.toMillis(config.getCacheTtlSeconds());
+        this.staleWhileRevalidateMillis = ttlMillis
+                + TimeUnit.SECONDS.toMillis(config.getCacheStaleWhileRevalidateSeconds());
+        this.staleIfErrorMillis = ttlMillis + TimeUnit.SECONDS.toMillis(config.getCacheStaleIfErrorSeconds());
+        long notFoundTtlMillis = TimeUnit.SECONDS.toMillis(config.getNegativeCacheTtlSeconds());
+        this.institutions = new CachedLookups<>(new LookupCache<>(config.getCacheMaxEntries(), ttlMillis, clock),
+                new LookupCache<>(config.getNegativeCacheMaxEntries(), notFoundTtlMillis, clock));
+        this.units = new CachedLookups<>(new LookupCache<>(config.getCacheMaxEntries(), ttlMillis, clock),
+                new LookupCache<>(config.getNegativeCacheMaxEntries(), notFoundTtlMillis, clock));
+    }
+
+    @Override
+    protected List<Institution> queryInstitutions(Map<String, String> parameters) throws
+            IOException, URISyntaxException {
+        return delegate.queryInstitutions(parameters);
+    }
+
+    @Override
+    protected InstitutionPage queryInstitutionsPage(Map<String, String> parameters) throws
+            IOException, URISyntaxException {
+        return delegate.queryInstitutionsPage(parameters);
+    }
+
+    @Override
+    protected Institution getInstitution(String id, String language) throws IOException, URISyntaxException {
+        LookupKey key = new LookupKey(id, ALL_LANGUAGES);
+        return lookup(institutions, key, () -> catalogSnapshot.flatMap(snapshot -> snapshot.findInstitution(id)),
+                validators -> delegate.getInstitutionIfModified(id, ALL_LANGUAGES, validators),
+                RequestTimings.current());
+    }
+
+    @Override
+    protected Unit getUnit(String id, String language) throws IOException, URISyntaxException {
+        LookupKey key = new LookupKey(id, ALL_LANGUAGES);
+        return lookup(units, key, () -> catalogSnapshot.flatMap(snapshot -> snapshot.findUnit(id)),
+                validators -> delegate.getUnitIfModified(id, ALL_LANGUAGES, validators), RequestTimings.current());
+    }
+
+    private <V> V lookup(CachedLookups<V> lookups, LookupKey key, Supplier<Optional<V>> snapshotLookup,
+                         ConditionalLoader<V> loader, RequestTimings timings) throws IOException, URISyntaxException {
+        if (lookups.notFound.getIfPresent(key) != null) {
+            timings.recordCache(RequestTimings.CACHE_NEGATIVE_HIT);
+            throw new UpstreamStatusException(NOT_FOUND + key, UpstreamStatusException.NOT_FOUND);
+        }
+        Optional<LookupCache.Entry<Validated<V>>> entry = lookups.cache.getEntry(key);
+        if (entry.isEmpty()) {
+            Optional<V> bundled = snapshotLookup.get();
+            if (bundled.isPresent()) {
+                timings.recordCache(RequestTimings.CACHE_SNAPSHOT);
+                lookups.cache.put(key, Validated.of(bundled.get(), Validators.NONE));
+                return bundled.get();
+            }
+        }
+        if (entry.isPresent() && entry.get().isFresh()) {
+            timings.recordCache(RequestTimings.CACHE_HIT);
+            return entry.get().getValue().getValue();
+        }
+        if (entry.isPresent() && entry.get().getAgeMillis() < staleWhileRevalidateMillis) {
+            timings.recordCache(RequestTimings.CACHE_STALE);
+            timings.recordStale(entry.get().getAgeMillis());
+            refreshInBackground(lookups, key, entry.get().getValue(), loader);
+            return entry.get().getValue().getValue();
+        }
+        try {
+            return load(lookups, key, entry.map(LookupCache.Entry::getValue), loader, timings);
+        } catch (IOException e) {
+            if (!UpstreamStatusException.isNotFound(e) && entry.isPresent()
+                    && entry.get().getAgeMillis() < staleIfErrorMillis) {
+                timings.recordCache(RequestTimings.CACHE_STALE_IF_ERROR);
+                timings.recordStale(entry.get().getAgeMillis());
+                return entry.get().getValue().getValue();
+            }
+            throw e;
+        }
+    }
+
+    private <V> V load(CachedLookups<V> lookups, LookupKey key, Optional<Validated<V>> cached,
+                       ConditionalLoader<V> loader, RequestTimings timings) throws IOException, URISyntaxException {
+        Optional<Validated<V>> revalidatable = cached.filter(value -> !value.getValidators().isEmpty());
+        Validators validators = revalidatable.map(Validated::getValidators).orElse(Validators.NONE);
+        Validated<V> loaded;
+        try {
+            loaded = lookups.flights.execute(new FlightKey(key, validators), () -> loader.load(validators));
+        } catch (UpstreamStatusException e) {
+            if (e.isNotFound()) {
+                timings.recordCache(RequestTimings.CACHE_NOT_FOUND);
+                lookups.cache.invalidate(key);
+                lookups.notFound.put(key, Boolean.TRUE);
+            }
+            throw e;
+        }
+        if (loaded.isNotModified() && revalidatable.isPresent()) {
+            timings.recordCache(RequestTimings.CACHE_REVALIDATED);
+            lookups.cache.put(key, revalidatable.get());
+            return revalidatable.get().getValue();
+        }
+        timings.recordCache(RequestTimings.CACHE_MISS);
+        if (loaded.getValue() != null) {
+            lookups.cache.put(key, loaded);
+        }
+        return loaded.getValue();
+    }
+
+    private <V> void refreshInBackground(CachedLookups<V> lookups, LookupKey key, Validated<V> cached,
+                                         ConditionalLoader<V> loader) {
+        if (!lookups.refreshing.add(key)) {
+            return;
+        }
+        refreshExecutor.execute(() -> {
+            try {
+                load(lookups, key, Optional.of(cached), loader, RequestTimings.current());
+            } catch (IOException | URISyntaxException e) {
+                System.out.println("Error refreshing cached cristin record " + key + ": " + e.getMessage());
+            } finally {
+                lookups.refreshing.remove(key);
+            }
+        });
+    }
+
+    protected LookupCache<LookupKey, Validated<Institution>> getInstitutionCache() {
+        return institutions.cache;
+    }
+
+    protected LookupCache<LookupKey, Validated<Unit>> getUnitCache() {
+        return units.cache;
+    }
+
+    protected LookupCache<LookupKey, Boolean> getInstitutionNotFoundCache() {
+        return institutions.notFound;
+    }
+
+    protected LookupCache<LookupKey, Boolean> getUnitNotFoundCache() {
+        return units.notFound;
+    }
+
+    protected long getDeduplicatedCount() {
+        return institutions.flights.getDeduplicatedCount() + units.flights.getDeduplicatedCount();
+    }
+
+    /**
+     * Loads a value from the delegate, conditionally when validators of a cached copy are given.
+     *
+     * @param <V> value type
+     */
+    @FunctionalInterface
+    private interface ConditionalLoader<V> {
+
+        Validated<V> load(Validators validators) throws IOException, URISyntaxException;
+    }
+
+    /**
+     * Identifies an upstream request for a record: only callers sending the same validators share one, since a
+     * {@code 304 Not Modified} is only an answer for a caller holding the copy those validators describe.
+     */
+    private static class FlightKey {
+
+        private final LookupKey key;
+        private final Validators validators;
+
+        FlightKey(LookupKey key, Validators validators) {
+            this.key = key;
+            this.validators = validators;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (this == other) {
+                return true;
+            }
+            if (!(other instanceof FlightKey)) {
+                return false;
+            }
+            FlightKey that = (FlightKey) other;
+            return key.equals(that.key) && validators.equals(that.validators);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(key, validators);
+        }
+
+        @Override
+        public String toString() {
+            return key.toString();
+        }
+    }
+
+    /**
+     * Cache, ids known to be missing, in-flight requests and running background refreshes for one kind of record.
+     *
+     * @param <V> value type
+     */
+    private static class CachedLookups<V> {
+
+        private final LookupCache<LookupKey, Validated<V>> cache;
+        private final LookupCache<LookupKey, Boolean> notFound;
+        private final SingleFlight<FlightKey, Validated<V>> flights = new SingleFlight<>();
+        private final Set<LookupKey> refreshing = ConcurrentHashMap.newKeySet();
+
+        CachedLookups(LookupCache<LookupKey, Validated<V>> cache, LookupCache<LookupKey, Boolean> notFound) {
+            this.cache = cache;
+            this.notFound = notFound;
+        }
+    }
+
+}
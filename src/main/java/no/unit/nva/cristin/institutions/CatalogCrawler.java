@@ -0,0 +1,416 @@
+package no.unit.nva.cristin.institutions;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Crawls every Cristin institution, by paging through the institution search, and every unit, by following
+ * corresponding units and subunit links, into an NDJSON snapshot with one record per line. Lookups run with
+ * bounded parallelism and at most a configured number of Cristin requests per second.
+ *
+ * <p>Each line is {@code {"type", "id", "etag", "lastModified", "record"}}, where the record is in the Cristin
+ * API format. A refresh sends the validators of the previous snapshot with every lookup, so records Cristin
+ * reports as not modified are copied instead of downloaded. Lines are appended to {@code <output>.partial} as
+ * they are fetched, and the file is moved into place once the crawl completes without failures. A crawl that is
+ * interrupted or has failed lookups resumes from the partial file on the next run, fetching only the records
+ * that are missing from it. {@link #readRecords(Path, String, Class)} reads the records back, so the catalog
+ * snapshot and the search index can be built from a crawl.</p>
+ */
+public class CatalogCrawler {
+
+    public static final String INSTITUTION = "institution";
+    public static final String UNIT = "unit";
+    public static final String SNAPSHOT_SUFFIX = ".ndjson";
+
+    private static final String USAGE = "Usage: CatalogCrawler <output.ndjson> [parallelism] [requestsPerSecond]"
+            + " [language]";
+    private static final String PARTIAL_SUFFIX = ".partial";
+    private static final String TYPE = "type";
+    private static final String ID = "id";
+    private static final String ETAG = "etag";
+    private static final String LAST_MODIFIED = "lastModified";
+    private static final String RECORD = "record";
+    private static final String KEY_SEPARATOR = ":";
+    private static final int DEFAULT_PARALLELISM = 4;
+    private static final int DEFAULT_REQUESTS_PER_SECOND = 10;
+    private static final String DEFAULT_LANGUAGE = CristinApiClient.ALL_LANGUAGES;
+    private static final int PER_PAGE = 100;
+    private static final int HTTP_NOT_FOUND = 404;
+    private static final Gson GSON = new Gson();
+
+    private final transient CristinApiClient cristinApiClient;
+    private final transient ParallelExecutor executor;
+    private final transient String language;
+    private final transient AtomicInteger fetched = new AtomicInteger();
+    private final transient AtomicInteger notModified = new AtomicInteger();
+    private final transient AtomicInteger resumed = new AtomicInteger();
+    private final transient AtomicInteger removed = new AtomicInteger();
+    private final transient AtomicInteger failed = new AtomicInteger();
+
+    /**
+     * Creates a crawler that sends at most {@code requestsPerSecond} requests to Cristin.
+     *
+     * @param parallelism       maximum number of concurrent lookups
+     * @param requestsPerSecond maximum request rate
+     * @param language          language of the names requested from Cristin, or {@link CristinApiClient#ALL_LANGUAGES}
+     */
+    public CatalogCrawler(int parallelism, int requestsPerSecond, String language) {
+        this(new ThrottledCristinApiClient(requestsPerSecond), parallelism, language);
+    }
+
+    /**
+     * Creates a crawler using the given client.
+     *
+     * @param cristinApiClient client used for all lookups
+     * @param parallelism      maximum number of concurrent lookups
+     * @param language         language of the names requested from Cristin, or {@link CristinApiClient#ALL_LANGUAGES}
+     */
+    public CatalogCrawler(CristinApiClient cristinApiClient, int parallelism, String language) {
+        this.cristinApiClient = cristinApiClient;
+        this.executor = new ParallelExecutor(parallelism);
+        this.language = language;
+    }
+
+    /**
+     * Crawls the catalog into the output file, refreshing it incrementally if it exists.
+     *
+     * @param args output file, and optionally parallelism, requests per second and language
+     * @throws IOException if the snapshot cannot be written
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            throw new IllegalArgumentException(USAGE);
+        }
+        int parallelism = args.length > 1 ? Config.parsePositiveInt(args[1], DEFAULT_PARALLELISM)
+                : DEFAULT_PARALLELISM;
+        int requestsPerSecond = args.length > 2 ? Config.parsePositiveInt(args[2], DEFAULT_REQUESTS_PER_SECOND)
+                : DEFAULT_REQUESTS_PER_SECOND;
+        String language = args.length > 3 ? args[3] : DEFAULT_LANGUAGE;
+        CatalogCrawler crawler = new CatalogCrawler(parallelism, requestsPerSecond, language);
+        boolean complete = crawler.crawl(Paths.get(args[0]));
+        System.out.println(crawler.summary(complete));
+        if (!complete) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Crawls the catalog into {@code <target>.partial}, resuming it if it exists, and moves it to the target
+     * once every record has been fetched.
+     *
+     * @param target snapshot file; when present its validators are used for conditional lookups
+     * @return whether the crawl completed and the target was replaced
+     * @throws IOException if the snapshot cannot be read or written
+     */
+    public boolean crawl(Path target) throws IOException {
+        Path partial = target.resolveSibling(target.getFileName() + PARTIAL_SUFFIX);
+        Map<String, SnapshotLine> previous = readLines(target);
+        Map<String, SnapshotLine> done = readLines(partial);
+        resumed.addAndGet(done.size());
+        try (BufferedWriter writer = Files.newBufferedWriter(partial, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            SnapshotOutput output = new SnapshotOutput(writer);
+            List<String> unitIds = crawlInstitutions(previous, done, output);
+            crawlUnits(unitIds, previous, done, output);
+        }
+        if (failed.get() > 0) {
+            return false;
+        }
+        Files.move(partial, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return true;
+    }
+
+    /**
+     * Reads the records of one type from a crawled snapshot, in the order they were written. Lines cut short by
+     * an interrupted crawl are skipped.
+     *
+     * @param snapshot    NDJSON snapshot written by a crawl
+     * @param type        {@link #INSTITUTION} or {@link #UNIT}
+     * @param recordClass class the records are decoded to
+     * @param <T>         record type
+     * @return the records of the type
+     * @throws IOException if the snapshot cannot be read
+     */
+    public static <T> List<T> readRecords(Path snapshot, String type, Class<T> recordClass) throws IOException {
+        List<T> records = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(snapshot, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                parseLine(line).filter(parsed -> type.equals(parsed.type))
+                        .ifPresent(parsed -> records.add(parsed.decode(recordClass)));
+            }
+        }
+        return records;
+    }
+
+    /**
+     * Tells whether a dump is a crawled NDJSON snapshot rather than a JSON array, judged by its file name.
+     *
+     * @param dump dump file
+     * @return whether the file name ends with {@value #SNAPSHOT_SUFFIX}
+     */
+    public static boolean isCrawlSnapshot(Path dump) {
+        return dump.getFileName().toString().endsWith(SNAPSHOT_SUFFIX);
+    }
+
+    /**
+     * Describes the outcome of the last crawl.
+     *
+     * @param complete whether the crawl completed
+     * @return one line with the record counts
+     */
+    public String summary(boolean complete) {
+        return "CATALOG_CRAWL complete=" + complete
+                + " fetched=" + fetched.get()
+                + " notModified=" + notModified.get()
+                + " resumed=" + resumed.get()
+                + " removed=" + removed.get()
+                + " failed=" + failed.get();
+    }
+
+    private List<String> crawlInstitutions(Map<String, SnapshotLine> previous, Map<String, SnapshotLine> done,
+                                           SnapshotOutput output) {
+        List<String> unitIds = new ArrayList<>();
+        InstitutionPageIterator pages = new InstitutionPageIterator(cristinApiClient, Collections.emptyMap(), 1,
+                PER_PAGE, executor);
+        while (pages.hasNext()) {
+            InstitutionPage page;
+            try {
+                page = pages.next();
+            } catch (UncheckedIOException e) {
+                logFailure(INSTITUTION + " page", e);
+                break;
+            }
+            List<String> ids = new ArrayList<>();
+            for (Institution institution : page.getInstitutions()) {
+                ids.add(institution.cristinInstitutionId);
+            }
+            List<Optional<Institution>> institutions = executor.mapInOrder(ids,
+                id -> crawlRecord(INSTITUTION, id, Institution.class, previous, done, output));
+            institutions.forEach(institution -> institution
+                    .map(found -> found.correspondingUnit)
+                    .ifPresent(unit -> unitIds.add(unit.cristinUnitId)));
+        }
+        return unitIds;
+    }
+
+    private void crawlUnits(List<String> rootIds, Map<String, SnapshotLine> previous, Map<String, SnapshotLine> done,
+                            SnapshotOutput output) {
+        Set<String> visited = ConcurrentHashMap.newKeySet();
+        List<String> level = new ArrayList<>();
+        rootIds.stream().filter(visited::add).forEach(level::add);
+        while (!level.isEmpty()) {
+            List<Optional<Unit>> units = executor.mapInOrder(level,
+                id -> crawlRecord(UNIT, id, Unit.class, previous, done, output));
+            List<String> nextLevel = new ArrayList<>();
+            for (Optional<Unit> unit : units) {
+                unit.map(found -> found.subunits).orElse(Collections.emptyList()).stream()
+                        .map(subunit -> subunit.cristinUnitId)
+                        .filter(id -> id != null && visited.add(id))
+                        .forEach(nextLevel::add);
+            }
+            level = nextLevel;
+        }
+    }
+
+    private <T> Optional<T> crawlRecord(String type, String id, Class<T> recordClass,
+                                        Map<String, SnapshotLine> previous, Map<String, SnapshotLine> done,
+                                        SnapshotOutput output) {
+        if (id == null) {
+            return Optional.empty();
+        }
+        String key = key(type, id);
+        SnapshotLine resumedLine = done.get(key);
+        if (resumedLine != null) {
+            return Optional.of(resumedLine.decode(recordClass));
+        }
+        SnapshotLine previousLine = previous.get(key);
+        Validators validators = previousLine == null ? Validators.NONE : previousLine.validators;
+        try {
+            Validated<?> validated = INSTITUTION.equals(type)
+                    ? cristinApiClient.getInstitutionIfModified(id, language, validators)
+                    : cristinApiClient.getUnitIfModified(id, language, validators);
+            if (validated.isNotModified() && previousLine != null) {
+                notModified.incrementAndGet();
+                output.write(previousLine.line);
+                return Optional.of(previousLine.decode(recordClass));
+            }
+            fetched.incrementAndGet();
+            output.write(toLine(type, id, validated.getValidators(), validated.getValue()));
+            return Optional.of(recordClass.cast(validated.getValue()));
+        } catch (UpstreamStatusException e) {
+            if (e.getStatusCode() == HTTP_NOT_FOUND) {
+                removed.incrementAndGet();
+            } else {
+                logFailure(key, e);
+            }
+        } catch (IOException | URISyntaxException | UncheckedIOException e) {
+            logFailure(key, e);
+        }
+        return Optional.empty();
+    }
+
+    private void logFailure(String key, Exception e) {
+        failed.incrementAndGet();
+        System.out.println("Error crawling " + key + ": " + e.getMessage());
+    }
+
+    private static String toLine(String type, String id, Validators validators, Object record) {
+        JsonObject line = new JsonObject();
+        line.addProperty(TYPE, type);
+        line.addProperty(ID, id);
+        line.addProperty(ETAG, validators.getEntityTag());
+        line.addProperty(LAST_MODIFIED, validators.getLastModified());
+        line.add(RECORD, GSON.toJsonTree(record));
+        return GSON.toJson(line);
+    }
+
+    private static String key(String type, String id) {
+        return type + KEY_SEPARATOR + id;
+    }
+
+    private static Map<String, SnapshotLine> readLines(Path snapshot) throws IOException {
+        Map<String, SnapshotLine> lines = new HashMap<>();
+        if (!Files.exists(snapshot)) {
+            return lines;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(snapshot, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                parseLine(line).ifPresent(parsed -> lines.put(key(parsed.type, parsed.id), parsed));
+            }
+        }
+        return lines;
+    }
+
+    private static Optional<SnapshotLine> parseLine(String line) {
+        try {
+            JsonObject json = JsonParser.parseString(line).getAsJsonObject();
+            return Optional.of(new SnapshotLine(line, json.get(TYPE).getAsString(), json.get(ID).getAsString(),
+                    new Validators(optionalString(json, ETAG), optionalString(json, LAST_MODIFIED)), json));
+        } catch (RuntimeException e) {
+            // A line cut short by an interrupted crawl; the record is fetched again.
+            return Optional.empty();
+        }
+    }
+
+    private static String optionalString(JsonObject json, String name) {
+        JsonElement value = json.get(name);
+        return value == null || value.isJsonNull() ? null : value.getAsString();
+    }
+
+    /**
+     * A record line of an earlier or interrupted crawl.
+     */
+    private static final class SnapshotLine {
+
+        private final transient String line;
+        private final transient String type;
+        private final transient String id;
+        private final transient Validators validators;
+        private final transient JsonObject json;
+
+        SnapshotLine(String line, String type, String id, Validators validators, JsonObject json) {
+            this.line = line;
+            this.type = type;
+            this.id = id;
+            this.validators = validators;
+            this.json = json;
+        }
+
+        <T> T decode(Class<T> recordClass) {
+            return GSON.fromJson(json.get(RECORD), recordClass);
+        }
+    }
+
+    /**
+     * Appends lines to the partial snapshot, flushing each one so an interrupted crawl loses at most the line
+     * being written.
+     */
+    private static final class SnapshotOutput {
+
+        private final transient BufferedWriter writer;
+
+        SnapshotOutput(BufferedWriter writer) {
+            this.writer = writer;
+        }
+
+        synchronized void write(String line) throws IOException {
+            writer.write(line);
+            writer.newLine();
+            writer.flush();
+        }
+    }
+
+    /**
+     * Client that spaces its Cristin requests evenly at the configured rate, across all threads.
+     */
+    private static final class ThrottledCristinApiClient extends CristinApiClient {
+
+        private final transient long intervalNanos;
+        private transient long nextSlotNanos;
+
+        ThrottledCristinApiClient(int requestsPerSecond) {
+            super();
+            this.intervalNanos = TimeUnit.SECONDS.toNanos(1) / requestsPerSecond;
+            this.nextSlotNanos = System.nanoTime();
+        }
+
+        @Override
+        protected UpstreamResponse fetchQueryInstitutionsPage(URL url) throws IOException {
+            awaitSlot();
+            return super.fetchQueryInstitutionsPage(url);
+        }
+
+        @Override
+        protected UpstreamResponse fetchGetInstitutionIfModified(URL url, Validators validators) throws IOException {
+            awaitSlot();
+            return super.fetchGetInstitutionIfModified(url, validators);
+        }
+
+        @Override
+        protected UpstreamResponse fetchGetUnitIfModified(URL url, Validators validators) throws IOException {
+            awaitSlot();
+            return super.fetchGetUnitIfModified(url, validators);
+        }
+
+        private void awaitSlot() {
+            long slot;
+            synchronized (this) {
+                slot = Math.max(System.nanoTime(), nextSlotNanos);
+                nextSlotNanos = slot + intervalNanos;
+            }
+            long waitNanos = slot - System.nanoTime();
+            if (waitNanos > 0) {
+                LockSupport.parkNanos(waitNanos);
+            }
+        }
+    }
+
+}
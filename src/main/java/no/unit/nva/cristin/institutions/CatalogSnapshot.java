@@ -0,0 +1,302 @@
+package no.unit.nva.cristin.institutions;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Read-only view of a binary catalog snapshot of Cristin institutions and units, usually memory-mapped.
+ * Records are located by binary search over sorted id indexes and decoded one at a time on lookup,
+ * so opening a snapshot costs nothing beyond mapping the file.
+ *
+ * <p>Layout (big-endian): a header of {@code magic, version, institutionCount, unitCount,
+ * institutionIndexOffset, unitIndexOffset}, two index arrays of record offsets sorted by the UTF-8 bytes
+ * of the id, and the records. Strings are an unsigned 16 bit length followed by UTF-8 bytes, with
+ * {@code 0xFFFF} meaning null. Names are a 16 bit count of (language, name) pairs. An institution record is
+ * {@code id, acronym, country, correspondingUnitId, names}. A unit record is
+ * {@code id, institutionId, parentUnit, names, subunitCount, subunits}, where the parent and each subunit
+ * are stored as a link of {@code id, names}.</p>
+ */
+public class CatalogSnapshot {
+
+    public static final int MAGIC = 0x43524353;
+    public static final int VERSION = 1;
+    public static final int HEADER_SIZE = 24;
+    public static final int NULL_STRING_LENGTH = 0xFFFF;
+    public static final String BUNDLED_RESOURCE = "/catalog.snapshot";
+
+    private static final int INSTITUTION_COUNT_POSITION = 8;
+    private static final int UNIT_COUNT_POSITION = 12;
+    private static final int INSTITUTION_INDEX_POSITION = 16;
+    private static final int UNIT_INDEX_POSITION = 20;
+    private static final int UNSIGNED_BYTE = 0xFF;
+    private static final int UNSIGNED_SHORT = 0xFFFF;
+    private static final String INVALID_SNAPSHOT = "Not a catalog snapshot of version " + VERSION;
+    private static final String SNAPSHOT_FILE_PREFIX = "catalog";
+    private static final String SNAPSHOT_FILE_SUFFIX = ".snapshot";
+    private static final String FILE_PROTOCOL = "file";
+    private static final String CANNOT_OPEN = "Cannot open catalog snapshot: ";
+
+    private final transient ByteBuffer buffer;
+    private final transient int institutionCount;
+    private final transient int unitCount;
+    private final transient int institutionIndexOffset;
+    private final transient int unitIndexOffset;
+
+    /**
+     * Creates a view over a snapshot held in the buffer. The buffer is only read with absolute
+     * operations, so the view can be shared between threads.
+     *
+     * @param buffer snapshot bytes
+     * @throws IOException if the buffer does not hold a snapshot of the supported version
+     */
+    public CatalogSnapshot(ByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            throw new IOException(INVALID_SNAPSHOT);
+        }
+        this.institutionCount = buffer.getInt(INSTITUTION_COUNT_POSITION);
+        this.unitCount = buffer.getInt(UNIT_COUNT_POSITION);
+        this.institutionIndexOffset = buffer.getInt(INSTITUTION_INDEX_POSITION);
+        this.unitIndexOffset = buffer.getInt(UNIT_INDEX_POSITION);
+    }
+
+    /**
+     * Memory-maps the snapshot file.
+     *
+     * @param path snapshot file
+     * @return snapshot view
+     * @throws IOException if the file cannot be mapped or is not a snapshot
+     */
+    public static CatalogSnapshot open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return new CatalogSnapshot(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    private static class LazyHolder {
+
+        private static final Optional<CatalogSnapshot> BUNDLED = loadBundled(Config.getInstance());
+    }
+
+    /**
+     * Returns the snapshot configured in {@code CATALOG_SNAPSHOT}, or the one bundled in the deployment
+     * package or a layer as {@code catalog.snapshot}. Loaded once per container, in the init phase; a configured
+     * or bundled snapshot that cannot be opened fails the init phase.
+     *
+     * @return bundled snapshot, or empty if none is configured or bundled
+     * @throws UncheckedIOException if the snapshot cannot be opened
+     */
+    public static Optional<CatalogSnapshot> bundled() {
+        return LazyHolder.BUNDLED;
+    }
+
+    private static Optional<CatalogSnapshot> loadBundled(Config config) {
+        try {
+            String configured = config.getCatalogSnapshot();
+            if (configured != null && !configured.isEmpty()) {
+                return Optional.of(open(Paths.get(configured)));
+            }
+            URL resource = CatalogSnapshot.class.getResource(BUNDLED_RESOURCE);
+            if (resource == null) {
+                return Optional.empty();
+            }
+            if (FILE_PROTOCOL.equals(resource.getProtocol())) {
+                return Optional.of(open(Paths.get(resource.toURI())));
+            }
+            Path extracted = Files.createTempFile(SNAPSHOT_FILE_PREFIX, SNAPSHOT_FILE_SUFFIX);
+            try (InputStream inputStream = resource.openStream()) {
+                Files.copy(inputStream, extracted, StandardCopyOption.REPLACE_EXISTING);
+            }
+            return Optional.of(open(extracted));
+        } catch (IOException e) {
+            throw new UncheckedIOException(CANNOT_OPEN + e.getMessage(), e);
+        } catch (URISyntaxException e) {
+            throw new IllegalStateException(CANNOT_OPEN + e.getMessage(), e);
+        }
+    }
+
+    public int getInstitutionCount() {
+        return institutionCount;
+    }
+
+    public int getUnitCount() {
+        return unitCount;
+    }
+
+    /**
+     * Looks up an institution by id.
+     *
+     * @param id cristinInstitutionId
+     * @return the institution, or empty if it is not in the snapshot
+     */
+    public Optional<Institution> findInstitution(String id) {
+        return findRecord(institutionIndexOffset, institutionCount, id).map(this::readInstitution);
+    }
+
+    /**
+     * Looks up a unit by id.
+     *
+     * @param id cristinUnitId
+     * @return the unit with its parent and direct subunits, or empty if it is not in the snapshot
+     */
+    public Optional<Unit> findUnit(String id) {
+        return findRecord(unitIndexOffset, unitCount, id).map(this::readUnit);
+    }
+
+    /**
+     * Reads every institution in id order.
+     *
+     * @return all institutions in the snapshot
+     */
+    public List<Institution> institutions() {
+        List<Institution> institutions = new ArrayList<>(institutionCount);
+        for (int i = 0; i < institutionCount; i++) {
+            institutions.add(readInstitution(buffer.getInt(institutionIndexOffset + i * Integer.BYTES)));
+        }
+        return institutions;
+    }
+
+    private Optional<Integer> findRecord(int indexOffset, int count, String id) {
+        if (id == null) {
+            return Optional.empty();
+        }
+        byte[] key = id.getBytes(StandardCharsets.UTF_8);
+        int low = 0;
+        int high = count - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int recordOffset = buffer.getInt(indexOffset + middle * Integer.BYTES);
+            int comparison = compareString(recordOffset, key);
+            if (comparison < 0) {
+                low = middle + 1;
+            } else if (comparison > 0) {
+                high = middle - 1;
+            } else {
+                return Optional.of(recordOffset);
+            }
+        }
+        return Optional.empty();
+    }
+
+    private int compareString(int offset, byte[] key) {
+        int length = buffer.getShort(offset) & UNSIGNED_SHORT;
+        int common = Math.min(length, key.length);
+        for (int i = 0; i < common; i++) {
+            int difference = (buffer.get(offset + Short.BYTES + i) & UNSIGNED_BYTE) - (key[i] & UNSIGNED_BYTE);
+            if (difference != 0) {
+                return difference;
+            }
+        }
+        return length - key.length;
+    }
+
+    private Institution readInstitution(int offset) {
+        Cursor cursor = new Cursor(offset);
+        Institution institution = new Institution();
+        institution.cristinInstitutionId = cursor.readString();
+        institution.acronym = cursor.readString();
+        institution.country = cursor.readString();
+        String correspondingUnitId = cursor.readString();
+        institution.institutionName = cursor.readNames();
+        if (correspondingUnitId != null) {
+            institution.correspondingUnit = new Unit();
+            institution.correspondingUnit.cristinUnitId = correspondingUnitId;
+        }
+        return institution;
+    }
+
+    private Unit readUnit(int offset) {
+        Cursor cursor = new Cursor(offset);
+        Unit unit = new Unit();
+        unit.cristinUnitId = cursor.readString();
+        String institutionId = cursor.readString();
+        if (institutionId != null) {
+            unit.institution = new Institution();
+            unit.institution.cristinInstitutionId = institutionId;
+        }
+        unit.parentUnit = cursor.readLink();
+        unit.unitName = cursor.readNames();
+        int subunitCount = cursor.readInt();
+        unit.subunits = new ArrayList<>(subunitCount);
+        for (int i = 0; i < subunitCount; i++) {
+            unit.subunits.add(cursor.readLink());
+        }
+        return unit;
+    }
+
+    private class Cursor {
+
+        private int position;
+
+        Cursor(int position) {
+            this.position = position;
+        }
+
+        int readInt() {
+            int value = buffer.getInt(position);
+            position += Integer.BYTES;
+            return value;
+        }
+
+        int readUnsignedShort() {
+            int value = buffer.getShort(position) & UNSIGNED_SHORT;
+            position += Short.BYTES;
+            return value;
+        }
+
+        String readString() {
+            int length = readUnsignedShort();
+            if (length == NULL_STRING_LENGTH) {
+                return null;
+            }
+            byte[] bytes = new byte[length];
+            for (int i = 0; i < length; i++) {
+                bytes[i] = buffer.get(position + i);
+            }
+            position += length;
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        Map<String, String> readNames() {
+            int count = readUnsignedShort();
+            if (count == 0) {
+                return Collections.emptyMap();
+            }
+            Map<String, String> names = new LinkedHashMap<>();
+            for (int i = 0; i < count; i++) {
+                names.put(readString(), readString());
+            }
+            return names;
+        }
+
+        Unit readLink() {
+            String id = readString();
+            Map<String, String> names = readNames();
+            if (id == null) {
+                return null;
+            }
+            Unit link = new Unit();
+            link.cristinUnitId = id;
+            link.unitName = names;
+            return link;
+        }
+    }
+
+}
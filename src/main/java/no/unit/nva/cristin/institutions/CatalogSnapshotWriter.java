@@ -0,0 +1,197 @@
+package no.unit.nva.cristin.institutions;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Writes the binary {@link CatalogSnapshot} format from a local dump of Cristin institutions and units, either a
+ * snapshot written by {@link CatalogCrawler} or JSON array dumps. Run by the {@code buildCatalogSnapshot} Gradle
+ * task.
+ */
+public class CatalogSnapshotWriter {
+
+    private static final String USAGE = "Usage: CatalogSnapshotWriter <catalog.ndjson> <output>"
+            + " | <institutions.json> <units.json> <output>";
+    private static final int MAX_STRING_LENGTH = CatalogSnapshot.NULL_STRING_LENGTH - 1;
+    private static final int CRAWL_ARGUMENT_COUNT = 2;
+    private static final int ARGUMENT_COUNT = 3;
+
+    /**
+     * Builds a snapshot file from a crawled NDJSON snapshot, or from JSON array dumps of institutions and units
+     * in the Cristin API format.
+     *
+     * @param args crawled snapshot and output file, or institutions dump, units dump and output file
+     * @throws IOException if a dump cannot be read or the snapshot cannot be written
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length == CRAWL_ARGUMENT_COUNT && CatalogCrawler.isCrawlSnapshot(Paths.get(args[0]))) {
+            Path crawl = Paths.get(args[0]);
+            new CatalogSnapshotWriter().write(
+                    CatalogCrawler.readRecords(crawl, CatalogCrawler.INSTITUTION, Institution.class),
+                    CatalogCrawler.readRecords(crawl, CatalogCrawler.UNIT, Unit.class), Paths.get(args[1]));
+            return;
+        }
+        if (args.length != ARGUMENT_COUNT) {
+            throw new IllegalArgumentException(USAGE);
+        }
+        List<Institution> institutions;
+        try (InputStreamReader reader = new InputStreamReader(Files.newInputStream(Paths.get(args[0])),
+                StandardCharsets.UTF_8)) {
+            institutions = CristinJsonDecoder.getInstance().decodeInstitutions(reader);
+        }
+        List<Unit> units;
+        try (InputStreamReader reader = new InputStreamReader(Files.newInputStream(Paths.get(args[1])),
+                StandardCharsets.UTF_8)) {
+            units = CristinJsonDecoder.getInstance().decodeUnits(reader);
+        }
+        new CatalogSnapshotWriter().write(institutions, units, Paths.get(args[2]));
+    }
+
+    /**
+     * Writes the snapshot to a temporary file next to the target and moves it into place, so readers never
+     * see a partially written snapshot.
+     *
+     * @param institutions institutions to include
+     * @param units        units to include
+     * @param target       snapshot file
+     * @throws IOException if the snapshot cannot be written
+     */
+    public void write(List<Institution> institutions, List<Unit> units, Path target) throws IOException {
+        Path directory = Optional.ofNullable(target.toAbsolutePath().getParent()).orElse(Paths.get("."));
+        Files.createDirectories(directory);
+        Path temporary = Files.createTempFile(directory, target.getFileName().toString(), ".tmp");
+        try (OutputStream outputStream = Files.newOutputStream(temporary)) {
+            write(institutions, units, outputStream);
+        }
+        Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Writes the snapshot to the stream.
+     *
+     * @param institutions institutions to include
+     * @param units        units to include
+     * @param outputStream destination
+     * @throws IOException if the snapshot cannot be written
+     */
+    public void write(List<Institution> institutions, List<Unit> units, OutputStream outputStream)
+            throws IOException {
+        List<Institution> sortedInstitutions = new ArrayList<>(institutions);
+        sortedInstitutions.sort(Comparator.comparing(institution -> idBytes(institution.cristinInstitutionId),
+                CatalogSnapshotWriter::compareUnsigned));
+        List<Unit> sortedUnits = new ArrayList<>(units);
+        sortedUnits.sort(Comparator.comparing(unit -> idBytes(unit.cristinUnitId),
+                CatalogSnapshotWriter::compareUnsigned));
+
+        int institutionIndexOffset = CatalogSnapshot.HEADER_SIZE;
+        int unitIndexOffset = institutionIndexOffset + sortedInstitutions.size() * Integer.BYTES;
+        int recordsOffset = unitIndexOffset + sortedUnits.size() * Integer.BYTES;
+
+        ByteArrayOutputStream recordBytes = new ByteArrayOutputStream();
+        DataOutputStream records = new DataOutputStream(recordBytes);
+        int[] institutionOffsets = new int[sortedInstitutions.size()];
+        for (int i = 0; i < sortedInstitutions.size(); i++) {
+            institutionOffsets[i] = recordsOffset + records.size();
+            writeInstitution(records, sortedInstitutions.get(i));
+        }
+        int[] unitOffsets = new int[sortedUnits.size()];
+        for (int i = 0; i < sortedUnits.size(); i++) {
+            unitOffsets[i] = recordsOffset + records.size();
+            writeUnit(records, sortedUnits.get(i));
+        }
+        records.flush();
+
+        DataOutputStream out = new DataOutputStream(outputStream);
+        out.writeInt(CatalogSnapshot.MAGIC);
+        out.writeInt(CatalogSnapshot.VERSION);
+        out.writeInt(sortedInstitutions.size());
+        out.writeInt(sortedUnits.size());
+        out.writeInt(institutionIndexOffset);
+        out.writeInt(unitIndexOffset);
+        for (int offset : institutionOffsets) {
+            out.writeInt(offset);
+        }
+        for (int offset : unitOffsets) {
+            out.writeInt(offset);
+        }
+        recordBytes.writeTo(out);
+        out.flush();
+    }
+
+    private void writeInstitution(DataOutputStream out, Institution institution) throws IOException {
+        writeString(out, institution.cristinInstitutionId);
+        writeString(out, institution.acronym);
+        writeString(out, institution.country);
+        writeString(out, institution.correspondingUnit == null ? null : institution.correspondingUnit.cristinUnitId);
+        writeNames(out, institution.institutionName);
+    }
+
+    private void writeUnit(DataOutputStream out, Unit unit) throws IOException {
+        writeString(out, unit.cristinUnitId);
+        writeString(out, unit.institution == null ? null : unit.institution.cristinInstitutionId);
+        writeLink(out, unit.parentUnit);
+        writeNames(out, unit.unitName);
+        List<Unit> subunits = Optional.ofNullable(unit.subunits).orElse(Collections.emptyList());
+        out.writeInt(subunits.size());
+        for (Unit subunit : subunits) {
+            writeLink(out, subunit);
+        }
+    }
+
+    private void writeLink(DataOutputStream out, Unit link) throws IOException {
+        writeString(out, link == null ? null : link.cristinUnitId);
+        writeNames(out, link == null ? null : link.unitName);
+    }
+
+    private void writeNames(DataOutputStream out, Map<String, String> names) throws IOException {
+        Map<String, String> present = Optional.ofNullable(names).orElse(Collections.emptyMap());
+        out.writeShort(present.size());
+        for (Map.Entry<String, String> name : present.entrySet()) {
+            writeString(out, name.getKey());
+            writeString(out, name.getValue());
+        }
+    }
+
+    private void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeShort(CatalogSnapshot.NULL_STRING_LENGTH);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > MAX_STRING_LENGTH) {
+            throw new IOException("String too long for catalog snapshot: " + value.substring(0, 50));
+        }
+        out.writeShort(bytes.length);
+        out.write(bytes);
+    }
+
+    private static byte[] idBytes(String id) {
+        return Optional.ofNullable(id).orElse("").getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static int compareUnsigned(byte[] first, byte[] second) {
+        int common = Math.min(first.length, second.length);
+        for (int i = 0; i < common; i++) {
+            int difference = Byte.toUnsignedInt(first[i]) - Byte.toUnsignedInt(second[i]);
+            if (difference != 0) {
+                return difference;
+            }
+        }
+        return first.length - second.length;
+    }
+
+}
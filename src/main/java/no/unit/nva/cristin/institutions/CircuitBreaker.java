@@ -0,0 +1,150 @@
+package no.unit.nva.cristin.institutions;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Count-based circuit breaker over the outcomes of the most recent upstream calls. The circuit opens when the
+ * share of failures in a full window reaches the threshold, rejects calls while open, and after the open period
+ * lets a single trial call through: a success closes the circuit again, a failure reopens it. State changes are
+ * reported as upstream events of the request whose call caused them, so they appear in its metric line.
+ */
+public class CircuitBreaker {
+
+    private static final int PERCENT = 100;
+
+    private final transient boolean[] failures;
+    private final transient int errorPercent;
+    private final transient long openMillis;
+    private final transient LongSupplier clock;
+
+    private transient State state = State.CLOSED;
+    private transient int position;
+    private transient int recorded;
+    private transient int failureCount;
+    private transient long openedAt;
+    private transient boolean trialRunning;
+
+    /**
+     * Creates a closed circuit breaker.
+     *
+     * @param windowSize   number of recent calls the error rate is computed over
+     * @param errorPercent failure percentage at which the circuit opens
+     * @param openMillis   time the circuit stays open before a trial call is allowed
+     * @param clock        source of the current time in milliseconds
+     */
+    public CircuitBreaker(int windowSize, int errorPercent, long openMillis, LongSupplier clock) {
+        this.failures = new boolean[windowSize];
+        this.errorPercent = errorPercent;
+        this.openMillis = openMillis;
+        this.clock = clock;
+    }
+
+    /**
+     * Decides whether a call may be sent. While half-open only one trial call is allowed at a time.
+     *
+     * @return true if the call may proceed
+     */
+    public synchronized boolean allowRequest() {
+        if (state == State.OPEN && clock.getAsLong() - openedAt >= openMillis) {
+            transition(State.HALF_OPEN);
+        }
+        if (state == State.HALF_OPEN) {
+            if (trialRunning) {
+                return false;
+            }
+            trialRunning = true;
+            return true;
+        }
+        return state == State.CLOSED;
+    }
+
+    /**
+     * Records a call that got an answer from upstream.
+     */
+    public synchronized void recordSuccess() {
+        if (state == State.HALF_OPEN) {
+            trialRunning = false;
+            resetWindow();
+            transition(State.CLOSED);
+            return;
+        }
+        record(false);
+    }
+
+    /**
+     * Records a call that ended without telling anything about upstream, e.g. one cut off by the request's
+     * deadline or one that failed in the client. It is not counted, but frees the slot of a half-open trial.
+     */
+    public synchronized void recordInconclusive() {
+        trialRunning = false;
+    }
+
+    /**
+     * Records a call that failed because of upstream, e.g. a timeout or a 5xx answer.
+     */
+    public synchronized void recordFailure() {
+        if (state == State.HALF_OPEN) {
+            trialRunning = false;
+            open();
+            return;
+        }
+        record(true);
+        if (state == State.CLOSED && recorded == failures.length && failureCount * PERCENT >= errorPercent * recorded) {
+            open();
+        }
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    private void record(boolean failure) {
+        if (recorded == failures.length) {
+            if (failures[position]) {
+                failureCount--;
+            }
+        } else {
+            recorded++;
+        }
+        failures[position] = failure;
+        if (failure) {
+            failureCount++;
+        }
+        position = (position + 1) % failures.length;
+    }
+
+    private void open() {
+        openedAt = clock.getAsLong();
+        resetWindow();
+        transition(State.OPEN);
+    }
+
+    private void resetWindow() {
+        position = 0;
+        recorded = 0;
+        failureCount = 0;
+    }
+
+    private void transition(State next) {
+        if (state != next) {
+            state = next;
+            RequestTimings.current().recordUpstreamEvent(next.event);
+        }
+    }
+
+    /**
+     * Circuit states.
+     */
+    public enum State {
+        CLOSED(RequestTimings.CIRCUIT_CLOSED),
+        OPEN(RequestTimings.CIRCUIT_OPENED),
+        HALF_OPEN(RequestTimings.CIRCUIT_HALF_OPENED);
+
+        private final String event;
+
+        State(String event) {
+            this.event = event;
+        }
+    }
+
+}
@@ -0,0 +1,16 @@
+package no.unit.nva.cristin.institutions;
+
+import java.io.IOException;
+
+/**
+ * A Cristin request was rejected without being sent because the circuit breaker is open.
+ */
+public class CircuitOpenException extends IOException {
+
+    private static final long serialVersionUID = 1L;
+
+    public CircuitOpenException(String message) {
+        super(message);
+    }
+
+}
@@ -4,8 +4,109 @@ package no.unit.nva.cristin.institutions;
 public class Config {
 
     public static final String CORS_ALLOW_ORIGIN_HEADER_ENVIRONMENT_NAME = "ALLOW_ORIGIN";
+    public static final String ENRICHMENT_PARALLELISM_ENVIRONMENT_NAME = "ENRICHMENT_PARALLELISM";
+    public static final String HTTP_MAX_CONNECTIONS_PER_ROUTE_ENVIRONMENT_NAME = "HTTP_MAX_CONNECTIONS_PER_ROUTE";
+    public static final String HTTP_CONNECT_TIMEOUT_MILLIS_ENVIRONMENT_NAME = "HTTP_CONNECT_TIMEOUT_MILLIS";
+    public static final String HTTP_READ_TIMEOUT_MILLIS_ENVIRONMENT_NAME = "HTTP_READ_TIMEOUT_MILLIS";
+    public static final String HTTP_IDLE_EVICTION_SECONDS_ENVIRONMENT_NAME = "HTTP_IDLE_EVICTION_SECONDS";
+    public static final String CACHE_MAX_ENTRIES_ENVIRONMENT_NAME = "CACHE_MAX_ENTRIES";
+    public static final String CACHE_TTL_SECONDS_ENVIRONMENT_NAME = "CACHE_TTL_SECONDS";
+    public static final String INSTITUTION_INDEX_SNAPSHOT_ENVIRONMENT_NAME = "INSTITUTION_INDEX_SNAPSHOT";
+    public static final String INSTITUTION_INDEX_MAX_AGE_SECONDS_ENVIRONMENT_NAME = "INSTITUTION_INDEX_MAX_AGE_SECONDS";
+    public static final String INSTITUTION_INDEX_REFRESH_SECONDS_ENVIRONMENT_NAME = "INSTITUTION_INDEX_REFRESH_SECONDS";
+    public static final String CATALOG_SNAPSHOT_ENVIRONMENT_NAME = "CATALOG_SNAPSHOT";
+    public static final String UNIT_BATCH_MAX_IDS_ENVIRONMENT_NAME = "UNIT_BATCH_MAX_IDS";
+    public static final String UNIT_BATCH_PARALLELISM_ENVIRONMENT_NAME = "UNIT_BATCH_PARALLELISM";
+    public static final String UNIT_TREE_MAX_DEPTH_ENVIRONMENT_NAME = "UNIT_TREE_MAX_DEPTH";
+    public static final String UNIT_TREE_MAX_NODES_ENVIRONMENT_NAME = "UNIT_TREE_MAX_NODES";
+    public static final String UNIT_TREE_PARALLELISM_ENVIRONMENT_NAME = "UNIT_TREE_PARALLELISM";
+    public static final String COMPRESSION_MIN_BYTES_ENVIRONMENT_NAME = "COMPRESSION_MIN_BYTES";
+    public static final String CACHE_STALE_WHILE_REVALIDATE_SECONDS_ENVIRONMENT_NAME =
+            "CACHE_STALE_WHILE_REVALIDATE_SECONDS";
+    public static final String CACHE_STALE_IF_ERROR_SECONDS_ENVIRONMENT_NAME = "CACHE_STALE_IF_ERROR_SECONDS";
+    public static final String ENRICHMENT_BUDGET_MILLIS_ENVIRONMENT_NAME = "ENRICHMENT_BUDGET_MILLIS";
+    public static final String DEADLINE_MARGIN_MILLIS_ENVIRONMENT_NAME = "DEADLINE_MARGIN_MILLIS";
+    public static final String HEDGE_PERCENTILE_ENVIRONMENT_NAME = "HEDGE_PERCENTILE";
+    public static final String HEDGE_MIN_DELAY_MILLIS_ENVIRONMENT_NAME = "HEDGE_MIN_DELAY_MILLIS";
+    public static final String HEDGE_BUDGET_PERCENT_ENVIRONMENT_NAME = "HEDGE_BUDGET_PERCENT";
+    public static final String CIRCUIT_WINDOW_SIZE_ENVIRONMENT_NAME = "CIRCUIT_WINDOW_SIZE";
+    public static final String CIRCUIT_ERROR_PERCENT_ENVIRONMENT_NAME = "CIRCUIT_ERROR_PERCENT";
+    public static final String CIRCUIT_OPEN_SECONDS_ENVIRONMENT_NAME = "CIRCUIT_OPEN_SECONDS";
+    public static final String UPSTREAM_CALL_PARALLELISM_ENVIRONMENT_NAME = "UPSTREAM_CALL_PARALLELISM";
+    public static final String CRISTIN_API_URL_ENVIRONMENT_NAME = "CRISTIN_API_URL";
+    public static final String NEGATIVE_CACHE_MAX_ENTRIES_ENVIRONMENT_NAME = "NEGATIVE_CACHE_MAX_ENTRIES";
+    public static final String NEGATIVE_CACHE_TTL_SECONDS_ENVIRONMENT_NAME = "NEGATIVE_CACHE_TTL_SECONDS";
+    public static final String RESPONSE_CACHE_MAX_BYTES_ENVIRONMENT_NAME = "RESPONSE_CACHE_MAX_BYTES";
+    public static final String RESPONSE_CACHE_TTL_SECONDS_ENVIRONMENT_NAME = "RESPONSE_CACHE_TTL_SECONDS";
+
+    public static final int DEFAULT_ENRICHMENT_PARALLELISM = 5;
+    public static final int DEFAULT_HTTP_MAX_CONNECTIONS_PER_ROUTE = 10;
+    public static final int DEFAULT_HTTP_CONNECT_TIMEOUT_MILLIS = 3000;
+    public static final int DEFAULT_HTTP_READ_TIMEOUT_MILLIS = 10_000;
+    public static final int DEFAULT_HTTP_IDLE_EVICTION_SECONDS = 30;
+    public static final int DEFAULT_CACHE_MAX_ENTRIES = 2000;
+    public static final int DEFAULT_CACHE_TTL_SECONDS = 3600;
+    public static final int DEFAULT_INSTITUTION_INDEX_MAX_AGE_SECONDS = 7 * 24 * 3600;
+    public static final int DEFAULT_INSTITUTION_INDEX_REFRESH_SECONDS = 300;
+    public static final int DEFAULT_UNIT_BATCH_MAX_IDS = 50;
+    public static final int DEFAULT_UNIT_BATCH_PARALLELISM = 10;
+    public static final int DEFAULT_UNIT_TREE_MAX_DEPTH = 5;
+    public static final int DEFAULT_UNIT_TREE_MAX_NODES = 500;
+    public static final int DEFAULT_UNIT_TREE_PARALLELISM = 10;
+    public static final int DEFAULT_COMPRESSION_MIN_BYTES = 1024;
+    public static final int DEFAULT_CACHE_STALE_WHILE_REVALIDATE_SECONDS = 300;
+    public static final int DEFAULT_CACHE_STALE_IF_ERROR_SECONDS = 3600;
+    public static final int DEFAULT_ENRICHMENT_BUDGET_MILLIS = 5000;
+    public static final int DEFAULT_DEADLINE_MARGIN_MILLIS = 500;
+    public static final int DEFAULT_HEDGE_PERCENTILE = 95;
+    public static final int DEFAULT_HEDGE_MIN_DELAY_MILLIS = 50;
+    public static final int DEFAULT_HEDGE_BUDGET_PERCENT = 10;
+    public static final int DEFAULT_CIRCUIT_WINDOW_SIZE = 20;
+    public static final int DEFAULT_CIRCUIT_ERROR_PERCENT = 50;
+    public static final int DEFAULT_CIRCUIT_OPEN_SECONDS = 30;
+    public static final int DEFAULT_UPSTREAM_CALL_PARALLELISM = 32;
+    public static final int DEFAULT_NEGATIVE_CACHE_MAX_ENTRIES = 1000;
+    public static final int DEFAULT_NEGATIVE_CACHE_TTL_SECONDS = 60;
+    public static final int DEFAULT_RESPONSE_CACHE_MAX_BYTES = 32 * 1024 * 1024;
+    public static final int DEFAULT_RESPONSE_CACHE_TTL_SECONDS = 300;
+    public static final String DEFAULT_CRISTIN_API_URL = "https://api.cristin.no";
+
+    private static final int MAX_PERCENT = 100;
 
     private String corsHeader;
+    private int enrichmentParallelism = DEFAULT_ENRICHMENT_PARALLELISM;
+    private int httpMaxConnectionsPerRoute = DEFAULT_HTTP_MAX_CONNECTIONS_PER_ROUTE;
+    private int httpConnectTimeoutMillis = DEFAULT_HTTP_CONNECT_TIMEOUT_MILLIS;
+    private int httpReadTimeoutMillis = DEFAULT_HTTP_READ_TIMEOUT_MILLIS;
+    private int httpIdleEvictionSeconds = DEFAULT_HTTP_IDLE_EVICTION_SECONDS;
+    private int cacheMaxEntries = DEFAULT_CACHE_MAX_ENTRIES;
+    private int cacheTtlSeconds = DEFAULT_CACHE_TTL_SECONDS;
+    private String institutionIndexSnapshot;
+    private int institutionIndexMaxAgeSeconds = DEFAULT_INSTITUTION_INDEX_MAX_AGE_SECONDS;
+    private int institutionIndexRefreshSeconds = DEFAULT_INSTITUTION_INDEX_REFRESH_SECONDS;
+    private String catalogSnapshot;
+    private int unitBatchMaxIds = DEFAULT_UNIT_BATCH_MAX_IDS;
+    private int unitBatchParallelism = DEFAULT_UNIT_BATCH_PARALLELISM;
+    private int unitTreeMaxDepth = DEFAULT_UNIT_TREE_MAX_DEPTH;
+    private int unitTreeMaxNodes = DEFAULT_UNIT_TREE_MAX_NODES;
+    private int unitTreeParallelism = DEFAULT_UNIT_TREE_PARALLELISM;
+    private int compressionMinBytes = DEFAULT_COMPRESSION_MIN_BYTES;
+    private int cacheStaleWhileRevalidateSeconds = DEFAULT_CACHE_STALE_WHILE_REVALIDATE_SECONDS;
+    private int cacheStaleIfErrorSeconds = DEFAULT_CACHE_STALE_IF_ERROR_SECONDS;
+    private int enrichmentBudgetMillis = DEFAULT_ENRICHMENT_BUDGET_MILLIS;
+    private int deadlineMarginMillis = DEFAULT_DEADLINE_MARGIN_MILLIS;
+    private int hedgePercentile = DEFAULT_HEDGE_PERCENTILE;
+    private int hedgeMinDelayMillis = DEFAULT_HEDGE_MIN_DELAY_MILLIS;
+    private int hedgeBudgetPercent = DEFAULT_HEDGE_BUDGET_PERCENT;
+    private int circuitWindowSize = DEFAULT_CIRCUIT_WINDOW_SIZE;
+    private int circuitErrorPercent = DEFAULT_CIRCUIT_ERROR_PERCENT;
+    private int circuitOpenSeconds = DEFAULT_CIRCUIT_OPEN_SECONDS;
+    private int upstreamCallParallelism = DEFAULT_UPSTREAM_CALL_PARALLELISM;
+    private String cristinApiUrl = DEFAULT_CRISTIN_API_URL;
+    private int negativeCacheMaxEntries = DEFAULT_NEGATIVE_CACHE_MAX_ENTRIES;
+    private int negativeCacheTtlSeconds = DEFAULT_NEGATIVE_CACHE_TTL_SECONDS;
+    private int responseCacheMaxBytes = DEFAULT_RESPONSE_CACHE_MAX_BYTES;
+    private int responseCacheTtlSeconds = DEFAULT_RESPONSE_CACHE_TTL_SECONDS;
 
     private Config() {
     }
@@ -16,6 +117,76 @@ public class Config {
 
         static {
             INSTANCE.setCorsHeader(System.getenv(CORS_ALLOW_ORIGIN_HEADER_ENVIRONMENT_NAME));
+            INSTANCE.setEnrichmentParallelism(parsePositiveInt(
+                    System.getenv(ENRICHMENT_PARALLELISM_ENVIRONMENT_NAME), DEFAULT_ENRICHMENT_PARALLELISM));
+            INSTANCE.setHttpMaxConnectionsPerRoute(parsePositiveInt(
+                    System.getenv(HTTP_MAX_CONNECTIONS_PER_ROUTE_ENVIRONMENT_NAME),
+                    DEFAULT_HTTP_MAX_CONNECTIONS_PER_ROUTE));
+            INSTANCE.setHttpConnectTimeoutMillis(parsePositiveInt(
+                    System.getenv(HTTP_CONNECT_TIMEOUT_MILLIS_ENVIRONMENT_NAME), DEFAULT_HTTP_CONNECT_TIMEOUT_MILLIS));
+            INSTANCE.setHttpReadTimeoutMillis(parsePositiveInt(
+                    System.getenv(HTTP_READ_TIMEOUT_MILLIS_ENVIRONMENT_NAME), DEFAULT_HTTP_READ_TIMEOUT_MILLIS));
+            INSTANCE.setHttpIdleEvictionSeconds(parsePositiveInt(
+                    System.getenv(HTTP_IDLE_EVICTION_SECONDS_ENVIRONMENT_NAME), DEFAULT_HTTP_IDLE_EVICTION_SECONDS));
+            INSTANCE.setCacheMaxEntries(parsePositiveInt(
+                    System.getenv(CACHE_MAX_ENTRIES_ENVIRONMENT_NAME), DEFAULT_CACHE_MAX_ENTRIES));
+            INSTANCE.setCacheTtlSeconds(parsePositiveInt(
+                    System.getenv(CACHE_TTL_SECONDS_ENVIRONMENT_NAME), DEFAULT_CACHE_TTL_SECONDS));
+            INSTANCE.setInstitutionIndexSnapshot(System.getenv(INSTITUTION_INDEX_SNAPSHOT_ENVIRONMENT_NAME));
+            INSTANCE.setInstitutionIndexMaxAgeSeconds(parsePositiveInt(
+                    System.getenv(INSTITUTION_INDEX_MAX_AGE_SECONDS_ENVIRONMENT_NAME),
+                    DEFAULT_INSTITUTION_INDEX_MAX_AGE_SECONDS));
+            INSTANCE.setInstitutionIndexRefreshSeconds(parsePositiveInt(
+                    System.getenv(INSTITUTION_INDEX_REFRESH_SECONDS_ENVIRONMENT_NAME),
+                    DEFAULT_INSTITUTION_INDEX_REFRESH_SECONDS));
+            INSTANCE.setCatalogSnapshot(System.getenv(CATALOG_SNAPSHOT_ENVIRONMENT_NAME));
+            INSTANCE.setUnitBatchMaxIds(parsePositiveInt(
+                    System.getenv(UNIT_BATCH_MAX_IDS_ENVIRONMENT_NAME), DEFAULT_UNIT_BATCH_MAX_IDS));
+            INSTANCE.setUnitBatchParallelism(parsePositiveInt(
+                    System.getenv(UNIT_BATCH_PARALLELISM_ENVIRONMENT_NAME), DEFAULT_UNIT_BATCH_PARALLELISM));
+            INSTANCE.setUnitTreeMaxDepth(parsePositiveInt(
+                    System.getenv(UNIT_TREE_MAX_DEPTH_ENVIRONMENT_NAME), DEFAULT_UNIT_TREE_MAX_DEPTH));
+            INSTANCE.setUnitTreeMaxNodes(parsePositiveInt(
+                    System.getenv(UNIT_TREE_MAX_NODES_ENVIRONMENT_NAME), DEFAULT_UNIT_TREE_MAX_NODES));
+            INSTANCE.setUnitTreeParallelism(parsePositiveInt(
+                    System.getenv(UNIT_TREE_PARALLELISM_ENVIRONMENT_NAME), DEFAULT_UNIT_TREE_PARALLELISM));
+            INSTANCE.setCompressionMinBytes(parsePositiveInt(
+                    System.getenv(COMPRESSION_MIN_BYTES_ENVIRONMENT_NAME), DEFAULT_COMPRESSION_MIN_BYTES));
+            INSTANCE.setCacheStaleWhileRevalidateSeconds(parseNonNegativeInt(
+                    System.getenv(CACHE_STALE_WHILE_REVALIDATE_SECONDS_ENVIRONMENT_NAME),
+                    DEFAULT_CACHE_STALE_WHILE_REVALIDATE_SECONDS));
+            INSTANCE.setCacheStaleIfErrorSeconds(parseNonNegativeInt(
+                    System.getenv(CACHE_STALE_IF_ERROR_SECONDS_ENVIRONMENT_NAME),
+                    DEFAULT_CACHE_STALE_IF_ERROR_SECONDS));
+            INSTANCE.setEnrichmentBudgetMillis(parsePositiveInt(
+                    System.getenv(ENRICHMENT_BUDGET_MILLIS_ENVIRONMENT_NAME), DEFAULT_ENRICHMENT_BUDGET_MILLIS));
+            INSTANCE.setDeadlineMarginMillis(parsePositiveInt(
+                    System.getenv(DEADLINE_MARGIN_MILLIS_ENVIRONMENT_NAME), DEFAULT_DEADLINE_MARGIN_MILLIS));
+            INSTANCE.setHedgePercentile(parsePercent(
+                    System.getenv(HEDGE_PERCENTILE_ENVIRONMENT_NAME), DEFAULT_HEDGE_PERCENTILE));
+            INSTANCE.setHedgeMinDelayMillis(parsePositiveInt(
+                    System.getenv(HEDGE_MIN_DELAY_MILLIS_ENVIRONMENT_NAME), DEFAULT_HEDGE_MIN_DELAY_MILLIS));
+            INSTANCE.setHedgeBudgetPercent(parsePercent(
+                    System.getenv(HEDGE_BUDGET_PERCENT_ENVIRONMENT_NAME), DEFAULT_HEDGE_BUDGET_PERCENT));
+            INSTANCE.setCircuitWindowSize(parsePositiveInt(
+                    System.getenv(CIRCUIT_WINDOW_SIZE_ENVIRONMENT_NAME), DEFAULT_CIRCUIT_WINDOW_SIZE));
+            INSTANCE.setCircuitErrorPercent(parsePercent(
+                    System.getenv(CIRCUIT_ERROR_PERCENT_ENVIRONMENT_NAME), DEFAULT_CIRCUIT_ERROR_PERCENT));
+            INSTANCE.setCircuitOpenSeconds(parsePositiveInt(
+                    System.getenv(CIRCUIT_OPEN_SECONDS_ENVIRONMENT_NAME), DEFAULT_CIRCUIT_OPEN_SECONDS));
+            INSTANCE.setUpstreamCallParallelism(parsePositiveInt(
+                    System.getenv(UPSTREAM_CALL_PARALLELISM_ENVIRONMENT_NAME), DEFAULT_UPSTREAM_CALL_PARALLELISM));
+            String cristinApiUrl = System.getenv(CRISTIN_API_URL_ENVIRONMENT_NAME);
+            INSTANCE.setCristinApiUrl(cristinApiUrl == null || cristinApiUrl.isEmpty()
+                    ? DEFAULT_CRISTIN_API_URL : cristinApiUrl);
+            INSTANCE.setNegativeCacheMaxEntries(parsePositiveInt(
+                    System.getenv(NEGATIVE_CACHE_MAX_ENTRIES_ENVIRONMENT_NAME), DEFAULT_NEGATIVE_CACHE_MAX_ENTRIES));
+            INSTANCE.setNegativeCacheTtlSeconds(parsePositiveInt(
+                    System.getenv(NEGATIVE_CACHE_TTL_SECONDS_ENVIRONMENT_NAME), DEFAULT_NEGATIVE_CACHE_TTL_SECONDS));
+            INSTANCE.setResponseCacheMaxBytes(parsePositiveInt(
+                    System.getenv(RESPONSE_CACHE_MAX_BYTES_ENVIRONMENT_NAME), DEFAULT_RESPONSE_CACHE_MAX_BYTES));
+            INSTANCE.setResponseCacheTtlSeconds(parsePositiveInt(
+                    System.getenv(RESPONSE_CACHE_TTL_SECONDS_ENVIRONMENT_NAME), DEFAULT_RESPONSE_CACHE_TTL_SECONDS));
         }
     }
 
@@ -23,6 +194,51 @@ public class Config {
         return LazyHolder.INSTANCE;
     }
 
+    /**
+     * Parses a positive integer from an environment value, falling back to a default when unset or invalid.
+     *
+     * @param value        environment value, may be null
+     * @param defaultValue value used when the environment value is missing or not a positive integer
+     * @return the parsed value or the default
+     */
+    protected static int parsePositiveInt(String value, int defaultValue) {
+        try {
+            int parsed = Integer.parseInt(value);
+            return parsed > 0 ? parsed : defaultValue;
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+
+    /**
+     * Parses a percentage from 1 to 100 from an environment value, falling back to a default when unset or invalid.
+     *
+     * @param value        environment value, may be null
+     * @param defaultValue value used when the environment value is missing or not an integer from 1 to 100
+     * @return the parsed value or the default
+     */
+    protected static int parsePercent(String value, int defaultValue) {
+        int parsed = parsePositiveInt(value, defaultValue);
+        return parsed <= MAX_PERCENT ? parsed : defaultValue;
+    }
+
+    /**
+     * Parses a non-negative integer from an environment value, falling back to a default when unset or invalid.
+     * Used for windows where 0 turns the feature off.
+     *
+     * @param value        environment value, may be null
+     * @param defaultValue value used when the environment value is missing or not a non-negative integer
+     * @return the parsed value or the default
+     */
+    protected static int parseNonNegativeInt(String value, int defaultValue) {
+        try {
+            int parsed = Integer.parseInt(value);
+            return parsed >= 0 ? parsed : defaultValue;
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+
     public String getCorsHeader() {
         return corsHeader;
     }
@@ -31,4 +247,268 @@ public class Config {
         this.corsHeader = corsHeader;
     }
 
+    public int getEnrichmentParallelism() {
+        return enrichmentParallelism;
+    }
+
+    public void setEnrichmentParallelism(int enrichmentParallelism) {
+        this.enrichmentParallelism = enrichmentParallelism;
+    }
+
+    public int getHttpMaxConnectionsPerRoute() {
+        return httpMaxConnectionsPerRoute;
+    }
+
+    public void setHttpMaxConnectionsPerRoute(int httpMaxConnectionsPerRoute) {
+        this.httpMaxConnectionsPerRoute = httpMaxConnectionsPerRoute;
+    }
+
+    public int getHttpConnectTimeoutMillis() {
+        return httpConnectTimeoutMillis;
+    }
+
+    public void setHttpConnectTimeoutMillis(int httpConnectTimeoutMillis) {
+        this.httpConnectTimeoutMillis = httpConnectTimeoutMillis;
+    }
+
+    public int getHttpReadTimeoutMillis() {
+        return httpReadTimeoutMillis;
+    }
+
+    public void setHttpReadTimeoutMillis(int httpReadTimeoutMillis) {
+        this.httpReadTimeoutMillis = httpReadTimeoutMillis;
+    }
+
+    public int getHttpIdleEvictionSeconds() {
+        return httpIdleEvictionSeconds;
+    }
+
+    public void setHttpIdleEvictionSeconds(int httpIdleEvictionSeconds) {
+        this.httpIdleEvictionSeconds = httpIdleEvictionSeconds;
+    }
+
+    public int getCacheMaxEntries() {
+        return cacheMaxEntries;
+    }
+
+    public void setCacheMaxEntries(int cacheMaxEntries) {
+        this.cacheMaxEntries = cacheMaxEntries;
+    }
+
+    public int getCacheTtlSeconds() {
+        return cacheTtlSeconds;
+    }
+
+    public void setCacheTtlSeconds(int cacheTtlSeconds) {
+        this.cacheTtlSeconds = cacheTtlSeconds;
+    }
+
+    public String getInstitutionIndexSnapshot() {
+        return institutionIndexSnapshot;
+    }
+
+    public void setInstitutionIndexSnapshot(String institutionIndexSnapshot) {
+        this.institutionIndexSnapshot = institutionIndexSnapshot;
+    }
+
+    public int getInstitutionIndexMaxAgeSeconds() {
+        return institutionIndexMaxAgeSeconds;
+    }
+
+    public void setInstitutionIndexMaxAgeSeconds(int institutionIndexMaxAgeSeconds) {
+        this.institutionIndexMaxAgeSeconds = institutionIndexMaxAgeSeconds;
+    }
+
+    public int getInstitutionIndexRefreshSeconds() {
+        return institutionIndexRefreshSeconds;
+    }
+
+    public void setInstitutionIndexRefreshSeconds(int institutionIndexRefreshSeconds) {
+        this.institutionIndexRefreshSeconds = institutionIndexRefreshSeconds;
+    }
+
+    public String getCatalogSnapshot() {
+        return catalogSnapshot;
+    }
+
+    public void setCatalogSnapshot(String catalogSnapshot) {
+        this.catalogSnapshot = catalogSnapshot;
+    }
+
+    public int getUnitBatchMaxIds() {
+        return unitBatchMaxIds;
+    }
+
+    public void setUnitBatchMaxIds(int unitBatchMaxIds) {
+        this.unitBatchMaxIds = unitBatchMaxIds;
+    }
+
+    public int getUnitBatchParallelism() {
+        return unitBatchParallelism;
+    }
+
+    public void setUnitBatchParallelism(int unitBatchParallelism) {
+        this.unitBatchParallelism = unitBatchParallelism;
+    }
+
+    public int getUnitTreeMaxDepth() {
+        return unitTreeMaxDepth;
+    }
+
+    public void setUnitTreeMaxDepth(int unitTreeMaxDepth) {
+        this.unitTreeMaxDepth = unitTreeMaxDepth;
+    }
+
+    public int getUnitTreeMaxNodes() {
+        return unitTreeMaxNodes;
+    }
+
+    public void setUnitTreeMaxNodes(int unitTreeMaxNodes) {
+        this.unitTreeMaxNodes = unitTreeMaxNodes;
+    }
+
+    public int getUnitTreeParallelism() {
+        return unitTreeParallelism;
+    }
+
+    public void setUnitTreeParallelism(int unitTreeParallelism) {
+        this.unitTreeParallelism = unitTreeParallelism;
+    }
+
+    public int getCompressionMinBytes() {
+        return compressionMinBytes;
+    }
+
+    public void setCompressionMinBytes(int compressionMinBytes) {
+        this.compressionMinBytes = compressionMinBytes;
+    }
+
+    public int getCacheStaleWhileRevalidateSeconds() {
+        return cacheStaleWhileRevalidateSeconds;
+    }
+
+    public void setCacheStaleWhileRevalidateSeconds(int cacheStaleWhileRevalidateSeconds) {
+        this.cacheStaleWhileRevalidateSeconds = cacheStaleWhileRevalidateSeconds;
+    }
+
+    public int getCacheStaleIfErrorSeconds() {
+        return cacheStaleIfErrorSeconds;
+    }
+
+    public void setCacheStaleIfErrorSeconds(int cacheStaleIfErrorSeconds) {
+        this.cacheStaleIfErrorSeconds = cacheStaleIfErrorSeconds;
+    }
+
+    public int getEnrichmentBudgetMillis() {
+        return enrichmentBudgetMillis;
+    }
+
+    public void setEnrichmentBudgetMillis(int enrichmentBudgetMillis) {
+        this.enrichmentBudgetMillis = enrichmentBudgetMillis;
+    }
+
+    public int getDeadlineMarginMillis() {
+        return deadlineMarginMillis;
+    }
+
+    public void setDeadlineMarginMillis(int deadlineMarginMillis) {
+        this.deadlineMarginMillis = deadlineMarginMillis;
+    }
+
+    public int getHedgePercentile() {
+        return hedgePercentile;
+    }
+
+    public void setHedgePercentile(int hedgePercentile) {
+        this.hedgePercentile = hedgePercentile;
+    }
+
+    public int getHedgeMinDelayMillis() {
+        return hedgeMinDelayMillis;
+    }
+
+    public void setHedgeMinDelayMillis(int hedgeMinDelayMillis) {
+        this.hedgeMinDelayMillis = hedgeMinDelayMillis;
+    }
+
+    public int getHedgeBudgetPercent() {
+        return hedgeBudgetPercent;
+    }
+
+    public void setHedgeBudgetPercent(int hedgeBudgetPercent) {
+        this.hedgeBudgetPercent = hedgeBudgetPercent;
+    }
+
+    public int getCircuitWindowSize() {
+        return circuitWindowSize;
+    }
+
+    public void setCircuitWindowSize(int circuitWindowSize) {
+        this.circuitWindowSize = circuitWindowSize;
+    }
+
+    public int getCircuitErrorPercent() {
+        return circuitErrorPercent;
+    }
+
+    public void setCircuitErrorPercent(int circuitErrorPercent) {
+        this.circuitErrorPercent = circuitErrorPercent;
+    }
+
+    public int getCircuitOpenSeconds() {
+        return circuitOpenSeconds;
+    }
+
+    public void setCircuitOpenSeconds(int circuitOpenSeconds) {
+        this.circuitOpenSeconds = circuitOpenSeconds;
+    }
+
+    public int getUpstreamCallParallelism() {
+        return upstreamCallParallelism;
+    }
+
+    public void setUpstreamCallParallelism(int upstreamCallParallelism) {
+        this.upstreamCallParallelism = upstreamCallParallelism;
+    }
+
+    public String getCristinApiUrl() {
+        return cristinApiUrl;
+    }
+
+    public void setCristinApiUrl(String cristinApiUrl) {
+        this.cristinApiUrl = cristinApiUrl;
+    }
+
+    public int getNegativeCacheMaxEntries() {
+        return negativeCacheMaxEntries;
+    }
+
+    public void setNegativeCacheMaxEntries(int negativeCacheMaxEntries) {
+        this.negativeCacheMaxEntries = negativeCacheMaxEntries;
+    }
+
+    public int getNegativeCacheTtlSeconds() {
+        return negativeCacheTtlSeconds;
+    }
+
+    public void setNegativeCacheTtlSeconds(int negativeCacheTtlSeconds) {
+        this.negativeCacheTtlSeconds = negativeCacheTtlSeconds;
+    }
+
+    public int getResponseCacheMaxBytes() {
+        return responseCacheMaxBytes;
+    }
+
+    public void setResponseCacheMaxBytes(int responseCacheMaxBytes) {
+        this.responseCacheMaxBytes = responseCacheMaxBytes;
+    }
+
+    public int getResponseCacheTtlSeconds() {
+        return responseCacheTtlSeconds;
+    }
+
+    public void setResponseCacheTtlSeconds(int responseCacheTtlSeconds) {
+        this.responseCacheTtlSeconds = responseCacheTtlSeconds;
+    }
+
 }
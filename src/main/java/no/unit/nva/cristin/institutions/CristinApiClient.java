@@ -3,69 +3,189 @@ package no.unit.nva.cristin.institutions;
 
 import com.google.gson.Gson;
 import com.google.gson.JsonSyntaxException;
-import com.google.gson.reflect.TypeToken;
 import org.apache.http.client.utils.URIBuilder;
 
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.lang.reflect.Type;
 import java.net.MalformedURLException;
-import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URL;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.regex.Pattern;
 
 
 public class CristinApiClient {
 
-    private static final String HTTPS = "https";
-    private static final String CRISTIN_API_HOST = "api.cristin.no";
+    /**
+     * Language argument for record lookups that should return the names in every language Cristin has, leaving
+     * the choice of language to {@link PresentationConverter}.
+     */
+    public static final String ALL_LANGUAGES = null;
+
     private static final String CRISTIN_API_INSTITUTIONS_PATH = "/v2/institutions/";
     private static final String CRISTIN_API_UNITS_PATH = "/v2/units/";
+    private static final String LANGUAGE_PARAMETER = "lang";
+    private static final String PAGE_PARAMETER = "page";
+    private static final String PER_PAGE_PARAMETER = "per_page";
+    private static final int DEFAULT_PER_PAGE = 10;
+    private static final String TOTAL_COUNT_HEADER = "X-Total-Count";
+    private static final String LINK_HEADER = "Link";
+    private static final Pattern NEXT_LINK = Pattern.compile("rel\\s*=\\s*\"?next\"?", Pattern.CASE_INSENSITIVE);
+    private static final String QUERY_STAGE = "cristin-query";
+    private static final String INSTITUTION_STAGE = "cristin-institution";
+    private static final String UNIT_STAGE = "cristin-unit";
+    private static final Gson GSON = new Gson();
+    private static final CristinJsonDecoder DECODER = CristinJsonDecoder.getInstance();
+
+    private final transient HttpTransport httpTransport;
+
+    public CristinApiClient() {
+        this(HttpTransport.getInstance());
+    }
+
+    public CristinApiClient(HttpTransport httpTransport) {
+        this.httpTransport = httpTransport;
+    }
 
     protected List<Institution> queryInstitutions(Map<String, String> parameters) throws
             IOException, URISyntaxException {
         URL url = generateQueryInstitutionsUrl(parameters);
-        try (InputStreamReader streamReader = fetchQueryInstitutionsResults(url)) {
-            return fromJson(streamReader,
-                    new TypeToken<ArrayList<Institution>>(){}.getType());
-        }
+        return RequestTimings.current().time(QUERY_STAGE, () -> {
+            try (InputStreamReader streamReader = fetchQueryInstitutionsResults(url)) {
+                return DECODER.decodeInstitutions(streamReader);
+            }
+        });
+    }
+
+    /**
+     * Fetches one page of an institution search. The page number and size are taken from the {@code page}
+     * and {@code per_page} parameters, and whether more pages follow from the {@code Link} and
+     * {@code X-Total-Count} response headers.
+     *
+     * @param parameters Cristin query parameters, including {@code page} and {@code per_page}
+     * @return the page
+     * @throws IOException        if the request fails or the payload cannot be decoded
+     * @throws URISyntaxException if the parameters do not form a valid URL
+     */
+    protected InstitutionPage queryInstitutionsPage(Map<String, String> parameters) throws
+            IOException, URISyntaxException {
+        URL url = generateQueryInstitutionsUrl(parameters);
+        int page = parsePositiveInt(parameters.get(PAGE_PARAMETER), 1);
+        int perPage = parsePositiveInt(parameters.get(PER_PAGE_PARAMETER), DEFAULT_PER_PAGE);
+        return RequestTimings.current().time(QUERY_STAGE, () -> {
+            try (UpstreamResponse response = fetchQueryInstitutionsPage(url)) {
+                List<Institution> institutions = DECODER.decodeInstitutions(response.getBody());
+                Integer totalCount = response.getHeader(TOTAL_COUNT_HEADER)
+                        .map(value -> parsePositiveInt(value.trim(), 0))
+                        .orElse(null);
+                boolean nextPage = response.getHeader(LINK_HEADER).map(CristinApiClient::hasNextLink)
+                        .orElse(totalCount == null ? institutions.size() >= perPage : page * perPage < totalCount);
+                return new InstitutionPage(institutions, page, perPage, totalCount, nextPage);
+            }
+        });
+    }
+
+    private static boolean hasNextLink(String link) {
+        return NEXT_LINK.matcher(link).find();
+    }
+
+    private static int parsePositiveInt(String value, int defaultValue) {
+        return value == null ? defaultValue : Config.parsePositiveInt(value, defaultValue);
     }
 
     protected Institution getInstitution(String id, String language) throws IOException, URISyntaxException {
         URL url = generateGetInstitutionUrl(id, language);
-        try (InputStreamReader streamReader = fetchGetInstitutionResult(url)) {
-            return fromJson(streamReader,
-                    new TypeToken<Institution>(){}.getType());
-        }
+        return RequestTimings.current().time(INSTITUTION_STAGE, () -> {
+            try (InputStreamReader streamReader = fetchGetInstitutionResult(url)) {
+                return DECODER.decodeInstitution(streamReader);
+            }
+        });
     }
 
     protected Unit getUnit(String id, String language) throws IOException, URISyntaxException {
         URL url = generateGetUnitUrl(id, language);
-        try (InputStreamReader streamReader = fetchGetUnitResult(url)) {
-            return fromJson(streamReader, new TypeToken<Unit>(){}.getType());
-        }
+        return RequestTimings.current().time(UNIT_STAGE, () -> {
+            try (InputStreamReader streamReader = fetchGetUnitResult(url)) {
+                return DECODER.decodeUnit(streamReader);
+            }
+        });
+    }
+
+    /**
+     * Fetches an institution unless the copy identified by the validators is still current.
+     *
+     * @param id         cristinInstitutionId
+     * @param language   language of the names, or {@link #ALL_LANGUAGES}
+     * @param validators validators of the cached copy, or {@link Validators#NONE} for an unconditional fetch
+     * @return the institution with its validators, or a not-modified result
+     * @throws IOException        if the request fails or the payload cannot be decoded
+     * @throws URISyntaxException if the id does not form a valid URL
+     */
+    protected Validated<Institution> getInstitutionIfModified(String id, String language, Validators validators)
+            throws IOException, URISyntaxException {
+        URL url = generateGetInstitutionUrl(id, language);
+        return RequestTimings.current().time(INSTITUTION_STAGE, () -> {
+            try (UpstreamResponse response = fetchGetInstitutionIfModified(url, validators)) {
+                if (response.isNotModified()) {
+                    return Validated.notModified(validators);
+                }
+                return Validated.of(DECODER.decodeInstitution(response.getBody()), response.getValidators());
+            }
+        });
+    }
+
+    /**
+     * Fetches a unit unless the copy identified by the validators is still current.
+     *
+     * @param id         cristinUnitId
+     * @param language   language of the names, or {@link #ALL_LANGUAGES}
+     * @param validators validators of the cached copy, or {@link Validators#NONE} for an unconditional fetch
+     * @return the unit with its validators, or a not-modified result
+     * @throws IOException        if the request fails or the payload cannot be decoded
+     * @throws URISyntaxException if the id does not form a valid URL
+     */
+    protected Validated<Unit> getUnitIfModified(String id, String language, Validators validators)
+            throws IOException, URISyntaxException {
+        URL url = generateGetUnitUrl(id, language);
+        return RequestTimings.current().time(UNIT_STAGE, () -> {
+            try (UpstreamResponse response = fetchGetUnitIfModified(url, validators)) {
+                if (response.isNotModified()) {
+                    return Validated.notModified(validators);
+                }
+                return Validated.of(DECODER.decodeUnit(response.getBody()), response.getValidators());
+            }
+        });
     }
 
     protected InputStreamReader fetchQueryInstitutionsResults(URL url) throws IOException {
-        return new InputStreamReader(url.openStream());
+        return httpTransport.get(url);
+    }
+
+    protected UpstreamResponse fetchQueryInstitutionsPage(URL url) throws IOException {
+        return httpTransport.fetch(url);
     }
 
     protected InputStreamReader fetchGetInstitutionResult(URL url) throws IOException {
-        return new InputStreamReader(url.openStream());
+        return httpTransport.get(url);
     }
 
     protected InputStreamReader fetchGetUnitResult(URL url) throws IOException {
-        return new InputStreamReader(url.openStream());
+        return httpTransport.get(url);
+    }
+
+    protected UpstreamResponse fetchGetInstitutionIfModified(URL url, Validators validators) throws IOException {
+        return httpTransport.fetch(url, validators);
+    }
+
+    protected UpstreamResponse fetchGetUnitIfModified(URL url, Validators validators) throws IOException {
+        return httpTransport.fetch(url, validators);
     }
 
     protected URL generateQueryInstitutionsUrl(Map<String, String> parameters) throws MalformedURLException,
             URISyntaxException {
-        URIBuilder uri = new URIBuilder()
-                .setScheme(HTTPS)
-                .setHost(CRISTIN_API_HOST)
+        URIBuilder uri = new URIBuilder(Config.getInstance().getCristinApiUrl())
                 .setPath(CRISTIN_API_INSTITUTIONS_PATH);
         if (parameters != null) {
             parameters.keySet().forEach(s -> uri.addParameter(s, parameters.get(s)));
@@ -75,28 +195,25 @@ public class CristinApiClient {
 
     protected URL generateGetInstitutionUrl(String id, String language) throws
             MalformedURLException, URISyntaxException {
-        URI uri = new URIBuilder()
-                .setScheme(HTTPS)
-                .setHost(CRISTIN_API_HOST)
-                .setPath(CRISTIN_API_INSTITUTIONS_PATH + id)
-                .addParameter("lang", language)
-                .build();
-        return uri.toURL();
+        return generateGetRecordUrl(CRISTIN_API_INSTITUTIONS_PATH + id, language);
     }
 
     protected URL generateGetUnitUrl(String id, String language) throws MalformedURLException, URISyntaxException {
-        URI uri = new URIBuilder()
-                .setScheme(HTTPS)
-                .setHost(CRISTIN_API_HOST)
-                .setPath(CRISTIN_API_UNITS_PATH + id)
-                .addParameter("lang", language)
-                .build();
-        return uri.toURL();
+        return generateGetRecordUrl(CRISTIN_API_UNITS_PATH + id, language);
+    }
+
+    private static URL generateGetRecordUrl(String path, String language) throws MalformedURLException,
+            URISyntaxException {
+        URIBuilder uri = new URIBuilder(Config.getInstance().getCristinApiUrl()).setPath(path);
+        if (language != null) {
+            uri.addParameter(LANGUAGE_PARAMETER, language);
+        }
+        return uri.build().toURL();
     }
 
     protected static <T> T fromJson(InputStreamReader reader, Type type) throws IOException {
         try {
-            return new Gson().fromJson(reader, type);
+            return GSON.fromJson(reader, type);
         } catch (JsonSyntaxException e) {
             final String s = e.getMessage() + " " + reader;
             throw new IOException(s, e);
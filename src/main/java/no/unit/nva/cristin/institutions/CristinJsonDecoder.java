@@ -0,0 +1,277 @@
+package no.unit.nva.cristin.institutions;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Streaming decoder for Cristin institution and unit payloads. Only the fields used by
+ * {@link PresentationConverter} are materialized; everything else is skipped in the token stream.
+ * Like Gson, the decoder reads leniently, leaves missing fields {@code null} and decodes {@code null} values as
+ * {@code null}; decoded lists and maps are mutable. The decoder holds no state and a single instance can be
+ * shared between threads.
+ */
+public class CristinJsonDecoder {
+
+    private static final String CRISTIN_INSTITUTION_ID = "cristin_institution_id";
+    private static final String INSTITUTION_NAME = "institution_name";
+    private static final String ACRONYM = "acronym";
+    private static final String COUNTRY = "country";
+    private static final String CORRESPONDING_UNIT = "corresponding_unit";
+    private static final String CRISTIN_UNIT_ID = "cristin_unit_id";
+    private static final String UNIT_NAME = "unit_name";
+    private static final String INSTITUTION = "institution";
+    private static final String PARENT_UNIT = "parent_unit";
+    private static final String SUBUNITS = "subunits";
+
+    private static final CristinJsonDecoder INSTANCE = new CristinJsonDecoder();
+
+    public static CristinJsonDecoder getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Decodes the result array of an institution search.
+     *
+     * @param reader JSON source
+     * @return institutions in the order of the payload
+     * @throws IOException if the payload is not valid JSON of the expected shape
+     */
+    public List<Institution> decodeInstitutions(Reader reader) throws IOException {
+        return decodeInstitutions(lenientReader(reader));
+    }
+
+    /**
+     * Decodes an array of institutions at the current position of the reader, e.g. one embedded in a larger
+     * document.
+     *
+     * @param json reader positioned at the array
+     * @return institutions in the order of the payload
+     * @throws IOException if the array is not valid JSON of the expected shape
+     */
+    public List<Institution> decodeInstitutions(JsonReader json) throws IOException {
+        try {
+            List<Institution> institutions = new ArrayList<>();
+            json.beginArray();
+            while (json.hasNext()) {
+                institutions.add(readInstitution(json));
+            }
+            json.endArray();
+            return institutions;
+        } catch (IllegalStateException | NumberFormatException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Decodes a single institution.
+     *
+     * @param reader JSON source
+     * @return the institution
+     * @throws IOException if the payload is not valid JSON of the expected shape
+     */
+    public Institution decodeInstitution(Reader reader) throws IOException {
+        JsonReader json = lenientReader(reader);
+        try {
+            return readInstitution(json);
+        } catch (IllegalStateException | NumberFormatException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Decodes a single unit with its institution, parent unit and direct subunits.
+     *
+     * @param reader JSON source
+     * @return the unit
+     * @throws IOException if the payload is not valid JSON of the expected shape
+     */
+    public Unit decodeUnit(Reader reader) throws IOException {
+        JsonReader json = lenientReader(reader);
+        try {
+            return readUnit(json);
+        } catch (IllegalStateException | NumberFormatException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Decodes an array of units, each with its institution, parent unit and direct subunits.
+     *
+     * @param reader JSON source
+     * @return units in the order of the payload
+     * @throws IOException if the payload is not valid JSON of the expected shape
+     */
+    public List<Unit> decodeUnits(Reader reader) throws IOException {
+        JsonReader json = lenientReader(reader);
+        try {
+            List<Unit> units = new ArrayList<>();
+            json.beginArray();
+            while (json.hasNext()) {
+                units.add(readUnit(json));
+            }
+            json.endArray();
+            return units;
+        } catch (IllegalStateException | NumberFormatException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+    }
+
+    private Institution readInstitution(JsonReader json) throws IOException {
+        if (skipNull(json)) {
+            return null;
+        }
+        Institution institution = new Institution();
+        json.beginObject();
+        while (json.hasNext()) {
+            switch (json.nextName()) {
+                case CRISTIN_INSTITUTION_ID:
+                    institution.cristinInstitutionId = readString(json);
+                    break;
+                case INSTITUTION_NAME:
+                    institution.institutionName = readNames(json);
+                    break;
+                case ACRONYM:
+                    institution.acronym = readString(json);
+                    break;
+                case COUNTRY:
+                    institution.country = readString(json);
+                    break;
+                case CORRESPONDING_UNIT:
+                    institution.correspondingUnit = readUnitReference(json);
+                    break;
+                default:
+                    json.skipValue();
+                    break;
+            }
+        }
+        json.endObject();
+        return institution;
+    }
+
+    private Institution readInstitutionReference(JsonReader json) throws IOException {
+        if (skipNull(json)) {
+            return null;
+        }
+        Institution institution = new Institution();
+        json.beginObject();
+        while (json.hasNext()) {
+            if (CRISTIN_INSTITUTION_ID.equals(json.nextName())) {
+                institution.cristinInstitutionId = readString(json);
+            } else {
+                json.skipValue();
+            }
+        }
+        json.endObject();
+        return institution;
+    }
+
+    private Unit readUnit(JsonReader json) throws IOException {
+        if (skipNull(json)) {
+            return null;
+        }
+        Unit unit = new Unit();
+        json.beginObject();
+        while (json.hasNext()) {
+            switch (json.nextName()) {
+                case CRISTIN_UNIT_ID:
+                    unit.cristinUnitId = readString(json);
+                    break;
+                case UNIT_NAME:
+                    unit.unitName = readNames(json);
+                    break;
+                case INSTITUTION:
+                    unit.institution = readInstitutionReference(json);
+                    break;
+                case PARENT_UNIT:
+                    unit.parentUnit = readUnitReference(json);
+                    break;
+                case SUBUNITS:
+                    unit.subunits = readUnitReferences(json);
+                    break;
+                default:
+                    json.skipValue();
+                    break;
+            }
+        }
+        json.endObject();
+        return unit;
+    }
+
+    private Unit readUnitReference(JsonReader json) throws IOException {
+        if (skipNull(json)) {
+            return null;
+        }
+        Unit unit = new Unit();
+        json.beginObject();
+        while (json.hasNext()) {
+            switch (json.nextName()) {
+                case CRISTIN_UNIT_ID:
+                    unit.cristinUnitId = readString(json);
+                    break;
+                case UNIT_NAME:
+                    unit.unitName = readNames(json);
+                    break;
+                default:
+                    json.skipValue();
+                    break;
+            }
+        }
+        json.endObject();
+        return unit;
+    }
+
+    private List<Unit> readUnitReferences(JsonReader json) throws IOException {
+        if (skipNull(json)) {
+            return null;
+        }
+        List<Unit> units = new ArrayList<>();
+        json.beginArray();
+        while (json.hasNext()) {
+            units.add(readUnitReference(json));
+        }
+        json.endArray();
+        return units;
+    }
+
+    private Map<String, String> readNames(JsonReader json) throws IOException {
+        if (skipNull(json)) {
+            return null;
+        }
+        Map<String, String> names = new LinkedHashMap<>();
+        json.beginObject();
+        while (json.hasNext()) {
+            names.put(json.nextName(), readString(json));
+        }
+        json.endObject();
+        return names;
+    }
+
+    private String readString(JsonReader json) throws IOException {
+        if (skipNull(json)) {
+            return null;
+        }
+        return json.nextString();
+    }
+
+    private static JsonReader lenientReader(Reader reader) {
+        JsonReader json = new JsonReader(reader);
+        json.setLenient(true);
+        return json;
+    }
+
+    private boolean skipNull(JsonReader json) throws IOException {
+        if (json.peek() == JsonToken.NULL) {
+            json.nextNull();
+            return true;
+        }
+        return false;
+    }
+
+}
@@ -0,0 +1,83 @@
+package no.unit.nva.cristin.institutions;
+
+import com.amazonaws.services.lambda.runtime.Context;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Point in time by which a request must be answered, measured on the monotonic clock.
+ */
+public final class Deadline {
+
+    public static final Deadline NONE = new Deadline(Long.MAX_VALUE, false);
+
+    private final transient long expiresAtNanos;
+    private final transient boolean bounded;
+
+    private Deadline(long expiresAtNanos, boolean bounded) {
+        this.expiresAtNanos = expiresAtNanos;
+        this.bounded = bounded;
+    }
+
+    /**
+     * Creates a deadline the given number of milliseconds from now.
+     *
+     * @param millis time until the deadline
+     * @return the deadline
+     */
+    public static Deadline in(long millis) {
+        return new Deadline(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(Math.max(0, millis)), true);
+    }
+
+    /**
+     * Derives a deadline from the time Lambda leaves the invocation, keeping a margin for building and returning
+     * the response. A missing context, or one that reports no remaining time as test doubles do, gives no deadline.
+     *
+     * @param context      Lambda context, or null
+     * @param marginMillis time reserved for finishing the response
+     * @return the deadline, or {@link #NONE}
+     */
+    public static Deadline fromContext(Context context, long marginMillis) {
+        if (context == null || context.getRemainingTimeInMillis() <= 0) {
+            return NONE;
+        }
+        return in(context.getRemainingTimeInMillis() - marginMillis);
+    }
+
+    /**
+     * Returns whichever of this and the other deadline comes first.
+     *
+     * @param other other deadline
+     * @return the earlier deadline
+     */
+    public Deadline earlier(Deadline other) {
+        if (!bounded) {
+            return other;
+        }
+        if (!other.bounded) {
+            return this;
+        }
+        return expiresAtNanos - other.expiresAtNanos <= 0 ? this : other;
+    }
+
+    public boolean isBounded() {
+        return bounded;
+    }
+
+    /**
+     * Time left until the deadline.
+     *
+     * @return remaining milliseconds, zero once expired, or {@link Long#MAX_VALUE} without a deadline
+     */
+    public long remainingMillis() {
+        if (!bounded) {
+            return Long.MAX_VALUE;
+        }
+        return Math.max(0, TimeUnit.NANOSECONDS.toMillis(expiresAtNanos - System.nanoTime()));
+    }
+
+    public boolean isExpired() {
+        return bounded && expiresAtNanos - System.nanoTime() <= 0;
+    }
+
+}
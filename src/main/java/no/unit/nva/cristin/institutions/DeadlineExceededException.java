@@ -0,0 +1,21 @@
+package no.unit.nva.cristin.institutions;
+
+import java.io.IOException;
+
+/**
+ * A Cristin request was not sent, or not answered, before the request's deadline. This says nothing about the
+ * health of Cristin, so the circuit breaker does not count it as a failure.
+ */
+public class DeadlineExceededException extends IOException {
+
+    private static final long serialVersionUID = 1L;
+
+    public DeadlineExceededException(String message) {
+        super(message);
+    }
+
+    public DeadlineExceededException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+}
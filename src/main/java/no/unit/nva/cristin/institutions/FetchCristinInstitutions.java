@@ -2,18 +2,26 @@ package no.unit.nva.cristin.institutions;
 
 import com.amazonaws.services.lambda.runtime.Context;
 import com.amazonaws.services.lambda.runtime.RequestHandler;
-import com.google.gson.Gson;
-import com.google.gson.reflect.TypeToken;
 
 import javax.ws.rs.core.Response;
 import java.io.IOException;
 import java.net.URISyntaxException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Handler for requests to Lambda function.
@@ -23,16 +31,27 @@ public class FetchCristinInstitutions implements RequestHandler<Map<String, Obje
     private static final String QUERY_STRING_PARAMETERS_KEY = "queryStringParameters";
     private static final String NAME_KEY = "name";
     private static final String LANGUAGE_KEY = "language";
+    private static final String PAGE_KEY = "page";
+    private static final String PER_PAGE_KEY = "per_page";
+    private static final String MODE_KEY = "mode";
 
     protected static final String NAME_IS_NULL = "Parameter 'name' is mandatory";
     protected static final String NAME_ILLEGAL_CHARACTERS = "Parameter 'name' may only contain alphanumeric "
             + "characters, dash and whitespace";
     protected static final String LANGUAGE_INVALID = "Parameter 'language' has invalid value";
+    protected static final String PAGE_INVALID = "Parameter 'page' must be an integer from 1 to %d";
+    protected static final String PER_PAGE_INVALID = "Parameter 'per_page' must be an integer from 1 to %d";
+    protected static final String MODE_INVALID = "Parameter 'mode' must be 'exact' or 'fuzzy'";
+    protected static final String FUZZY_UNAVAILABLE = "Parameter 'mode' cannot be 'fuzzy' while the local "
+            + "institution index is unavailable";
 
     private static final String EMPTY_STRING = "";
     private static final char CHARACTER_DASH = '-';
     private static final String DEFAULT_LANGUAGE_CODE = "nb";
     private static final List<String> VALID_LANGUAGE_CODES = Arrays.asList("nb", "en");
+    private static final String EXACT_MODE = "exact";
+    private static final String FUZZY_MODE = "fuzzy";
+    private static final List<String> VALID_MODES = Arrays.asList(EXACT_MODE, FUZZY_MODE);
 
     private static final String CRISTIN_QUERY_PARAMETER_NAME_KEY = "name";
     private static final String CRISTIN_QUERY_PARAMETER_LANGUAGE_KEY = "lang";
@@ -40,12 +59,36 @@ public class FetchCristinInstitutions implements RequestHandler<Map<String, Obje
     private static final String CRISTIN_QUERY_PARAMETER_PAGE_VALUE = "1";
     private static final String CRISTIN_QUERY_PARAMETER_PER_PAGE_KEY = "per_page";
     private static final String CRISTIN_QUERY_PARAMETER_PER_PAGE_VALUE = "5";
+    private static final int MAX_PER_PAGE = 100;
+    private static final int MAX_PAGE = 1000;
+    private static final int ALL_RESULTS_PER_PAGE = MAX_PER_PAGE;
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private static final String HANDLER_NAME = "FetchCristinInstitutions";
+    private static final String PARAMETERS_STAGE = "params";
+    private static final String INDEX_STAGE = "index";
+    private static final String FUZZY_STAGE = "fuzzy";
+    private static final String ENRICH_STAGE = "enrich";
+    private static final String CONVERT_STAGE = "convert";
+    private static final String SERIALIZE_STAGE = "serialize";
+
+    static {
+        InitPhase.ensureInitialized();
+    }
 
     private transient CristinApiClient cristinApiClient;
+    private transient InstitutionIndexProvider institutionIndexProvider =
+            InstitutionIndexProvider.fromConfig(Config.getInstance());
     private final transient PresentationConverter presentationConverter = new PresentationConverter();
+    private final transient PresentationJsonEncoder presentationJsonEncoder = PresentationJsonEncoder.getInstance();
+    private final transient ParallelExecutor parallelExecutor =
+            new ParallelExecutor(Config.getInstance().getEnrichmentParallelism());
+    private final transient ParallelExecutor prefetchExecutor = new ParallelExecutor(1);
+    private transient ResponseCache responseCache = ResponseCache.fromConfig(Config.getInstance());
 
     public FetchCristinInstitutions() {
-        cristinApiClient = new CristinApiClient();
+        cristinApiClient = new CachingCristinApiClient(new ResilientCristinApiClient(new CristinApiClient()));
     }
 
     public FetchCristinInstitutions(CristinApiClient cristinApiClient) {
@@ -56,13 +99,70 @@ public class FetchCristinInstitutions implements RequestHandler<Map<String, Obje
         this.cristinApiClient = cristinApiClient;
     }
 
+    public void setInstitutionIndexProvider(InstitutionIndexProvider institutionIndexProvider) {
+        this.institutionIndexProvider = institutionIndexProvider;
+    }
+
     @Override
-    @SuppressWarnings("unchecked")
     public GatewayResponse handleRequest(Map<String, Object> input, Context context) {
+        RequestTimings timings = RequestTimings.start(HANDLER_NAME,
+                Deadline.fromContext(context, Config.getInstance().getDeadlineMarginMillis()));
+        String acceptEncoding = GatewayResponse.getRequestHeader(input, GatewayResponse.ACCEPT_ENCODING_HEADER);
+        Optional<String> cacheKey = responseCacheKey(input, acceptEncoding);
+        Optional<GatewayResponse> cached = cacheKey.flatMap(responseCache::get);
+        GatewayResponse gatewayResponse;
+        if (cached.isPresent()) {
+            timings.recordCache(RequestTimings.CACHE_RESPONSE_HIT);
+            gatewayResponse = cached.get();
+        } else {
+            gatewayResponse = respond(input, timings);
+            gatewayResponse.applyEntityTag(null);
+            gatewayResponse.applyContentEncoding(acceptEncoding, Config.getInstance().getCompressionMinBytes());
+            if (cacheKey.isPresent() && timings.isComplete()
+                    && gatewayResponse.getStatusCode() == Response.Status.OK.getStatusCode()) {
+                responseCache.put(cacheKey.get(), gatewayResponse);
+            }
+        }
+        gatewayResponse.applyNotModified(GatewayResponse.getRequestHeader(input,
+                GatewayResponse.IF_NONE_MATCH_HEADER));
+        timings.finish(gatewayResponse);
+        return gatewayResponse;
+    }
+
+    public void setResponseCache(ResponseCache responseCache) {
+        this.responseCache = responseCache;
+    }
+
+    /**
+     * Builds the response cache key from the name in lower case with runs of whitespace collapsed, the language,
+     * paging and search mode with their defaults filled in, and the content encoding the response would get.
+     *
+     * @param input          API Gateway proxy event
+     * @param acceptEncoding value of the request's Accept-Encoding header, or null
+     * @return cache key, or empty if the request has no name
+     */
+    @SuppressWarnings("unchecked")
+    private Optional<String> responseCacheKey(Map<String, Object> input, String acceptEncoding) {
+        Map<String, String> queryStringParameters = (Map<String, String>) input.get(QUERY_STRING_PARAMETERS_KEY);
+        if (queryStringParameters == null || queryStringParameters.get(NAME_KEY) == null) {
+            return Optional.empty();
+        }
+        String name = WHITESPACE.matcher(queryStringParameters.get(NAME_KEY).trim()).replaceAll(" ")
+                .toLowerCase(Locale.ROOT);
+        return Optional.of(ResponseCache.key(HANDLER_NAME, name,
+                queryStringParameters.getOrDefault(LANGUAGE_KEY, DEFAULT_LANGUAGE_CODE),
+                queryStringParameters.getOrDefault(PAGE_KEY, CRISTIN_QUERY_PARAMETER_PAGE_VALUE),
+                queryStringParameters.getOrDefault(PER_PAGE_KEY, CRISTIN_QUERY_PARAMETER_PER_PAGE_VALUE),
+                queryStringParameters.getOrDefault(MODE_KEY, EXACT_MODE),
+                GatewayResponse.negotiateEncoding(acceptEncoding).orElse(EMPTY_STRING)));
+    }
+
+    @SuppressWarnings("unchecked")
+    private GatewayResponse respond(Map<String, Object> input, RequestTimings timings) {
 
         GatewayResponse gatewayResponse = new GatewayResponse();
         try {
-            this.checkParameters(input);
+            timings.time(PARAMETERS_STAGE, () -> this.checkParameters(input));
         } catch (RuntimeException e) {
             gatewayResponse.setErrorBody(e.getMessage());
             gatewayResponse.setStatusCode(Response.Status.BAD_REQUEST.getStatusCode());
@@ -72,26 +172,28 @@ public class FetchCristinInstitutions implements RequestHandler<Map<String, Obje
         Map<String, String> queryStringParameters = (Map<String, String>) input.get(QUERY_STRING_PARAMETERS_KEY);
         String name = queryStringParameters.get(NAME_KEY);
         String language = queryStringParameters.getOrDefault(LANGUAGE_KEY, DEFAULT_LANGUAGE_CODE);
+        String page = queryStringParameters.getOrDefault(PAGE_KEY, CRISTIN_QUERY_PARAMETER_PAGE_VALUE);
+        String perPage = queryStringParameters.getOrDefault(PER_PAGE_KEY, CRISTIN_QUERY_PARAMETER_PER_PAGE_VALUE);
+        boolean fuzzy = FUZZY_MODE.equals(queryStringParameters.getOrDefault(MODE_KEY, EXACT_MODE));
+        Optional<InstitutionSearchIndex> index = institutionIndexProvider.getFreshIndex();
+        if (fuzzy && index.isEmpty()) {
+            gatewayResponse.setErrorBody(FUZZY_UNAVAILABLE);
+            gatewayResponse.setStatusCode(Response.Status.BAD_REQUEST.getStatusCode());
+            return gatewayResponse;
+        }
 
         try {
-            Map<String, String> cristinQueryParameters = createCristinQueryParameters(name, language);
-            List<Institution> institutions = cristinApiClient.queryInstitutions(cristinQueryParameters);
-            List<InstitutionPresentation> institutionPresentations = institutions.stream()
-                    .map(institution -> {
-                        try {
-                            return cristinApiClient.getInstitution(institution.cristinInstitutionId, language);
-                        } catch (IOException | URISyntaxException e) {
-                            System.out.println("Error fetching cristin institution with id: "
-                                    + institution.cristinInstitutionId);
-                        }
-                        return institution;
-                    })
-                    .map(presentationConverter::asInstitutionPresentation)
-                    .collect(Collectors.toList());
+            Set<Institution> partial = Collections.newSetFromMap(new IdentityHashMap<>());
+            List<Institution> institutions = searchInstitutions(name, language, Integer.parseInt(page),
+                    Integer.parseInt(perPage), fuzzy, index, timings, partial);
+            List<InstitutionPresentation> institutionPresentations = timings.time(CONVERT_STAGE,
+                    () -> institutions.stream()
+                        .map(institution -> asInstitutionPresentation(institution, language, partial))
+                        .collect(Collectors.toList()));
 
             gatewayResponse.setStatusCode(Response.Status.OK.getStatusCode());
-            gatewayResponse.setBody(new Gson().toJson(institutionPresentations,
-                    new TypeToken<ArrayList<InstitutionPresentation>>(){}.getType()));
+            timings.time(SERIALIZE_STAGE,
+                    () -> gatewayResponse.setBody(presentationJsonEncoder.toJson(institutionPresentations)));
 
         } catch (IOException | URISyntaxException e) {
             gatewayResponse.setStatusCode(Response.Status.INTERNAL_SERVER_ERROR.getStatusCode());
@@ -102,6 +204,99 @@ public class FetchCristinInstitutions implements RequestHandler<Map<String, Obje
     }
 
 
+    private List<Institution> searchInstitutions(String name, String language, int page, int perPage, boolean fuzzy,
+                                                 Optional<InstitutionSearchIndex> index, RequestTimings timings,
+                                                 Set<Institution> partial)
+            throws IOException, URISyntaxException {
+        int limit = Math.multiplyExact(page, perPage);
+        int offset = Math.multiplyExact(page - 1, perPage);
+        if (index.isPresent() && !fuzzy) {
+            List<Institution> hits = timings.time(INDEX_STAGE, () -> index.get().search(name, limit));
+            if (!hits.isEmpty() || page > 1) {
+                return hits.subList(Math.min(hits.size(), offset), hits.size());
+            }
+        }
+        if (index.isPresent()) {
+            List<Institution> hits = timings.time(FUZZY_STAGE, () -> index.get().fuzzySearch(name, limit));
+            return hits.subList(Math.min(hits.size(), offset), hits.size());
+        }
+        Map<String, String> cristinQueryParameters = createCristinQueryParameters(name, language);
+        cristinQueryParameters.put(CRISTIN_QUERY_PARAMETER_PAGE_KEY, Integer.toString(page));
+        cristinQueryParameters.put(CRISTIN_QUERY_PARAMETER_PER_PAGE_KEY, Integer.toString(perPage));
+        List<Institution> institutions = cristinApiClient.queryInstitutions(cristinQueryParameters);
+        Deadline enrichmentDeadline = timings.getDeadline()
+                .earlier(Deadline.in(Config.getInstance().getEnrichmentBudgetMillis()));
+        List<Optional<Institution>> enriched = timings.time(ENRICH_STAGE, () -> parallelExecutor.mapInOrder(
+                institutions, institution -> enrichInstitution(institution, language), enrichmentDeadline));
+        List<Institution> results = new ArrayList<>(institutions.size());
+        for (int i = 0; i < institutions.size(); i++) {
+            Institution summary = institutions.get(i);
+            if (enriched.get(i).isEmpty()) {
+                partial.add(summary);
+                timings.recordPartial();
+            }
+            results.add(enriched.get(i).orElse(summary));
+        }
+        return results;
+    }
+
+    private InstitutionPresentation asInstitutionPresentation(Institution institution, String language,
+                                                              Set<Institution> partial) {
+        InstitutionPresentation presentation = presentationConverter.asInstitutionPresentation(institution, language);
+        if (partial.contains(institution)) {
+            presentation.partial = true;
+        }
+        return presentation;
+    }
+
+    /**
+     * Streams every institution matching the name, page by page, for internal callers that need the complete
+     * result set. While one page is enriched and converted the next is fetched in the background. Each page is
+     * enriched within the enrichment budget and the calling request's deadline; institutions not enriched in time
+     * are kept in summary form and marked as partial. The stream is lazy; a failed page request surfaces as an
+     * {@link java.io.UncheckedIOException} from the stream.
+     *
+     * @param name     name, part of name or acronym
+     * @param language preferred language for names
+     * @return stream of all matching institutions in Cristin's order
+     */
+    public Stream<InstitutionPresentation> streamAllInstitutions(String name, String language) {
+        InstitutionPageIterator pages = new InstitutionPageIterator(cristinApiClient,
+                createCristinQueryParameters(name, language), 1, ALL_RESULTS_PER_PAGE, prefetchExecutor);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(pages,
+                Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .flatMap(page -> enrichPage(page.getInstitutions(), language).stream());
+    }
+
+    private List<InstitutionPresentation> enrichPage(List<Institution> institutions, String language) {
+        RequestTimings timings = RequestTimings.current();
+        Deadline enrichmentDeadline = timings.getDeadline()
+                .earlier(Deadline.in(Config.getInstance().getEnrichmentBudgetMillis()));
+        List<Optional<Institution>> enriched = parallelExecutor.mapInOrder(institutions,
+                institution -> enrichInstitution(institution, language), enrichmentDeadline);
+        List<InstitutionPresentation> presentations = new ArrayList<>(institutions.size());
+        for (int i = 0; i < institutions.size(); i++) {
+            InstitutionPresentation presentation = presentationConverter.asInstitutionPresentation(
+                    enriched.get(i).orElse(institutions.get(i)), language);
+            if (enriched.get(i).isEmpty()) {
+                presentation.partial = true;
+                timings.recordPartial();
+            }
+            presentations.add(presentation);
+        }
+        return presentations;
+    }
+
+    private Institution enrichInstitution(Institution institution, String language) {
+        try {
+            return cristinApiClient.getInstitution(institution.cristinInstitutionId, language);
+        } catch (IOException | URISyntaxException e) {
+            System.out.println("Error fetching cristin institution with id: "
+                    + institution.cristinInstitutionId);
+        }
+        return institution;
+    }
+
     @SuppressWarnings("unchecked")
     private void checkParameters(Map<String, Object> input) {
         Map<String, String> queryStringParameters = (Map<String, String>) input.get(QUERY_STRING_PARAMETERS_KEY);
@@ -118,6 +313,27 @@ public class FetchCristinInstitutions implements RequestHandler<Map<String, Obje
         if (!VALID_LANGUAGE_CODES.contains(language)) {
             throw new RuntimeException(LANGUAGE_INVALID);
         }
+
+        int page = parseInteger(queryStringParameters.getOrDefault(PAGE_KEY, CRISTIN_QUERY_PARAMETER_PAGE_VALUE));
+        if (page < 1 || page > MAX_PAGE) {
+            throw new RuntimeException(String.format(PAGE_INVALID, MAX_PAGE));
+        }
+        int perPage = parseInteger(queryStringParameters.getOrDefault(PER_PAGE_KEY,
+                CRISTIN_QUERY_PARAMETER_PER_PAGE_VALUE));
+        if (perPage < 1 || perPage > MAX_PER_PAGE) {
+            throw new RuntimeException(String.format(PER_PAGE_INVALID, MAX_PER_PAGE));
+        }
+        if (!VALID_MODES.contains(queryStringParameters.getOrDefault(MODE_KEY, EXACT_MODE))) {
+            throw new RuntimeException(MODE_INVALID);
+        }
+    }
+
+    private int parseInteger(String value) {
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
     }
 
     private boolean isValidName(String str) {
@@ -2,13 +2,12 @@ package no.unit.nva.cristin.institutions;
 
 import com.amazonaws.services.lambda.runtime.Context;
 import com.amazonaws.services.lambda.runtime.RequestHandler;
-import com.google.gson.Gson;
-import com.google.gson.reflect.TypeToken;
 
 import javax.ws.rs.core.Response;
 import java.io.IOException;
 import java.net.URISyntaxException;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -23,19 +22,38 @@ public class FetchCristinUnit implements RequestHandler<Map<String, Object>, Gat
     private static final String PATH_PARAMETERS_KEY = "pathParameters";
     private static final String ID_KEY = "id";
     private static final String LANGUAGE_KEY = "language";
+    private static final String DEPTH_KEY = "depth";
 
     private static final String ID_IS_NULL = "Parameter 'id' is mandatory";
     private static final String LANGUAGE_INVALID = "Parameter 'language' has invalid value";
+    private static final String DEPTH_INVALID = "Parameter 'depth' must be an integer from 1 to %d";
+    protected static final String UNIT_NOT_FOUND = "Unit not found";
 
     private static final String EMPTY_STRING = "";
     private static final String DEFAULT_LANGUAGE_CODE = "nb";
+    private static final String DEFAULT_DEPTH = "1";
     private static final List<String> VALID_LANGUAGE_CODES = Arrays.asList("nb", "en");
 
+    private static final String HANDLER_NAME = "FetchCristinUnit";
+    private static final String PARAMETERS_STAGE = "params";
+    private static final String CONVERT_STAGE = "convert";
+    private static final String EXPAND_STAGE = "expand";
+    private static final String SERIALIZE_STAGE = "serialize";
+
+    static {
+        InitPhase.ensureInitialized();
+    }
+
     private transient CristinApiClient cristinApiClient;
     private final transient PresentationConverter presentationConverter = new PresentationConverter();
+    private final transient PresentationJsonEncoder presentationJsonEncoder = PresentationJsonEncoder.getInstance();
+    private final transient ParallelExecutor parallelExecutor =
+            new ParallelExecutor(Config.getInstance().getUnitTreeParallelism());
+    private final transient int maxDepth = Config.getInstance().getUnitTreeMaxDepth();
+    private transient ResponseCache responseCache = ResponseCache.fromConfig(Config.getInstance());
 
     public FetchCristinUnit() {
-        cristinApiClient = new CristinApiClient();
+        cristinApiClient = new CachingCristinApiClient(new ResilientCristinApiClient(new CristinApiClient()));
     }
 
     public FetchCristinUnit(CristinApiClient cristinApiClient) {
@@ -47,12 +65,62 @@ public class FetchCristinUnit implements RequestHandler<Map<String, Object>, Gat
     }
 
     @Override
-    @SuppressWarnings("unchecked")
     public GatewayResponse handleRequest(Map<String, Object> input, Context context) {
+        RequestTimings timings = RequestTimings.start(HANDLER_NAME,
+                Deadline.fromContext(context, Config.getInstance().getDeadlineMarginMillis()));
+        String acceptEncoding = GatewayResponse.getRequestHeader(input, GatewayResponse.ACCEPT_ENCODING_HEADER);
+        Optional<String> cacheKey = responseCacheKey(input, acceptEncoding);
+        Optional<GatewayResponse> cached = cacheKey.flatMap(responseCache::get);
+        GatewayResponse gatewayResponse;
+        if (cached.isPresent()) {
+            timings.recordCache(RequestTimings.CACHE_RESPONSE_HIT);
+            gatewayResponse = cached.get();
+        } else {
+            gatewayResponse = respond(input, timings);
+            gatewayResponse.applyEntityTag(null);
+            gatewayResponse.applyContentEncoding(acceptEncoding, Config.getInstance().getCompressionMinBytes());
+            if (cacheKey.isPresent() && timings.isComplete()) {
+                responseCache.put(cacheKey.get(), gatewayResponse);
+            }
+        }
+        gatewayResponse.applyNotModified(GatewayResponse.getRequestHeader(input,
+                GatewayResponse.IF_NONE_MATCH_HEADER));
+        timings.finish(gatewayResponse);
+        return gatewayResponse;
+    }
+
+    public void setResponseCache(ResponseCache responseCache) {
+        this.responseCache = responseCache;
+    }
+
+    /**
+     * Builds the response cache key from the id, the language and depth with their defaults filled in, and the
+     * content encoding the response would get.
+     *
+     * @param input          API Gateway proxy event
+     * @param acceptEncoding value of the request's Accept-Encoding header, or null
+     * @return cache key, or empty if the request has no id
+     */
+    @SuppressWarnings("unchecked")
+    private Optional<String> responseCacheKey(Map<String, Object> input, String acceptEncoding) {
+        Map<String, String> pathParameters = (Map<String, String>) input.get(PATH_PARAMETERS_KEY);
+        if (pathParameters == null || pathParameters.get(ID_KEY) == null) {
+            return Optional.empty();
+        }
+        Map<String, String> queryStringParameters = Optional.ofNullable((Map<String, String>) input
+                .get(QUERY_STRING_PARAMETERS_KEY)).orElse(Collections.emptyMap());
+        return Optional.of(ResponseCache.key(HANDLER_NAME, pathParameters.get(ID_KEY),
+                queryStringParameters.getOrDefault(LANGUAGE_KEY, DEFAULT_LANGUAGE_CODE),
+                queryStringParameters.getOrDefault(DEPTH_KEY, DEFAULT_DEPTH),
+                GatewayResponse.negotiateEncoding(acceptEncoding).orElse(EMPTY_STRING)));
+    }
+
+    @SuppressWarnings("unchecked")
+    private GatewayResponse respond(Map<String, Object> input, RequestTimings timings) {
 
         GatewayResponse gatewayResponse = new GatewayResponse();
         try {
-            this.checkParameters(input);
+            timings.time(PARAMETERS_STAGE, () -> this.checkParameters(input));
         } catch (RuntimeException e) {
             gatewayResponse.setErrorBody(e.getMessage());
             gatewayResponse.setStatusCode(Response.Status.BAD_REQUEST.getStatusCode());
@@ -64,18 +132,30 @@ public class FetchCristinUnit implements RequestHandler<Map<String, Object>, Gat
         Map<String, String> queryStringParameters = Optional.ofNullable((Map<String, String>) input
                 .get(QUERY_STRING_PARAMETERS_KEY)).orElse(new ConcurrentHashMap<>());
         String language = queryStringParameters.getOrDefault(LANGUAGE_KEY, DEFAULT_LANGUAGE_CODE);
+        int depth = Integer.parseInt(queryStringParameters.getOrDefault(DEPTH_KEY, DEFAULT_DEPTH));
 
         try {
 
             Unit unit = cristinApiClient.getUnit(id, language);
-            UnitPresentation unitPresentations = presentationConverter.asUnitPresentation(unit);
+            UnitPresentation unitPresentations = timings.time(CONVERT_STAGE,
+                    () -> presentationConverter.asUnitPresentation(unit, language));
+            if (depth > 1) {
+                timings.time(EXPAND_STAGE, () -> new UnitTreeExpander(cristinApiClient, presentationConverter,
+                        parallelExecutor, Config.getInstance().getUnitTreeMaxNodes())
+                        .expand(unitPresentations, depth, language));
+            }
             gatewayResponse.setStatusCode(Response.Status.OK.getStatusCode());
-            gatewayResponse.setBody(new Gson().toJson(unitPresentations,
-                    new TypeToken<UnitPresentation>(){}.getType()));
+            timings.time(SERIALIZE_STAGE,
+                    () -> gatewayResponse.setBody(presentationJsonEncoder.toJson(unitPresentations)));
 
         } catch (IOException | URISyntaxException e) {
-            gatewayResponse.setStatusCode(Response.Status.INTERNAL_SERVER_ERROR.getStatusCode());
-            gatewayResponse.setErrorBody(e.getMessage());
+            if (UpstreamStatusException.isNotFound(e)) {
+                gatewayResponse.setStatusCode(Response.Status.NOT_FOUND.getStatusCode());
+                gatewayResponse.setErrorBody(UNIT_NOT_FOUND);
+            } else {
+                gatewayResponse.setStatusCode(Response.Status.INTERNAL_SERVER_ERROR.getStatusCode());
+                gatewayResponse.setErrorBody(e.getMessage());
+            }
         }
 
         return gatewayResponse;
@@ -95,6 +175,19 @@ public class FetchCristinUnit implements RequestHandler<Map<String, Object>, Gat
         if (!VALID_LANGUAGE_CODES.contains(language)) {
             throw new RuntimeException(LANGUAGE_INVALID);
         }
+        String depth = queryStringParameters.getOrDefault(DEPTH_KEY, DEFAULT_DEPTH);
+        if (!isValidDepth(depth)) {
+            throw new RuntimeException(String.format(DEPTH_INVALID, maxDepth));
+        }
+    }
+
+    private boolean isValidDepth(String depth) {
+        try {
+            int parsed = Integer.parseInt(depth);
+            return parsed >= 1 && parsed <= maxDepth;
+        } catch (NumberFormatException e) {
+            return false;
+        }
     }
 
 
@@ -0,0 +1,183 @@
+package no.unit.nva.cristin.institutions;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.RequestHandler;
+
+import javax.ws.rs.core.Response;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * Handler for batch unit lookups. Fetches every requested unit concurrently, with a cap on the number of
+ * lookups in flight, and returns the units and the per-id errors keyed by cristinUnitId.
+ */
+public class FetchCristinUnits implements RequestHandler<Map<String, Object>, GatewayResponse> {
+
+    private static final String QUERY_STRING_PARAMETERS_KEY = "queryStringParameters";
+    private static final String IDS_KEY = "ids";
+    private static final String LANGUAGE_KEY = "language";
+
+    protected static final String IDS_IS_NULL = "Parameter 'ids' is mandatory";
+    protected static final String IDS_INVALID = "Parameter 'ids' must be a comma separated list of unit ids";
+    protected static final String IDS_TOO_MANY = "Parameter 'ids' may contain at most %d unit ids";
+    protected static final String LANGUAGE_INVALID = "Parameter 'language' has invalid value";
+    protected static final String UNIT_NOT_FOUND = "Unit not found";
+    protected static final String DEADLINE_EXCEEDED = "Unit not fetched before the request deadline";
+
+    private static final String EMPTY_STRING = "";
+    private static final String ID_SEPARATOR = ",";
+    private static final Pattern UNIT_ID = Pattern.compile("[0-9]+(\\.[0-9]+)*");
+    private static final String DEFAULT_LANGUAGE_CODE = "nb";
+    private static final List<String> VALID_LANGUAGE_CODES = Arrays.asList("nb", "en");
+
+    private static final String HANDLER_NAME = "FetchCristinUnits";
+    private static final String PARAMETERS_STAGE = "params";
+    private static final String FETCH_STAGE = "fetch";
+    private static final String CONVERT_STAGE = "convert";
+    private static final String SERIALIZE_STAGE = "serialize";
+
+    static {
+        InitPhase.ensureInitialized();
+    }
+
+    private transient CristinApiClient cristinApiClient;
+    private final transient PresentationConverter presentationConverter = new PresentationConverter();
+    private final transient PresentationJsonEncoder presentationJsonEncoder = PresentationJsonEncoder.getInstance();
+    private final transient ParallelExecutor parallelExecutor =
+            new ParallelExecutor(Config.getInstance().getUnitBatchParallelism());
+    private final transient int maxIds = Config.getInstance().getUnitBatchMaxIds();
+
+    public FetchCristinUnits() {
+        cristinApiClient = new CachingCristinApiClient(new ResilientCristinApiClient(new CristinApiClient()));
+    }
+
+    public FetchCristinUnits(CristinApiClient cristinApiClient) {
+        this.cristinApiClient = cristinApiClient;
+    }
+
+    public void setCristinApiClient(CristinApiClient cristinApiClient) {
+        this.cristinApiClient = cristinApiClient;
+    }
+
+    @Override
+    public GatewayResponse handleRequest(Map<String, Object> input, Context context) {
+        RequestTimings timings = RequestTimings.start(HANDLER_NAME,
+                Deadline.fromContext(context, Config.getInstance().getDeadlineMarginMillis()));
+        GatewayResponse gatewayResponse = respond(input, timings);
+        gatewayResponse.applyEntityTag(GatewayResponse.getRequestHeader(input, GatewayResponse.IF_NONE_MATCH_HEADER));
+        gatewayResponse.applyContentEncoding(GatewayResponse.getRequestHeader(input,
+                GatewayResponse.ACCEPT_ENCODING_HEADER), Config.getInstance().getCompressionMinBytes());
+        timings.finish(gatewayResponse);
+        return gatewayResponse;
+    }
+
+    private GatewayResponse respond(Map<String, Object> input, RequestTimings timings) {
+
+        GatewayResponse gatewayResponse = new GatewayResponse();
+        Map<String, String> queryStringParameters = queryStringParameters(input);
+        List<String> ids;
+        try {
+            ids = timings.time(PARAMETERS_STAGE, () -> {
+                checkLanguage(queryStringParameters);
+                return parseIds(queryStringParameters.getOrDefault(IDS_KEY, EMPTY_STRING));
+            });
+        } catch (RuntimeException e) {
+            gatewayResponse.setErrorBody(e.getMessage());
+            gatewayResponse.setStatusCode(Response.Status.BAD_REQUEST.getStatusCode());
+            return gatewayResponse;
+        }
+        String language = queryStringParameters.getOrDefault(LANGUAGE_KEY, DEFAULT_LANGUAGE_CODE);
+
+        List<UnitLookup> lookups = timings.time(FETCH_STAGE, () -> {
+            List<Optional<UnitLookup>> finished = parallelExecutor.mapInOrder(ids, id -> fetchUnit(id, language),
+                    timings.getDeadline());
+            List<UnitLookup> results = new ArrayList<>(ids.size());
+            for (int i = 0; i < ids.size(); i++) {
+                results.add(finished.get(i).orElse(new UnitLookup(ids.get(i), null, DEADLINE_EXCEEDED)));
+            }
+            return results;
+        });
+
+        UnitBatchPresentation batch = new UnitBatchPresentation();
+        timings.time(CONVERT_STAGE, () -> {
+            for (UnitLookup lookup : lookups) {
+                if (lookup.unit != null) {
+                    batch.units.put(lookup.id, presentationConverter.asUnitPresentation(lookup.unit, language));
+                } else {
+                    batch.errors.put(lookup.id, lookup.error);
+                }
+            }
+        });
+
+        gatewayResponse.setStatusCode(Response.Status.OK.getStatusCode());
+        timings.time(SERIALIZE_STAGE, () -> gatewayResponse.setBody(presentationJsonEncoder.toJson(batch)));
+        return gatewayResponse;
+    }
+
+    private UnitLookup fetchUnit(String id, String language) {
+        try {
+            Unit unit = cristinApiClient.getUnit(id, language);
+            return unit == null ? new UnitLookup(id, null, UNIT_NOT_FOUND) : new UnitLookup(id, unit, null);
+        } catch (IOException | URISyntaxException e) {
+            if (UpstreamStatusException.isNotFound(e)) {
+                return new UnitLookup(id, null, UNIT_NOT_FOUND);
+            }
+            System.out.println("Error fetching cristin unit with id: " + id);
+            return new UnitLookup(id, null, e.getMessage());
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, String> queryStringParameters(Map<String, Object> input) {
+        return Optional.ofNullable((Map<String, String>) input.get(QUERY_STRING_PARAMETERS_KEY))
+                .orElse(new ConcurrentHashMap<>());
+    }
+
+    private List<String> parseIds(String value) {
+        if (value.trim().isEmpty()) {
+            throw new RuntimeException(IDS_IS_NULL);
+        }
+        Set<String> ids = new LinkedHashSet<>();
+        for (String id : value.split(ID_SEPARATOR)) {
+            String trimmed = id.trim();
+            if (!UNIT_ID.matcher(trimmed).matches()) {
+                throw new RuntimeException(IDS_INVALID);
+            }
+            ids.add(trimmed);
+        }
+        if (ids.size() > maxIds) {
+            throw new RuntimeException(String.format(IDS_TOO_MANY, maxIds));
+        }
+        return new ArrayList<>(ids);
+    }
+
+    private void checkLanguage(Map<String, String> queryStringParameters) {
+        String language = queryStringParameters.getOrDefault(LANGUAGE_KEY, DEFAULT_LANGUAGE_CODE);
+        if (!VALID_LANGUAGE_CODES.contains(language)) {
+            throw new RuntimeException(LANGUAGE_INVALID);
+        }
+    }
+
+    private static class UnitLookup {
+
+        private final String id;
+        private final Unit unit;
+        private final String error;
+
+        UnitLookup(String id, Unit unit, String error) {
+            this.id = id;
+            this.unit = unit;
+            this.error = error;
+        }
+    }
+
+}
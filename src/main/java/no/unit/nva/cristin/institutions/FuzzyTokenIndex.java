@@ -0,0 +1,213 @@
+package no.unit.nva.cristin.institutions;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Typo-tolerant lookup of a token in a fixed vocabulary. Each vocabulary token is split into bigrams, with its
+ * start and end marked, and the bigrams are stored as sorted posting lists in flat arrays. Tokens sharing enough
+ * bigrams with the query token are candidates, and the candidates sharing the most are checked with a bounded
+ * optimal string alignment distance, which counts a swap of two adjacent letters as one edit.
+ *
+ * <p>The work per lookup is capped: bigrams occurring in more than {@value #MAX_GRAM_POSTINGS} tokens are skipped,
+ * shared bigrams are counted for at most {@value #MAX_COUNTED_TOKENS} tokens, taken from the rarest bigrams first,
+ * at most {@value #MAX_CANDIDATES} candidates are checked, and tokens are cut to {@value #MAX_TOKEN_LENGTH}
+ * characters. Nothing allocated per lookup grows with the vocabulary.</p>
+ */
+public class FuzzyTokenIndex {
+
+    public static final int MAX_TOKEN_LENGTH = 32;
+
+    private static final int MAX_GRAM_POSTINGS = 4096;
+    private static final int MAX_COUNTED_TOKENS = MAX_GRAM_POSTINGS;
+    private static final int MAX_CANDIDATES = 64;
+    private static final int GRAMS_PER_EDIT = 3;
+    private static final char START = '^';
+    private static final char END = '$';
+    private static final int CHAR_BITS = 16;
+    private static final int INT_BITS = 32;
+    private static final long LOW_INT_MASK = 0xFFFFFFFFL;
+
+    private final transient String[] vocabulary;
+    private final transient int[] gramKeys;
+    private final transient int[] gramStarts;
+    private final transient int[] gramTokens;
+
+    /**
+     * Builds the bigram postings for the vocabulary.
+     *
+     * @param vocabulary distinct tokens, addressed by their position in the array
+     */
+    public FuzzyTokenIndex(String[] vocabulary) {
+        this.vocabulary = vocabulary.clone();
+        int total = 0;
+        int[][] tokenGrams = new int[vocabulary.length][];
+        for (int i = 0; i < vocabulary.length; i++) {
+            tokenGrams[i] = gramsOf(vocabulary[i]);
+            total += tokenGrams[i].length;
+        }
+        long[] pairs = new long[total];
+        int next = 0;
+        for (int i = 0; i < vocabulary.length; i++) {
+            for (int gram : tokenGrams[i]) {
+                pairs[next++] = (long) gram << INT_BITS | i;
+            }
+        }
+        Arrays.sort(pairs);
+
+        int distinct = 0;
+        for (int i = 0; i < pairs.length; i++) {
+            if (i == 0 || pairs[i] >>> INT_BITS != pairs[i - 1] >>> INT_BITS) {
+                distinct++;
+            }
+        }
+        this.gramKeys = new int[distinct];
+        this.gramStarts = new int[distinct + 1];
+        this.gramTokens = new int[pairs.length];
+        int gram = -1;
+        for (int i = 0; i < pairs.length; i++) {
+            if (i == 0 || pairs[i] >>> INT_BITS != pairs[i - 1] >>> INT_BITS) {
+                gram++;
+                gramKeys[gram] = (int) (pairs[i] >>> INT_BITS);
+                gramStarts[gram] = i;
+            }
+            gramTokens[i] = (int) (pairs[i] & LOW_INT_MASK);
+        }
+        gramStarts[distinct] = pairs.length;
+    }
+
+    /**
+     * Reports the vocabulary tokens within {@code maxDistance} edits of the token.
+     *
+     * @param token       folded query token
+     * @param maxDistance largest edit distance accepted, at least 1
+     * @param consumer    receives the position of each matching vocabulary token and its distance
+     */
+    public void match(String token, int maxDistance, MatchConsumer consumer) {
+        String query = token.length() > MAX_TOKEN_LENGTH ? token.substring(0, MAX_TOKEN_LENGTH) : token;
+        int[] grams = gramsOf(query);
+        int threshold = grams.length - GRAMS_PER_EDIT * maxDistance;
+        int[] postedGrams = new int[grams.length];
+        int postedCount = 0;
+        for (int gram : grams) {
+            int index = Arrays.binarySearch(gramKeys, gram);
+            if (index < 0) {
+                continue;
+            }
+            if (gramStarts[index + 1] - gramStarts[index] > MAX_GRAM_POSTINGS) {
+                threshold--;
+                continue;
+            }
+            postedGrams[postedCount++] = index;
+        }
+        sortByPostings(postedGrams, postedCount);
+
+        Map<Integer, Integer> counts = new HashMap<>();
+        for (int i = 0; i < postedCount; i++) {
+            int index = postedGrams[i];
+            for (int j = gramStarts[index]; j < gramStarts[index + 1]; j++) {
+                if (counts.size() < MAX_COUNTED_TOKENS || counts.containsKey(gramTokens[j])) {
+                    counts.merge(gramTokens[j], 1, Integer::sum);
+                }
+            }
+        }
+
+        long[] candidates = new long[counts.size()];
+        int candidateCount = 0;
+        for (Map.Entry<Integer, Integer> count : counts.entrySet()) {
+            int position = count.getKey();
+            if (count.getValue() >= Math.max(1, threshold)
+                    && Math.abs(Math.min(vocabulary[position].length(), MAX_TOKEN_LENGTH) - query.length())
+                    <= maxDistance) {
+                candidates[candidateCount++] = (long) count.getValue() << INT_BITS | position;
+            }
+        }
+        Arrays.sort(candidates, 0, candidateCount);
+        for (int i = candidateCount - 1; i >= Math.max(0, candidateCount - MAX_CANDIDATES); i--) {
+            int position = (int) (candidates[i] & LOW_INT_MASK);
+            int distance = distance(query, vocabulary[position], maxDistance);
+            if (distance <= maxDistance) {
+                consumer.accept(position, distance);
+            }
+        }
+    }
+
+    /**
+     * Optimal string alignment distance between two strings, giving up once it exceeds {@code maxDistance}.
+     *
+     * @param first       first string
+     * @param second      second string, cut to {@value #MAX_TOKEN_LENGTH} characters
+     * @param maxDistance largest distance of interest
+     * @return the distance, or {@code maxDistance + 1} if it is larger
+     */
+    protected static int distance(String first, String second, int maxDistance) {
+        String other = second.length() > MAX_TOKEN_LENGTH ? second.substring(0, MAX_TOKEN_LENGTH) : second;
+        int[] beforePrevious = new int[other.length() + 1];
+        int[] previous = new int[other.length() + 1];
+        int[] current = new int[other.length() + 1];
+        for (int j = 0; j <= other.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= first.length(); i++) {
+            current[0] = i;
+            int rowMinimum = i;
+            for (int j = 1; j <= other.length(); j++) {
+                int cost = first.charAt(i - 1) == other.charAt(j - 1) ? 0 : 1;
+                int value = Math.min(Math.min(previous[j] + 1, current[j - 1] + 1), previous[j - 1] + cost);
+                if (i > 1 && j > 1 && first.charAt(i - 1) == other.charAt(j - 2)
+                        && first.charAt(i - 2) == other.charAt(j - 1)) {
+                    value = Math.min(value, beforePrevious[j - 2] + 1);
+                }
+                current[j] = value;
+                rowMinimum = Math.min(rowMinimum, value);
+            }
+            if (rowMinimum > maxDistance) {
+                return maxDistance + 1;
+            }
+            int[] recycled = beforePrevious;
+            beforePrevious = previous;
+            previous = current;
+            current = recycled;
+        }
+        return Math.min(previous[other.length()], maxDistance + 1);
+    }
+
+    private void sortByPostings(int[] gramIndexes, int count) {
+        long[] keyed = new long[count];
+        for (int i = 0; i < count; i++) {
+            int index = gramIndexes[i];
+            keyed[i] = (long) (gramStarts[index + 1] - gramStarts[index]) << INT_BITS | index;
+        }
+        Arrays.sort(keyed);
+        for (int i = 0; i < count; i++) {
+            gramIndexes[i] = (int) (keyed[i] & LOW_INT_MASK);
+        }
+    }
+
+    private static int[] gramsOf(String token) {
+        String padded = START + token + END;
+        int[] grams = new int[padded.length() - 1];
+        for (int i = 0; i < grams.length; i++) {
+            grams[i] = padded.charAt(i) << CHAR_BITS | padded.charAt(i + 1);
+        }
+        Arrays.sort(grams);
+        int distinct = 0;
+        for (int i = 0; i < grams.length; i++) {
+            if (i == 0 || grams[i] != grams[i - 1]) {
+                grams[distinct++] = grams[i];
+            }
+        }
+        return Arrays.copyOf(grams, distinct);
+    }
+
+    /**
+     * Receives a matching vocabulary token.
+     */
+    @FunctionalInterface
+    public interface MatchConsumer {
+
+        void accept(int position, int distance);
+    }
+
+}
@@ -6,10 +6,24 @@ import org.apache.commons.lang3.StringUtils;
 import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Base64;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
 
 /**
  * POJO containing response object for API Gateway.
@@ -19,9 +33,26 @@ public class GatewayResponse {
     public static final String CORS_ALLOW_ORIGIN_HEADER = "Access-Control-Allow-Origin";
     public static final String EMPTY_JSON = "{}";
     public static final transient String ERROR_KEY = "error";
+    public static final String ETAG_HEADER = "ETag";
+    public static final String IF_NONE_MATCH_HEADER = "If-None-Match";
+    public static final String ACCEPT_ENCODING_HEADER = "Accept-Encoding";
+    public static final String CONTENT_ENCODING_HEADER = "Content-Encoding";
+    public static final String VARY_HEADER = "Vary";
+    public static final String GZIP = "gzip";
+    public static final String DEFLATE = "deflate";
+    private static final String HEADERS_KEY = "headers";
+    private static final String ANY_ENTITY_TAG = "*";
+    private static final String WEAK_PREFIX = "W/";
+    private static final String DIGEST_ALGORITHM = "SHA-256";
+    private static final int ENTITY_TAG_BYTES = 16;
+    private static final List<String> SUPPORTED_ENCODINGS = Arrays.asList(GZIP, DEFLATE);
+    private static final String ANY_ENCODING = "*";
+    private static final String QUALITY_PARAMETER = "q=";
+    private static final double NOT_ACCEPTABLE = 0.0;
     private String body;
     private transient Map<String, String> headers;
     private int statusCode;
+    private boolean isBase64Encoded;
 
     /**
      * GatewayResponse contains response status, response headers and body with payload resp. error messages.
@@ -41,6 +72,19 @@ public class GatewayResponse {
         this.generateDefaultHeaders();
     }
 
+    /**
+     * Copies a response. The copy shares the body and the unmodifiable header map with the original, so copying
+     * is cheap; headers set later on either one do not affect the other.
+     *
+     * @param original response to copy
+     */
+    public GatewayResponse(final GatewayResponse original) {
+        this.statusCode = original.statusCode;
+        this.body = original.body;
+        this.headers = original.headers;
+        this.isBase64Encoded = original.isBase64Encoded;
+    }
+
     public String getBody() {
         return body;
     }
@@ -53,6 +97,12 @@ public class GatewayResponse {
         return statusCode;
     }
 
+    // API Gateway reads the property as "isBase64Encoded".
+    @SuppressWarnings("PMD.BooleanGetMethodName")
+    public boolean getIsBase64Encoded() {
+        return isBase64Encoded;
+    }
+
     public void setBody(String body) {
         this.body = body;
     }
@@ -61,6 +111,183 @@ public class GatewayResponse {
         this.statusCode = status;
     }
 
+    /**
+     * Adds a response header, replacing any previous value.
+     *
+     * @param name  header name
+     * @param value header value
+     */
+    public void setHeader(String name, String value) {
+        Map<String, String> updated = new HashMap<>(headers);
+        updated.put(name, value);
+        this.headers = Collections.unmodifiableMap(updated);
+    }
+
+    /**
+     * Adds a strong ETag computed from the body to a 200 response, and turns the response into a
+     * {@code 304 Not Modified} with an empty body when the tag matches the request's {@code If-None-Match}.
+     *
+     * @param ifNoneMatch value of the request's If-None-Match header, or null
+     */
+    public void applyEntityTag(String ifNoneMatch) {
+        if (statusCode != Response.Status.OK.getStatusCode() || body == null) {
+            return;
+        }
+        setHeader(ETAG_HEADER, entityTagOf(body));
+        applyNotModified(ifNoneMatch);
+    }
+
+    /**
+     * Turns a 200 response that already has an ETag into a {@code 304 Not Modified} with an empty body when the
+     * tag, ignoring any content encoding suffix, matches the request's {@code If-None-Match}.
+     *
+     * @param ifNoneMatch value of the request's If-None-Match header, or null
+     */
+    public void applyNotModified(String ifNoneMatch) {
+        String entityTag = headers.get(ETAG_HEADER);
+        if (statusCode != Response.Status.OK.getStatusCode() || entityTag == null || ifNoneMatch == null) {
+            return;
+        }
+        if (matches(ifNoneMatch, withoutEncodingSuffix(entityTag))) {
+            this.statusCode = Response.Status.NOT_MODIFIED.getStatusCode();
+            this.body = "";
+            this.isBase64Encoded = false;
+        }
+    }
+
+    /**
+     * Returns a header of an API Gateway proxy event, matching the name case-insensitively.
+     *
+     * @param input API Gateway proxy event
+     * @param name  header name
+     * @return header value, or null if the request does not have the header
+     */
+    @SuppressWarnings("unchecked")
+    public static String getRequestHeader(Map<String, Object> input, String name) {
+        Map<String, String> headers = (Map<String, String>) input.get(HEADERS_KEY);
+        if (headers == null) {
+            return null;
+        }
+        return headers.entrySet().stream()
+                .filter(header -> name.equalsIgnoreCase(header.getKey()))
+                .map(Map.Entry::getValue)
+                .findFirst()
+                .orElse(null);
+    }
+
+    /**
+     * Compresses the body with gzip or deflate when the request's {@code Accept-Encoding} allows it and the body
+     * is at least {@code minBytes} long. A compressed body is base64 encoded, as API Gateway requires for binary
+     * bodies, and the ETag gets the encoding as a suffix so that each representation has its own strong tag.
+     *
+     * @param acceptEncoding value of the request's Accept-Encoding header, or null
+     * @param minBytes       smallest body in bytes worth compressing
+     */
+    public void applyContentEncoding(String acceptEncoding, int minBytes) {
+        setHeader(VARY_HEADER, ACCEPT_ENCODING_HEADER);
+        if (body == null || isBase64Encoded) {
+            return;
+        }
+        byte[] identity = body.getBytes(StandardCharsets.UTF_8);
+        Optional<String> encoding = negotiateEncoding(acceptEncoding);
+        if (identity.length < minBytes || !encoding.isPresent()) {
+            return;
+        }
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(identity.length / 4);
+        try (OutputStream out = GZIP.equals(encoding.get())
+                ? new GZIPOutputStream(compressed) : new DeflaterOutputStream(compressed)) {
+            out.write(identity);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        this.body = Base64.getEncoder().encodeToString(compressed.toByteArray());
+        this.isBase64Encoded = true;
+        setHeader(CONTENT_ENCODING_HEADER, encoding.get());
+        String entityTag = headers.get(ETAG_HEADER);
+        if (entityTag != null) {
+            setHeader(ETAG_HEADER, entityTag.substring(0, entityTag.length() - 1) + '-' + encoding.get() + '"');
+        }
+    }
+
+    /**
+     * Picks the supported content coding with the highest quality in an Accept-Encoding header, preferring gzip
+     * on ties.
+     *
+     * @param acceptEncoding Accept-Encoding header value, or null
+     * @return the coding to use, or empty if the body should be sent as is
+     */
+    protected static Optional<String> negotiateEncoding(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return Optional.empty();
+        }
+        Map<String, Double> qualities = new HashMap<>();
+        for (String element : acceptEncoding.split(",")) {
+            String[] parts = element.trim().split(";");
+            String coding = parts[0].trim().toLowerCase(Locale.ROOT);
+            double quality = 1.0;
+            for (int i = 1; i < parts.length; i++) {
+                String parameter = parts[i].trim();
+                if (parameter.startsWith(QUALITY_PARAMETER)) {
+                    quality = parseQuality(parameter.substring(QUALITY_PARAMETER.length()));
+                }
+            }
+            qualities.put(coding, quality);
+        }
+        double wildcard = qualities.getOrDefault(ANY_ENCODING, NOT_ACCEPTABLE);
+        String best = null;
+        double bestQuality = NOT_ACCEPTABLE;
+        for (String coding : SUPPORTED_ENCODINGS) {
+            double quality = qualities.getOrDefault(coding, wildcard);
+            if (quality > bestQuality) {
+                best = coding;
+                bestQuality = quality;
+            }
+        }
+        return Optional.ofNullable(best);
+    }
+
+    private static double parseQuality(String value) {
+        try {
+            return Double.parseDouble(value.trim());
+        } catch (NumberFormatException e) {
+            return NOT_ACCEPTABLE;
+        }
+    }
+
+    private static String entityTagOf(String body) {
+        try {
+            byte[] digest = MessageDigest.getInstance(DIGEST_ALGORITHM).digest(body.getBytes(StandardCharsets.UTF_8));
+            return '"' + Base64.getUrlEncoder().withoutPadding()
+                    .encodeToString(Arrays.copyOf(digest, ENTITY_TAG_BYTES)) + '"';
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static boolean matches(String ifNoneMatch, String entityTag) {
+        for (String candidate : ifNoneMatch.split(",")) {
+            String trimmed = candidate.trim();
+            if (trimmed.startsWith(WEAK_PREFIX)) {
+                trimmed = trimmed.substring(WEAK_PREFIX.length());
+            }
+            trimmed = withoutEncodingSuffix(trimmed);
+            if (ANY_ENTITY_TAG.equals(trimmed) || entityTag.equals(trimmed)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String withoutEncodingSuffix(String entityTag) {
+        for (String encoding : SUPPORTED_ENCODINGS) {
+            String suffix = '-' + encoding + '"';
+            if (entityTag.endsWith(suffix)) {
+                return entityTag.substring(0, entityTag.length() - suffix.length()) + '"';
+            }
+        }
+        return entityTag;
+    }
+
     /**
      * Set error message as a json string to body.
      *
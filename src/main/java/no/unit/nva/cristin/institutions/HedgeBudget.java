@@ -0,0 +1,49 @@
+package no.unit.nva.cristin.institutions;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token bucket limiting hedged requests to a share of lookups. Every lookup earns the budgeted share of a hedge
+ * and every hedge spends a whole one. The credit is capped at a few hedges, so after a long stretch without
+ * hedging a burst of slow lookups is still hedged no more than its own share.
+ */
+public class HedgeBudget {
+
+    private static final long PERCENT = 100;
+
+    private final transient long earnedPerLookup;
+    private final transient long maxCredit;
+    private final transient AtomicLong credit = new AtomicLong();
+
+    /**
+     * Creates an empty budget.
+     *
+     * @param budgetPercent share of lookups that may be hedged, in percent
+     * @param maxHedges     most hedges the budget can save up
+     */
+    public HedgeBudget(int budgetPercent, int maxHedges) {
+        this.earnedPerLookup = budgetPercent;
+        this.maxCredit = maxHedges * PERCENT;
+    }
+
+    public void recordLookup() {
+        credit.accumulateAndGet(earnedPerLookup, (current, earned) -> Math.min(maxCredit, current + earned));
+    }
+
+    /**
+     * Spends the credit for one hedge if there is enough.
+     *
+     * @return whether a hedge may be sent
+     */
+    public boolean tryAcquire() {
+        long current = credit.get();
+        while (current >= PERCENT) {
+            if (credit.compareAndSet(current, current - PERCENT)) {
+                return true;
+            }
+            current = credit.get();
+        }
+        return false;
+    }
+
+}
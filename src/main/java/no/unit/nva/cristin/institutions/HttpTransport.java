@@ -0,0 +1,325 @@
+package no.unit.nva.cristin.institutions;
+
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpStatus;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.entity.ContentType;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.util.EntityUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongConsumer;
+
+/**
+ * Pooled, keep-alive HTTP transport shared by all lookups in a Lambda container. A request made under a bounded
+ * deadline is aborted when the deadline passes, whether it is connecting, waiting or still reading the body; the
+ * socket timeout alone applies per read and would let a slowly trickling body outlive the deadline.
+ */
+public class HttpTransport {
+
+    private static final String HTTP = "http";
+    private static final String HTTPS = "https";
+    private static final String UNEXPECTED_STATUS = "Unexpected response status %d from %s";
+    private static final String EMPTY_RESPONSE = "Empty response from %s";
+    private static final String DEADLINE_EXCEEDED = "Request deadline exceeded before fetching %s";
+    private static final String ABORTED_AT_DEADLINE = "Request deadline exceeded fetching %s";
+    private static final String ABORT_THREAD_NAME = "cristin-http-abort";
+
+    private final transient CloseableHttpClient httpClient;
+    private final transient RequestConfig requestConfig;
+    private final transient ScheduledThreadPoolExecutor abortScheduler;
+
+    /**
+     * Creates a transport backed by a pooled client configured from the given config.
+     * Responses are transparently gzip/deflate decoded by the client.
+     *
+     * @param config connection pool and timeout settings
+     */
+    public HttpTransport(Config config) {
+        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+        connectionManager.setDefaultMaxPerRoute(config.getHttpMaxConnectionsPerRoute());
+        connectionManager.setMaxTotal(config.getHttpMaxConnectionsPerRoute());
+
+        this.requestConfig = RequestConfig.custom()
+                .setConnectTimeout(config.getHttpConnectTimeoutMillis())
+                .setConnectionRequestTimeout(config.getHttpConnectTimeoutMillis())
+                .setSocketTimeout(config.getHttpReadTimeoutMillis())
+                .build();
+
+        this.httpClient = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(requestConfig)
+                .evictExpiredConnections()
+                .evictIdleConnections(config.getHttpIdleEvictionSeconds(), TimeUnit.SECONDS)
+                .build();
+
+        this.abortScheduler = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, ABORT_THREAD_NAME);
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.abortScheduler.setRemoveOnCancelPolicy(true);
+    }
+
+    private static class LazyHolder {
+
+        private static final HttpTransport INSTANCE = new HttpTransport(Config.getInstance());
+    }
+
+    public static HttpTransport getInstance() {
+        return LazyHolder.INSTANCE;
+    }
+
+    /**
+     * Fetches the resource and returns a reader over the decoded body. Closing the reader returns the
+     * connection to the pool. Non-HTTP URLs are opened directly.
+     *
+     * @param url resource to fetch
+     * @return reader over the response body
+     * @throws IOException if the request fails or the response status is not 200
+     */
+    public InputStreamReader get(URL url) throws IOException {
+        return fetch(url).getBody();
+    }
+
+    /**
+     * Fetches the resource and returns the response headers along with a reader over the decoded body.
+     * Closing the response returns the connection to the pool. Non-HTTP URLs are opened directly and have no
+     * headers.
+     *
+     * @param url resource to fetch
+     * @return the response
+     * @throws IOException if the request fails or the response status is not 200
+     */
+    public UpstreamResponse fetch(URL url) throws IOException {
+        return fetch(url, Validators.NONE);
+    }
+
+    /**
+     * Fetches the resource conditionally, sending the validators as {@code If-None-Match} and
+     * {@code If-Modified-Since}. A 304 answer is returned as a response with status 304 and an empty body
+     * instead of failing.
+     *
+     * @param url        resource to fetch
+     * @param validators validators of the cached copy, or {@link Validators#NONE}
+     * @return the response
+     * @throws IOException if the request fails, the request's deadline has passed, or the response status is
+     *                     neither 200 nor 304
+     */
+    public UpstreamResponse fetch(URL url, Validators validators) throws IOException {
+        if (!isHttp(url)) {
+            return new UpstreamResponse(HttpStatus.SC_OK, Collections.emptyMap(),
+                    new InputStreamReader(url.openStream(), StandardCharsets.UTF_8));
+        }
+
+        RequestTimings timings = RequestTimings.current();
+        Deadline deadline = timings.getDeadline();
+        if (deadline.isExpired()) {
+            timings.recordUpstream(null, 0);
+            throw new DeadlineExceededException(String.format(DEADLINE_EXCEEDED, url));
+        }
+        HttpGet request = new HttpGet(toUri(url));
+        if (deadline.isBounded()) {
+            request.setConfig(withinDeadline(deadline.remainingMillis()));
+        }
+        if (validators.getEntityTag() != null) {
+            request.setHeader(HttpHeaders.IF_NONE_MATCH, validators.getEntityTag());
+        }
+        if (validators.getLastModified() != null) {
+            request.setHeader(HttpHeaders.IF_MODIFIED_SINCE, validators.getLastModified());
+        }
+        Runnable disarm = abortAtDeadline(request, deadline);
+        CloseableHttpResponse response;
+        try {
+            response = httpClient.execute(request);
+        } catch (IOException e) {
+            disarm.run();
+            timings.recordUpstream(null, 0);
+            throw deadline.isExpired() ? new DeadlineExceededException(String.format(ABORTED_AT_DEADLINE, url), e)
+                    : e;
+        } catch (RuntimeException e) {
+            disarm.run();
+            timings.recordUpstream(null, 0);
+            throw e;
+        }
+        try {
+            return read(url, validators, response, timings, deadline, disarm);
+        } catch (IOException | RuntimeException e) {
+            disarm.run();
+            throw e;
+        }
+    }
+
+    private UpstreamResponse read(URL url, Validators validators, CloseableHttpResponse response,
+                                  RequestTimings timings, Deadline deadline, Runnable disarm) throws IOException {
+        int statusCode = response.getStatusLine().getStatusCode();
+        HttpEntity entity = response.getEntity();
+        if (statusCode == HttpStatus.SC_NOT_MODIFIED && !validators.isEmpty()) {
+            EntityUtils.consumeQuietly(entity);
+            Map<String, String> headers = headersOf(response);
+            response.close();
+            disarm.run();
+            timings.recordUpstream(statusCode, 0);
+            return new UpstreamResponse(statusCode, headers,
+                    new InputStreamReader(new ByteArrayInputStream(new byte[0]), StandardCharsets.UTF_8));
+        }
+        if (statusCode != HttpStatus.SC_OK) {
+            EntityUtils.consumeQuietly(entity);
+            response.close();
+            timings.recordUpstream(statusCode, 0);
+            throw new UpstreamStatusException(String.format(UNEXPECTED_STATUS, statusCode, url), statusCode);
+        }
+        if (entity == null) {
+            response.close();
+            timings.recordUpstream(statusCode, 0);
+            throw new IOException(String.format(EMPTY_RESPONSE, url));
+        }
+        InputStream body = new CountingInputStream(entity.getContent(), url, deadline, bytes -> {
+            disarm.run();
+            timings.recordUpstream(statusCode, bytes);
+        });
+        return new UpstreamResponse(statusCode, headersOf(response),
+                new InputStreamReader(body, charsetOf(entity)));
+    }
+
+    /**
+     * Schedules the request to be aborted at the deadline. The returned task cancels the abort, and is run once
+     * the response has been read or has failed.
+     */
+    private Runnable abortAtDeadline(HttpGet request, Deadline deadline) {
+        if (!deadline.isBounded()) {
+            return () -> { };
+        }
+        ScheduledFuture<?> abort = abortScheduler.schedule(request::abort, deadline.remainingMillis(),
+                TimeUnit.MILLISECONDS);
+        return () -> abort.cancel(false);
+    }
+
+    private RequestConfig withinDeadline(long remainingMillis) {
+        int remaining = (int) Math.min(Integer.MAX_VALUE, Math.max(1, remainingMillis));
+        return RequestConfig.copy(requestConfig)
+                .setConnectTimeout(Math.min(requestConfig.getConnectTimeout(), remaining))
+                .setConnectionRequestTimeout(Math.min(requestConfig.getConnectionRequestTimeout(), remaining))
+                .setSocketTimeout(Math.min(requestConfig.getSocketTimeout(), remaining))
+                .build();
+    }
+
+    private Map<String, String> headersOf(CloseableHttpResponse response) {
+        Map<String, String> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        for (Header header : response.getAllHeaders()) {
+            headers.merge(header.getName(), header.getValue(), (first, second) -> first + ", " + second);
+        }
+        return headers;
+    }
+
+    private boolean isHttp(URL url) {
+        return HTTP.equalsIgnoreCase(url.getProtocol()) || HTTPS.equalsIgnoreCase(url.getProtocol());
+    }
+
+    private URI toUri(URL url) throws IOException {
+        try {
+            return url.toURI();
+        } catch (URISyntaxException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+    }
+
+    private Charset charsetOf(HttpEntity entity) {
+        return Optional.ofNullable(ContentType.getOrDefault(entity).getCharset()).orElse(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Counts the body bytes read and reports the count once, when the stream is closed. A read failing because
+     * the request was aborted at its deadline is reported as {@link DeadlineExceededException}.
+     */
+    private static class CountingInputStream extends FilterInputStream {
+
+        private final URL url;
+        private final Deadline deadline;
+        private final LongConsumer onClose;
+        private long count;
+        private boolean closed;
+
+        CountingInputStream(InputStream in, URL url, Deadline deadline, LongConsumer onClose) {
+            super(in);
+            this.url = url;
+            this.deadline = deadline;
+            this.onClose = onClose;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int value;
+            try {
+                value = super.read();
+            } catch (IOException e) {
+                throw atDeadline(e);
+            }
+            if (value >= 0) {
+                count++;
+            }
+            return value;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int read;
+            try {
+                read = super.read(buffer, offset, length);
+            } catch (IOException e) {
+                throw atDeadline(e);
+            }
+            if (read > 0) {
+                count += read;
+            }
+            return read;
+        }
+
+        private IOException atDeadline(IOException e) {
+            return deadline.isExpired() && !(e instanceof DeadlineExceededException)
+                    ? new DeadlineExceededException(String.format(ABORTED_AT_DEADLINE, url), e) : e;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            count += skipped;
+            return skipped;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+            } finally {
+                if (!closed) {
+                    closed = true;
+                    onClose.accept(count);
+                }
+            }
+        }
+    }
+
+}
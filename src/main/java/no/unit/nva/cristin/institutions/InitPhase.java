@@ -0,0 +1,64 @@
+package no.unit.nva.cristin.institutions;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Heavyweight initialization run once per container from the handlers' static initializers, so it happens in
+ * the Lambda init phase instead of the first invocation. Creates the shared singletons and runs a small
+ * decode/convert/encode pass to load and link the JSON and HTTP classes. The time taken is logged on its own.
+ */
+public final class InitPhase {
+
+    private static final String PRIMING_UNIT_JSON = "{\"cristin_unit_id\":\"0.0.0.0\",\"unit_name\":{\"nb\":\"-\"},"
+            + "\"institution\":{\"cristin_institution_id\":\"0\"},\"parent_unit\":{\"cristin_unit_id\":\"0.0.0.0\"},"
+            + "\"subunits\":[{\"cristin_unit_id\":\"0.0.0.0\",\"unit_name\":{\"nb\":\"-\"}}]}";
+    private static final String PRIMING_INSTITUTIONS_JSON = "[{\"cristin_institution_id\":\"0\","
+            + "\"institution_name\":{\"nb\":\"-\"},\"acronym\":\"-\",\"country\":\"NO\","
+            + "\"corresponding_unit\":{\"cristin_unit_id\":\"0.0.0.0\"}}]";
+
+    private static final long DURATION_MILLIS;
+
+    static {
+        long start = System.nanoTime();
+        prime();
+        DURATION_MILLIS = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        System.out.println("INIT_PHASE durationMs=" + DURATION_MILLIS);
+    }
+
+    private InitPhase() {
+    }
+
+    /**
+     * Runs the init phase if it has not run yet in this container.
+     */
+    public static void ensureInitialized() {
+        // Calling this method triggers the static initializer.
+    }
+
+    public static long getDurationMillis() {
+        return DURATION_MILLIS;
+    }
+
+    private static void prime() {
+        Config.getInstance();
+        HttpTransport.getInstance();
+        CatalogSnapshot.bundled();
+        SearchText.tokens(PRIMING_UNIT_JSON);
+        PresentationConverter presentationConverter = new PresentationConverter();
+        PresentationJsonEncoder encoder = PresentationJsonEncoder.getInstance();
+        try {
+            Unit unit = CristinJsonDecoder.getInstance().decodeUnit(new StringReader(PRIMING_UNIT_JSON));
+            encoder.toJson(presentationConverter.asUnitPresentation(unit));
+            for (Institution institution : CristinJsonDecoder.getInstance()
+                    .decodeInstitutions(new StringReader(PRIMING_INSTITUTIONS_JSON))) {
+                encoder.toJson(Collections.singletonList(presentationConverter.asInstitutionPresentation(institution)));
+            }
+        } catch (IOException e) {
+            System.out.println("Error priming JSON codecs: " + e.getMessage());
+        }
+    }
+
+}
@@ -0,0 +1,192 @@
+package no.unit.nva.cristin.institutions;
+
+import com.google.gson.stream.JsonReader;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.LongSupplier;
+
+/**
+ * Holds the current {@link InstitutionSearchIndex} and reloads it when its snapshot file changes.
+ * The snapshot is written by {@link InstitutionIndexWriter} and carries the time the catalog was taken; an index
+ * is only handed out while that time is within the configured maximum age.
+ *
+ * <p>The snapshot is loaded once on the calling thread, by {@link #fromConfig} in the Lambda init phase. Later
+ * checks for a changed file, and the reload, run in the background, so requests never wait for the catalog to be
+ * parsed. A missing snapshot file is not an error: searches then go to Cristin.</p>
+ */
+public class InstitutionIndexProvider {
+
+    private static final String INVALID_SNAPSHOT = "Not an institution index snapshot";
+
+    private final transient Path snapshotPath;
+    private final transient long maxAgeMillis;
+    private final transient long refreshIntervalMillis;
+    private final transient LongSupplier clock;
+    private final transient AtomicBoolean reloading = new AtomicBoolean();
+    private final transient ParallelExecutor reloadExecutor = new ParallelExecutor(1);
+
+    private transient volatile InstitutionSearchIndex index;
+    private transient volatile long loadedModifiedMillis;
+    private transient volatile boolean loaded;
+    private transient volatile long nextRefreshCheck;
+
+    public InstitutionIndexProvider(Path snapshotPath, long maxAgeMillis, long refreshIntervalMillis) {
+        this(snapshotPath, maxAgeMillis, refreshIntervalMillis, System::currentTimeMillis);
+    }
+
+    /**
+     * Creates a provider for the given snapshot file.
+     *
+     * @param snapshotPath          snapshot file, or null if no snapshot is available
+     * @param maxAgeMillis          maximum snapshot age for the index to be used
+     * @param refreshIntervalMillis minimum time between checks for a changed snapshot file
+     * @param clock                 source of the current time in milliseconds
+     */
+    public InstitutionIndexProvider(Path snapshotPath, long maxAgeMillis, long refreshIntervalMillis,
+                                    LongSupplier clock) {
+        this.snapshotPath = snapshotPath;
+        this.maxAgeMillis = maxAgeMillis;
+        this.refreshIntervalMillis = refreshIntervalMillis;
+        this.clock = clock;
+    }
+
+    /**
+     * Creates a provider for the snapshot configured in {@code INSTITUTION_INDEX_SNAPSHOT} and loads it.
+     *
+     * @param config index settings
+     * @return provider, never handing out an index when no snapshot is configured or the file is missing
+     * @throws UncheckedIOException if the snapshot file exists but cannot be read
+     */
+    public static InstitutionIndexProvider fromConfig(Config config) {
+        Path snapshotPath = Optional.ofNullable(config.getInstitutionIndexSnapshot())
+                .filter(path -> !path.isEmpty())
+                .map(Paths::get)
+                .orElse(null);
+        InstitutionIndexProvider provider = new InstitutionIndexProvider(snapshotPath,
+                TimeUnit.SECONDS.toMillis(config.getInstitutionIndexMaxAgeSeconds()),
+                TimeUnit.SECONDS.toMillis(config.getInstitutionIndexRefreshSeconds()));
+        try {
+            provider.load();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error loading institution index snapshot " + snapshotPath, e);
+        }
+        return provider;
+    }
+
+    /**
+     * Loads the snapshot on the calling thread unless it has been loaded already.
+     *
+     * @throws IOException if the snapshot file exists but cannot be read
+     */
+    public synchronized void load() throws IOException {
+        if (loaded || snapshotPath == null) {
+            return;
+        }
+        nextRefreshCheck = clock.getAsLong() + refreshIntervalMillis;
+        try {
+            reloadIfChanged();
+        } finally {
+            loaded = true;
+        }
+    }
+
+    /**
+     * Returns the index if a snapshot is loaded and not stale. When the refresh interval has passed, a check for a
+     * changed snapshot file is started in the background; the index it loads is handed out from then on.
+     *
+     * @return fresh index, or empty if the index is missing or stale
+     */
+    public Optional<InstitutionSearchIndex> getFreshIndex() {
+        if (snapshotPath == null) {
+            return Optional.empty();
+        }
+        long now = clock.getAsLong();
+        if (!loaded) {
+            loadLogged();
+        } else if (now >= nextRefreshCheck && reloading.compareAndSet(false, true)) {
+            nextRefreshCheck = now + refreshIntervalMillis;
+            reloadExecutor.execute(this::reloadInBackground);
+        }
+        InstitutionSearchIndex current = index;
+        if (current == null || now - current.getSnapshotTimestamp() > maxAgeMillis) {
+            return Optional.empty();
+        }
+        return Optional.of(current);
+    }
+
+    /**
+     * Reads an index snapshot written by {@link InstitutionIndexWriter}.
+     *
+     * @param path snapshot file
+     * @return index over the snapshot's institutions, stamped with the snapshot's timestamp
+     * @throws IOException if the file cannot be read or is not an index snapshot
+     */
+    public static InstitutionSearchIndex read(Path path) throws IOException {
+        try (JsonReader json = new JsonReader(Files.newBufferedReader(path, StandardCharsets.UTF_8))) {
+            Long snapshotTimestamp = null;
+            List<Institution> institutions = null;
+            json.beginObject();
+            while (json.hasNext()) {
+                String name = json.nextName();
+                if (InstitutionIndexWriter.TIMESTAMP.equals(name)) {
+                    snapshotTimestamp = json.nextLong();
+                } else if (InstitutionIndexWriter.INSTITUTIONS.equals(name)) {
+                    institutions = CristinJsonDecoder.getInstance().decodeInstitutions(json);
+                } else {
+                    json.skipValue();
+                }
+            }
+            json.endObject();
+            if (snapshotTimestamp == null || institutions == null) {
+                throw new IOException(INVALID_SNAPSHOT);
+            }
+            return new InstitutionSearchIndex(institutions, snapshotTimestamp);
+        } catch (IllegalStateException | NumberFormatException e) {
+            throw new IOException(INVALID_SNAPSHOT + ": " + e.getMessage(), e);
+        }
+    }
+
+    private void loadLogged() {
+        try {
+            load();
+        } catch (IOException e) {
+            System.out.println("Error loading institution index snapshot " + snapshotPath + ": " + e.getMessage());
+        }
+    }
+
+    private void reloadInBackground() {
+        try {
+            reloadIfChanged();
+        } catch (IOException e) {
+            System.out.println("Error reloading institution index snapshot " + snapshotPath + ": " + e.getMessage());
+        } finally {
+            reloading.set(false);
+        }
+    }
+
+    private void reloadIfChanged() throws IOException {
+        long modifiedMillis;
+        try {
+            modifiedMillis = Files.getLastModifiedTime(snapshotPath).toMillis();
+        } catch (NoSuchFileException e) {
+            System.out.println("No institution index snapshot at " + snapshotPath + ", searching Cristin");
+            return;
+        }
+        if (index != null && modifiedMillis == loadedModifiedMillis) {
+            return;
+        }
+        index = read(snapshotPath);
+        loadedModifiedMillis = modifiedMillis;
+    }
+
+}
@@ -0,0 +1,99 @@
+package no.unit.nva.cristin.institutions;
+
+import com.google.gson.Gson;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Writes the snapshot read by {@link InstitutionIndexProvider}: a JSON object holding the time the catalog was
+ * taken, in milliseconds since the epoch, and the institutions in the Cristin API format,
+ * {@code {"timestamp": ..., "institutions": [...]}}. The age of the index is judged from this timestamp, never
+ * from the file's modification time, which archives and deployment packages do not preserve.
+ * Run by the {@code buildInstitutionIndex} Gradle task, on a snapshot written by {@link CatalogCrawler} or a
+ * JSON array dump.
+ */
+public class InstitutionIndexWriter {
+
+    public static final String TIMESTAMP = "timestamp";
+    public static final String INSTITUTIONS = "institutions";
+
+    private static final String USAGE = "Usage: InstitutionIndexWriter <catalog.ndjson | institutions.json> <output>";
+    private static final int ARGUMENT_COUNT = 2;
+    private static final Gson GSON = new Gson();
+
+    /**
+     * Builds an index snapshot from a crawled NDJSON snapshot or a JSON array dump of institutions, stamped with
+     * the time the dump was last modified.
+     *
+     * @param args crawled snapshot or institutions dump, and output file
+     * @throws IOException if the dump cannot be read or the snapshot cannot be written
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != ARGUMENT_COUNT) {
+            throw new IllegalArgumentException(USAGE);
+        }
+        Path dump = Paths.get(args[0]);
+        List<Institution> institutions;
+        if (CatalogCrawler.isCrawlSnapshot(dump)) {
+            institutions = CatalogCrawler.readRecords(dump, CatalogCrawler.INSTITUTION, Institution.class);
+        } else {
+            try (InputStreamReader reader = new InputStreamReader(Files.newInputStream(dump),
+                    StandardCharsets.UTF_8)) {
+                institutions = CristinJsonDecoder.getInstance().decodeInstitutions(reader);
+            }
+        }
+        new InstitutionIndexWriter().write(institutions, Files.getLastModifiedTime(dump).toMillis(),
+                Paths.get(args[1]));
+    }
+
+    /**
+     * Writes the snapshot to a temporary file next to the target and moves it into place, so a reload never
+     * sees a partially written snapshot.
+     *
+     * @param institutions      institutions to include
+     * @param snapshotTimestamp time in milliseconds when the catalog was taken
+     * @param target            snapshot file
+     * @throws IOException if the snapshot cannot be written
+     */
+    public void write(List<Institution> institutions, long snapshotTimestamp, Path target) throws IOException {
+        Path directory = Optional.ofNullable(target.toAbsolutePath().getParent()).orElse(Paths.get("."));
+        Files.createDirectories(directory);
+        Path temporary = Files.createTempFile(directory, target.getFileName().toString(), ".tmp");
+        try (Writer writer = Files.newBufferedWriter(temporary, StandardCharsets.UTF_8)) {
+            write(institutions, snapshotTimestamp, writer);
+        }
+        Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Writes the snapshot to the writer.
+     *
+     * @param institutions      institutions to include
+     * @param snapshotTimestamp time in milliseconds when the catalog was taken
+     * @param writer            destination
+     * @throws IOException if the snapshot cannot be written
+     */
+    public void write(List<Institution> institutions, long snapshotTimestamp, Writer writer) throws IOException {
+        JsonWriter json = new JsonWriter(writer);
+        json.beginObject();
+        json.name(TIMESTAMP).value(snapshotTimestamp);
+        json.name(INSTITUTIONS).beginArray();
+        for (Institution institution : institutions) {
+            GSON.toJson(institution, Institution.class, json);
+        }
+        json.endArray();
+        json.endObject();
+        json.flush();
+    }
+
+}
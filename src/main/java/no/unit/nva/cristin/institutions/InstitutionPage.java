@@ -0,0 +1,56 @@
+package no.unit.nva.cristin.institutions;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * One page of an institution search, with the paging information Cristin returns in the
+ * {@code X-Total-Count} and {@code Link} response headers.
+ */
+public class InstitutionPage {
+
+    private final transient List<Institution> institutions;
+    private final transient int page;
+    private final transient int perPage;
+    private final transient Integer totalCount;
+    private final transient boolean nextPage;
+
+    /**
+     * Creates a page.
+     *
+     * @param institutions institutions on the page
+     * @param page         page number, starting at 1
+     * @param perPage      requested page size
+     * @param totalCount   total number of results, or null if not reported
+     * @param nextPage     whether a following page exists
+     */
+    public InstitutionPage(List<Institution> institutions, int page, int perPage, Integer totalCount,
+                           boolean nextPage) {
+        this.institutions = institutions;
+        this.page = page;
+        this.perPage = perPage;
+        this.totalCount = totalCount;
+        this.nextPage = nextPage;
+    }
+
+    public List<Institution> getInstitutions() {
+        return institutions;
+    }
+
+    public int getPage() {
+        return page;
+    }
+
+    public int getPerPage() {
+        return perPage;
+    }
+
+    public Optional<Integer> getTotalCount() {
+        return Optional.ofNullable(totalCount);
+    }
+
+    public boolean hasNextPage() {
+        return nextPage;
+    }
+
+}
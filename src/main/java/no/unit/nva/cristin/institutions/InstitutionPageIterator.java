@@ -0,0 +1,87 @@
+package no.unit.nva.cristin.institutions;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URISyntaxException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Iterates over the pages of an institution search. When a page is handed out and Cristin reports a
+ * following page, that page is requested in the background, so it is usually ready by the time the caller
+ * has enriched and converted the current one. A failed page request is thrown from {@link #next()} as an
+ * {@link UncheckedIOException}.
+ */
+public class InstitutionPageIterator implements Iterator<InstitutionPage> {
+
+    private static final String PAGE_PARAMETER = "page";
+    private static final String PER_PAGE_PARAMETER = "per_page";
+
+    private final transient CristinApiClient cristinApiClient;
+    private final transient Map<String, String> parameters;
+    private final transient int perPage;
+    private final transient ParallelExecutor prefetchExecutor;
+    private transient CompletableFuture<InstitutionPage> upcoming;
+
+    /**
+     * Creates an iterator starting at the given page. The first page is requested immediately.
+     *
+     * @param cristinApiClient client used for the page requests
+     * @param parameters       Cristin query parameters; {@code page} and {@code per_page} are set by the iterator
+     * @param firstPage        first page to fetch, starting at 1
+     * @param perPage          page size
+     * @param prefetchExecutor executor used for the background requests
+     */
+    public InstitutionPageIterator(CristinApiClient cristinApiClient, Map<String, String> parameters, int firstPage,
+                                   int perPage, ParallelExecutor prefetchExecutor) {
+        this.cristinApiClient = cristinApiClient;
+        this.parameters = new HashMap<>(parameters);
+        this.perPage = perPage;
+        this.prefetchExecutor = prefetchExecutor;
+        this.upcoming = prefetchExecutor.submit(() -> fetch(firstPage));
+    }
+
+    @Override
+    public boolean hasNext() {
+        return upcoming != null;
+    }
+
+    @Override
+    public InstitutionPage next() {
+        if (upcoming == null) {
+            throw new NoSuchElementException();
+        }
+        InstitutionPage page;
+        try {
+            page = upcoming.join();
+        } catch (CompletionException e) {
+            upcoming = null;
+            throw e.getCause() instanceof UncheckedIOException ? (UncheckedIOException) e.getCause() : e;
+        }
+        if (page.hasNextPage() && !page.getInstitutions().isEmpty()) {
+            int nextPage = page.getPage() + 1;
+            upcoming = prefetchExecutor.submit(() -> fetch(nextPage));
+        } else {
+            upcoming = null;
+        }
+        return page;
+    }
+
+    private InstitutionPage fetch(int page) {
+        Map<String, String> pageParameters = new HashMap<>(parameters);
+        pageParameters.put(PAGE_PARAMETER, Integer.toString(page));
+        pageParameters.put(PER_PAGE_PARAMETER, Integer.toString(perPage));
+        try {
+            return cristinApiClient.queryInstitutionsPage(pageParameters);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (URISyntaxException e) {
+            throw new UncheckedIOException(new IOException(e.getMessage(), e));
+        }
+    }
+
+}
@@ -10,5 +10,6 @@ public class InstitutionPresentation {
     public String acronym;
     public String country;
     public String cristinUnitId;
+    public Boolean partial;
 
 }
@@ -0,0 +1,405 @@
+package no.unit.nva.cristin.institutions;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * Immutable in-memory search index over the institution catalog. Every token of every language's
+ * institution name and of the acronym is folded and stored in one sorted array, so a query token is
+ * answered with a binary search for its prefix range. An institution matches when every query token is a
+ * prefix of one of its tokens.
+ *
+ * <p>For queries with typos, {@link #fuzzySearch} also accepts tokens a few edits away, looked up through a
+ * {@link FuzzyTokenIndex} over the distinct tokens.</p>
+ */
+public class InstitutionSearchIndex {
+
+    private static final int RANK_ACRONYM = 0;
+    private static final int RANK_NAME_PREFIX = 1;
+    private static final int RANK_TOKEN_PREFIX = 2;
+    private static final int MAX_FUZZY_QUERY_TOKENS = 8;
+    private static final int MIN_ONE_EDIT_LENGTH = 4;
+    private static final int MIN_TWO_EDITS_LENGTH = 8;
+    private static final int SCORE_EXACT = 4;
+    private static final int SCORE_PREFIX = 3;
+    private static final int SCORE_RANGE = SCORE_EXACT * MAX_FUZZY_QUERY_TOKENS + 1;
+    private static final int RANK_RANGE = RANK_TOKEN_PREFIX + 1;
+    private static final long POSITION_MASK = 0xFFFFFFFFL;
+    private static final int MAX_FUZZY_CANDIDATES = 4096;
+
+    private final transient List<Institution> institutions;
+    private final transient String[] foldedAcronyms;
+    private final transient List<List<String>> foldedNames;
+    private final transient String[] tokens;
+    private final transient int[] postings;
+    private final transient int[] vocabularyStarts;
+    private final transient int[][] institutionVocabulary;
+    private final transient FuzzyTokenIndex fuzzyTokenIndex;
+    private final transient long snapshotTimestamp;
+
+    /**
+     * Builds the index over the given institutions.
+     *
+     * @param institutions      complete institution catalog
+     * @param snapshotTimestamp time in milliseconds when the catalog snapshot was taken
+     */
+    public InstitutionSearchIndex(List<Institution> institutions, long snapshotTimestamp) {
+        this.institutions = Collections.unmodifiableList(new ArrayList<>(institutions));
+        this.snapshotTimestamp = snapshotTimestamp;
+        this.foldedAcronyms = new String[institutions.size()];
+        this.foldedNames = new ArrayList<>(institutions.size());
+
+        List<TokenPosting> tokenPostings = new ArrayList<>();
+        for (int i = 0; i < institutions.size(); i++) {
+            Institution institution = institutions.get(i);
+            foldedAcronyms[i] = String.join(" ", SearchText.tokens(institution.acronym));
+            List<List<String>> nameTokens = namesOf(institution).stream()
+                    .map(SearchText::tokens)
+                    .collect(Collectors.toList());
+            foldedNames.add(nameTokens.stream().map(name -> String.join(" ", name)).collect(Collectors.toList()));
+
+            final int position = i;
+            nameTokens.stream()
+                    .flatMap(List::stream)
+                    .distinct()
+                    .forEach(token -> tokenPostings.add(new TokenPosting(token, position)));
+            SearchText.tokens(institution.acronym)
+                    .forEach(token -> tokenPostings.add(new TokenPosting(token, position)));
+        }
+        tokenPostings.sort(Comparator.comparing((TokenPosting posting) -> posting.token)
+                .thenComparingInt(posting -> posting.position));
+
+        this.tokens = new String[tokenPostings.size()];
+        this.postings = new int[tokenPostings.size()];
+        for (int i = 0; i < tokenPostings.size(); i++) {
+            tokens[i] = tokenPostings.get(i).token;
+            postings[i] = tokenPostings.get(i).position;
+        }
+
+        List<String> vocabulary = new ArrayList<>();
+        List<Integer> starts = new ArrayList<>();
+        for (int i = 0; i < tokens.length; i++) {
+            if (i == 0 || !tokens[i].equals(tokens[i - 1])) {
+                vocabulary.add(tokens[i]);
+                starts.add(i);
+            }
+        }
+        starts.add(tokens.length);
+        this.vocabularyStarts = starts.stream().mapToInt(Integer::intValue).toArray();
+        this.fuzzyTokenIndex = new FuzzyTokenIndex(vocabulary.toArray(new String[0]));
+
+        int[] vocabularySizes = new int[institutions.size()];
+        for (int posting : postings) {
+            vocabularySizes[posting]++;
+        }
+        this.institutionVocabulary = new int[institutions.size()][];
+        for (int i = 0; i < institutions.size(); i++) {
+            institutionVocabulary[i] = new int[vocabularySizes[i]];
+            vocabularySizes[i] = 0;
+        }
+        for (int v = 0; v < vocabulary.size(); v++) {
+            for (int i = vocabularyStarts[v]; i < vocabularyStarts[v + 1]; i++) {
+                institutionVocabulary[postings[i]][vocabularySizes[postings[i]]++] = v;
+            }
+        }
+    }
+
+    /**
+     * Finds institutions matching all tokens of the query. Exact acronym matches come first, then
+     * institutions with a name starting with the query, then other matches in catalog order.
+     *
+     * @param query name, part of name or acronym
+     * @param limit maximum number of results
+     * @return matching institutions, best match first
+     */
+    public List<Institution> search(String query, int limit) {
+        List<String> queryTokens = SearchText.tokens(query);
+        if (queryTokens.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        BitSet matches = null;
+        for (String queryToken : queryTokens) {
+            BitSet tokenMatches = prefixMatches(queryToken);
+            if (matches == null) {
+                matches = tokenMatches;
+            } else {
+                matches.and(tokenMatches);
+            }
+        }
+
+        String foldedQuery = String.join(" ", queryTokens);
+        return matches.stream()
+                .boxed()
+                .sorted(Comparator.comparingInt((Integer position) -> rank(position, foldedQuery))
+                        .thenComparingInt(position -> position))
+                .limit(limit)
+                .map(institutions::get)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Finds institutions matching most tokens of a query that may contain typos. A query token matches a name or
+     * acronym token that it equals, is a prefix of, or is within one edit of (two for tokens of eight or more
+     * letters, none for tokens shorter than four); a swap of two adjacent letters counts as one edit. More than
+     * half of the query tokens must match. Institutions matching more tokens come first, then closer matches,
+     * then as in {@link #search}. Only the first {@value #MAX_FUZZY_QUERY_TOKENS} query tokens are used, and at
+     * most {@value #MAX_FUZZY_CANDIDATES} institutions are scored, taken from the query tokens with the fewest
+     * matches first. A query token matching more institutions than that only adds to the scores of institutions
+     * found through rarer tokens.
+     *
+     * @param query name, part of name or acronym, possibly misspelt
+     * @param limit maximum number of results
+     * @return matching institutions, best match first
+     */
+    public List<Institution> fuzzySearch(String query, int limit) {
+        List<String> queryTokens = SearchText.tokens(query);
+        if (queryTokens.size() > MAX_FUZZY_QUERY_TOKENS) {
+            queryTokens = queryTokens.subList(0, MAX_FUZZY_QUERY_TOKENS);
+        }
+        if (queryTokens.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        List<TokenMatches> tokenMatches = new ArrayList<>(queryTokens.size());
+        for (int token = 0; token < queryTokens.size(); token++) {
+            tokenMatches.add(new TokenMatches(token, queryTokens.get(token)));
+        }
+        tokenMatches.sort(Comparator.comparingInt(matches -> matches.postingCount));
+
+        Map<Integer, FuzzyCandidate> candidates = new HashMap<>();
+        for (TokenMatches matches : tokenMatches) {
+            if (candidates.isEmpty() || matches.postingCount <= MAX_FUZZY_CANDIDATES) {
+                matches.admit(candidates);
+            } else {
+                candidates.values().forEach(matches::score);
+            }
+        }
+
+        int required = queryTokens.size() / 2 + 1;
+        String foldedQuery = String.join(" ", queryTokens);
+        return candidates.values().stream()
+                .filter(candidate -> candidate.matchedTokens >= required)
+                .mapToLong(candidate -> fuzzySortKey(candidate.position, candidate.matchedTokens, candidate.score,
+                        rank(candidate.position, foldedQuery)))
+                .sorted()
+                .limit(limit)
+                .mapToObj(sortKey -> institutions.get((int) (sortKey & POSITION_MASK)))
+                .collect(Collectors.toList());
+    }
+
+    public int size() {
+        return institutions.size();
+    }
+
+    public long getSnapshotTimestamp() {
+        return snapshotTimestamp;
+    }
+
+    protected List<Institution> getInstitutions() {
+        return institutions;
+    }
+
+    private BitSet prefixMatches(String prefix) {
+        BitSet matches = new BitSet(institutions.size());
+        for (int i = lowerBound(prefix); i < tokens.length && tokens[i].startsWith(prefix); i++) {
+            matches.set(postings[i]);
+        }
+        return matches;
+    }
+
+    private int endOfRange(int from, String queryToken, boolean exact) {
+        int low = from;
+        int high = tokens.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (exact ? tokens[middle].equals(queryToken) : tokens[middle].startsWith(queryToken)) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private int lowerBound(String prefix) {
+        int low = 0;
+        int high = tokens.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (tokens[middle].compareTo(prefix) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private int rank(int position, String foldedQuery) {
+        if (foldedAcronyms[position].equals(foldedQuery)) {
+            return RANK_ACRONYM;
+        }
+        for (String name : foldedNames.get(position)) {
+            if (name.startsWith(foldedQuery)) {
+                return RANK_NAME_PREFIX;
+            }
+        }
+        return RANK_TOKEN_PREFIX;
+    }
+
+    private static long fuzzySortKey(int position, int matchedTokens, int score, int rank) {
+        long order = ((long) (MAX_FUZZY_QUERY_TOKENS - matchedTokens) * SCORE_RANGE + SCORE_RANGE - 1 - score)
+                * RANK_RANGE + rank;
+        return order << Integer.SIZE | position;
+    }
+
+    private static int maxDistance(String queryToken) {
+        if (queryToken.length() >= MIN_TWO_EDITS_LENGTH) {
+            return 2;
+        }
+        return queryToken.length() >= MIN_ONE_EDIT_LENGTH ? 1 : 0;
+    }
+
+    private static List<String> namesOf(Institution institution) {
+        return Optional.ofNullable(institution.institutionName)
+                .map(Map::values)
+                .map(names -> names.stream().filter(name -> name != null).collect(Collectors.toList()))
+                .orElse(Collections.emptyList());
+    }
+
+    /**
+     * The name and acronym tokens one query token matches, with the score of each match.
+     */
+    private final class TokenMatches {
+
+        private final int token;
+        private final int start;
+        private final int exactEnd;
+        private final int prefixEnd;
+        private final int vocabularyStart;
+        private final int vocabularyExactEnd;
+        private final int vocabularyPrefixEnd;
+        private final long[] fuzzyMatches;
+        private int postingCount;
+
+        TokenMatches(int token, String queryToken) {
+            this.token = token;
+            this.start = lowerBound(queryToken);
+            this.exactEnd = endOfRange(start, queryToken, true);
+            this.prefixEnd = endOfRange(exactEnd, queryToken, false);
+            this.vocabularyStart = Arrays.binarySearch(vocabularyStarts, start);
+            this.vocabularyExactEnd = Arrays.binarySearch(vocabularyStarts, exactEnd);
+            this.vocabularyPrefixEnd = Arrays.binarySearch(vocabularyStarts, prefixEnd);
+            postingCount = prefixEnd - start;
+            List<Long> matches = new ArrayList<>();
+            int maxDistance = maxDistance(queryToken);
+            if (maxDistance > 0) {
+                fuzzyTokenIndex.match(queryToken, maxDistance, (vocabularyPosition, distance) -> {
+                    matches.add((long) vocabularyPosition << Integer.SIZE | SCORE_PREFIX - distance);
+                    postingCount += vocabularyStarts[vocabularyPosition + 1] - vocabularyStarts[vocabularyPosition];
+                });
+            }
+            this.fuzzyMatches = matches.stream().mapToLong(Long::longValue).sorted().toArray();
+        }
+
+        /**
+         * Scores every institution with a matching token, adding those not yet scored while there is room.
+         */
+        void admit(Map<Integer, FuzzyCandidate> candidates) {
+            admit(candidates, start, exactEnd, SCORE_EXACT);
+            admit(candidates, exactEnd, prefixEnd, SCORE_PREFIX);
+            for (long match : fuzzyMatches) {
+                int vocabularyPosition = (int) (match >>> Integer.SIZE);
+                admit(candidates, vocabularyStarts[vocabularyPosition], vocabularyStarts[vocabularyPosition + 1],
+                        (int) (match & POSITION_MASK));
+            }
+        }
+
+        private void admit(Map<Integer, FuzzyCandidate> candidates, int from, int to, int score) {
+            for (int i = from; i < to; i++) {
+                FuzzyCandidate candidate = candidates.get(postings[i]);
+                if (candidate == null && candidates.size() < MAX_FUZZY_CANDIDATES) {
+                    candidate = new FuzzyCandidate(postings[i]);
+                    candidates.put(postings[i], candidate);
+                }
+                if (candidate != null) {
+                    candidate.score(token, score);
+                }
+            }
+        }
+
+        /**
+         * Scores an institution already found by looking through its own tokens.
+         */
+        void score(FuzzyCandidate candidate) {
+            int best = 0;
+            for (int vocabularyPosition : institutionVocabulary[candidate.position]) {
+                if (vocabularyPosition >= vocabularyStart && vocabularyPosition < vocabularyExactEnd) {
+                    best = SCORE_EXACT;
+                } else if (vocabularyPosition >= vocabularyExactEnd && vocabularyPosition < vocabularyPrefixEnd) {
+                    best = Math.max(best, SCORE_PREFIX);
+                } else {
+                    best = Math.max(best, fuzzyScore(vocabularyPosition));
+                }
+            }
+            if (best > 0) {
+                candidate.score(token, best);
+            }
+        }
+
+        private int fuzzyScore(int vocabularyPosition) {
+            int index = Arrays.binarySearch(fuzzyMatches, (long) vocabularyPosition << Integer.SIZE);
+            int next = index < 0 ? -index - 1 : index;
+            if (next < fuzzyMatches.length && fuzzyMatches[next] >>> Integer.SIZE == vocabularyPosition) {
+                return (int) (fuzzyMatches[next] & POSITION_MASK);
+            }
+            return 0;
+        }
+    }
+
+    private static class FuzzyCandidate {
+
+        private final int position;
+        private int matchedTokens;
+        private int score;
+        private int lastToken = -1;
+        private int tokenScore;
+
+        FuzzyCandidate(int position) {
+            this.position = position;
+        }
+
+        void score(int token, int matchScore) {
+            if (token != lastToken) {
+                lastToken = token;
+                tokenScore = matchScore;
+                matchedTokens++;
+                score += matchScore;
+            } else if (matchScore > tokenScore) {
+                score += matchScore - tokenScore;
+                tokenScore = matchScore;
+            }
+        }
+    }
+
+    private static class TokenPosting {
+
+        private final String token;
+        private final int position;
+
+        TokenPosting(String token, int position) {
+            this.token = token;
+            this.position = position;
+        }
+    }
+
+}
@@ -0,0 +1,222 @@
+package no.unit.nva.cristin.institutions;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Bounded in-memory cache with least-recently-used eviction and a fixed time-to-live per entry.
+ *
+ * @param <K> key type
+ * @param <V> value type
+ */
+public class LookupCache<K, V> {
+
+    private static final float LOAD_FACTOR = 0.75f;
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final transient Map<K, CacheEntry<V>> entries;
+    private final transient long ttlMillis;
+    private final transient LongSupplier clock;
+
+    private final transient AtomicLong hits = new AtomicLong();
+    private final transient AtomicLong misses = new AtomicLong();
+    private final transient AtomicLong evictions = new AtomicLong();
+
+    public LookupCache(int maxEntries, long ttlMillis) {
+        this(maxEntries, ttlMillis, System::currentTimeMillis);
+    }
+
+    /**
+     * Creates a cache holding at most {@code maxEntries} entries, each valid for {@code ttlMillis}.
+     *
+     * @param maxEntries maximum number of entries before the least recently used entry is evicted
+     * @param ttlMillis  time-to-live for each entry in milliseconds
+     * @param clock      source of the current time in milliseconds
+     */
+    public LookupCache(int maxEntries, long ttlMillis, LongSupplier clock) {
+        this.ttlMillis = ttlMillis;
+        this.clock = clock;
+        this.entries = new LinkedHashMap<K, CacheEntry<V>>(INITIAL_CAPACITY, LOAD_FACTOR, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, CacheEntry<V>> eldest) {
+                boolean evict = size() > maxEntries;
+                if (evict) {
+                    evictions.incrementAndGet();
+                }
+                return evict;
+            }
+        };
+    }
+
+    /**
+     * Returns the cached value, or loads and caches it when absent or expired. Failed loads are not cached.
+     *
+     * @param key    cache key
+     * @param loader loads the value on a miss
+     * @return cached or freshly loaded value
+     * @throws IOException        if the loader fails
+     * @throws URISyntaxException if the loader fails
+     */
+    public V get(K key, Loader<V> loader) throws IOException, URISyntaxException {
+        V cached = getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+        V loaded = loader.load();
+        if (loaded != null) {
+            put(key, loaded);
+        }
+        return loaded;
+    }
+
+    /**
+     * Returns the value for the key if it is cached and not expired, otherwise null.
+     *
+     * @param key cache key
+     * @return cached value or null
+     */
+    public V getIfPresent(K key) {
+        synchronized (entries) {
+            CacheEntry<V> entry = entries.get(key);
+            if (entry != null && entry.expiresAt > clock.getAsLong()) {
+                hits.incrementAndGet();
+                return entry.value;
+            }
+            if (entry != null) {
+                entries.remove(key);
+            }
+        }
+        misses.incrementAndGet();
+        return null;
+    }
+
+    /**
+     * Returns the entry for the key whether or not it has expired, so that an expired value can still be
+     * revalidated against its source. Unlike {@link #getIfPresent}, expired entries are kept until they are
+     * replaced or evicted. Only fresh entries count as hits.
+     *
+     * @param key cache key
+     * @return the entry, or empty if nothing is cached for the key
+     */
+    public Optional<Entry<V>> getEntry(K key) {
+        long now = clock.getAsLong();
+        CacheEntry<V> entry;
+        synchronized (entries) {
+            entry = entries.get(key);
+        }
+        if (entry == null || entry.expiresAt <= now) {
+            misses.incrementAndGet();
+        } else {
+            hits.incrementAndGet();
+        }
+        return Optional.ofNullable(entry).map(cached -> new Entry<>(cached.value, now - cached.storedAt,
+                cached.expiresAt > now));
+    }
+
+    /**
+     * Caches the value for the key, replacing any previous entry.
+     *
+     * @param key   cache key
+     * @param value value to cache
+     */
+    public void put(K key, V value) {
+        synchronized (entries) {
+            long now = clock.getAsLong();
+            entries.put(key, new CacheEntry<>(value, now, now + ttlMillis));
+        }
+    }
+
+    /**
+     * Removes the entry for the key, if any.
+     *
+     * @param key cache key
+     */
+    public void invalidate(K key) {
+        synchronized (entries) {
+            entries.remove(key);
+        }
+    }
+
+    /**
+     * Number of entries currently held, including entries that have expired but not yet been removed.
+     *
+     * @return number of entries
+     */
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    public long getEvictionCount() {
+        return evictions.get();
+    }
+
+    /**
+     * Loads a value on a cache miss.
+     *
+     * @param <V> value type
+     */
+    @FunctionalInterface
+    public interface Loader<V> {
+
+        V load() throws IOException, URISyntaxException;
+    }
+
+    /**
+     * Cached value with its age, as returned by {@link #getEntry}.
+     *
+     * @param <V> value type
+     */
+    public static class Entry<V> {
+
+        private final transient V value;
+        private final transient long ageMillis;
+        private final transient boolean fresh;
+
+        Entry(V value, long ageMillis, boolean fresh) {
+            this.value = value;
+            this.ageMillis = ageMillis;
+            this.fresh = fresh;
+        }
+
+        public V getValue() {
+            return value;
+        }
+
+        public long getAgeMillis() {
+            return ageMillis;
+        }
+
+        public boolean isFresh() {
+            return fresh;
+        }
+    }
+
+    private static class CacheEntry<V> {
+
+        private final V value;
+        private final long storedAt;
+        private final long expiresAt;
+
+        CacheEntry(V value, long storedAt, long expiresAt) {
+            this.value = value;
+            this.storedAt = storedAt;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+}
@@ -0,0 +1,48 @@
+package no.unit.nva.cristin.institutions;
+
+import java.util.Objects;
+
+/**
+ * Cache key for a single Cristin record fetched in a given language, or in all languages when the language is
+ * {@link CristinApiClient#ALL_LANGUAGES}.
+ */
+public class LookupKey {
+
+    private final String id;
+    private final String language;
+
+    public LookupKey(String id, String language) {
+        this.id = id;
+        this.language = language;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getLanguage() {
+        return language;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof LookupKey)) {
+            return false;
+        }
+        LookupKey that = (LookupKey) other;
+        return Objects.equals(id, that.id) && Objects.equals(language, that.language);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id, language);
+    }
+
+    @Override
+    public String toString() {
+        return language == null ? id : id + "/" + language;
+    }
+}
@@ -0,0 +1,168 @@
+package no.unit.nva.cristin.institutions;
+
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Writes one structured metric line per request to standard out in the CloudWatch embedded metric format,
+ * so stage latencies, upstream traffic and cache outcomes can be graphed and aggregated into percentiles
+ * without parsing. Also keeps container-wide latency histograms per stage, summarized in a log line every
+ * {@value #SUMMARY_INTERVAL} requests.
+ */
+public class MetricsLog {
+
+    public static final String NAMESPACE = "NvaCristinInstitutions";
+
+    private static final int SUMMARY_INTERVAL = 100;
+    private static final double NANOS_PER_MILLI = 1_000_000.0;
+    private static final double[] SUMMARY_PERCENTILES = {50, 90, 99};
+    private static final String HANDLER = "handler";
+    private static final String STATUS_CODE = "statusCode";
+    private static final String UPSTREAM_STATUS = "upstreamStatus";
+    private static final String UPSTREAM_CALLS = "upstreamCalls";
+    private static final String UPSTREAM_ERRORS = "upstreamErrors";
+    private static final String UPSTREAM_BYTES = "upstreamBytes";
+    private static final String CACHE_PREFIX = "cache_";
+    private static final String UPSTREAM_PREFIX = "upstream_";
+    private static final String TOTAL = "total";
+    private static final String MILLISECONDS = "Milliseconds";
+    private static final String BYTES = "Bytes";
+    private static final String COUNT = "Count";
+    private static final int SERVER_ERROR = 500;
+
+    private static final MetricsLog INSTANCE = new MetricsLog();
+
+    private final transient ConcurrentMap<String, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+    private final transient AtomicLong requestCount = new AtomicLong();
+
+    public static MetricsLog getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Returns the container-wide histogram for a stage, creating it on first use.
+     *
+     * @param name stage name
+     * @return histogram of the stage's durations
+     */
+    public LatencyHistogram histogram(String name) {
+        return histograms.computeIfAbsent(name, key -> new LatencyHistogram());
+    }
+
+    /**
+     * Writes the metric line for a finished request.
+     *
+     * @param timings    record of the request
+     * @param statusCode response status
+     */
+    public void emit(RequestTimings timings, int statusCode) {
+        histogram(TOTAL).record(timings.getTotalNanos());
+        try {
+            System.out.println(toMetricLine(timings, statusCode, System.currentTimeMillis()));
+            if (requestCount.incrementAndGet() % SUMMARY_INTERVAL == 0) {
+                System.out.println(toSummaryLine());
+            }
+        } catch (IOException e) {
+            System.out.println("Error writing metrics: " + e.getMessage());
+        }
+    }
+
+    protected String toMetricLine(RequestTimings timings, int statusCode, long timestamp) throws IOException {
+        Map<String, Long> stages = timings.getStageNanos();
+        Map<String, Integer> upstreamStatuses = timings.getUpstreamStatuses();
+        Map<String, Integer> cacheOutcomes = timings.getCacheOutcomes();
+        Map<String, Integer> upstreamEvents = timings.getUpstreamEvents();
+        int upstreamCalls = upstreamStatuses.values().stream().mapToInt(Integer::intValue).sum();
+        int upstreamErrors = upstreamStatuses.entrySet().stream()
+                .filter(status -> isUpstreamError(status.getKey()))
+                .mapToInt(Map.Entry::getValue)
+                .sum();
+
+        List<String[]> metrics = new ArrayList<>();
+        metrics.add(new String[]{TOTAL, MILLISECONDS});
+        stages.keySet().forEach(stage -> metrics.add(new String[]{stage, MILLISECONDS}));
+        metrics.add(new String[]{UPSTREAM_CALLS, COUNT});
+        metrics.add(new String[]{UPSTREAM_ERRORS, COUNT});
+        metrics.add(new String[]{UPSTREAM_BYTES, BYTES});
+        cacheOutcomes.keySet().forEach(outcome -> metrics.add(new String[]{CACHE_PREFIX + outcome, COUNT}));
+        upstreamEvents.keySet().forEach(event -> metrics.add(new String[]{UPSTREAM_PREFIX + event, COUNT}));
+
+        StringWriter out = new StringWriter();
+        try (JsonWriter json = new JsonWriter(out)) {
+            json.beginObject();
+            writeMetadata(json, timestamp, metrics);
+            json.name(HANDLER).value(timings.getHandler());
+            json.name(STATUS_CODE).value(statusCode);
+            json.name(TOTAL).value(timings.getTotalNanos() / NANOS_PER_MILLI);
+            for (Map.Entry<String, Long> stage : stages.entrySet()) {
+                json.name(stage.getKey()).value(stage.getValue() / NANOS_PER_MILLI);
+            }
+            json.name(UPSTREAM_CALLS).value(upstreamCalls);
+            json.name(UPSTREAM_ERRORS).value(upstreamErrors);
+            json.name(UPSTREAM_BYTES).value(timings.getUpstreamBytes());
+            json.name(UPSTREAM_STATUS).beginObject();
+            for (Map.Entry<String, Integer> status : upstreamStatuses.entrySet()) {
+                json.name(status.getKey()).value(status.getValue());
+            }
+            json.endObject();
+            for (Map.Entry<String, Integer> outcome : cacheOutcomes.entrySet()) {
+                json.name(CACHE_PREFIX + outcome.getKey()).value(outcome.getValue());
+            }
+            for (Map.Entry<String, Integer> event : upstreamEvents.entrySet()) {
+                json.name(UPSTREAM_PREFIX + event.getKey()).value(event.getValue());
+            }
+            json.endObject();
+        }
+        return out.toString();
+    }
+
+    private void writeMetadata(JsonWriter json, long timestamp, List<String[]> metrics) throws IOException {
+        json.name("_aws").beginObject();
+        json.name("Timestamp").value(timestamp);
+        json.name("CloudWatchMetrics").beginArray().beginObject();
+        json.name("Namespace").value(NAMESPACE);
+        json.name("Dimensions").beginArray().beginArray().value(HANDLER).endArray().endArray();
+        json.name("Metrics").beginArray();
+        for (String[] metric : metrics) {
+            json.beginObject().name("Name").value(metric[0]).name("Unit").value(metric[1]).endObject();
+        }
+        json.endArray();
+        json.endObject().endArray();
+        json.endObject();
+    }
+
+    protected String toSummaryLine() throws IOException {
+        StringWriter out = new StringWriter();
+        try (JsonWriter json = new JsonWriter(out)) {
+            json.beginObject();
+            json.name("latencySummary").beginObject();
+            for (Map.Entry<String, LatencyHistogram> entry : new TreeMap<>(histograms).entrySet()) {
+                LatencyHistogram histogram = entry.getValue();
+                json.name(entry.getKey()).beginObject();
+                json.name("count").value(histogram.getCount());
+                json.name("meanMs").value(histogram.getMeanMillis());
+                for (double percentile : SUMMARY_PERCENTILES) {
+                    json.name("p" + (int) percentile + "Ms").value(histogram.getPercentileMillis(percentile));
+                }
+                json.endObject();
+            }
+            json.endObject();
+            json.endObject();
+        }
+        return out.toString();
+    }
+
+    private static boolean isUpstreamError(String status) {
+        return RequestTimings.UPSTREAM_ERROR.equals(status) || Integer.parseInt(status) >= SERVER_ERROR;
+    }
+
+}
@@ -0,0 +1,135 @@
+package no.unit.nva.cristin.institutions;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Runs independent lookups on a dedicated thread pool with a fixed upper bound on concurrency.
+ */
+public class ParallelExecutor {
+
+    private static final String THREAD_NAME_PREFIX = "cristin-parallel-";
+    private static final String TASK_FAILED = "Parallel task failed: ";
+
+    private final transient ExecutorService executorService;
+
+    /**
+     * Creates an executor that never runs more than {@code parallelism} tasks at the same time.
+     *
+     * @param parallelism maximum number of concurrently running tasks
+     */
+    public ParallelExecutor(int parallelism) {
+        this.executorService = Executors.newFixedThreadPool(parallelism, new DaemonThreadFactory());
+    }
+
+    /**
+     * Applies the task to every item concurrently and returns the results in the order of the items.
+     * The task is expected to handle its own failures, e.g. by returning a fallback value. Tasks report to
+     * the calling thread's {@link RequestTimings}.
+     *
+     * @param items items to process
+     * @param task  task applied to each item
+     * @param <T>   item type
+     * @param <R>   result type
+     * @return results in the same order as the items
+     */
+    public <T, R> List<R> mapInOrder(List<T> items, Function<T, R> task) {
+        if (items.size() < 2) {
+            return items.stream().map(task).collect(Collectors.toList());
+        }
+        List<CompletableFuture<R>> futures = items.stream()
+                .map(item -> CompletableFuture.supplyAsync(RequestTimings.wrap(() -> task.apply(item)),
+                        executorService))
+                .collect(Collectors.toList());
+        return futures.stream()
+                .map(CompletableFuture::join)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Applies the task to every item concurrently and returns the results that are ready by the deadline, in
+     * the order of the items. Tasks not finished by the deadline are cancelled, so those still queued never
+     * start, and their results are empty, as are those of tasks that throw. Tasks report to the calling
+     * thread's {@link RequestTimings}.
+     *
+     * @param items    items to process
+     * @param task     task applied to each item; it is expected to handle its own failures
+     * @param deadline time by which results are collected
+     * @param <T>      item type
+     * @param <R>      result type
+     * @return results in the same order as the items, empty for tasks that failed or did not finish in time
+     */
+    public <T, R> List<Optional<R>> mapInOrder(List<T> items, Function<T, R> task, Deadline deadline) {
+        List<CompletableFuture<R>> futures = items.stream()
+                .map(item -> CompletableFuture.supplyAsync(RequestTimings.wrap(() -> task.apply(item)),
+                        executorService))
+                .collect(Collectors.toList());
+        List<Optional<R>> results = new ArrayList<>(futures.size());
+        for (CompletableFuture<R> future : futures) {
+            results.add(awaitResult(future, deadline));
+        }
+        return results;
+    }
+
+    private static <R> Optional<R> awaitResult(CompletableFuture<R> future, Deadline deadline) {
+        try {
+            return Optional.ofNullable(future.get(deadline.remainingMillis(), TimeUnit.MILLISECONDS));
+        } catch (TimeoutException e) {
+            future.cancel(false);
+            return Optional.empty();
+        } catch (InterruptedException e) {
+            future.cancel(false);
+            Thread.currentThread().interrupt();
+            return Optional.empty();
+        } catch (ExecutionException e) {
+            System.out.println(TASK_FAILED + e.getCause());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Runs the task on the pool, reporting to the calling thread's {@link RequestTimings}.
+     *
+     * @param task task to run
+     * @param <R>  result type
+     * @return future completed with the task's result
+     */
+    public <R> CompletableFuture<R> submit(Supplier<R> task) {
+        return CompletableFuture.supplyAsync(RequestTimings.wrap(task), executorService);
+    }
+
+    /**
+     * Runs the task on the pool without reporting to the calling thread's {@link RequestTimings}, for background
+     * work that may outlive the request.
+     *
+     * @param task task to run
+     */
+    public void execute(Runnable task) {
+        executorService.execute(task);
+    }
+
+    private static class DaemonThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger threadCount = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, THREAD_NAME_PREFIX + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+
+}
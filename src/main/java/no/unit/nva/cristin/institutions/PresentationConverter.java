@@ -2,22 +2,33 @@ package no.unit.nva.cristin.institutions;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.TreeMap;
 
+/**
+ * Projects Cristin records onto the presentation model. Records hold their names in every language Cristin has;
+ * given a language, only the name in that language is presented, falling back to all names when the record has
+ * none in it, as Cristin does for a {@code lang} request.
+ */
 public class PresentationConverter {
 
     protected InstitutionPresentation asInstitutionPresentation(Institution institution) {
+        return asInstitutionPresentation(institution, CristinApiClient.ALL_LANGUAGES);
+    }
+
+    /**
+     * Presents an institution with the names in the given language.
+     *
+     * @param institution institution record
+     * @param language    language of the names, or {@link CristinApiClient#ALL_LANGUAGES}
+     * @return the presentation
+     */
+    protected InstitutionPresentation asInstitutionPresentation(Institution institution, String language) {
         InstitutionPresentation institutionPresentation = new InstitutionPresentation();
         institutionPresentation.cristinInstitutionId = institution.cristinInstitutionId;
 
-        Optional.ofNullable(institution.institutionName).orElse(new TreeMap<String, String>() {
-        }).forEach((key, value) -> {
-            NamePresentation namePresentation = new NamePresentation();
-            namePresentation.language = key;
-            namePresentation.name = value;
-            institutionPresentation.institutionNames.add(namePresentation);
-        });
+        addNames(institution.institutionName, language, institutionPresentation.institutionNames);
 
         institutionPresentation.acronym = Optional.ofNullable(institution.acronym).orElse("");
         institutionPresentation.country = Optional.ofNullable(institution.country).orElse("");
@@ -30,6 +41,17 @@ public class PresentationConverter {
     }
 
     protected UnitPresentation asUnitPresentation(Unit unit) {
+        return asUnitPresentation(unit, CristinApiClient.ALL_LANGUAGES);
+    }
+
+    /**
+     * Presents a unit, its parent and its direct subunits with the names in the given language.
+     *
+     * @param unit     unit record
+     * @param language language of the names, or {@link CristinApiClient#ALL_LANGUAGES}
+     * @return the presentation
+     */
+    protected UnitPresentation asUnitPresentation(Unit unit, String language) {
 
         UnitPresentation unitPresentation = new UnitPresentation();
 
@@ -42,13 +64,7 @@ public class PresentationConverter {
         if (Optional.ofNullable(unit.parentUnit).isPresent()) {
             ParentUnitPresentation parentUnitPresentation = new ParentUnitPresentation();
             parentUnitPresentation.cristinUnitId = unit.parentUnit.cristinUnitId;
-            Optional.ofNullable(unit.parentUnit.unitName).orElse(new TreeMap<>())
-                    .forEach((language, name) -> {
-                        NamePresentation namePresentation = new NamePresentation();
-                        namePresentation.language = language;
-                        namePresentation.name = name;
-                        parentUnitPresentation.parentUnitNames.add(namePresentation);
-                    });
+            addNames(unit.parentUnit.unitName, language, parentUnitPresentation.parentUnitNames);
 
             unitPresentation.parentUnit = parentUnitPresentation;
         }
@@ -56,36 +72,53 @@ public class PresentationConverter {
 
         unitPresentation.cristinUnitId = unit.cristinUnitId;
 
-        Optional.ofNullable(unit.unitName).orElse(new TreeMap<>())
-                .forEach((language, name) -> {
-                    NamePresentation namePresentation = new NamePresentation();
-                    namePresentation.language = language;
-                    namePresentation.name = name;
-                    unitPresentation.unitNames.add(namePresentation);
-                });
+        addNames(unit.unitName, language, unitPresentation.unitNames);
 
         List<SubunitPresentation> subunitPresentations = new ArrayList<>();
 
         Optional.ofNullable(unit.subunits).orElse(new ArrayList<Unit>() {
-        }).forEach(subunit -> {
-            SubunitPresentation subunitPresentation = new SubunitPresentation();
+        }).forEach(subunit -> subunitPresentations.add(asSubunitPresentation(subunit, language)));
 
-            subunitPresentation.cristinUnitId = subunit.cristinUnitId;
+        unitPresentation.subunits = subunitPresentations;
 
-            Optional.ofNullable(subunit.unitName).orElse(new TreeMap<>())
-                    .forEach((language, name) -> {
-                        NamePresentation namePresentation = new NamePresentation();
-                        namePresentation.language = language;
-                        namePresentation.name = name;
-                        subunitPresentation.subunitNames.add(namePresentation);
-                    });
+        return unitPresentation;
+    }
 
-            subunitPresentations.add(subunitPresentation);
-        });
+    protected SubunitPresentation asSubunitPresentation(Unit subunit) {
+        return asSubunitPresentation(subunit, CristinApiClient.ALL_LANGUAGES);
+    }
 
-        unitPresentation.subunits = subunitPresentations;
+    /**
+     * Presents a subunit with the names in the given language.
+     *
+     * @param subunit  subunit record
+     * @param language language of the names, or {@link CristinApiClient#ALL_LANGUAGES}
+     * @return the presentation
+     */
+    protected SubunitPresentation asSubunitPresentation(Unit subunit, String language) {
+        SubunitPresentation subunitPresentation = new SubunitPresentation();
 
-        return unitPresentation;
+        subunitPresentation.cristinUnitId = subunit.cristinUnitId;
+
+        addNames(subunit.unitName, language, subunitPresentation.subunitNames);
+
+        return subunitPresentation;
+    }
+
+    private static void addNames(Map<String, String> names, String language, List<NamePresentation> target) {
+        Map<String, String> available = Optional.ofNullable(names).orElse(new TreeMap<>());
+        if (language != null && available.containsKey(language)) {
+            target.add(namePresentation(language, available.get(language)));
+            return;
+        }
+        available.forEach((key, value) -> target.add(namePresentation(key, value)));
+    }
+
+    private static NamePresentation namePresentation(String language, String name) {
+        NamePresentation namePresentation = new NamePresentation();
+        namePresentation.language = language;
+        namePresentation.name = name;
+        return namePresentation;
     }
 
 }
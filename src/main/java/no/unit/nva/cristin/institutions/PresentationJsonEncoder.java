@@ -0,0 +1,235 @@
+package no.unit.nva.cristin.institutions;
+
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hand-written streaming serializer for the presentation model. Produces the same JSON as reflective
+ * {@code new Gson().toJson(...)}: fields in declaration order, null fields omitted and HTML-sensitive
+ * characters escaped. The encoder holds no state and a single instance can be shared between threads.
+ */
+public class PresentationJsonEncoder {
+
+    private static final String CRISTIN_INSTITUTION_ID = "cristinInstitutionId";
+    private static final String CRISTIN_UNIT_ID = "cristinUnitId";
+    private static final String INSTITUTION_NAMES = "institutionNames";
+    private static final String ACRONYM = "acronym";
+    private static final String COUNTRY = "country";
+    private static final String INSTITUTION = "institution";
+    private static final String UNIT_NAMES = "unitNames";
+    private static final String SUBUNITS = "subunits";
+    private static final String PARENT_UNIT = "parentUnit";
+    private static final String SUBUNIT_NAMES = "subunitNames";
+    private static final String PARENT_UNIT_NAMES = "parentUnitNames";
+    private static final String NAME = "name";
+    private static final String LANGUAGE = "language";
+    private static final String TRUNCATED = "truncated";
+    private static final String PARTIAL = "partial";
+    private static final String UNITS = "units";
+    private static final String ERRORS = "errors";
+
+    private static final PresentationJsonEncoder INSTANCE = new PresentationJsonEncoder();
+
+    public static PresentationJsonEncoder getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Serializes a list of institutions as a JSON array.
+     *
+     * @param institutions institutions to serialize
+     * @return JSON string
+     */
+    public String toJson(List<InstitutionPresentation> institutions) {
+        StringWriter out = new StringWriter();
+        try (JsonWriter json = newJsonWriter(out)) {
+            writeInstitutions(json, institutions);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toString();
+    }
+
+    /**
+     * Serializes a unit as a JSON object.
+     *
+     * @param unit unit to serialize
+     * @return JSON string
+     */
+    public String toJson(UnitPresentation unit) {
+        StringWriter out = new StringWriter();
+        try (JsonWriter json = newJsonWriter(out)) {
+            writeUnit(json, unit);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toString();
+    }
+
+    /**
+     * Serializes the result of a batch unit lookup as a JSON object with the units and the errors keyed by id.
+     *
+     * @param batch batch result to serialize
+     * @return JSON string
+     */
+    public String toJson(UnitBatchPresentation batch) {
+        StringWriter out = new StringWriter();
+        try (JsonWriter json = newJsonWriter(out)) {
+            writeUnitBatch(json, batch);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toString();
+    }
+
+    private JsonWriter newJsonWriter(StringWriter out) {
+        JsonWriter json = new JsonWriter(out);
+        json.setHtmlSafe(true);
+        json.setSerializeNulls(false);
+        return json;
+    }
+
+    protected void writeInstitutions(JsonWriter json, List<InstitutionPresentation> institutions)
+            throws IOException {
+        if (institutions == null) {
+            json.nullValue();
+            return;
+        }
+        json.beginArray();
+        for (InstitutionPresentation institution : institutions) {
+            writeInstitution(json, institution);
+        }
+        json.endArray();
+    }
+
+    protected void writeInstitution(JsonWriter json, InstitutionPresentation institution) throws IOException {
+        if (institution == null) {
+            json.nullValue();
+            return;
+        }
+        json.beginObject();
+        writeString(json, CRISTIN_INSTITUTION_ID, institution.cristinInstitutionId);
+        writeNames(json, INSTITUTION_NAMES, institution.institutionNames);
+        writeString(json, ACRONYM, institution.acronym);
+        writeString(json, COUNTRY, institution.country);
+        writeString(json, CRISTIN_UNIT_ID, institution.cristinUnitId);
+        if (institution.partial != null) {
+            json.name(PARTIAL).value(institution.partial);
+        }
+        json.endObject();
+    }
+
+    protected void writeUnit(JsonWriter json, UnitPresentation unit) throws IOException {
+        if (unit == null) {
+            json.nullValue();
+            return;
+        }
+        json.beginObject();
+        writeString(json, CRISTIN_UNIT_ID, unit.cristinUnitId);
+        if (unit.institution != null) {
+            json.name(INSTITUTION);
+            writeUnitInstitution(json, unit.institution);
+        }
+        writeNames(json, UNIT_NAMES, unit.unitNames);
+        if (unit.subunits != null) {
+            json.name(SUBUNITS);
+            json.beginArray();
+            for (SubunitPresentation subunit : unit.subunits) {
+                writeSubunit(json, subunit);
+            }
+            json.endArray();
+        }
+        if (unit.parentUnit != null) {
+            json.name(PARENT_UNIT);
+            writeParentUnit(json, unit.parentUnit);
+        }
+        if (unit.truncated != null) {
+            json.name(TRUNCATED).value(unit.truncated);
+        }
+        json.endObject();
+    }
+
+    protected void writeUnitBatch(JsonWriter json, UnitBatchPresentation batch) throws IOException {
+        json.beginObject();
+        json.name(UNITS).beginObject();
+        for (Map.Entry<String, UnitPresentation> unit : batch.units.entrySet()) {
+            json.name(unit.getKey());
+            writeUnit(json, unit.getValue());
+        }
+        json.endObject();
+        json.name(ERRORS).beginObject();
+        for (Map.Entry<String, String> error : batch.errors.entrySet()) {
+            json.name(error.getKey()).value(error.getValue());
+        }
+        json.endObject();
+        json.endObject();
+    }
+
+    protected void writeUnitInstitution(JsonWriter json, UnitInstitutionPresentation institution)
+            throws IOException {
+        json.beginObject();
+        writeString(json, CRISTIN_INSTITUTION_ID, institution.cristinInstitutionId);
+        json.endObject();
+    }
+
+    protected void writeSubunit(JsonWriter json, SubunitPresentation subunit) throws IOException {
+        if (subunit == null) {
+            json.nullValue();
+            return;
+        }
+        json.beginObject();
+        writeString(json, CRISTIN_UNIT_ID, subunit.cristinUnitId);
+        writeNames(json, SUBUNIT_NAMES, subunit.subunitNames);
+        if (subunit.subunits != null) {
+            json.name(SUBUNITS);
+            json.beginArray();
+            for (SubunitPresentation child : subunit.subunits) {
+                writeSubunit(json, child);
+            }
+            json.endArray();
+        }
+        json.endObject();
+    }
+
+    protected void writeParentUnit(JsonWriter json, ParentUnitPresentation parentUnit) throws IOException {
+        json.beginObject();
+        writeString(json, CRISTIN_UNIT_ID, parentUnit.cristinUnitId);
+        writeNames(json, PARENT_UNIT_NAMES, parentUnit.parentUnitNames);
+        json.endObject();
+    }
+
+    protected void writeName(JsonWriter json, NamePresentation name) throws IOException {
+        if (name == null) {
+            json.nullValue();
+            return;
+        }
+        json.beginObject();
+        writeString(json, NAME, name.name);
+        writeString(json, LANGUAGE, name.language);
+        json.endObject();
+    }
+
+    private void writeNames(JsonWriter json, String fieldName, List<NamePresentation> names) throws IOException {
+        if (names == null) {
+            return;
+        }
+        json.name(fieldName);
+        json.beginArray();
+        for (NamePresentation name : names) {
+            writeName(json, name);
+        }
+        json.endArray();
+    }
+
+    private void writeString(JsonWriter json, String fieldName, String value) throws IOException {
+        if (value != null) {
+            json.name(fieldName).value(value);
+        }
+    }
+
+}
@@ -0,0 +1,434 @@
+package no.unit.nva.cristin.institutions;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Per-request record of stage durations, upstream calls and cache outcomes. The record of the running
+ * request is bound to the handler thread and carried to worker threads by {@link #wrap(Supplier)}, so
+ * clients and caches can report to it without having it passed along. When no request is bound, reports
+ * go to a disabled record and cost a thread-local lookup. The record also carries the request's deadline.
+ */
+public class RequestTimings {
+
+    public static final String SERVER_TIMING_HEADER = "Server-Timing";
+    public static final String STALE_AGE_HEADER = "X-Stale-Age";
+    public static final String UPSTREAM_ERROR = "error";
+    public static final String CACHE_SNAPSHOT = "snapshot";
+    public static final String CACHE_HIT = "hit";
+    public static final String CACHE_MISS = "miss";
+    public static final String CACHE_REVALIDATED = "revalidated";
+    public static final String CACHE_STALE = "stale";
+    public static final String CACHE_STALE_IF_ERROR = "stale-if-error";
+    public static final String CACHE_NOT_FOUND = "not-found";
+    public static final String CACHE_NEGATIVE_HIT = "negative-hit";
+    public static final String CACHE_RESPONSE_HIT = "response-hit";
+    public static final String CACHE_COALESCED = "coalesced";
+    public static final String HEDGE_SENT = "hedge-sent";
+    public static final String HEDGE_WON = "hedge-won";
+    public static final String CIRCUIT_REJECTED = "circuit-rejected";
+    public static final String CIRCUIT_OPENED = "circuit-opened";
+    public static final String CIRCUIT_HALF_OPENED = "circuit-half-opened";
+    public static final String CIRCUIT_CLOSED = "circuit-closed";
+
+    private static final String TOTAL_STAGE = "total";
+    private static final String UPSTREAM_STAGE = "upstream";
+    private static final String CACHE_STAGE = "cache";
+    private static final String RESILIENCE_STAGE = "resilience";
+    private static final double NANOS_PER_MILLI = 1_000_000.0;
+    private static final ThreadLocal<RequestTimings> CURRENT = new ThreadLocal<>();
+    private static final RequestTimings DISABLED = new RequestTimings(null, false);
+
+    private final transient String handler;
+    private final transient boolean enabled;
+    private final transient Deadline deadline;
+    private final transient long startNanos = System.nanoTime();
+    private final transient Map<String, StageTotal> stages = new LinkedHashMap<>();
+    private final transient Map<String, Integer> upstreamStatuses = new TreeMap<>();
+    private final transient Map<String, Integer> cacheOutcomes = new TreeMap<>();
+    private final transient Map<String, Integer> upstreamEvents = new TreeMap<>();
+    private transient long upstreamBytes;
+    private transient long totalNanos = -1;
+    private transient long maxStaleAgeMillis = -1;
+    private transient boolean partial;
+
+    protected RequestTimings(String handler, boolean enabled) {
+        this(handler, enabled, Deadline.NONE);
+    }
+
+    protected RequestTimings(String handler, boolean enabled, Deadline deadline) {
+        this.handler = handler;
+        this.enabled = enabled;
+        this.deadline = deadline;
+    }
+
+    /**
+     * Starts timing a request and binds it to the calling thread.
+     *
+     * @param handler name of the handler serving the request
+     * @return the new record
+     */
+    public static RequestTimings start(String handler) {
+        return start(handler, Deadline.NONE);
+    }
+
+    /**
+     * Starts timing a request that must be answered by the deadline and binds it to the calling thread. Upstream
+     * calls made for the request read the deadline from the record.
+     *
+     * @param handler  name of the handler serving the request
+     * @param deadline deadline of the request
+     * @return the new record
+     */
+    public static RequestTimings start(String handler, Deadline deadline) {
+        RequestTimings timings = new RequestTimings(handler, true, deadline);
+        CURRENT.set(timings);
+        return timings;
+    }
+
+    /**
+     * Returns the record bound to the calling thread.
+     *
+     * @return the running request's record, or a disabled record outside a request
+     */
+    public static RequestTimings current() {
+        RequestTimings timings = CURRENT.get();
+        return timings == null ? DISABLED : timings;
+    }
+
+    /**
+     * Wraps a task so that it reports to the calling thread's record when run on another thread.
+     *
+     * @param task task to wrap
+     * @param <T>  result type
+     * @return task bound to the current record
+     */
+    public static <T> Supplier<T> wrap(Supplier<T> task) {
+        RequestTimings timings = CURRENT.get();
+        if (timings == null) {
+            return task;
+        }
+        return () -> {
+            RequestTimings previous = CURRENT.get();
+            CURRENT.set(timings);
+            try {
+                return task.get();
+            } finally {
+                restore(previous);
+            }
+        };
+    }
+
+    private static void restore(RequestTimings previous) {
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+
+    public Deadline getDeadline() {
+        return deadline;
+    }
+
+    /**
+     * Starts timing a stage. Closing the returned stage adds its duration to the stage total; a stage
+     * entered several times, e.g. once per enriched institution, is reported with its call count.
+     *
+     * @param name stage name, a token as allowed in a Server-Timing metric name
+     * @return running stage
+     */
+    public Stage stage(String name) {
+        return new Stage(name);
+    }
+
+    /**
+     * Times a call as a stage, whether it returns or throws.
+     *
+     * @param name stage name, a token as allowed in a Server-Timing metric name
+     * @param call call to time
+     * @param <T>  result type
+     * @param <E>  exception thrown by the call
+     * @return the result of the call
+     * @throws E if the call throws
+     */
+    public <T, E extends Exception> T time(String name, TimedCall<T, E> call) throws E {
+        Stage stage = stage(name);
+        try {
+            return call.call();
+        } finally {
+            stage.close();
+        }
+    }
+
+    /**
+     * Times a call without a result as a stage, whether it returns or throws.
+     *
+     * @param name stage name, a token as allowed in a Server-Timing metric name
+     * @param call call to time
+     * @param <E>  exception thrown by the call
+     * @throws E if the call throws
+     */
+    public <E extends Exception> void time(String name, TimedRun<E> call) throws E {
+        Stage stage = stage(name);
+        try {
+            call.run();
+        } finally {
+            stage.close();
+        }
+    }
+
+    /**
+     * Records the outcome of an upstream HTTP call.
+     *
+     * @param statusCode response status, or {@code null} if the call failed without a response
+     * @param bytes      response body bytes read
+     */
+    public void recordUpstream(Integer statusCode, long bytes) {
+        if (!enabled) {
+            return;
+        }
+        String status = statusCode == null ? UPSTREAM_ERROR : statusCode.toString();
+        synchronized (this) {
+            upstreamStatuses.merge(status, 1, Integer::sum);
+            upstreamBytes += bytes;
+        }
+    }
+
+    /**
+     * Records how a lookup was served by the caching client.
+     *
+     * @param outcome one of {@link #CACHE_SNAPSHOT}, {@link #CACHE_HIT}, {@link #CACHE_REVALIDATED},
+     *                {@link #CACHE_STALE}, {@link #CACHE_STALE_IF_ERROR}, {@link #CACHE_MISS},
+     *                {@link #CACHE_NOT_FOUND}, {@link #CACHE_NEGATIVE_HIT}, {@link #CACHE_RESPONSE_HIT} or
+     *                {@link #CACHE_COALESCED}
+     */
+    public void recordCache(String outcome) {
+        if (!enabled) {
+            return;
+        }
+        synchronized (this) {
+            cacheOutcomes.merge(outcome, 1, Integer::sum);
+        }
+    }
+
+    /**
+     * Records a hedged request or a call rejected by the circuit breaker.
+     *
+     * @param event one of {@link #HEDGE_SENT}, {@link #HEDGE_WON} or {@link #CIRCUIT_REJECTED}
+     */
+    public void recordUpstreamEvent(String event) {
+        if (!enabled) {
+            return;
+        }
+        synchronized (this) {
+            upstreamEvents.merge(event, 1, Integer::sum);
+        }
+    }
+
+    /**
+     * Records that an expired cache entry was used to answer the request.
+     *
+     * @param ageMillis time since the entry was fetched from Cristin
+     */
+    public void recordStale(long ageMillis) {
+        if (!enabled) {
+            return;
+        }
+        synchronized (this) {
+            maxStaleAgeMillis = Math.max(maxStaleAgeMillis, ageMillis);
+        }
+    }
+
+    /**
+     * Records that part of the response is missing, e.g. a failed enrichment or a lookup cut off by the deadline.
+     */
+    public void recordPartial() {
+        if (!enabled) {
+            return;
+        }
+        synchronized (this) {
+            partial = true;
+        }
+    }
+
+    /**
+     * Whether the response was built from complete, fresh data, so that it may be reused for later requests.
+     *
+     * @return false if expired cache entries were served or part of the response is missing
+     */
+    public synchronized boolean isComplete() {
+        return !partial && maxStaleAgeMillis < 0;
+    }
+
+    /**
+     * Stops timing the request, adds the Server-Timing header and, if expired cache entries were served, the
+     * X-Stale-Age header with the age in seconds of the oldest one to the response, writes the metric log line
+     * and unbinds the record from the calling thread.
+     *
+     * @param response response to annotate
+     */
+    public void finish(GatewayResponse response) {
+        CURRENT.remove();
+        synchronized (this) {
+            totalNanos = System.nanoTime() - startNanos;
+        }
+        response.setHeader(SERVER_TIMING_HEADER, toServerTiming());
+        long staleAgeMillis = getMaxStaleAgeMillis();
+        if (staleAgeMillis >= 0) {
+            response.setHeader(STALE_AGE_HEADER, Long.toString(TimeUnit.MILLISECONDS.toSeconds(staleAgeMillis)));
+        }
+        MetricsLog.getInstance().emit(this, response.getStatusCode());
+    }
+
+    /**
+     * Formats the stages as a Server-Timing header value, e.g.
+     * {@code params;dur=0.05, cristin-institution;dur=41.20;desc="5 calls", total;dur=52.31}.
+     *
+     * @return header value
+     */
+    public synchronized String toServerTiming() {
+        StringBuilder header = new StringBuilder();
+        stages.forEach((name, total) -> {
+            appendMetric(header, name, total.nanos);
+            if (total.count > 1) {
+                header.append(";desc=\"").append(total.count).append(" calls\"");
+            }
+        });
+        if (!upstreamStatuses.isEmpty()) {
+            appendMetric(header, UPSTREAM_STAGE, -1);
+            header.append(";desc=\"").append(describe(upstreamStatuses)).append(' ')
+                    .append(upstreamBytes).append("B\"");
+        }
+        if (!cacheOutcomes.isEmpty()) {
+            appendMetric(header, CACHE_STAGE, -1);
+            header.append(";desc=\"").append(describe(cacheOutcomes)).append('"');
+        }
+        if (!upstreamEvents.isEmpty()) {
+            appendMetric(header, RESILIENCE_STAGE, -1);
+            header.append(";desc=\"").append(describe(upstreamEvents)).append('"');
+        }
+        if (totalNanos >= 0) {
+            appendMetric(header, TOTAL_STAGE, totalNanos);
+        }
+        return header.toString();
+    }
+
+    private static void appendMetric(StringBuilder header, String name, long nanos) {
+        if (header.length() > 0) {
+            header.append(", ");
+        }
+        header.append(name);
+        if (nanos >= 0) {
+            header.append(";dur=").append(String.format(Locale.ROOT, "%.2f", nanos / NANOS_PER_MILLI));
+        }
+    }
+
+    private static String describe(Map<String, Integer> counts) {
+        StringBuilder description = new StringBuilder();
+        counts.forEach((key, count) -> {
+            if (description.length() > 0) {
+                description.append(' ');
+            }
+            description.append(key).append('=').append(count);
+        });
+        return description.toString();
+    }
+
+    protected String getHandler() {
+        return handler;
+    }
+
+    protected synchronized long getTotalNanos() {
+        return totalNanos;
+    }
+
+    protected synchronized Map<String, Long> getStageNanos() {
+        Map<String, Long> nanos = new LinkedHashMap<>();
+        stages.forEach((name, total) -> nanos.put(name, total.nanos));
+        return nanos;
+    }
+
+    protected synchronized Map<String, Integer> getUpstreamStatuses() {
+        return new TreeMap<>(upstreamStatuses);
+    }
+
+    protected synchronized long getUpstreamBytes() {
+        return upstreamBytes;
+    }
+
+    protected synchronized long getMaxStaleAgeMillis() {
+        return maxStaleAgeMillis;
+    }
+
+    protected synchronized Map<String, Integer> getCacheOutcomes() {
+        return new TreeMap<>(cacheOutcomes);
+    }
+
+    protected synchronized Map<String, Integer> getUpstreamEvents() {
+        return new TreeMap<>(upstreamEvents);
+    }
+
+    private synchronized void addStage(String name, long nanos) {
+        StageTotal total = stages.computeIfAbsent(name, key -> new StageTotal());
+        total.nanos += nanos;
+        total.count++;
+    }
+
+    /**
+     * A running stage, closed when the stage ends.
+     */
+    public final class Stage implements AutoCloseable {
+
+        private final String name;
+        private final long stageStartNanos;
+
+        private Stage(String name) {
+            this.name = name;
+            this.stageStartNanos = enabled ? System.nanoTime() : 0;
+        }
+
+        @Override
+        public void close() {
+            if (enabled) {
+                long nanos = System.nanoTime() - stageStartNanos;
+                addStage(name, nanos);
+                MetricsLog.getInstance().histogram(name).record(nanos);
+            }
+        }
+    }
+
+    /**
+     * A call timed by {@link #time(String, TimedCall)}.
+     *
+     * @param <T> result type
+     * @param <E> exception thrown by the call
+     */
+    @FunctionalInterface
+    public interface TimedCall<T, E extends Exception> {
+
+        T call() throws E;
+    }
+
+    /**
+     * A call without a result timed by {@link #time(String, TimedRun)}.
+     *
+     * @param <E> exception thrown by the call
+     */
+    @FunctionalInterface
+    public interface TimedRun<E extends Exception> {
+
+        void run() throws E;
+    }
+
+    private static class StageTotal {
+
+        private long nanos;
+        private int count;
+    }
+
+}
@@ -0,0 +1,270 @@
+package no.unit.nva.cristin.institutions;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * CristinApiClient that protects lookups against slow and failing upstream calls. An institution or unit
+ * lookup that has not answered after the configured percentile of recent lookup latencies, taken over windows of
+ * {@value #LATENCY_WINDOW} lookups, is sent a second time; whichever answer arrives first is used and the other
+ * call is cancelled. A {@link HedgeBudget} keeps hedges to the budgeted share of lookups. All calls
+ * go through a circuit breaker that rejects them with {@link CircuitOpenException} while Cristin is failing,
+ * which lets a caching client above fall back to stale entries. Every call reports its outcome to the breaker,
+ * and one that ran out of the request's deadline or failed in the client is reported as inconclusive.
+ */
+public class ResilientCristinApiClient extends CristinApiClient {
+
+    private static final int MIN_LATENCY_SAMPLES = 20;
+    private static final int LATENCY_WINDOW = 1000;
+    private static final int MAX_SAVED_HEDGES = 5;
+    private static final String CIRCUIT_OPEN = "Circuit open, Cristin API calls are suspended";
+    private static final String DEADLINE_EXCEEDED = "Request deadline exceeded waiting for Cristin";
+
+    private final transient CristinApiClient delegate;
+    private final transient CircuitBreaker circuitBreaker;
+    private final transient WindowedLatencyHistogram latencies = new WindowedLatencyHistogram(LATENCY_WINDOW);
+    private final transient ParallelExecutor callExecutor;
+    private final transient HedgeBudget hedgeBudget;
+    private final transient double hedgePercentile;
+    private final transient long hedgeMinDelayMillis;
+
+    public ResilientCristinApiClient(CristinApiClient delegate) {
+        this(delegate, Config.getInstance(), System::currentTimeMillis);
+    }
+
+    /**
+     * Creates a resilient client with hedging, circuit breaker and call pool settings taken from the config.
+     *
+     * @param delegate client making the actual calls
+     * @param config   hedging, circuit breaker and call pool settings
+     * @param clock    source of the current time in milliseconds for the circuit breaker
+     */
+    public ResilientCristinApiClient(CristinApiClient delegate, Config config, LongSupplier clock) {
+        this.delegate = delegate;
+        this.callExecutor = new ParallelExecutor(config.getUpstreamCallParallelism());
+        this.circuitBreaker = new CircuitBreaker(config.getCircuitWindowSize(), config.getCircuitErrorPercent(),
+                TimeUnit.SECONDS.toMillis(config.getCircuitOpenSeconds()), clock);
+        this.hedgePercentile = config.getHedgePercentile();
+        this.hedgeMinDelayMillis = config.getHedgeMinDelayMillis();
+        this.hedgeBudget = new HedgeBudget(config.getHedgeBudgetPercent(), MAX_SAVED_HEDGES);
+    }
+
+    @Override
+    protected List<Institution> queryInstitutions(Map<String, String> parameters) throws
+            IOException, URISyntaxException {
+        return guarded(() -> delegate.queryInstitutions(parameters));
+    }
+
+    @Override
+    protected InstitutionPage queryInstitutionsPage(Map<String, String> parameters) throws
+            IOException, URISyntaxException {
+        return guarded(() -> delegate.queryInstitutionsPage(parameters));
+    }
+
+    @Override
+    protected Institution getInstitution(String id, String language) throws IOException, URISyntaxException {
+        return hedged(() -> delegate.getInstitution(id, language));
+    }
+
+    @Override
+    protected Unit getUnit(String id, String language) throws IOException, URISyntaxException {
+        return hedged(() -> delegate.getUnit(id, language));
+    }
+
+    @Override
+    protected Validated<Institution> getInstitutionIfModified(String id, String language, Validators validators)
+            throws IOException, URISyntaxException {
+        return hedged(() -> delegate.getInstitutionIfModified(id, language, validators));
+    }
+
+    @Override
+    protected Validated<Unit> getUnitIfModified(String id, String language, Validators validators)
+            throws IOException, URISyntaxException {
+        return hedged(() -> delegate.getUnitIfModified(id, language, validators));
+    }
+
+    protected CircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    private <T> T guarded(Call<T> call) throws IOException, URISyntaxException {
+        admit();
+        boolean recorded = false;
+        try {
+            T result = call.call();
+            recorded = true;
+            circuitBreaker.recordSuccess();
+            return result;
+        } catch (IOException e) {
+            recorded = true;
+            recordFailure(e);
+            throw e;
+        } finally {
+            if (!recorded) {
+                circuitBreaker.recordInconclusive();
+            }
+        }
+    }
+
+    private <T> T hedged(Call<T> call) throws IOException, URISyntaxException {
+        admit();
+        hedgeBudget.recordLookup();
+        RequestTimings timings = RequestTimings.current();
+        long started = System.nanoTime();
+        CompletableFuture<T> primary = callExecutor.submit(unchecked(call));
+        Deadline deadline = timings.getDeadline();
+        long hedgeDelayMillis = hedgeDelayMillis();
+        boolean recorded = false;
+        try {
+            T result;
+            if (hedgeDelayMillis >= deadline.remainingMillis()) {
+                result = await(primary, deadline);
+            } else {
+                try {
+                    result = awaitWithin(primary, hedgeDelayMillis);
+                } catch (TimeoutException e) {
+                    result = hedgeBudget.tryAcquire() ? awaitFirst(primary, call, timings) : await(primary, deadline);
+                }
+            }
+            latencies.record(System.nanoTime() - started);
+            recorded = true;
+            circuitBreaker.recordSuccess();
+            return result;
+        } catch (IOException e) {
+            recorded = true;
+            recordFailure(e);
+            throw e;
+        } finally {
+            if (!recorded) {
+                circuitBreaker.recordInconclusive();
+            }
+        }
+    }
+
+    private <T> T awaitFirst(CompletableFuture<T> primary, Call<T> call, RequestTimings timings)
+            throws IOException, URISyntaxException {
+        timings.recordUpstreamEvent(RequestTimings.HEDGE_SENT);
+        CompletableFuture<T> hedge = callExecutor.submit(unchecked(call));
+        CompletableFuture<T> first = new CompletableFuture<>();
+        AtomicInteger failures = new AtomicInteger();
+        AtomicBoolean decided = new AtomicBoolean();
+        primary.whenComplete((result, error) -> complete(first, result, error, failures, decided, () -> { }));
+        hedge.whenComplete((result, error) -> complete(first, result, error, failures, decided,
+                () -> timings.recordUpstreamEvent(RequestTimings.HEDGE_WON)));
+        try {
+            return await(first, timings.getDeadline());
+        } finally {
+            primary.cancel(false);
+            hedge.cancel(false);
+        }
+    }
+
+    private static <T> void complete(CompletableFuture<T> first, T result, Throwable error, AtomicInteger failures,
+                                     AtomicBoolean decided, Runnable onWin) {
+        if (error == null) {
+            if (decided.compareAndSet(false, true)) {
+                onWin.run();
+                first.complete(result);
+            }
+        } else if (failures.incrementAndGet() == 2) {
+            first.completeExceptionally(error);
+        }
+    }
+
+    private static <T> T await(CompletableFuture<T> future, Deadline deadline) throws IOException,
+            URISyntaxException {
+        try {
+            return future.get(deadline.remainingMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new DeadlineExceededException(DEADLINE_EXCEEDED, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e.getMessage(), e);
+        } catch (ExecutionException e) {
+            throw unwrap(e.getCause());
+        }
+    }
+
+    private static <T> T awaitWithin(CompletableFuture<T> future, long timeoutMillis) throws IOException,
+            URISyntaxException, TimeoutException {
+        try {
+            return future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e.getMessage(), e);
+        } catch (ExecutionException e) {
+            throw unwrap(e.getCause());
+        }
+    }
+
+    private static IOException unwrap(Throwable error) throws URISyntaxException {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (cause instanceof IOException) {
+            return (IOException) cause;
+        }
+        if (cause instanceof URISyntaxException) {
+            throw (URISyntaxException) cause;
+        }
+        if (cause instanceof RuntimeException) {
+            throw (RuntimeException) cause;
+        }
+        return new IOException(cause.getMessage(), cause);
+    }
+
+    private long hedgeDelayMillis() {
+        if (latencies.getCount() < MIN_LATENCY_SAMPLES) {
+            return Long.MAX_VALUE;
+        }
+        return Math.max(hedgeMinDelayMillis, (long) Math.ceil(latencies.getPercentileMillis(hedgePercentile)));
+    }
+
+    private void admit() throws CircuitOpenException {
+        if (!circuitBreaker.allowRequest()) {
+            RequestTimings.current().recordUpstreamEvent(RequestTimings.CIRCUIT_REJECTED);
+            throw new CircuitOpenException(CIRCUIT_OPEN);
+        }
+    }
+
+    private void recordFailure(IOException e) {
+        if (e instanceof DeadlineExceededException) {
+            circuitBreaker.recordInconclusive();
+        } else if (e instanceof UpstreamStatusException && !((UpstreamStatusException) e).isServerError()) {
+            circuitBreaker.recordSuccess();
+        } else {
+            circuitBreaker.recordFailure();
+        }
+    }
+
+    private static <T> Supplier<T> unchecked(Call<T> call) {
+        return () -> {
+            try {
+                return call.call();
+            } catch (IOException | URISyntaxException e) {
+                throw new CompletionException(e);
+            }
+        };
+    }
+
+    /**
+     * Upstream call made through the delegate.
+     *
+     * @param <T> result type
+     */
+    @FunctionalInterface
+    private interface Call<T> {
+
+        T call() throws IOException, URISyntaxException;
+    }
+
+}
@@ -0,0 +1,189 @@
+package no.unit.nva.cristin.institutions;
+
+import javax.ws.rs.core.Response;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Cache of finished 200 responses, with their ETag and content encoding applied, keyed by the normalized request.
+ * A hit skips the lookups, the conversion, the serialization, the ETag digest and the compression. Entries are
+ * evicted least recently used first once their estimated size exceeds a byte budget, and expire after a fixed
+ * time-to-live.
+ */
+public class ResponseCache {
+
+    public static final ResponseCache DISABLED = new ResponseCache(0, 0);
+
+    private static final float LOAD_FACTOR = 0.75f;
+    private static final int INITIAL_CAPACITY = 64;
+    private static final int BYTES_PER_CHAR = 2;
+    private static final int ENTRY_OVERHEAD_BYTES = 512;
+    private static final char KEY_SEPARATOR = '|';
+
+    private final transient Map<String, CacheEntry> entries =
+            new LinkedHashMap<>(INITIAL_CAPACITY, LOAD_FACTOR, true);
+    private final transient long maxBytes;
+    private final transient long ttlMillis;
+    private final transient LongSupplier clock;
+    private transient long bytes;
+
+    private final transient AtomicLong hits = new AtomicLong();
+    private final transient AtomicLong misses = new AtomicLong();
+    private final transient AtomicLong evictions = new AtomicLong();
+
+    public ResponseCache(long maxBytes, long ttlMillis) {
+        this(maxBytes, ttlMillis, System::currentTimeMillis);
+    }
+
+    /**
+     * Creates a cache holding responses of at most {@code maxBytes} in total, each valid for {@code ttlMillis}.
+     *
+     * @param maxBytes  estimated heap size of all entries before the least recently used entry is evicted
+     * @param ttlMillis time-to-live for each entry in milliseconds
+     * @param clock     source of the current time in milliseconds
+     */
+    public ResponseCache(long maxBytes, long ttlMillis, LongSupplier clock) {
+        this.maxBytes = maxBytes;
+        this.ttlMillis = ttlMillis;
+        this.clock = clock;
+    }
+
+    /**
+     * Creates a cache sized by {@code RESPONSE_CACHE_MAX_BYTES} and {@code RESPONSE_CACHE_TTL_SECONDS}.
+     *
+     * @param config configuration
+     * @return the cache
+     */
+    public static ResponseCache fromConfig(Config config) {
+        return new ResponseCache(config.getResponseCacheMaxBytes(),
+                TimeUnit.SECONDS.toMillis(config.getResponseCacheTtlSeconds()));
+    }
+
+    /**
+     * Joins the parts of a request that select the response into a key. Callers pass the handler name first and
+     * normalize the parts, e.g. fill in defaults, so that equivalent requests share an entry.
+     *
+     * @param parts handler name, identifiers, options and the negotiated content encoding
+     * @return cache key
+     */
+    public static String key(String... parts) {
+        return String.join(String.valueOf(KEY_SEPARATOR), parts);
+    }
+
+    /**
+     * Returns a copy of the cached response, which the caller may annotate, if it is cached and not expired.
+     *
+     * @param key cache key
+     * @return copy of the cached response, or empty
+     */
+    public Optional<GatewayResponse> get(String key) {
+        synchronized (entries) {
+            CacheEntry entry = entries.get(key);
+            if (entry != null && entry.expiresAt > clock.getAsLong()) {
+                hits.incrementAndGet();
+                return Optional.of(new GatewayResponse(entry.response));
+            }
+            if (entry != null) {
+                remove(key);
+            }
+        }
+        misses.incrementAndGet();
+        return Optional.empty();
+    }
+
+    /**
+     * Caches a copy of a 200 response, replacing any previous entry. Other responses, and responses larger than
+     * the whole budget, are not cached.
+     *
+     * @param key      cache key
+     * @param response finished response, before Server-Timing and conditional request handling
+     */
+    public void put(String key, GatewayResponse response) {
+        if (response.getStatusCode() != Response.Status.OK.getStatusCode() || response.getBody() == null) {
+            return;
+        }
+        long size = sizeOf(key, response);
+        if (size > maxBytes) {
+            return;
+        }
+        synchronized (entries) {
+            remove(key);
+            entries.put(key, new CacheEntry(new GatewayResponse(response), size, clock.getAsLong() + ttlMillis));
+            bytes += size;
+            Iterator<CacheEntry> eldest = entries.values().iterator();
+            while (bytes > maxBytes && eldest.hasNext()) {
+                bytes -= eldest.next().size;
+                eldest.remove();
+                evictions.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Estimated heap size of the cached entries.
+     *
+     * @return size in bytes
+     */
+    public long getBytes() {
+        synchronized (entries) {
+            return bytes;
+        }
+    }
+
+    /**
+     * Number of entries currently held, including entries that have expired but not yet been removed.
+     *
+     * @return number of entries
+     */
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    public long getEvictionCount() {
+        return evictions.get();
+    }
+
+    private void remove(String key) {
+        CacheEntry removed = entries.remove(key);
+        if (removed != null) {
+            bytes -= removed.size;
+        }
+    }
+
+    private static long sizeOf(String key, GatewayResponse response) {
+        long chars = key.length() + response.getBody().length();
+        for (Map.Entry<String, String> header : response.getHeaders().entrySet()) {
+            chars += header.getKey().length() + header.getValue().length();
+        }
+        return chars * BYTES_PER_CHAR + ENTRY_OVERHEAD_BYTES;
+    }
+
+    private static class CacheEntry {
+
+        private final GatewayResponse response;
+        private final long size;
+        private final long expiresAt;
+
+        CacheEntry(GatewayResponse response, long size, long expiresAt) {
+            this.response = response;
+            this.size = size;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+}
@@ -0,0 +1,64 @@
+package no.unit.nva.cristin.institutions;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Normalization of names and queries for local search: lower case, diacritics folded and split into tokens.
+ */
+public final class SearchText {
+
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+
+    private SearchText() {
+    }
+
+    /**
+     * Lower-cases the text and folds diacritics and Nordic letters to their ASCII base form,
+     * so that for example "Hogskolen i Alesund" matches the name with its Norwegian letters.
+     *
+     * @param text text to fold
+     * @return folded text
+     */
+    public static String fold(String text) {
+        String decomposed = Normalizer.normalize(text.toLowerCase(Locale.ROOT), Normalizer.Form.NFD);
+        return COMBINING_MARKS.matcher(decomposed).replaceAll("")
+                .replace("\u00f8", "o") // latin small letter o with stroke
+                .replace("\u00e6", "ae") // latin small letter ae
+                .replace("\u0111", "d") // latin small letter d with stroke
+                .replace("\u0142", "l") // latin small letter l with stroke
+                .replace("\u00df", "ss"); // latin small letter sharp s
+    }
+
+    /**
+     * Folds the text and splits it into tokens of letters and digits.
+     *
+     * @param text text to tokenize
+     * @return folded tokens in order of appearance
+     */
+    public static List<String> tokens(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        String folded = fold(text);
+        int start = -1;
+        for (int i = 0; i < folded.length(); i++) {
+            boolean tokenCharacter = Character.isLetterOrDigit(folded.charAt(i));
+            if (tokenCharacter && start < 0) {
+                start = i;
+            } else if (!tokenCharacter && start >= 0) {
+                tokens.add(folded.substring(start, i));
+                start = -1;
+            }
+        }
+        if (start >= 0) {
+            tokens.add(folded.substring(start));
+        }
+        return tokens;
+    }
+
+}
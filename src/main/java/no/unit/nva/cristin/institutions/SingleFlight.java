@@ -0,0 +1,90 @@
+package no.unit.nva.cristin.institutions;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Coalesces concurrent loads of the same key so that only one upstream request is in flight per key.
+ * Callers arriving while a load is running wait for it and share its result or failure, and are recorded as
+ * {@link RequestTimings#CACHE_COALESCED} in their request's cache outcomes. A caller waits no longer than its own
+ * request's deadline, even if the load it joined was started by a request with a later one or none.
+ *
+ * @param <K> key type
+ * @param <V> value type
+ */
+public class SingleFlight<K, V> {
+
+    private static final String LOAD_ABORTED = "Coalesced load was aborted for key: ";
+    private static final String DEADLINE_EXCEEDED = "Request deadline exceeded waiting for coalesced load of key: ";
+
+    private final transient Map<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final transient AtomicLong deduplicated = new AtomicLong();
+
+    /**
+     * Runs the loader for the key, or joins a load for the same key that is already running.
+     *
+     * @param key    key identifying the upstream request
+     * @param loader performs the upstream request
+     * @return the loaded value
+     * @throws IOException        if the shared load fails
+     * @throws URISyntaxException if the shared load fails
+     */
+    public V execute(K key, LookupCache.Loader<V> loader) throws IOException, URISyntaxException {
+        CompletableFuture<V> flight = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, flight);
+        if (existing != null) {
+            deduplicated.incrementAndGet();
+            RequestTimings.current().recordCache(RequestTimings.CACHE_COALESCED);
+            return await(key, existing);
+        }
+
+        try {
+            V value = loader.load();
+            flight.complete(value);
+            return value;
+        } catch (IOException | URISyntaxException | RuntimeException e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            if (!flight.isDone()) {
+                flight.completeExceptionally(new IOException(LOAD_ABORTED + key));
+            }
+            inFlight.remove(key, flight);
+        }
+    }
+
+    public long getDeduplicatedCount() {
+        return deduplicated.get();
+    }
+
+    private V await(K key, CompletableFuture<V> flight) throws IOException, URISyntaxException {
+        try {
+            return flight.get(RequestTimings.current().getDeadline().remainingMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new DeadlineExceededException(DEADLINE_EXCEEDED + key, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e.getMessage(), e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof URISyntaxException) {
+                throw (URISyntaxException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException(cause.getMessage(), cause);
+        }
+    }
+
+}
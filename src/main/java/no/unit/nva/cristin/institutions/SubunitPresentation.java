@@ -7,5 +7,6 @@ public class SubunitPresentation {
 
     public String cristinUnitId;
     public List<NamePresentation> subunitNames = new ArrayList<>();
+    public List<SubunitPresentation> subunits;
 
 }
@@ -0,0 +1,11 @@
+package no.unit.nva.cristin.institutions;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class UnitBatchPresentation {
+
+    public Map<String, UnitPresentation> units = new LinkedHashMap<>();
+    public Map<String, String> errors = new LinkedHashMap<>();
+
+}
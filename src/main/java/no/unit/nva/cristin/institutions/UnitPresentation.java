@@ -10,5 +10,6 @@ public class UnitPresentation {
     public List<NamePresentation> unitNames = new ArrayList<>();
     public List<SubunitPresentation> subunits = new ArrayList<>();
     public ParentUnitPresentation parentUnit;
+    public Boolean truncated;
 
 }
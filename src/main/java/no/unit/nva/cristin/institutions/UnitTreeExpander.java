@@ -0,0 +1,113 @@
+package no.unit.nva.cristin.institutions;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Expands the subunits of a unit presentation to several levels. Each level is fetched as one wave of
+ * concurrent unit lookups. The tree is bounded by a total node budget, and a unit that already appears in
+ * the tree is never expanded again, so cycles in the upstream data cannot make the walk run away. Lookups
+ * not finished by the request's deadline are left out and the tree is marked as truncated. Either way of
+ * truncation is recorded as a partial response, so a truncated tree is not cached as the full answer.
+ */
+public class UnitTreeExpander {
+
+    private final transient CristinApiClient cristinApiClient;
+    private final transient PresentationConverter presentationConverter;
+    private final transient ParallelExecutor parallelExecutor;
+    private final transient int maxNodes;
+
+    /**
+     * Creates an expander.
+     *
+     * @param cristinApiClient      client used to fetch child units
+     * @param presentationConverter converter for the fetched subunits
+     * @param parallelExecutor      executor running each wave of lookups
+     * @param maxNodes              maximum number of subunits in an expanded tree
+     */
+    public UnitTreeExpander(CristinApiClient cristinApiClient, PresentationConverter presentationConverter,
+                            ParallelExecutor parallelExecutor, int maxNodes) {
+        this.cristinApiClient = cristinApiClient;
+        this.presentationConverter = presentationConverter;
+        this.parallelExecutor = parallelExecutor;
+        this.maxNodes = maxNodes;
+    }
+
+    /**
+     * Expands the direct subunits of the unit until the tree is {@code depth} levels deep. Depth 1 leaves the
+     * presentation as it is. Sets {@code truncated} on the unit when the node budget or a failed lookup left
+     * part of the tree unexpanded.
+     *
+     * @param unit     presentation of the root unit, with its direct subunits
+     * @param depth    number of subunit levels wanted
+     * @param language language passed to the child lookups
+     */
+    public void expand(UnitPresentation unit, int depth, String language) {
+        Set<String> seen = new HashSet<>();
+        seen.add(unit.cristinUnitId);
+        Optional.ofNullable(unit.parentUnit).ifPresent(parent -> seen.add(parent.cristinUnitId));
+        List<SubunitPresentation> wave = new ArrayList<>();
+        for (SubunitPresentation subunit : unit.subunits) {
+            if (seen.add(subunit.cristinUnitId)) {
+                wave.add(subunit);
+            }
+        }
+        int nodes = unit.subunits.size();
+        boolean truncated = false;
+
+        for (int level = 2; level <= depth && !wave.isEmpty(); level++) {
+            List<Optional<Unit>> children = parallelExecutor.mapInOrder(wave, subunit -> fetch(subunit, language),
+                    RequestTimings.current().getDeadline()).stream()
+                    .map(finished -> finished.flatMap(Function.identity()))
+                    .collect(Collectors.toList());
+            List<SubunitPresentation> nextWave = new ArrayList<>();
+            for (int i = 0; i < wave.size(); i++) {
+                Optional<Unit> child = children.get(i);
+                if (child.isEmpty()) {
+                    truncated = true;
+                    RequestTimings.current().recordPartial();
+                    continue;
+                }
+                List<Unit> grandchildren = Optional.ofNullable(child.get().subunits).orElse(new ArrayList<>());
+                if (nodes + grandchildren.size() > maxNodes) {
+                    truncated = true;
+                    RequestTimings.current().recordPartial();
+                    continue;
+                }
+                SubunitPresentation parent = wave.get(i);
+                parent.subunits = new ArrayList<>(grandchildren.size());
+                for (Unit grandchild : grandchildren) {
+                    if (grandchild == null || !seen.add(grandchild.cristinUnitId)) {
+                        continue;
+                    }
+                    SubunitPresentation presentation = presentationConverter.asSubunitPresentation(grandchild,
+                            language);
+                    parent.subunits.add(presentation);
+                    nextWave.add(presentation);
+                    nodes++;
+                }
+            }
+            wave = nextWave;
+        }
+        if (truncated) {
+            unit.truncated = true;
+        }
+    }
+
+    private Optional<Unit> fetch(SubunitPresentation subunit, String language) {
+        try {
+            return Optional.ofNullable(cristinApiClient.getUnit(subunit.cristinUnitId, language));
+        } catch (IOException | URISyntaxException e) {
+            System.out.println("Error fetching cristin unit with id: " + subunit.cristinUnitId);
+            return Optional.empty();
+        }
+    }
+
+}
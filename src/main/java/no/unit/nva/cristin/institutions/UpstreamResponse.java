@@ -0,0 +1,69 @@
+package no.unit.nva.cristin.institutions;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+
+/**
+ * Successful or not-modified upstream response: the status, the response headers and a reader over the body.
+ * Closing the response returns the connection to the pool.
+ */
+public class UpstreamResponse implements Closeable {
+
+    private static final int HTTP_NOT_MODIFIED = 304;
+    private static final String ETAG_HEADER = "ETag";
+    private static final String LAST_MODIFIED_HEADER = "Last-Modified";
+
+    private final transient int statusCode;
+    private final transient Map<String, String> headers;
+    private final transient InputStreamReader body;
+
+    /**
+     * Creates a response.
+     *
+     * @param statusCode response status
+     * @param headers    response headers; names are matched case-insensitively
+     * @param body       reader over the body
+     */
+    public UpstreamResponse(int statusCode, Map<String, String> headers, InputStreamReader body) {
+        this.statusCode = statusCode;
+        Map<String, String> caseInsensitive = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        caseInsensitive.putAll(headers);
+        this.headers = Collections.unmodifiableMap(caseInsensitive);
+        this.body = body;
+    }
+
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    public Map<String, String> getHeaders() {
+        return headers;
+    }
+
+    public Optional<String> getHeader(String name) {
+        return Optional.ofNullable(headers.get(name));
+    }
+
+    public boolean isNotModified() {
+        return statusCode == HTTP_NOT_MODIFIED;
+    }
+
+    public Validators getValidators() {
+        return new Validators(headers.get(ETAG_HEADER), headers.get(LAST_MODIFIED_HEADER));
+    }
+
+    public InputStreamReader getBody() {
+        return body;
+    }
+
+    @Override
+    public void close() throws IOException {
+        body.close();
+    }
+
+}
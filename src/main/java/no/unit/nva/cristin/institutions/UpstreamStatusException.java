@@ -0,0 +1,44 @@
+package no.unit.nva.cristin.institutions;
+
+import java.io.IOException;
+
+/**
+ * Cristin answered with a status other than the expected one.
+ */
+public class UpstreamStatusException extends IOException {
+
+    public static final int NOT_FOUND = 404;
+
+    private static final long serialVersionUID = 1L;
+    private static final int SERVER_ERROR = 500;
+
+    private final transient int statusCode;
+
+    public UpstreamStatusException(String message, int statusCode) {
+        super(message);
+        this.statusCode = statusCode;
+    }
+
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    public boolean isServerError() {
+        return statusCode >= SERVER_ERROR;
+    }
+
+    public boolean isNotFound() {
+        return statusCode == NOT_FOUND;
+    }
+
+    /**
+     * Tells whether a failed lookup means that Cristin has no record with the id.
+     *
+     * @param e failure of a lookup
+     * @return whether the failure is a 404 from Cristin
+     */
+    public static boolean isNotFound(Throwable e) {
+        return e instanceof UpstreamStatusException && ((UpstreamStatusException) e).isNotFound();
+    }
+
+}
@@ -0,0 +1,51 @@
+package no.unit.nva.cristin.institutions;
+
+/**
+ * Result of a conditional lookup: either a freshly fetched value with the validators it came with, or
+ * a not-modified answer confirming that the caller's cached copy is still current.
+ *
+ * @param <T> value type
+ */
+public class Validated<T> {
+
+    private final transient T value;
+    private final transient Validators validators;
+    private final transient boolean notModified;
+
+    protected Validated(T value, Validators validators, boolean notModified) {
+        this.value = value;
+        this.validators = validators;
+        this.notModified = notModified;
+    }
+
+    public static <T> Validated<T> of(T value, Validators validators) {
+        return new Validated<>(value, validators, false);
+    }
+
+    public static <T> Validated<T> notModified(Validators validators) {
+        return new Validated<>(null, validators, true);
+    }
+
+    /**
+     * Returns the fetched value, or the given cached value when the upstream copy was not modified.
+     *
+     * @param cached value cached by the caller
+     * @return current value
+     */
+    public T orCached(T cached) {
+        return notModified ? cached : value;
+    }
+
+    public T getValue() {
+        return value;
+    }
+
+    public Validators getValidators() {
+        return validators;
+    }
+
+    public boolean isNotModified() {
+        return notModified;
+    }
+
+}
@@ -0,0 +1,50 @@
+package no.unit.nva.cristin.institutions;
+
+import java.util.Objects;
+
+/**
+ * HTTP cache validators returned by Cristin with a resource, sent back as {@code If-None-Match} and
+ * {@code If-Modified-Since} to revalidate a cached copy.
+ */
+public class Validators {
+
+    public static final Validators NONE = new Validators(null, null);
+
+    private final transient String entityTag;
+    private final transient String lastModified;
+
+    public Validators(String entityTag, String lastModified) {
+        this.entityTag = entityTag;
+        this.lastModified = lastModified;
+    }
+
+    public String getEntityTag() {
+        return entityTag;
+    }
+
+    public String getLastModified() {
+        return lastModified;
+    }
+
+    public boolean isEmpty() {
+        return entityTag == null && lastModified == null;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof Validators)) {
+            return false;
+        }
+        Validators validators = (Validators) other;
+        return Objects.equals(entityTag, validators.entityTag) && Objects.equals(lastModified, validators.lastModified);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(entityTag, lastModified);
+    }
+
+}
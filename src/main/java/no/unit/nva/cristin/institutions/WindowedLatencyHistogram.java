@@ -0,0 +1,63 @@
+package no.unit.nva.cristin.institutions;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Latency percentiles over recent observations only. Observations go into a current {@link LatencyHistogram},
+ * which replaces the previous one once it holds a full window, so percentiles cover between one and two windows
+ * of the latest observations.
+ */
+public class WindowedLatencyHistogram {
+
+    private final transient int windowSize;
+    private final transient AtomicReference<Windows> windows =
+            new AtomicReference<>(new Windows(new LatencyHistogram(), new LatencyHistogram()));
+
+    public WindowedLatencyHistogram(int windowSize) {
+        this.windowSize = windowSize;
+    }
+
+    /**
+     * Records one observation, starting a new window when the current one is full.
+     *
+     * @param nanos observed latency in nanoseconds
+     */
+    public void record(long nanos) {
+        Windows current = windows.get();
+        current.latest.record(nanos);
+        if (current.latest.getCount() >= windowSize) {
+            windows.compareAndSet(current, new Windows(current.latest, new LatencyHistogram()));
+        }
+    }
+
+    public long getCount() {
+        Windows current = windows.get();
+        return current.previous.getCount() + current.latest.getCount();
+    }
+
+    /**
+     * Returns the upper bound of the bucket holding the given percentile of the recent observations.
+     *
+     * @param percentile percentile between 0 and 100
+     * @return latency in milliseconds, or 0 if nothing has been recorded
+     */
+    public double getPercentileMillis(double percentile) {
+        Windows current = windows.get();
+        long[] snapshot = LatencyHistogram.newSnapshot();
+        current.previous.addCounts(snapshot);
+        current.latest.addCounts(snapshot);
+        return LatencyHistogram.percentileMillis(snapshot, percentile);
+    }
+
+    private static class Windows {
+
+        private final LatencyHistogram previous;
+        private final LatencyHistogram latest;
+
+        Windows(LatencyHistogram previous, LatencyHistogram latest) {
+            this.previous = previous;
+            this.latest = latest;
+        }
+    }
+
+}
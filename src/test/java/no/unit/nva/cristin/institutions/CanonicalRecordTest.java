@@ -0,0 +1,86 @@
+package no.unit.nva.cristin.institutions;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class CanonicalRecordTest {
+
+    private static final String UNIT_PATH = "/v2/units/";
+    private static final String UNIT_ID = "194.0.0.0";
+    private static final String BODY = "{\"cristin_unit_id\":\"194.0.0.0\","
+            + "\"unit_name\":{\"en\":\"NTNU\",\"nb\":\"Norges teknisk-naturvitenskapelige universitet\"},"
+            + "\"subunits\":[{\"cristin_unit_id\":\"194.12.0.0\",\"unit_name\":{\"nb\":\"Rektor\"}}]}";
+
+    private final List<String> queries = new CopyOnWriteArrayList<>();
+    private HttpServer server;
+    private String originalApiUrl;
+
+    @Before
+    public void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(0), 0);
+        server.createContext(UNIT_PATH, this::serveUnit);
+        server.start();
+        originalApiUrl = Config.getInstance().getCristinApiUrl();
+        Config.getInstance().setCristinApiUrl("http://localhost:" + server.getAddress().getPort());
+    }
+
+    @After
+    public void tearDown() {
+        Config.getInstance().setCristinApiUrl(originalApiUrl);
+        server.stop(0);
+    }
+
+    @Test
+    public void testBothLanguagesAreServedFromOneCachedRecord() throws Exception {
+        CachingCristinApiClient client = new CachingCristinApiClient(
+                new CristinApiClient(new HttpTransport(Config.getInstance())), Config.getInstance(),
+                Optional.empty());
+
+        Unit norwegian = client.getUnit(UNIT_ID, "nb");
+        Unit english = client.getUnit(UNIT_ID, "en");
+
+        assertEquals(1, queries.size());
+        assertNull("the record is fetched in all languages", queries.get(0));
+        assertEquals(norwegian, english);
+        assertEquals(1, client.getUnitCache().size());
+    }
+
+    @Test
+    public void testProjectionSelectsRequestedLanguageAndFallsBackToAllNames() throws IOException {
+        Unit unit = CristinJsonDecoder.getInstance().decodeUnit(new StringReader(BODY));
+        PresentationConverter converter = new PresentationConverter();
+
+        UnitPresentation english = converter.asUnitPresentation(unit, "en");
+        UnitPresentation canonical = converter.asUnitPresentation(unit);
+
+        assertEquals(1, english.unitNames.size());
+        assertEquals("NTNU", english.unitNames.get(0).name);
+        assertEquals("nb", english.subunits.get(0).subunitNames.get(0).language);
+        assertEquals(2, canonical.unitNames.size());
+    }
+
+    private void serveUnit(HttpExchange exchange) throws IOException {
+        queries.add(exchange.getRequestURI().getQuery());
+        byte[] body = BODY.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream responseBody = exchange.getResponseBody()) {
+            responseBody.write(body);
+        }
+    }
+
+}
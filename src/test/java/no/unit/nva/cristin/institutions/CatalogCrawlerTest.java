@@ -0,0 +1,193 @@
+package no.unit.nva.cristin.institutions;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class CatalogCrawlerTest {
+
+    private static final String INSTITUTIONS_PATH = "/v2/institutions/";
+    private static final String UNITS_PATH = "/v2/units/";
+    private static final String IF_NONE_MATCH = "If-None-Match";
+    private static final String LANGUAGE = "nb";
+    private static final int RECORDS = 6;
+
+    private final Map<String, String> bodies = new HashMap<>();
+    private final AtomicInteger fullResponses = new AtomicInteger();
+    private final AtomicInteger notModifiedResponses = new AtomicInteger();
+    private HttpServer server;
+    private String originalApiUrl;
+    private Path directory;
+
+    @Before
+    public void setUp() throws IOException {
+        bodies.put(INSTITUTIONS_PATH, "[{\"cristin_institution_id\":\"194\"},{\"cristin_institution_id\":\"185\"}]");
+        bodies.put(INSTITUTIONS_PATH + "194", institution("194", "194.0.0.0"));
+        bodies.put(INSTITUTIONS_PATH + "185", institution("185", "185.0.0.0"));
+        bodies.put(UNITS_PATH + "194.0.0.0", unit("194.0.0.0", "194.1.0.0", "194.2.0.0"));
+        bodies.put(UNITS_PATH + "194.1.0.0", unit("194.1.0.0", "194.2.0.0"));
+        bodies.put(UNITS_PATH + "194.2.0.0", unit("194.2.0.0"));
+        bodies.put(UNITS_PATH + "185.0.0.0", unit("185.0.0.0"));
+        directory = Files.createTempDirectory("crawl");
+        server = HttpServer.create(new InetSocketAddress(0), 0);
+        server.createContext("/v2/", this::serve);
+        server.start();
+        originalApiUrl = Config.getInstance().getCristinApiUrl();
+        Config.getInstance().setCristinApiUrl("http://localhost:" + server.getAddress().getPort());
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        Config.getInstance().setCristinApiUrl(originalApiUrl);
+        server.stop(0);
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.collect(Collectors.toList())) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(directory);
+    }
+
+    @Test
+    public void testCrawlWritesEveryInstitutionAndUnitOnce() throws IOException {
+        Path snapshot = directory.resolve("catalog.ndjson");
+
+        assertTrue(newCrawler().crawl(snapshot));
+
+        List<String> lines = Files.readAllLines(snapshot, StandardCharsets.UTF_8);
+        assertEquals(RECORDS, lines.size());
+        assertEquals(RECORDS, ids(lines).size());
+        assertTrue(lines.stream().anyMatch(line -> line.contains("\"type\":\"unit\",\"id\":\"194.1.0.0\"")
+                && line.contains("\"etag\":\"\\\"v1-194.1.0.0\\\"\"")));
+        assertFalse(Files.exists(directory.resolve("catalog.ndjson.partial")));
+    }
+
+    @Test
+    public void testRefreshCopiesRecordsThatAreNotModified() throws IOException {
+        Path snapshot = directory.resolve("catalog.ndjson");
+        assertTrue(newCrawler().crawl(snapshot));
+        int firstCrawlResponses = fullResponses.get();
+
+        CatalogCrawler refresh = newCrawler();
+        assertTrue(refresh.crawl(snapshot));
+
+        assertEquals(RECORDS, notModifiedResponses.get());
+        assertEquals("only the search page is downloaded again", firstCrawlResponses + 1, fullResponses.get());
+        assertEquals(RECORDS, ids(Files.readAllLines(snapshot, StandardCharsets.UTF_8)).size());
+        assertTrue(refresh.summary(true).contains("notModified=" + RECORDS));
+    }
+
+    @Test
+    public void testInterruptedCrawlResumesFromPartialSnapshot() throws IOException {
+        Path snapshot = directory.resolve("catalog.ndjson");
+        assertTrue(newCrawler().crawl(snapshot));
+        List<String> lines = Files.readAllLines(snapshot, StandardCharsets.UTF_8);
+        Files.delete(snapshot);
+        Path partial = directory.resolve("catalog.ndjson.partial");
+        String cutShort = lines.get(3).substring(0, lines.get(3).length() / 2);
+        Files.write(partial, (String.join("\n", lines.subList(0, 3)) + "\n" + cutShort)
+                .getBytes(StandardCharsets.UTF_8));
+        int firstCrawlResponses = fullResponses.get();
+
+        CatalogCrawler resumed = newCrawler();
+        assertTrue(resumed.crawl(snapshot));
+
+        assertEquals(firstCrawlResponses + 1 + RECORDS - 3, fullResponses.get());
+        assertEquals(RECORDS, ids(Files.readAllLines(snapshot, StandardCharsets.UTF_8)).size());
+        assertTrue(resumed.summary(true).contains("resumed=3"));
+    }
+
+    @Test
+    public void testCatalogSnapshotAndIndexAreBuiltFromCrawl() throws IOException {
+        Path crawl = directory.resolve("catalog.ndjson");
+        assertTrue(newCrawler().crawl(crawl));
+        Path catalogSnapshot = directory.resolve("catalog.snapshot");
+        Path index = directory.resolve("institution-index.json");
+
+        CatalogSnapshotWriter.main(new String[]{crawl.toString(), catalogSnapshot.toString()});
+        InstitutionIndexWriter.main(new String[]{crawl.toString(), index.toString()});
+
+        CatalogSnapshot snapshot = CatalogSnapshot.open(catalogSnapshot);
+        assertEquals(2, snapshot.getInstitutionCount());
+        assertEquals(RECORDS - 2, snapshot.getUnitCount());
+        assertEquals("194.0.0.0", snapshot.findInstitution("194").get().correspondingUnit.cristinUnitId);
+        assertEquals(1, snapshot.findUnit("194.1.0.0").get().subunits.size());
+        assertEquals(2, InstitutionIndexProvider.read(index).size());
+    }
+
+    private CatalogCrawler newCrawler() {
+        return new CatalogCrawler(new CristinApiClient(new HttpTransport(Config.getInstance())), 2, LANGUAGE);
+    }
+
+    private static Set<String> ids(List<String> lines) {
+        Set<String> ids = new TreeSet<>();
+        for (String line : lines) {
+            if (!line.isEmpty()) {
+                ids.add(line.substring(line.indexOf("\"id\":"), line.indexOf(",\"etag\"")));
+            }
+        }
+        return ids;
+    }
+
+    private static String institution(String id, String unitId) {
+        return "{\"cristin_institution_id\":\"" + id + "\",\"corresponding_unit\":{\"cristin_unit_id\":\""
+                + unitId + "\"}}";
+    }
+
+    private static String unit(String id, String... subunitIds) {
+        StringBuilder subunits = new StringBuilder();
+        for (String subunitId : subunitIds) {
+            subunits.append(subunits.length() == 0 ? "" : ",").append("{\"cristin_unit_id\":\"")
+                    .append(subunitId).append("\"}");
+        }
+        return "{\"cristin_unit_id\":\"" + id + "\",\"subunits\":[" + subunits + "]}";
+    }
+
+    private void serve(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        String body = bodies.get(path);
+        if (body == null) {
+            exchange.sendResponseHeaders(404, -1);
+            exchange.close();
+            return;
+        }
+        if (!INSTITUTIONS_PATH.equals(path)) {
+            String etag = "\"v1-" + path.substring(path.lastIndexOf('/') + 1) + "\"";
+            if (etag.equals(exchange.getRequestHeaders().getFirst(IF_NONE_MATCH))) {
+                notModifiedResponses.incrementAndGet();
+                exchange.sendResponseHeaders(304, -1);
+                exchange.close();
+                return;
+            }
+            exchange.getResponseHeaders().set("ETag", etag);
+        }
+        fullResponses.incrementAndGet();
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(200, bytes.length);
+        try (OutputStream responseBody = exchange.getResponseBody()) {
+            responseBody.write(bytes);
+        }
+    }
+
+}
@@ -0,0 +1,86 @@
+package no.unit.nva.cristin.institutions;
+
+import com.google.gson.Gson;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class CatalogSnapshotTest {
+
+    private static final String CRISTIN_QUERY_INSTITUTION_RESPONSE_JSON_FILE = "/cristinQueryInstitutionsResponse.json";
+    private static final String CRISTIN_GET_INSTITUTION_RESPONSE_JSON_FILE = "/cristinGetInstitutionResponse.json";
+    private static final String CRISTIN_GET_UNIT_WITH_SUBUNITS_RESPONSE_JSON_FILE =
+            "/cristinGetUnitWithSubunitsFirstResponse.json";
+    private static final String CRISTIN_GET_UNIT_WITHOUT_SUBUNITS_RESPONSE_JSON_FILE =
+            "/cristinGetUnitWithoutSubunitsResponse.json";
+
+    private final CristinJsonDecoder decoder = CristinJsonDecoder.getInstance();
+    private final PresentationConverter presentationConverter = new PresentationConverter();
+    private final Gson gson = new Gson();
+
+    @Test
+    public void testLookupsGiveSamePresentationAsDecodedPayload() throws IOException {
+        Institution institution = decoder.decodeInstitution(reader(CRISTIN_GET_INSTITUTION_RESPONSE_JSON_FILE));
+        Unit unitWithSubunits = decoder.decodeUnit(reader(CRISTIN_GET_UNIT_WITH_SUBUNITS_RESPONSE_JSON_FILE));
+        Unit unitWithParent = decoder.decodeUnit(reader(CRISTIN_GET_UNIT_WITHOUT_SUBUNITS_RESPONSE_JSON_FILE));
+        List<Institution> institutions = new ArrayList<>(
+                decoder.decodeInstitutions(reader(CRISTIN_QUERY_INSTITUTION_RESPONSE_JSON_FILE)));
+        institutions.remove(0);
+        institutions.add(institution);
+        List<Unit> units = List.of(unitWithSubunits, unitWithParent);
+
+        CatalogSnapshot snapshot = snapshotOf(institutions, units);
+
+        assertEquals(4, snapshot.getInstitutionCount());
+        assertEquals(2, snapshot.getUnitCount());
+        assertEquals(gson.toJson(presentationConverter.asInstitutionPresentation(institution)),
+                gson.toJson(presentationConverter.asInstitutionPresentation(snapshot.findInstitution("194").get())));
+        for (Unit unit : units) {
+            assertEquals(gson.toJson(presentationConverter.asUnitPresentation(unit)),
+                    gson.toJson(presentationConverter.asUnitPresentation(
+                            snapshot.findUnit(unit.cristinUnitId).get())));
+        }
+        assertEquals("SAMFORSK", snapshot.findInstitution("7403").get().acronym);
+        assertFalse(snapshot.findInstitution("185").isPresent());
+        assertFalse(snapshot.findUnit("194.1.0.0").isPresent());
+    }
+
+    @Test
+    public void testSnapshotFileIsMemoryMapped() throws IOException {
+        Institution institution = decoder.decodeInstitution(reader(CRISTIN_GET_INSTITUTION_RESPONSE_JSON_FILE));
+        Path file = Files.createTempFile("catalog", ".snapshot");
+        new CatalogSnapshotWriter().write(List.of(institution), List.of(), file);
+
+        CatalogSnapshot snapshot = CatalogSnapshot.open(file);
+
+        assertEquals("NTNU", snapshot.findInstitution("194").get().acronym);
+        assertEquals("194.0.0.0", snapshot.findInstitution("194").get().correspondingUnit.cristinUnitId);
+        Files.delete(file);
+    }
+
+    @Test(expected = IOException.class)
+    public void testInvalidSnapshotIsRejected() throws IOException {
+        new CatalogSnapshot(ByteBuffer.wrap(new byte[CatalogSnapshot.HEADER_SIZE]));
+    }
+
+    private CatalogSnapshot snapshotOf(List<Institution> institutions, List<Unit> units) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new CatalogSnapshotWriter().write(institutions, units, out);
+        return new CatalogSnapshot(ByteBuffer.wrap(out.toByteArray()));
+    }
+
+    private InputStreamReader reader(String file) {
+        return new InputStreamReader(CatalogSnapshotTest.class.getResourceAsStream(file), StandardCharsets.UTF_8);
+    }
+}
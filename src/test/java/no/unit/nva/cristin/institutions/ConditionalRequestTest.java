@@ -0,0 +1,163 @@
+package no.unit.nva.cristin.institutions;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class ConditionalRequestTest {
+
+    private static final String UNIT_PATH = "/v2/units/";
+    private static final String UNIT_ID = "194.0.0.0";
+    private static final String LANGUAGE = "nb";
+    private static final String BODY = "{\"cristin_unit_id\":\"194.0.0.0\",\"unit_name\":{\"nb\":\"NTNU\"}}";
+    private static final String ETAG = "\"v1\"";
+    private static final String CHANGED_ETAG = "\"v2\"";
+    private static final String IF_NONE_MATCH = "If-None-Match";
+    private static final long AFTER_EXPIRY = TimeUnit.SECONDS.toMillis(Config.getInstance().getCacheTtlSeconds()
+            + Config.getInstance().getCacheStaleWhileRevalidateSeconds()) + 1;
+
+    private final AtomicLong clock = new AtomicLong(1_000_000L);
+    private final List<String> ifNoneMatchSeen = new CopyOnWriteArrayList<>();
+    private volatile String currentEtag = ETAG;
+    private volatile CountDownLatch revalidationGate = new CountDownLatch(0);
+    private HttpServer server;
+    private CachingCristinApiClient cachingClient;
+
+    @Before
+    public void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(0), 0);
+        server.createContext(UNIT_PATH, this::serveUnit);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+        CristinApiClient stubbedClient = new CristinApiClient(new HttpTransport(Config.getInstance())) {
+            @Override
+            protected URL generateGetUnitUrl(String id, String language) throws MalformedURLException {
+                return new URL("http://localhost:" + server.getAddress().getPort() + UNIT_PATH + id);
+            }
+        };
+        cachingClient = new CachingCristinApiClient(stubbedClient, Config.getInstance(), Optional.empty(),
+                clock::get);
+    }
+
+    @After
+    public void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    public void testExpiredEntryIsRevalidatedAndReusedOnNotModified() throws Exception {
+        Unit first = cachingClient.getUnit(UNIT_ID, LANGUAGE);
+        clock.addAndGet(AFTER_EXPIRY);
+        Unit revalidated = cachingClient.getUnit(UNIT_ID, LANGUAGE);
+        Unit cached = cachingClient.getUnit(UNIT_ID, LANGUAGE);
+
+        assertSame(first, revalidated);
+        assertSame(first, cached);
+        assertEquals(2, ifNoneMatchSeen.size());
+        assertNull(ifNoneMatchSeen.get(0));
+        assertEquals(ETAG, ifNoneMatchSeen.get(1));
+    }
+
+    @Test
+    public void testExpiredEntryIsReplacedWhenModified() throws Exception {
+        Unit first = cachingClient.getUnit(UNIT_ID, LANGUAGE);
+        currentEtag = CHANGED_ETAG;
+        clock.addAndGet(AFTER_EXPIRY);
+        Unit changed = cachingClient.getUnit(UNIT_ID, LANGUAGE);
+        clock.addAndGet(AFTER_EXPIRY);
+        cachingClient.getUnit(UNIT_ID, LANGUAGE);
+
+        assertNotSame(first, changed);
+        assertEquals(UNIT_ID, changed.cristinUnitId);
+        assertEquals(CHANGED_ETAG, ifNoneMatchSeen.get(2));
+    }
+
+    @Test
+    public void testLookupWithoutCachedCopyDoesNotShareRevalidation() throws Exception {
+        cachingClient.getUnit(UNIT_ID, LANGUAGE);
+        clock.addAndGet(AFTER_EXPIRY);
+        revalidationGate = new CountDownLatch(1);
+        ExecutorService executorService = Executors.newFixedThreadPool(2);
+        try {
+            Future<Unit> revalidating = executorService.submit(() -> cachingClient.getUnit(UNIT_ID, LANGUAGE));
+            while (ifNoneMatchSeen.size() < 2) {
+                Thread.sleep(1);
+            }
+            cachingClient.getUnitCache().invalidate(new LookupKey(UNIT_ID, CristinApiClient.ALL_LANGUAGES));
+
+            Future<Unit> uncached = executorService.submit(() -> cachingClient.getUnit(UNIT_ID, LANGUAGE));
+
+            assertEquals(UNIT_ID, uncached.get(2, TimeUnit.SECONDS).cristinUnitId);
+            revalidationGate.countDown();
+            assertEquals(UNIT_ID, revalidating.get(2, TimeUnit.SECONDS).cristinUnitId);
+        } finally {
+            revalidationGate.countDown();
+            executorService.shutdown();
+        }
+    }
+
+    @Test
+    public void testGatewayResponseAnswersMatchingIfNoneMatchWithNotModified() {
+        GatewayResponse response = new GatewayResponse(BODY, 200);
+        response.applyEntityTag(null);
+        String entityTag = response.getHeaders().get(GatewayResponse.ETAG_HEADER);
+
+        GatewayResponse repeated = new GatewayResponse(BODY, 200);
+        repeated.applyEntityTag("\"other\", " + entityTag);
+        GatewayResponse changed = new GatewayResponse(BODY + " ", 200);
+        changed.applyEntityTag(entityTag);
+
+        assertEquals(200, response.getStatusCode());
+        assertEquals(304, repeated.getStatusCode());
+        assertEquals("", repeated.getBody());
+        assertEquals(entityTag, repeated.getHeaders().get(GatewayResponse.ETAG_HEADER));
+        assertEquals(200, changed.getStatusCode());
+    }
+
+    private void serveUnit(HttpExchange exchange) throws IOException {
+        String ifNoneMatch = exchange.getRequestHeaders().getFirst(IF_NONE_MATCH);
+        ifNoneMatchSeen.add(ifNoneMatch);
+        if (ifNoneMatch != null) {
+            try {
+                revalidationGate.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        exchange.getResponseHeaders().add(GatewayResponse.ETAG_HEADER, currentEtag);
+        if (currentEtag.equals(ifNoneMatch)) {
+            exchange.sendResponseHeaders(304, -1);
+            exchange.close();
+            return;
+        }
+        byte[] body = BODY.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream responseBody = exchange.getResponseBody()) {
+            responseBody.write(body);
+        }
+    }
+
+}
@@ -2,6 +2,7 @@ package no.unit.nva.cristin.institutions;
 
 import org.junit.Test;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
 
 public class ConfigTest {
@@ -14,4 +15,41 @@ public class ConfigTest {
         assertNull(corsHeader);
     }
 
+    @Test
+    public void testStaleWindowsAcceptZeroButNotNegativeValues() {
+        assertEquals(0, Config.parseNonNegativeInt("0", 300));
+        assertEquals(120, Config.parseNonNegativeInt("120", 300));
+        assertEquals(300, Config.parseNonNegativeInt("-1", 300));
+        assertEquals(300, Config.parseNonNegativeInt(null, 300));
+        assertEquals(300, Config.parsePositiveInt("0", 300));
+    }
+
+    @Test
+    public void testPercentagesOutsideOneToHundredFallBackToDefault() {
+        assertEquals(1, Config.parsePercent("1", 50));
+        assertEquals(100, Config.parsePercent("100", 50));
+        assertEquals(50, Config.parsePercent("0", 50));
+        assertEquals(50, Config.parsePercent("101", 50));
+        assertEquals(50, Config.parsePercent("-5", 50));
+    }
+
+    @Test
+    public void testUnitTreeParallelismIsIndependentOfBatchParallelism() {
+        final Config config = Config.getInstance();
+        final int treeParallelism = config.getUnitTreeParallelism();
+        final int batchParallelism = config.getUnitBatchParallelism();
+        try {
+            assertEquals(Config.DEFAULT_UNIT_TREE_PARALLELISM, treeParallelism);
+            config.setUnitBatchParallelism(3);
+            config.setUnitTreeParallelism(7);
+            assertEquals(7, config.getUnitTreeParallelism());
+            assertEquals(3, config.getUnitBatchParallelism());
+            assertEquals(Config.DEFAULT_UNIT_TREE_PARALLELISM, Config.parsePositiveInt("0",
+                    Config.DEFAULT_UNIT_TREE_PARALLELISM));
+        } finally {
+            config.setUnitTreeParallelism(treeParallelism);
+            config.setUnitBatchParallelism(batchParallelism);
+        }
+    }
+
 }
@@ -0,0 +1,106 @@
+package no.unit.nva.cristin.institutions;
+
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class CristinJsonDecoderTest {
+
+    private static final String CRISTIN_GET_INSTITUTION_RESPONSE_JSON_FILE = "/cristinGetInstitutionResponse.json";
+    private static final String CRISTIN_QUERY_INSTITUTION_RESPONSE_JSON_FILE = "/cristinQueryInstitutionsResponse.json";
+    private static final String CRISTIN_GET_UNIT_WITH_SUBUNITS_RESPONSE_JSON_FILE =
+            "/cristinGetUnitWithSubunitsFirstResponse.json";
+    private static final String CRISTIN_GET_UNIT_WITHOUT_SUBUNITS_RESPONSE_JSON_FILE =
+            "/cristinGetUnitWithoutSubunitsResponse.json";
+    private static final String INVALID_JSON = "This is not valid JSON!";
+    private static final String UNEXPECTED_SHAPE_JSON = "{\"cristin_unit_id\":[]}";
+    private static final String NULLS_JSON = "{\"cristin_unit_id\":\"194.0.0.0\",\"unit_name\":null,"
+            + "\"subunits\":null,\"parent_unit\":{\"cristin_unit_id\":\"194.0.0.0\"}}";
+
+    private final Gson gson = new Gson();
+    private final PresentationConverter presentationConverter = new PresentationConverter();
+    private final CristinJsonDecoder decoder = CristinJsonDecoder.getInstance();
+
+    @Test
+    public void testDecodedInstitutionsGiveSamePresentationAsFullBinding() throws IOException {
+        List<Institution> bound = gson.fromJson(reader(CRISTIN_QUERY_INSTITUTION_RESPONSE_JSON_FILE),
+                new TypeToken<ArrayList<Institution>>(){}.getType());
+        List<Institution> decoded = decoder.decodeInstitutions(reader(CRISTIN_QUERY_INSTITUTION_RESPONSE_JSON_FILE));
+
+        assertEquals(institutionsAsJson(bound), institutionsAsJson(decoded));
+    }
+
+    @Test
+    public void testDecodedInstitutionGivesSamePresentationAsFullBinding() throws IOException {
+        Institution bound = gson.fromJson(reader(CRISTIN_GET_INSTITUTION_RESPONSE_JSON_FILE), Institution.class);
+        Institution decoded = decoder.decodeInstitution(reader(CRISTIN_GET_INSTITUTION_RESPONSE_JSON_FILE));
+
+        assertEquals(gson.toJson(presentationConverter.asInstitutionPresentation(bound)),
+                gson.toJson(presentationConverter.asInstitutionPresentation(decoded)));
+    }
+
+    @Test
+    public void testDecodedUnitsGiveSamePresentationAsFullBinding() throws IOException {
+        for (String file : new String[]{CRISTIN_GET_UNIT_WITH_SUBUNITS_RESPONSE_JSON_FILE,
+            CRISTIN_GET_UNIT_WITHOUT_SUBUNITS_RESPONSE_JSON_FILE}) {
+            Unit bound = gson.fromJson(reader(file), Unit.class);
+            Unit decoded = decoder.decodeUnit(reader(file));
+
+            assertEquals(gson.toJson(presentationConverter.asUnitPresentation(bound)),
+                    gson.toJson(presentationConverter.asUnitPresentation(decoded)));
+        }
+    }
+
+    @Test
+    public void testDecodedRecordsMatchFullBindingOnFixtures() throws IOException {
+        assertEquals(gson.toJson(gson.fromJson(reader(CRISTIN_GET_INSTITUTION_RESPONSE_JSON_FILE), Institution.class)),
+                gson.toJson(decoder.decodeInstitution(reader(CRISTIN_GET_INSTITUTION_RESPONSE_JSON_FILE))));
+        for (String file : new String[]{CRISTIN_GET_UNIT_WITH_SUBUNITS_RESPONSE_JSON_FILE,
+            CRISTIN_GET_UNIT_WITHOUT_SUBUNITS_RESPONSE_JSON_FILE}) {
+            assertEquals(file, gson.toJson(gson.fromJson(reader(file), Unit.class)),
+                    gson.toJson(decoder.decodeUnit(reader(file))));
+        }
+    }
+
+    @Test
+    public void testNullsAndMissingFieldsDecodeAsNullLikeFullBinding() throws IOException {
+        Unit bound = gson.fromJson(NULLS_JSON, Unit.class);
+        Unit decoded = decoder.decodeUnit(new StringReader(NULLS_JSON));
+
+        assertEquals(gson.toJson(bound), gson.toJson(decoded));
+        assertNull(decoded.unitName);
+        assertNull(decoded.subunits);
+        assertNull(decoded.parentUnit.unitName);
+    }
+
+    @Test(expected = IOException.class)
+    public void testExceptionOnInvalidJson() throws IOException {
+        decoder.decodeInstitution(new StringReader(INVALID_JSON));
+    }
+
+    @Test(expected = IOException.class)
+    public void testExceptionOnUnexpectedShape() throws IOException {
+        decoder.decodeUnit(new StringReader(UNEXPECTED_SHAPE_JSON));
+    }
+
+    private String institutionsAsJson(List<Institution> institutions) {
+        return gson.toJson(institutions.stream()
+                .map(presentationConverter::asInstitutionPresentation)
+                .collect(Collectors.toList()));
+    }
+
+    private InputStreamReader reader(String file) {
+        return new InputStreamReader(CristinJsonDecoderTest.class.getResourceAsStream(file), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,155 @@
+package no.unit.nva.cristin.institutions;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonParser;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class DeadlineTest {
+
+    private static final String SLOW_ID = "185";
+    private static final String FAST_ID = "194";
+    private static final long SLOW_MILLIS = 2000;
+    private static final long BUDGET_MILLIS = 100;
+
+    @Test
+    public void testTasksNotFinishedByDeadlineAreEmpty() {
+        ParallelExecutor executor = new ParallelExecutor(2);
+
+        List<Optional<String>> results = executor.mapInOrder(Arrays.asList(FAST_ID, SLOW_ID),
+            id -> {
+                sleepIfSlow(id);
+                return id;
+            }, Deadline.in(BUDGET_MILLIS));
+
+        assertEquals(Optional.of(FAST_ID), results.get(0));
+        assertEquals(Optional.empty(), results.get(1));
+    }
+
+    @Test
+    public void testFailedTasksAreEmpty() {
+        ParallelExecutor executor = new ParallelExecutor(2);
+
+        List<Optional<String>> results = executor.mapInOrder(Arrays.asList(FAST_ID, SLOW_ID),
+            id -> {
+                if (SLOW_ID.equals(id)) {
+                    throw new IllegalStateException(id);
+                }
+                return id;
+            }, Deadline.in(SLOW_MILLIS));
+
+        assertEquals(Optional.of(FAST_ID), results.get(0));
+        assertEquals(Optional.empty(), results.get(1));
+    }
+
+    @Test
+    public void testTasksQueuedAtDeadlineNeverStart() throws InterruptedException {
+        ParallelExecutor executor = new ParallelExecutor(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<String> started = Collections.synchronizedList(new ArrayList<>());
+
+        List<Optional<String>> results = executor.mapInOrder(Arrays.asList(SLOW_ID, FAST_ID),
+            id -> {
+                started.add(id);
+                awaitQuietly(release);
+                return id;
+            }, Deadline.in(BUDGET_MILLIS));
+        release.countDown();
+        executor.submit(() -> null).join();
+
+        assertEquals(Arrays.asList(Optional.empty(), Optional.empty()), results);
+        assertEquals(Collections.singletonList(SLOW_ID), started);
+    }
+
+    @Test
+    public void testEnrichmentStopsAtBudgetAndMarksPartialEntries() {
+        Config config = Config.getInstance();
+        int budget = config.getEnrichmentBudgetMillis();
+        config.setEnrichmentBudgetMillis((int) BUDGET_MILLIS);
+        try {
+            FetchCristinInstitutions handler = new FetchCristinInstitutions(new SlowCristinApiClient());
+            Map<String, Object> event = new HashMap<>();
+            Map<String, String> queryStringParameters = new HashMap<>();
+            queryStringParameters.put("name", "university");
+            event.put("queryStringParameters", queryStringParameters);
+
+            long started = System.nanoTime();
+            GatewayResponse response = handler.handleRequest(event, null);
+            long elapsedMillis = (System.nanoTime() - started) / 1_000_000;
+
+            assertEquals(200, response.getStatusCode());
+            assertTrue(elapsedMillis < SLOW_MILLIS);
+            JsonArray institutions = JsonParser.parseString(response.getBody()).getAsJsonArray();
+            assertEquals("NTNU", institutions.get(0).getAsJsonObject().get("acronym").getAsString());
+            assertFalse(institutions.get(0).getAsJsonObject().has("partial"));
+            assertTrue(institutions.get(1).getAsJsonObject().get("partial").getAsBoolean());
+        } finally {
+            config.setEnrichmentBudgetMillis(budget);
+        }
+    }
+
+    @Test(expected = DeadlineExceededException.class)
+    public void testExpiredDeadlineFailsUpstreamCallWithoutSendingIt() throws IOException {
+        RequestTimings timings = RequestTimings.start("DeadlineTest", Deadline.in(0));
+        try {
+            new HttpTransport(Config.getInstance()).get(new URL("http://localhost:1/v2/units/194.0.0.0"));
+        } finally {
+            timings.finish(new GatewayResponse());
+        }
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void sleepIfSlow(String id) {
+        if (SLOW_ID.equals(id)) {
+            try {
+                Thread.sleep(SLOW_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private static class SlowCristinApiClient extends CristinApiClient {
+
+        @Override
+        protected List<Institution> queryInstitutions(Map<String, String> parameters) {
+            return Arrays.asList(summary(FAST_ID), summary(SLOW_ID));
+        }
+
+        @Override
+        protected Institution getInstitution(String id, String language) {
+            sleepIfSlow(id);
+            Institution institution = summary(id);
+            institution.acronym = "NTNU";
+            return institution;
+        }
+
+        private static Institution summary(String id) {
+            Institution institution = new Institution();
+            institution.cristinInstitutionId = id;
+            return institution;
+        }
+    }
+
+}
@@ -1,5 +1,7 @@
 package no.unit.nva.cristin.institutions;
 
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
@@ -20,15 +22,24 @@ import java.io.InputStreamReader;
 import java.net.URISyntaxException;
 import java.net.URL;
 import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
 
 import static junit.framework.TestCase.assertTrue;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.fail;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.verifyZeroInteractions;
 import static org.mockito.Mockito.when;
 
 @RunWith(MockitoJUnitRunner.class)
@@ -46,6 +57,11 @@ public class FetchCristinInstitutionsTest {
     private static final String INVALID_JSON = "This is not valid JSON!";
     private static final String DEV_NULL = "/dev/null";
     private static final String MOCK_EXCEPTION = "Mock exception";
+    private static final long ONE_DAY_MILLIS = 24 * 3600 * 1000L;
+    private static final List<String> SUMMARY_IDS = Arrays.asList("194", "43200063", "7403", "7538");
+    private static final String SUMMARY_ACRONYM = "SUMMARY";
+    private static final String ENRICHED_ACRONYM = "ENRICHED";
+    private static final long OVERLAP_WAIT_SECONDS = 2;
 
     @Rule
     public MockitoRule rule = MockitoJUnit.rule();
@@ -135,6 +151,97 @@ public class FetchCristinInstitutionsTest {
         assertEquals(response.getHeaders().get(HttpHeaders.CONTENT_TYPE), MediaType.APPLICATION_JSON);
     }
 
+    @Test
+    public void testEnrichmentKeepsOrderOfQueryResults() throws Exception {
+        when(mockCristinApiClient.fetchQueryInstitutionsResults(any()))
+                .thenReturn(mockQueryCristinQueryInstitutionResponseReader());
+        when(mockCristinApiClient.queryInstitutions(any())).thenCallRealMethod();
+        when(mockCristinApiClient.getInstitution(any(), any())).thenThrow(new IOException(MOCK_EXCEPTION));
+        when(mockCristinApiClient.generateQueryInstitutionsUrl(any())).thenCallRealMethod();
+
+        Map<String, Object> event = new HashMap<>();
+        Map<String, String> queryParams = new TreeMap<>();
+        queryParams.put(NAME_KEY, NAME_NTNU);
+        queryParams.put(LANGUAGE_KEY, LANGUAGE_NB);
+        event.put(QUERY_STRING_PARAMETERS_KEY, queryParams);
+
+        FetchCristinInstitutions mockFetchCristinInstitutions = new FetchCristinInstitutions(mockCristinApiClient);
+        GatewayResponse response = mockFetchCristinInstitutions.handleRequest(event, null);
+
+        String body = response.getBody();
+        assertEquals(Response.Status.OK.getStatusCode(), response.getStatusCode());
+        assertTrue(body.indexOf("\"194\"") < body.indexOf("\"43200063\""));
+        assertTrue(body.indexOf("\"43200063\"") < body.indexOf("\"7403\""));
+        assertTrue(body.indexOf("\"7403\"") < body.indexOf("\"7538\""));
+    }
+
+    @Test
+    public void testMixedEnrichmentOutcomesEachKeepTheirOwnResult() {
+        FetchCristinInstitutions handler = new FetchCristinInstitutions(new StubCristinApiClient(id -> {
+            if (id.equals("43200063") || id.equals("7538")) {
+                throw new IOException(MOCK_EXCEPTION);
+            }
+            return institution(id, ENRICHED_ACRONYM);
+        }));
+
+        GatewayResponse response = handler.handleRequest(searchEvent(), null);
+
+        assertEquals(Response.Status.OK.getStatusCode(), response.getStatusCode());
+        List<Map<String, Object>> results = new Gson().fromJson(response.getBody(),
+                new TypeToken<List<Map<String, Object>>>() { }.getType());
+        assertEquals(SUMMARY_IDS.size(), results.size());
+        for (int i = 0; i < SUMMARY_IDS.size(); i++) {
+            assertEquals(SUMMARY_IDS.get(i), results.get(i).get("cristinInstitutionId"));
+        }
+        assertEquals(ENRICHED_ACRONYM, results.get(0).get("acronym"));
+        assertEquals(SUMMARY_ACRONYM, results.get(1).get("acronym"));
+        assertEquals(ENRICHED_ACRONYM, results.get(2).get("acronym"));
+        assertEquals(SUMMARY_ACRONYM, results.get(3).get("acronym"));
+    }
+
+    @Test
+    public void testEnrichmentLookupsRunConcurrently() {
+        CountDownLatch allStarted = new CountDownLatch(SUMMARY_IDS.size());
+        AtomicInteger overlapping = new AtomicInteger();
+        FetchCristinInstitutions handler = new FetchCristinInstitutions(new StubCristinApiClient(id -> {
+            allStarted.countDown();
+            if (allStarted.await(OVERLAP_WAIT_SECONDS, TimeUnit.SECONDS)) {
+                overlapping.incrementAndGet();
+            }
+            return institution(id, ENRICHED_ACRONYM);
+        }));
+
+        GatewayResponse response = handler.handleRequest(searchEvent(), null);
+
+        assertEquals(Response.Status.OK.getStatusCode(), response.getStatusCode());
+        assertEquals("every lookup saw all others started", SUMMARY_IDS.size(), overlapping.get());
+        assertTrue(response.getBody().contains(ENRICHED_ACRONYM));
+    }
+
+    @Test
+    public void testSearchIsAnsweredFromFreshIndex() throws Exception {
+        Path snapshot = Files.createTempFile("institutions", ".json");
+        new InstitutionIndexWriter().write(CristinJsonDecoder.getInstance()
+                .decodeInstitutions(mockQueryCristinQueryInstitutionResponseReader()), System.currentTimeMillis(),
+                snapshot);
+
+        Map<String, Object> event = new HashMap<>();
+        Map<String, String> queryParams = new TreeMap<>();
+        queryParams.put(NAME_KEY, NAME_NTNU);
+        queryParams.put(LANGUAGE_KEY, LANGUAGE_NB);
+        event.put(QUERY_STRING_PARAMETERS_KEY, queryParams);
+
+        FetchCristinInstitutions mockFetchCristinInstitutions = new FetchCristinInstitutions(mockCristinApiClient);
+        mockFetchCristinInstitutions.setInstitutionIndexProvider(
+                new InstitutionIndexProvider(snapshot, ONE_DAY_MILLIS, ONE_DAY_MILLIS));
+        GatewayResponse response = mockFetchCristinInstitutions.handleRequest(event, null);
+
+        assertEquals(Response.Status.OK.getStatusCode(), response.getStatusCode());
+        assertTrue(response.getBody().contains("\"cristinInstitutionId\":\"194\""));
+        verifyZeroInteractions(mockCristinApiClient);
+        Files.delete(snapshot);
+    }
+
 
     @Test
     public void testEmptyNameParam() {
@@ -217,4 +324,50 @@ public class FetchCristinInstitutionsTest {
         cristinApiClient.fromJson(reader, Institution.class);
         fail();
     }
+
+    private static Map<String, Object> searchEvent() {
+        Map<String, Object> event = new HashMap<>();
+        Map<String, String> queryParams = new TreeMap<>();
+        queryParams.put(NAME_KEY, NAME_NTNU);
+        queryParams.put(LANGUAGE_KEY, LANGUAGE_NB);
+        event.put(QUERY_STRING_PARAMETERS_KEY, queryParams);
+        return event;
+    }
+
+    private static Institution institution(String id, String acronym) {
+        Institution institution = new Institution();
+        institution.cristinInstitutionId = id;
+        institution.acronym = acronym;
+        return institution;
+    }
+
+    private interface InstitutionLookup {
+
+        Institution get(String id) throws Exception;
+    }
+
+    private static class StubCristinApiClient extends CristinApiClient {
+
+        private final InstitutionLookup lookup;
+
+        StubCristinApiClient(InstitutionLookup lookup) {
+            this.lookup = lookup;
+        }
+
+        @Override
+        protected List<Institution> queryInstitutions(Map<String, String> parameters) {
+            return SUMMARY_IDS.stream().map(id -> institution(id, SUMMARY_ACRONYM)).collect(Collectors.toList());
+        }
+
+        @Override
+        protected Institution getInstitution(String id, String language) throws IOException {
+            try {
+                return lookup.get(id);
+            } catch (IOException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new IOException(e);
+            }
+        }
+    }
 }
@@ -0,0 +1,98 @@
+package no.unit.nva.cristin.institutions;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.junit.Test;
+
+import javax.ws.rs.core.Response;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class FetchCristinUnitsTest {
+
+    private static final String QUERY_STRING_PARAMETERS_KEY = "queryStringParameters";
+    private static final String IDS_KEY = "ids";
+    private static final String LANGUAGE_KEY = "language";
+    private static final String MISSING_ID = "999.0.0.0";
+    private static final String MOCK_EXCEPTION = "Mock exception";
+
+    @Test
+    public void testRepeatedIdsAreFetchedOnceAndFailuresAreReportedPerId() {
+        CountingCristinApiClient client = new CountingCristinApiClient();
+        FetchCristinUnits fetchCristinUnits = new FetchCristinUnits(client);
+
+        GatewayResponse response = fetchCristinUnits.handleRequest(
+                event("194.0.0.0, 185.0.0.0,194.0.0.0," + MISSING_ID, "en"), null);
+
+        assertEquals(Response.Status.OK.getStatusCode(), response.getStatusCode());
+        JsonObject body = JsonParser.parseString(response.getBody()).getAsJsonObject();
+        JsonObject units = body.getAsJsonObject("units");
+        assertEquals(2, units.size());
+        assertEquals("194.0.0.0", units.getAsJsonObject("194.0.0.0").get("cristinUnitId").getAsString());
+        assertEquals("185.0.0.0", units.getAsJsonObject("185.0.0.0").get("cristinUnitId").getAsString());
+        assertEquals(MOCK_EXCEPTION, body.getAsJsonObject("errors").get(MISSING_ID).getAsString());
+        assertEquals(1, client.calls.get("194.0.0.0").get());
+        assertEquals(3, client.calls.size());
+    }
+
+    @Test
+    public void testTooManyIdsIsBadRequest() {
+        FetchCristinUnits fetchCristinUnits = new FetchCristinUnits(new CountingCristinApiClient());
+        String ids = IntStream.rangeClosed(1, Config.getInstance().getUnitBatchMaxIds() + 1)
+                .mapToObj(i -> i + ".0.0.0")
+                .collect(Collectors.joining(","));
+
+        GatewayResponse response = fetchCristinUnits.handleRequest(event(ids, "nb"), null);
+
+        assertEquals(Response.Status.BAD_REQUEST.getStatusCode(), response.getStatusCode());
+        assertTrue(response.getBody().contains("at most"));
+    }
+
+    @Test
+    public void testInvalidParametersAreBadRequest() {
+        FetchCristinUnits fetchCristinUnits = new FetchCristinUnits(new CountingCristinApiClient());
+
+        assertEquals(Response.Status.BAD_REQUEST.getStatusCode(),
+                fetchCristinUnits.handleRequest(event("", "nb"), null).getStatusCode());
+        assertEquals(Response.Status.BAD_REQUEST.getStatusCode(),
+                fetchCristinUnits.handleRequest(event("194.0.0.0,../x", "nb"), null).getStatusCode());
+        assertEquals(Response.Status.BAD_REQUEST.getStatusCode(),
+                fetchCristinUnits.handleRequest(event("194.0.0.0", "xx"), null).getStatusCode());
+        assertEquals(Response.Status.BAD_REQUEST.getStatusCode(),
+                fetchCristinUnits.handleRequest(new HashMap<>(), null).getStatusCode());
+    }
+
+    private Map<String, Object> event(String ids, String language) {
+        Map<String, String> queryStringParameters = new HashMap<>();
+        queryStringParameters.put(IDS_KEY, ids);
+        queryStringParameters.put(LANGUAGE_KEY, language);
+        Map<String, Object> event = new HashMap<>();
+        event.put(QUERY_STRING_PARAMETERS_KEY, queryStringParameters);
+        return event;
+    }
+
+    private static class CountingCristinApiClient extends CristinApiClient {
+
+        private final Map<String, AtomicInteger> calls = new ConcurrentHashMap<>();
+
+        @Override
+        protected Unit getUnit(String id, String language) throws IOException {
+            calls.computeIfAbsent(id, key -> new AtomicInteger()).incrementAndGet();
+            if (MISSING_ID.equals(id)) {
+                throw new IOException(MOCK_EXCEPTION);
+            }
+            Unit unit = new Unit();
+            unit.cristinUnitId = id;
+            return unit;
+        }
+    }
+
+}
@@ -8,6 +8,13 @@ import org.mockito.junit.MockitoRule;
 import org.mockito.runners.MockitoJUnitRunner;
 
 import javax.ws.rs.core.Response;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Optional;
+import java.util.zip.GZIPInputStream;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
@@ -24,6 +31,7 @@ public class GatewayResponseTest {
     public static final String MOCK_BODY = "mock";
     public static final String ERROR_BODY = "error";
     public static final String ERROR_JSON = "{\"error\":\"error\"}";
+    public static final int MIN_BYTES = 64;
 
     @Test
     public void testErrorResponse() {
@@ -49,4 +57,55 @@ public class GatewayResponseTest {
         assertTrue(gatewayResponse1.getHeaders().containsKey(GatewayResponse.CORS_ALLOW_ORIGIN_HEADER));
     }
 
+    @Test
+    public void testBodyIsGzippedAndBase64EncodedWhenAccepted() throws IOException {
+        String body = largeBody();
+        GatewayResponse gatewayResponse = new GatewayResponse(body, Response.Status.OK.getStatusCode());
+        gatewayResponse.applyEntityTag(null);
+        String identityTag = gatewayResponse.getHeaders().get(GatewayResponse.ETAG_HEADER);
+        gatewayResponse.applyContentEncoding("deflate;q=0.5, gzip", MIN_BYTES);
+
+        assertTrue(gatewayResponse.getIsBase64Encoded());
+        assertEquals(GatewayResponse.GZIP, gatewayResponse.getHeaders().get(GatewayResponse.CONTENT_ENCODING_HEADER));
+        assertEquals(identityTag.replace("\"", "") + "-gzip",
+                gatewayResponse.getHeaders().get(GatewayResponse.ETAG_HEADER).replace("\"", ""));
+        byte[] compressed = Base64.getDecoder().decode(gatewayResponse.getBody());
+        assertTrue(compressed.length < body.length() / 4);
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            assertEquals(body, new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    public void testSmallOrUnacceptedBodyIsNotCompressed() {
+        GatewayResponse small = new GatewayResponse(MOCK_BODY, Response.Status.OK.getStatusCode());
+        small.applyContentEncoding(GatewayResponse.GZIP, MIN_BYTES);
+        GatewayResponse refused = new GatewayResponse(largeBody(), Response.Status.OK.getStatusCode());
+        refused.applyContentEncoding("gzip;q=0, identity", MIN_BYTES);
+
+        assertFalse(small.getIsBase64Encoded());
+        assertEquals(MOCK_BODY, small.getBody());
+        assertFalse(refused.getIsBase64Encoded());
+        assertFalse(refused.getHeaders().containsKey(GatewayResponse.CONTENT_ENCODING_HEADER));
+        assertEquals(GatewayResponse.ACCEPT_ENCODING_HEADER, refused.getHeaders().get(GatewayResponse.VARY_HEADER));
+    }
+
+    @Test
+    public void testEncodingNegotiation() {
+        assertEquals(Optional.of(GatewayResponse.GZIP), GatewayResponse.negotiateEncoding("gzip, deflate, br"));
+        assertEquals(Optional.of(GatewayResponse.DEFLATE), GatewayResponse.negotiateEncoding("gzip;q=0.2, deflate"));
+        assertEquals(Optional.of(GatewayResponse.GZIP), GatewayResponse.negotiateEncoding("*"));
+        assertEquals(Optional.empty(), GatewayResponse.negotiateEncoding("br, identity"));
+        assertEquals(Optional.empty(), GatewayResponse.negotiateEncoding(null));
+    }
+
+    private static String largeBody() {
+        StringBuilder body = new StringBuilder("[");
+        for (int i = 0; i < 100; i++) {
+            body.append("{\"cristinUnitId\":\"194.").append(i).append(".0.0\",\"subunitNames\":[{\"name\":")
+                    .append("\"Institutt for underenhet ").append(i).append("\",\"language\":\"nb\"}]},");
+        }
+        return body.append("{}]").toString();
+    }
+
 }
@@ -0,0 +1,122 @@
+package no.unit.nva.cristin.institutions;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class HttpTransportTest {
+
+    private static final String GZIP_PATH = "/gzip";
+    private static final String MISSING_PATH = "/missing";
+    private static final String TRICKLE_PATH = "/trickle";
+    private static final int TRICKLE_BYTES = 40;
+    private static final long TRICKLE_INTERVAL_MILLIS = 50;
+    private static final long DEADLINE_MILLIS = 300;
+    private static final String LOCALHOST = "http://localhost:";
+    private static final String BODY = "{\"cristin_unit_id\":\"194.0.0.0\"}";
+    private static final String CONTENT_ENCODING = "Content-Encoding";
+    private static final String GZIP = "gzip";
+
+    private HttpServer server;
+    private HttpTransport httpTransport;
+
+    @Before
+    public void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(0), 0);
+        server.createContext(GZIP_PATH, exchange -> {
+            byte[] compressed = gzip(BODY);
+            exchange.getResponseHeaders().add(CONTENT_ENCODING, GZIP);
+            exchange.sendResponseHeaders(200, compressed.length);
+            try (OutputStream responseBody = exchange.getResponseBody()) {
+                responseBody.write(compressed);
+            }
+        });
+        server.createContext(MISSING_PATH, exchange -> {
+            exchange.sendResponseHeaders(404, -1);
+            exchange.close();
+        });
+        server.createContext(TRICKLE_PATH, exchange -> {
+            exchange.sendResponseHeaders(200, TRICKLE_BYTES);
+            try (OutputStream responseBody = exchange.getResponseBody()) {
+                for (int i = 0; i < TRICKLE_BYTES; i++) {
+                    responseBody.write(' ');
+                    responseBody.flush();
+                    Thread.sleep(TRICKLE_INTERVAL_MILLIS);
+                }
+            } catch (IOException | InterruptedException e) {
+                exchange.close();
+            }
+        });
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+        httpTransport = new HttpTransport(Config.getInstance());
+    }
+
+    @After
+    public void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    public void testGzipResponseIsDecodedAndConnectionReused() throws IOException {
+        for (int i = 0; i < 3; i++) {
+            try (BufferedReader reader = new BufferedReader(httpTransport.get(url(GZIP_PATH)))) {
+                assertEquals(BODY, reader.readLine());
+            }
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testNonOkStatusThrowsIoException() throws IOException {
+        try (InputStreamReader reader = httpTransport.get(url(MISSING_PATH))) {
+            reader.read();
+        }
+    }
+
+    @Test
+    public void testSlowlyTricklingBodyIsAbortedAtDeadline() throws IOException {
+        RequestTimings timings = RequestTimings.start("HttpTransportTest", Deadline.in(DEADLINE_MILLIS));
+        long started = System.nanoTime();
+        try (InputStreamReader reader = httpTransport.get(url(TRICKLE_PATH))) {
+            while (reader.read() >= 0) {
+                assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started) < TRICKLE_BYTES
+                        * TRICKLE_INTERVAL_MILLIS);
+            }
+            fail("the body should not be read past the deadline");
+        } catch (DeadlineExceededException expected) {
+            assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started) < TRICKLE_BYTES
+                    * TRICKLE_INTERVAL_MILLIS / 2);
+        } finally {
+            timings.finish(new GatewayResponse());
+        }
+    }
+
+    private URL url(String path) throws IOException {
+        return new URL(LOCALHOST + server.getAddress().getPort() + path);
+    }
+
+    private static byte[] gzip(String body) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(bytes)) {
+            gzip.write(body.getBytes(StandardCharsets.UTF_8));
+        }
+        return bytes.toByteArray();
+    }
+}
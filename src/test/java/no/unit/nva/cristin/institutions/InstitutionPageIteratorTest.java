@@ -0,0 +1,153 @@
+package no.unit.nva.cristin.institutions;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class InstitutionPageIteratorTest {
+
+    private static final int PER_PAGE = 2;
+    private static final int TOTAL_COUNT = 5;
+    private static final String LANGUAGE = "nb";
+
+    @Test
+    public void testPagesAreFollowedUntilTotalCountAndNextPageIsPrefetched() throws InterruptedException {
+        PagedCristinApiClient client = new PagedCristinApiClient(TOTAL_COUNT, true);
+        InstitutionPageIterator pages = new InstitutionPageIterator(client, Collections.singletonMap("name", "x"),
+                1, PER_PAGE, new ParallelExecutor(1));
+
+        InstitutionPage first = pages.next();
+        assertTrue("second page requested before it is asked for", client.requested.await(2, TimeUnit.SECONDS));
+        List<String> ids = new ArrayList<>(ids(first));
+        while (pages.hasNext()) {
+            ids.addAll(ids(pages.next()));
+        }
+
+        assertEquals(List.of("1", "2", "3", "4", "5"), ids);
+        assertEquals(Integer.valueOf(TOTAL_COUNT), first.getTotalCount().orElseThrow());
+        assertEquals(List.of("1", "2", "3"), client.pages);
+        assertEquals("x", client.lastParameters.get("name"));
+    }
+
+    @Test
+    public void testWithoutHeadersAShortPageIsTheLast() {
+        PagedCristinApiClient client = new PagedCristinApiClient(3, false);
+        InstitutionPageIterator pages = new InstitutionPageIterator(client, Collections.emptyMap(), 1, PER_PAGE,
+                new ParallelExecutor(1));
+
+        pages.next();
+        InstitutionPage last = pages.next();
+
+        assertFalse(last.getTotalCount().isPresent());
+        assertFalse(pages.hasNext());
+    }
+
+    @Test
+    public void testFailedPageIsThrownAsUncheckedIoException() {
+        PagedCristinApiClient client = new PagedCristinApiClient(TOTAL_COUNT, true);
+        client.failingPage = "2";
+        InstitutionPageIterator pages = new InstitutionPageIterator(client, Collections.emptyMap(), 1, PER_PAGE,
+                new ParallelExecutor(1));
+
+        pages.next();
+        try {
+            pages.next();
+            fail("Expected UncheckedIOException");
+        } catch (UncheckedIOException e) {
+            assertFalse(pages.hasNext());
+        }
+    }
+
+    @Test
+    public void testAllResultsAreStreamedEnriched() {
+        FetchCristinInstitutions fetchCristinInstitutions =
+                new FetchCristinInstitutions(new PagedCristinApiClient(250, true));
+
+        List<InstitutionPresentation> institutions = fetchCristinInstitutions.streamAllInstitutions("x", LANGUAGE)
+                .collect(Collectors.toList());
+
+        assertEquals(250, institutions.size());
+        assertEquals("250", institutions.get(249).cristinInstitutionId);
+        assertEquals("ENRICHED", institutions.get(0).acronym);
+    }
+
+    private static List<String> ids(InstitutionPage page) {
+        return page.getInstitutions().stream()
+                .map(institution -> institution.cristinInstitutionId)
+                .collect(Collectors.toList());
+    }
+
+    private static class PagedCristinApiClient extends CristinApiClient {
+
+        private final int totalCount;
+        private final boolean withHeaders;
+        private final List<String> pages = new CopyOnWriteArrayList<>();
+        private final CountDownLatch requested = new CountDownLatch(2);
+        private volatile Map<String, String> lastParameters;
+        private volatile String failingPage;
+
+        PagedCristinApiClient(int totalCount, boolean withHeaders) {
+            this.totalCount = totalCount;
+            this.withHeaders = withHeaders;
+        }
+
+        @Override
+        protected InstitutionPage queryInstitutionsPage(Map<String, String> parameters) throws IOException,
+                URISyntaxException {
+            lastParameters = parameters;
+            pages.add(parameters.get("page"));
+            requested.countDown();
+            return super.queryInstitutionsPage(parameters);
+        }
+
+        @Override
+        protected UpstreamResponse fetchQueryInstitutionsPage(URL url) throws IOException {
+            String query = url.getQuery();
+            int page = Integer.parseInt(query.replaceAll(".*\\bpage=(\\d+).*", "$1"));
+            int perPage = Integer.parseInt(query.replaceAll(".*per_page=(\\d+).*", "$1"));
+            if (Integer.toString(page).equals(failingPage)) {
+                throw new IOException("Unexpected response status 500");
+            }
+            StringBuilder json = new StringBuilder("[");
+            for (int id = (page - 1) * perPage + 1; id <= Math.min(totalCount, page * perPage); id++) {
+                json.append(json.length() > 1 ? "," : "").append("{\"cristin_institution_id\":\"").append(id)
+                        .append("\"}");
+            }
+            json.append(']');
+            Map<String, String> headers = withHeaders
+                    ? Map.of("X-Total-Count", Integer.toString(totalCount))
+                    : Collections.emptyMap();
+            return new UpstreamResponse(200, headers, new InputStreamReader(
+                    new ByteArrayInputStream(json.toString().getBytes(StandardCharsets.UTF_8)),
+                    StandardCharsets.UTF_8));
+        }
+
+        @Override
+        protected Institution getInstitution(String id, String language) {
+            Institution institution = new Institution();
+            institution.cristinInstitutionId = id;
+            institution.acronym = "ENRICHED";
+            return institution;
+        }
+    }
+
+}
@@ -0,0 +1,237 @@
+package no.unit.nva.cristin.institutions;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class InstitutionSearchIndexTest {
+
+    private static final String CRISTIN_QUERY_INSTITUTION_RESPONSE_JSON_FILE = "/cristinQueryInstitutionsResponse.json";
+    private static final int LIMIT = 5;
+    private static final long ONE_DAY_MILLIS = 24 * 3600 * 1000L;
+
+    private InstitutionSearchIndex index() throws IOException {
+        try (InputStreamReader reader = new InputStreamReader(InstitutionSearchIndexTest.class
+                .getResourceAsStream(CRISTIN_QUERY_INSTITUTION_RESPONSE_JSON_FILE), StandardCharsets.UTF_8)) {
+            return new InstitutionSearchIndex(CristinJsonDecoder.getInstance().decodeInstitutions(reader), 0L);
+        }
+    }
+
+    private List<String> ids(List<Institution> institutions) {
+        return institutions.stream().map(institution -> institution.cristinInstitutionId).collect(Collectors.toList());
+    }
+
+    @Test
+    public void testAcronymMatchesAreRankedFirst() throws IOException {
+        List<String> ids = ids(index().search("ntnu", LIMIT));
+
+        assertEquals("194", ids.get(0));
+        assertEquals("43200063", ids.get(1));
+        assertEquals(4, ids.size());
+    }
+
+    @Test
+    public void testAllQueryTokensMustMatchAsPrefixes() throws IOException {
+        List<String> ids = ids(index().search("norw univ", LIMIT));
+
+        assertEquals(1, ids.size());
+        assertEquals("194", ids.get(0));
+    }
+
+    @Test
+    public void testDiacriticsAreFolded() throws IOException {
+        assertEquals("7538", ids(index().search("sof", LIMIT)).get(0));
+        assertEquals("7538", ids(index().search("S\u00d8F", LIMIT)).get(0)); // acronym with o with stroke
+    }
+
+    @Test
+    public void testNamesInAllLanguagesAreIndexed() {
+        Institution institution = new Institution();
+        institution.cristinInstitutionId = "185";
+        Map<String, String> names = new TreeMap<>();
+        names.put("en", "University of Oslo");
+        names.put("nb", "Universitetet i Oslo");
+        institution.institutionName = names;
+        InstitutionSearchIndex index = new InstitutionSearchIndex(List.of(institution), 0L);
+
+        assertEquals(1, index.search("universitetet", LIMIT).size());
+        assertEquals(1, index.search("university", LIMIT).size());
+        assertTrue(index.search("bergen", LIMIT).isEmpty());
+    }
+
+    @Test
+    public void testFuzzySearchToleratesTyposAndSwappedLetters() {
+        InstitutionSearchIndex index = new InstitutionSearchIndex(List.of(
+                institution("185", "Universitetet i Oslo", "UIO"),
+                institution("184", "Universitetet i Bergen", "UIB"),
+                institution("215", "OsloMet - storbyuniversitetet", "OSLOMET")), 0L);
+
+        assertTrue(index.search("Univeristetet i Olso", LIMIT).isEmpty());
+        List<String> ids = ids(index.fuzzySearch("Univeristetet i Olso", LIMIT));
+
+        assertEquals("185", ids.get(0));
+        assertEquals("184", ids.get(1));
+        assertEquals(2, ids.size());
+        assertEquals("184", ids(index.fuzzySearch("bregen", LIMIT)).get(0));
+        assertTrue(index.fuzzySearch("trondheim", LIMIT).isEmpty());
+    }
+
+    @Test
+    public void testEditDistanceCountsAdjacentSwapAsOneEdit() {
+        assertEquals(1, FuzzyTokenIndex.distance("olso", "oslo", 2));
+        assertEquals(2, FuzzyTokenIndex.distance("univeristet", "universitat", 2));
+        assertEquals(3, FuzzyTokenIndex.distance("bergen", "oslo", 2));
+    }
+
+    @Test
+    public void testHandlerFallsBackToFuzzySearchWhenExactSearchFindsNothing() throws IOException {
+        Path snapshot = Files.createTempFile("institutions", ".json");
+        long snapshotTime = 1_000_000L;
+        new InstitutionIndexWriter().write(List.of(institution("185", "Universitetet i Oslo", "UIO")), snapshotTime,
+                snapshot);
+        FetchCristinInstitutions handler = new FetchCristinInstitutions(new CristinApiClient());
+        handler.setInstitutionIndexProvider(new InstitutionIndexProvider(snapshot, ONE_DAY_MILLIS, 0L,
+            () -> snapshotTime + 1));
+        Map<String, String> queryParameters = new HashMap<>();
+        queryParameters.put("name", "Univeristetet i Olso");
+        Map<String, Object> event = new HashMap<>();
+        event.put("queryStringParameters", queryParameters);
+
+        GatewayResponse response = handler.handleRequest(event, null);
+
+        assertEquals(200, response.getStatusCode());
+        assertTrue(response.getBody(), response.getBody().contains("\"cristinInstitutionId\":\"185\""));
+        assertTrue(response.getHeaders().get(RequestTimings.SERVER_TIMING_HEADER).contains("fuzzy;"));
+        queryParameters.put("mode", "approximate");
+        assertEquals(400, handler.handleRequest(event, null).getStatusCode());
+        Files.delete(snapshot);
+    }
+
+    @Test
+    public void testPagesBeyondTheCapAreRejected() throws IOException {
+        Path snapshot = Files.createTempFile("institutions", ".json");
+        long snapshotTime = 1_000_000L;
+        new InstitutionIndexWriter().write(List.of(institution("185", "Universitetet i Oslo", "UIO")), snapshotTime,
+                snapshot);
+        FetchCristinInstitutions handler = new FetchCristinInstitutions(new CristinApiClient());
+        handler.setInstitutionIndexProvider(new InstitutionIndexProvider(snapshot, ONE_DAY_MILLIS, 0L,
+            () -> snapshotTime + 1));
+        Map<String, String> queryParameters = new HashMap<>();
+        queryParameters.put("name", "oslo");
+        queryParameters.put("page", "30000000");
+        queryParameters.put("per_page", "100");
+        Map<String, Object> event = new HashMap<>();
+        event.put("queryStringParameters", queryParameters);
+
+        assertEquals(400, handler.handleRequest(event, null).getStatusCode());
+        queryParameters.put("page", "1000");
+        GatewayResponse lastPage = handler.handleRequest(event, null);
+        assertEquals(200, lastPage.getStatusCode());
+        assertEquals("[]", lastPage.getBody());
+        Files.delete(snapshot);
+    }
+
+    @Test
+    public void testFuzzyModeWithoutIndexIsRejected() {
+        FetchCristinInstitutions handler = new FetchCristinInstitutions(new CristinApiClient());
+        handler.setInstitutionIndexProvider(new InstitutionIndexProvider(null, ONE_DAY_MILLIS, 0L));
+        Map<String, String> queryParameters = new HashMap<>();
+        queryParameters.put("name", "Univeristetet i Olso");
+        queryParameters.put("mode", "fuzzy");
+        Map<String, Object> event = new HashMap<>();
+        event.put("queryStringParameters", queryParameters);
+
+        GatewayResponse response = handler.handleRequest(event, null);
+
+        assertEquals(400, response.getStatusCode());
+        assertTrue(response.getBody(), response.getBody().contains(FetchCristinInstitutions.FUZZY_UNAVAILABLE));
+    }
+
+    @Test
+    public void testRareQueryTokensAreScoredBeforeCommonOnes() {
+        List<Institution> institutions = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            institutions.add(institution(Integer.toString(i), "Universitetet i Tromso " + i, null));
+        }
+        institutions.add(institution("185", "Universitetet i Oslo", "UIO"));
+        InstitutionSearchIndex index = new InstitutionSearchIndex(institutions, 0L);
+
+        assertEquals(List.of("185"), ids(index.fuzzySearch("Univeristetet i Olso", 1)));
+    }
+
+    private static Institution institution(String id, String name, String acronym) {
+        Institution institution = new Institution();
+        institution.cristinInstitutionId = id;
+        institution.institutionName = new TreeMap<>(Map.of("nb", name));
+        institution.acronym = acronym;
+        return institution;
+    }
+
+    @Test
+    public void testProviderOnlyHandsOutFreshIndex() throws IOException {
+        Path snapshot = Files.createTempFile("institutions", ".json");
+        long snapshotTime = 1_000_000L;
+        new InstitutionIndexWriter().write(index().getInstitutions(), snapshotTime, snapshot);
+
+        InstitutionIndexProvider fresh = new InstitutionIndexProvider(snapshot, ONE_DAY_MILLIS, 0L,
+            () -> snapshotTime + 1);
+        InstitutionIndexProvider stale = new InstitutionIndexProvider(snapshot, ONE_DAY_MILLIS, 0L,
+            () -> snapshotTime + 2 * ONE_DAY_MILLIS);
+        InstitutionIndexProvider missing = new InstitutionIndexProvider(null, ONE_DAY_MILLIS, 0L);
+
+        assertEquals(4, fresh.getFreshIndex().get().size());
+        assertFalse(stale.getFreshIndex().isPresent());
+        assertFalse(missing.getFreshIndex().isPresent());
+        Files.delete(snapshot);
+    }
+
+    @Test
+    public void testSnapshotAgeIsTakenFromItsTimestampNotTheFileTime() throws IOException {
+        Path snapshot = Files.createTempFile("institutions", ".json");
+        long crawlTime = System.currentTimeMillis();
+        new InstitutionIndexWriter().write(index().getInstitutions(), crawlTime, snapshot);
+        Files.setLastModifiedTime(snapshot, FileTime.from(Instant.parse("1980-01-01T00:00:00Z")));
+
+        InstitutionIndexProvider provider = new InstitutionIndexProvider(snapshot, ONE_DAY_MILLIS, ONE_DAY_MILLIS);
+        provider.load();
+
+        assertEquals(crawlTime, provider.getFreshIndex().get().getSnapshotTimestamp());
+        Files.delete(snapshot);
+    }
+
+    @Test
+    public void testMissingSnapshotIsNotAnErrorButAnUnreadableOneIs() throws IOException {
+        Path snapshot = Files.createTempFile("institutions", ".json");
+        Files.delete(snapshot);
+        InstitutionIndexProvider missing = new InstitutionIndexProvider(snapshot, ONE_DAY_MILLIS, ONE_DAY_MILLIS);
+        missing.load();
+        assertFalse(missing.getFreshIndex().isPresent());
+
+        Files.write(snapshot, "[]".getBytes(StandardCharsets.UTF_8));
+        try {
+            new InstitutionIndexProvider(snapshot, ONE_DAY_MILLIS, ONE_DAY_MILLIS).load();
+            fail("a JSON array without timestamp is rejected");
+        } catch (IOException expected) {
+            assertTrue(expected.getMessage().startsWith("Not an institution index snapshot"));
+        } finally {
+            Files.delete(snapshot);
+        }
+    }
+}
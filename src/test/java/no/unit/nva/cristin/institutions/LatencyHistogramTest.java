@@ -0,0 +1,56 @@
+package no.unit.nva.cristin.institutions;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class LatencyHistogramTest {
+
+    private static final double RELATIVE_ERROR = 0.25;
+
+    @Test
+    public void testPercentilesAreWithinBucketError() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int millis = 1; millis <= 100; millis++) {
+            histogram.record(TimeUnit.MILLISECONDS.toNanos(millis));
+        }
+
+        assertEquals(100, histogram.getCount());
+        assertEquals(50.5, histogram.getMeanMillis(), 0.001);
+        assertWithinBucketError(50, histogram.getPercentileMillis(50));
+        assertWithinBucketError(90, histogram.getPercentileMillis(90));
+        assertWithinBucketError(100, histogram.getPercentileMillis(100));
+    }
+
+    @Test
+    public void testEmptyHistogramReportsZero() {
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        assertEquals(0, histogram.getPercentileMillis(99), 0);
+        assertEquals(0, histogram.getMeanMillis(), 0);
+    }
+
+    @Test
+    public void testWindowedHistogramForgetsObservationsOlderThanTwoWindows() {
+        WindowedLatencyHistogram histogram = new WindowedLatencyHistogram(10);
+        for (int i = 0; i < 1000; i++) {
+            histogram.record(TimeUnit.MILLISECONDS.toNanos(1000));
+        }
+        for (int i = 0; i < 20; i++) {
+            histogram.record(TimeUnit.MILLISECONDS.toNanos(10));
+        }
+
+        assertEquals(10, histogram.getCount());
+        assertWithinBucketError(10, histogram.getPercentileMillis(95));
+    }
+
+    private void assertWithinBucketError(double expectedMillis, double actualMillis) {
+        assertTrue(actualMillis + " is not an upper bound of " + expectedMillis, actualMillis >= expectedMillis);
+        assertTrue(actualMillis + " is too far from " + expectedMillis,
+                actualMillis <= expectedMillis * (1 + RELATIVE_ERROR));
+    }
+
+}
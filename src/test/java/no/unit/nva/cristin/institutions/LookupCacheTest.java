@@ -0,0 +1,74 @@
+package no.unit.nva.cristin.institutions;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class LookupCacheTest {
+
+    private static final LookupKey NTNU_NB = new LookupKey("194", "nb");
+    private static final LookupKey NTNU_EN = new LookupKey("194", "en");
+    private static final LookupKey UIO_NB = new LookupKey("185", "nb");
+    private static final String NTNU = "NTNU";
+    private static final String UIO = "UiO";
+    private static final long TTL_MILLIS = 1000L;
+
+    @Test
+    public void testRepeatedLookupIsServedFromCache() throws IOException, URISyntaxException {
+        LookupCache<LookupKey, String> cache = new LookupCache<>(10, TTL_MILLIS);
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.get(NTNU_NB, () -> countedLoad(loads, NTNU));
+        String cached = cache.get(NTNU_NB, () -> countedLoad(loads, NTNU));
+
+        assertEquals(NTNU, cached);
+        assertEquals(1, loads.get());
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+    }
+
+    @Test
+    public void testLanguageIsPartOfKey() {
+        LookupCache<LookupKey, String> cache = new LookupCache<>(10, TTL_MILLIS);
+        cache.put(NTNU_NB, NTNU);
+
+        assertNull(cache.getIfPresent(NTNU_EN));
+    }
+
+    @Test
+    public void testEntryExpiresAfterTtl() {
+        AtomicLong now = new AtomicLong();
+        LookupCache<LookupKey, String> cache = new LookupCache<>(10, TTL_MILLIS, now::get);
+        cache.put(NTNU_NB, NTNU);
+
+        now.set(TTL_MILLIS);
+
+        assertNull(cache.getIfPresent(NTNU_NB));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedEntryIsEvicted() {
+        LookupCache<LookupKey, String> cache = new LookupCache<>(2, TTL_MILLIS);
+        cache.put(NTNU_NB, NTNU);
+        cache.put(NTNU_EN, NTNU);
+        cache.getIfPresent(NTNU_NB);
+
+        cache.put(UIO_NB, UIO);
+
+        assertEquals(NTNU, cache.getIfPresent(NTNU_NB));
+        assertNull(cache.getIfPresent(NTNU_EN));
+        assertEquals(1, cache.getEvictionCount());
+    }
+
+    private String countedLoad(AtomicInteger loads, String value) {
+        loads.incrementAndGet();
+        return value;
+    }
+}
@@ -0,0 +1,117 @@
+package no.unit.nva.cristin.institutions;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class NegativeCacheTest {
+
+    private static final String UNIT_PATH = "/v2/units/";
+    private static final String KNOWN_ID = "194.0.0.0";
+    private static final String UNKNOWN_ID = "999.0.0.0";
+    private static final String LANGUAGE = "nb";
+    private static final String BODY = "{\"cristin_unit_id\":\"194.0.0.0\",\"unit_name\":{\"nb\":\"NTNU\"}}";
+
+    private final AtomicLong clock = new AtomicLong(1_000_000L);
+    private final AtomicInteger unknownRequests = new AtomicInteger();
+    private HttpServer server;
+    private CachingCristinApiClient cachingClient;
+
+    @Before
+    public void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(0), 0);
+        server.createContext(UNIT_PATH, this::serveUnit);
+        server.start();
+        CristinApiClient stubbedClient = new CristinApiClient(new HttpTransport(Config.getInstance())) {
+            @Override
+            protected URL generateGetUnitUrl(String id, String language) throws MalformedURLException {
+                return new URL("http://localhost:" + server.getAddress().getPort() + UNIT_PATH + id);
+            }
+        };
+        cachingClient = new CachingCristinApiClient(stubbedClient, Config.getInstance(), Optional.empty(),
+                clock::get);
+    }
+
+    @After
+    public void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    public void testUnknownIdIsAnsweredFromNegativeCacheUntilItExpires() throws Exception {
+        assertNotFound();
+        GatewayResponse response = new GatewayResponse();
+        RequestTimings timings = RequestTimings.start("NegativeCacheTest");
+        assertNotFound();
+        timings.finish(response);
+
+        assertEquals(1, unknownRequests.get());
+        String serverTiming = response.getHeaders().get(RequestTimings.SERVER_TIMING_HEADER);
+        assertTrue(serverTiming, serverTiming.contains("negative-hit=1"));
+
+        clock.addAndGet(TimeUnit.SECONDS.toMillis(Config.getInstance().getNegativeCacheTtlSeconds()) + 1);
+        assertNotFound();
+        assertEquals(2, unknownRequests.get());
+        assertEquals(KNOWN_ID, cachingClient.getUnit(KNOWN_ID, LANGUAGE).cristinUnitId);
+    }
+
+    @Test
+    public void testUnitHandlerReturnsNotFoundForUnknownId() {
+        FetchCristinUnit handler = new FetchCristinUnit(cachingClient);
+        Map<String, String> pathParameters = new HashMap<>();
+        pathParameters.put("id", UNKNOWN_ID);
+        Map<String, Object> event = new HashMap<>();
+        event.put("pathParameters", pathParameters);
+
+        GatewayResponse first = handler.handleRequest(event, null);
+        GatewayResponse second = handler.handleRequest(event, null);
+
+        assertEquals(404, first.getStatusCode());
+        assertEquals(404, second.getStatusCode());
+        assertTrue(second.getBody().contains(FetchCristinUnit.UNIT_NOT_FOUND));
+        assertEquals(1, unknownRequests.get());
+    }
+
+    private void assertNotFound() throws Exception {
+        try {
+            cachingClient.getUnit(UNKNOWN_ID, LANGUAGE);
+            fail("Expected the unit to be unknown");
+        } catch (UpstreamStatusException e) {
+            assertTrue(e.isNotFound());
+        }
+    }
+
+    private void serveUnit(HttpExchange exchange) throws IOException {
+        if (!exchange.getRequestURI().getPath().endsWith(KNOWN_ID)) {
+            unknownRequests.incrementAndGet();
+            exchange.sendResponseHeaders(404, -1);
+            exchange.close();
+            return;
+        }
+        byte[] body = BODY.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream responseBody = exchange.getResponseBody()) {
+            responseBody.write(body);
+        }
+    }
+
+}
@@ -0,0 +1,89 @@
+package no.unit.nva.cristin.institutions;
+
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+
+public class PresentationJsonEncoderTest {
+
+    private static final String CRISTIN_QUERY_INSTITUTION_RESPONSE_JSON_FILE = "/cristinQueryInstitutionsResponse.json";
+    private static final String CRISTIN_GET_UNIT_WITH_SUBUNITS_RESPONSE_JSON_FILE =
+            "/cristinGetUnitWithSubunitsFirstResponse.json";
+    private static final String CRISTIN_GET_UNIT_WITHOUT_SUBUNITS_RESPONSE_JSON_FILE =
+            "/cristinGetUnitWithoutSubunitsResponse.json";
+    private static final String SPECIAL_CHARACTERS = "Forskning & <utvikling> 'As' = \"sor\" \\\t";
+    private static final String LANGUAGE_NB = "nb";
+
+    private final CristinJsonDecoder decoder = CristinJsonDecoder.getInstance();
+    private final PresentationConverter presentationConverter = new PresentationConverter();
+    private final PresentationJsonEncoder encoder = PresentationJsonEncoder.getInstance();
+
+    @Test
+    public void testInstitutionsAreEncodedAsGsonWould() throws IOException {
+        List<InstitutionPresentation> institutions = decoder
+                .decodeInstitutions(reader(CRISTIN_QUERY_INSTITUTION_RESPONSE_JSON_FILE)).stream()
+                .map(presentationConverter::asInstitutionPresentation)
+                .collect(Collectors.toList());
+
+        assertEquals(gsonInstitutions(institutions), encoder.toJson(institutions));
+    }
+
+    @Test
+    public void testUnitsAreEncodedAsGsonWould() throws IOException {
+        for (String file : new String[]{CRISTIN_GET_UNIT_WITH_SUBUNITS_RESPONSE_JSON_FILE,
+            CRISTIN_GET_UNIT_WITHOUT_SUBUNITS_RESPONSE_JSON_FILE}) {
+            UnitPresentation unit = presentationConverter.asUnitPresentation(decoder.decodeUnit(reader(file)));
+
+            assertEquals(new Gson().toJson(unit, UnitPresentation.class), encoder.toJson(unit));
+        }
+    }
+
+    @Test
+    public void testNullFieldsAndSpecialCharactersAreEncodedAsGsonWould() {
+        InstitutionPresentation institution = new InstitutionPresentation();
+        institution.acronym = SPECIAL_CHARACTERS;
+        institution.institutionNames.add(namePresentation(SPECIAL_CHARACTERS));
+        institution.institutionNames.add(namePresentation(null));
+        List<InstitutionPresentation> institutions = new ArrayList<>();
+        institutions.add(institution);
+        institutions.add(new InstitutionPresentation());
+
+        assertEquals(gsonInstitutions(institutions), encoder.toJson(institutions));
+    }
+
+    @Test
+    public void testEmptyUnitIsEncodedAsGsonWould() {
+        UnitPresentation unit = new UnitPresentation();
+        unit.unitNames = null;
+        unit.subunits.add(new SubunitPresentation());
+        unit.parentUnit = new ParentUnitPresentation();
+        unit.institution = new UnitInstitutionPresentation();
+
+        assertEquals(new Gson().toJson(unit, UnitPresentation.class), encoder.toJson(unit));
+    }
+
+    private String gsonInstitutions(List<InstitutionPresentation> institutions) {
+        return new Gson().toJson(institutions, new TypeToken<ArrayList<InstitutionPresentation>>(){}.getType());
+    }
+
+    private NamePresentation namePresentation(String name) {
+        NamePresentation namePresentation = new NamePresentation();
+        namePresentation.name = name;
+        namePresentation.language = LANGUAGE_NB;
+        return namePresentation;
+    }
+
+    private InputStreamReader reader(String file) {
+        return new InputStreamReader(PresentationJsonEncoderTest.class.getResourceAsStream(file),
+                StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,102 @@
+package no.unit.nva.cristin.institutions;
+
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class RequestTimingsTest {
+
+    private static final String HANDLER = "TestHandler";
+    private static final Pattern SERVER_TIMING = Pattern.compile("params;dur=\\d+\\.\\d{2}, "
+            + "cristin-unit;dur=\\d+\\.\\d{2};desc=\"2 calls\", "
+            + "upstream;desc=\"200=1 error=1 1234B\", "
+            + "cache;desc=\"hit=1 miss=2\", "
+            + "total;dur=\\d+\\.\\d{2}");
+
+    @Test
+    public void testFinishAddsServerTimingHeaderAndUnbindsRecord() {
+        RequestTimings timings = RequestTimings.start(HANDLER);
+        assertSame(timings, RequestTimings.current());
+
+        timings.stage("params").close();
+        timings.stage("cristin-unit").close();
+        timings.stage("cristin-unit").close();
+        timings.recordUpstream(200, 1234);
+        timings.recordUpstream(null, 0);
+        timings.recordCache(RequestTimings.CACHE_MISS);
+        timings.recordCache(RequestTimings.CACHE_HIT);
+        timings.recordCache(RequestTimings.CACHE_MISS);
+
+        GatewayResponse response = new GatewayResponse("{}", 200);
+        timings.finish(response);
+
+        String header = response.getHeaders().get(RequestTimings.SERVER_TIMING_HEADER);
+        assertTrue(header, SERVER_TIMING.matcher(header).matches());
+        assertNotSame(timings, RequestTimings.current());
+    }
+
+    @Test
+    public void testWrappedTaskReportsToCallingThreadsRecord() {
+        RequestTimings timings = RequestTimings.start(HANDLER);
+        ParallelExecutor parallelExecutor = new ParallelExecutor(2);
+
+        List<String> results = parallelExecutor.mapInOrder(List.of("a", "b", "c"), item -> {
+            RequestTimings.current().recordCache(RequestTimings.CACHE_HIT);
+            return item;
+        });
+        timings.finish(new GatewayResponse("{}", 200));
+
+        assertEquals(List.of("a", "b", "c"), results);
+        assertEquals(Map.of(RequestTimings.CACHE_HIT, 3), timings.getCacheOutcomes());
+    }
+
+    @Test
+    public void testTimedCallIsRecordedWhetherItReturnsOrThrows() {
+        RequestTimings timings = RequestTimings.start(HANDLER);
+
+        assertEquals("result", timings.time("convert", () -> "result"));
+        try {
+            timings.time("params", () -> {
+                throw new IllegalArgumentException();
+            });
+        } catch (IllegalArgumentException expected) {
+            // recorded below
+        }
+        timings.finish(new GatewayResponse("{}", 200));
+
+        assertEquals(List.of("convert", "params"), List.copyOf(timings.getStageNanos().keySet()));
+    }
+
+    @Test
+    public void testReportsOutsideRequestAreIgnored() {
+        RequestTimings timings = RequestTimings.current();
+        timings.recordCache(RequestTimings.CACHE_HIT);
+        timings.stage("params").close();
+
+        assertEquals(Collections.emptyMap(), timings.getCacheOutcomes());
+        assertEquals(Collections.emptyMap(), timings.getStageNanos());
+    }
+
+    @Test
+    public void testMetricLineIsEmbeddedMetricFormat() throws Exception {
+        RequestTimings timings = RequestTimings.start(HANDLER);
+        timings.recordUpstream(503, 10);
+        timings.finish(new GatewayResponse("{}", 500));
+
+        String line = MetricsLog.getInstance().toMetricLine(timings, 500, 1L);
+
+        assertTrue(line, line.startsWith("{\"_aws\":{\"Timestamp\":1,\"CloudWatchMetrics\":[{\"Namespace\":\""
+                + MetricsLog.NAMESPACE + "\",\"Dimensions\":[[\"handler\"]]"));
+        assertTrue(line, line.contains("\"handler\":\"" + HANDLER + "\",\"statusCode\":500"));
+        assertTrue(line, line.contains("\"upstreamCalls\":1,\"upstreamErrors\":1,\"upstreamBytes\":10"));
+    }
+
+}
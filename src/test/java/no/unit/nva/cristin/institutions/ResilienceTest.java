@@ -0,0 +1,240 @@
+package no.unit.nva.cristin.institutions;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.MalformedURLException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ResilienceTest {
+
+    private static final String UNIT_PATH = "/v2/units/";
+    private static final String UNIT_ID = "194.0.0.0";
+    private static final String LANGUAGE = "nb";
+    private static final String BODY = "{\"cristin_unit_id\":\"194.0.0.0\"}";
+    private static final long SLOW_MILLIS = 3000;
+    private static final int WARM_UP_CALLS = 30;
+
+    private final AtomicInteger requests = new AtomicInteger();
+    private final AtomicBoolean slowNext = new AtomicBoolean();
+    private final AtomicBoolean failing = new AtomicBoolean();
+    private final AtomicBoolean clientBroken = new AtomicBoolean();
+    private final AtomicLong clock = new AtomicLong(1_000_000L);
+    private HttpServer server;
+    private ResilientCristinApiClient resilientClient;
+
+    @Before
+    public void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(0), 0);
+        server.createContext(UNIT_PATH, this::serveUnit);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+        CristinApiClient stubbedClient = new CristinApiClient(new HttpTransport(Config.getInstance())) {
+            @Override
+            protected URL generateGetUnitUrl(String id, String language) throws MalformedURLException {
+                if (clientBroken.get()) {
+                    throw new IllegalStateException("broken client");
+                }
+                return new URL("http://localhost:" + server.getAddress().getPort() + UNIT_PATH + id);
+            }
+        };
+        resilientClient = new ResilientCristinApiClient(stubbedClient, Config.getInstance(), clock::get);
+    }
+
+    @After
+    public void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    public void testSlowLookupIsHedgedAndFasterAnswerIsUsed() throws Exception {
+        for (int i = 0; i < WARM_UP_CALLS; i++) {
+            resilientClient.getUnit(UNIT_ID, LANGUAGE);
+        }
+        int warmUpRequests = requests.get();
+        slowNext.set(true);
+
+        GatewayResponse response = new GatewayResponse();
+        RequestTimings timings = RequestTimings.start("ResilienceTest");
+        long started = System.nanoTime();
+        Unit unit = resilientClient.getUnit(UNIT_ID, LANGUAGE);
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+        timings.finish(response);
+
+        assertEquals(UNIT_ID, unit.cristinUnitId);
+        assertTrue("took " + elapsedMillis + " ms", elapsedMillis < SLOW_MILLIS);
+        assertEquals(warmUpRequests + 2, requests.get());
+        String serverTiming = response.getHeaders().get(RequestTimings.SERVER_TIMING_HEADER);
+        assertTrue(serverTiming, serverTiming.contains("hedge-sent=1") && serverTiming.contains("hedge-won=1"));
+    }
+
+    @Test
+    public void testHedgeBudgetSavesUpOnlyAFewHedges() {
+        HedgeBudget budget = new HedgeBudget(10, 2);
+        for (int i = 0; i < 10_000; i++) {
+            budget.recordLookup();
+        }
+
+        int hedges = 0;
+        for (int i = 0; i < 100; i++) {
+            budget.recordLookup();
+            if (budget.tryAcquire()) {
+                hedges++;
+            }
+        }
+
+        assertEquals("the 2 saved up, then one per 10 lookups", 11, hedges);
+    }
+
+    @Test
+    public void testCircuitOpensOnServerErrorsAndClosesAfterTrialCall() throws Exception {
+        failing.set(true);
+        int windowSize = Config.getInstance().getCircuitWindowSize();
+        for (int i = 0; i < windowSize; i++) {
+            try {
+                resilientClient.getUnit(UNIT_ID, LANGUAGE);
+                fail("Expected the stub to fail");
+            } catch (UpstreamStatusException e) {
+                assertEquals(503, e.getStatusCode());
+            }
+        }
+        assertEquals(CircuitBreaker.State.OPEN, resilientClient.getCircuitBreaker().getState());
+        int sent = requests.get();
+        try {
+            resilientClient.getUnit(UNIT_ID, LANGUAGE);
+            fail("Expected the circuit to be open");
+        } catch (CircuitOpenException e) {
+            assertEquals(sent, requests.get());
+        }
+
+        failing.set(false);
+        clock.addAndGet(TimeUnit.SECONDS.toMillis(Config.getInstance().getCircuitOpenSeconds()));
+        assertEquals(UNIT_ID, resilientClient.getUnit(UNIT_ID, LANGUAGE).cristinUnitId);
+        assertEquals(CircuitBreaker.State.CLOSED, resilientClient.getCircuitBreaker().getState());
+    }
+
+    @Test
+    public void testTrialCallFailingInClientLetsNextCallTry() throws Exception {
+        openCircuit();
+        clock.addAndGet(TimeUnit.SECONDS.toMillis(Config.getInstance().getCircuitOpenSeconds()));
+        clientBroken.set(true);
+        try {
+            resilientClient.getUnit(UNIT_ID, LANGUAGE);
+            fail("Expected the client to fail");
+        } catch (IllegalStateException e) {
+            assertEquals(CircuitBreaker.State.HALF_OPEN, resilientClient.getCircuitBreaker().getState());
+        }
+
+        clientBroken.set(false);
+        failing.set(false);
+        assertEquals(UNIT_ID, resilientClient.getUnit(UNIT_ID, LANGUAGE).cristinUnitId);
+        assertEquals(CircuitBreaker.State.CLOSED, resilientClient.getCircuitBreaker().getState());
+    }
+
+    @Test
+    public void testCallsCutOffByDeadlineDoNotOpenCircuit() throws Exception {
+        failing.set(true);
+        RequestTimings timings = RequestTimings.start("ResilienceTest", Deadline.in(0));
+        try {
+            for (int i = 0; i < Config.getInstance().getCircuitWindowSize(); i++) {
+                try {
+                    resilientClient.getUnit(UNIT_ID, LANGUAGE);
+                    fail("Expected the deadline to be exceeded");
+                } catch (DeadlineExceededException e) {
+                    assertEquals(CircuitBreaker.State.CLOSED, resilientClient.getCircuitBreaker().getState());
+                }
+            }
+        } finally {
+            timings.finish(new GatewayResponse());
+        }
+        assertEquals(CircuitBreaker.State.CLOSED, resilientClient.getCircuitBreaker().getState());
+    }
+
+    @Test
+    public void testCircuitStateChangesAreReportedToRequestMetrics() throws Exception {
+        RequestTimings timings = RequestTimings.start("ResilienceTest");
+        openCircuit();
+        timings.finish(new GatewayResponse());
+
+        assertEquals(Integer.valueOf(1), timings.getUpstreamEvents().get(RequestTimings.CIRCUIT_OPENED));
+        String metricLine = MetricsLog.getInstance().toMetricLine(timings, 200, 0L);
+        assertTrue(metricLine, metricLine.contains("\"upstream_circuit-opened\":1"));
+    }
+
+    @Test
+    public void testOpenCircuitFallsBackToStaleCacheEntry() throws Exception {
+        CachingCristinApiClient cachingClient = new CachingCristinApiClient(resilientClient, Config.getInstance(),
+                Optional.empty(), clock::get);
+        Unit cached = cachingClient.getUnit(UNIT_ID, LANGUAGE);
+        failing.set(true);
+        for (int i = 0; i < Config.getInstance().getCircuitWindowSize(); i++) {
+            try {
+                resilientClient.getUnit(UNIT_ID, LANGUAGE);
+            } catch (IOException e) {
+                assertTrue(e instanceof UpstreamStatusException || e instanceof CircuitOpenException);
+            }
+        }
+        assertEquals(CircuitBreaker.State.OPEN, resilientClient.getCircuitBreaker().getState());
+        clock.addAndGet(TimeUnit.SECONDS.toMillis(Config.getInstance().getCacheTtlSeconds()
+                + Config.getInstance().getCacheStaleWhileRevalidateSeconds()) + 1);
+        int sent = requests.get();
+
+        assertSame(cached, cachingClient.getUnit(UNIT_ID, LANGUAGE));
+        assertSame(cached, cachingClient.getUnit(UNIT_ID, LANGUAGE));
+        assertEquals("only the half-open trial call reaches Cristin", sent + 1, requests.get());
+    }
+
+    private void openCircuit() throws URISyntaxException {
+        failing.set(true);
+        for (int i = 0; i < Config.getInstance().getCircuitWindowSize(); i++) {
+            try {
+                resilientClient.getUnit(UNIT_ID, LANGUAGE);
+                fail("Expected the stub to fail");
+            } catch (IOException e) {
+                assertTrue(e instanceof UpstreamStatusException);
+            }
+        }
+        assertEquals(CircuitBreaker.State.OPEN, resilientClient.getCircuitBreaker().getState());
+    }
+
+    private void serveUnit(HttpExchange exchange) throws IOException {
+        requests.incrementAndGet();
+        if (failing.get()) {
+            exchange.sendResponseHeaders(503, -1);
+            exchange.close();
+            return;
+        }
+        if (slowNext.compareAndSet(true, false)) {
+            try {
+                Thread.sleep(SLOW_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        byte[] body = BODY.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream responseBody = exchange.getResponseBody()) {
+            responseBody.write(body);
+        }
+    }
+
+}
@@ -0,0 +1,121 @@
+package no.unit.nva.cristin.institutions;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ResponseCacheTest {
+
+    private static final String UNIT_ID = "194.0.0.0";
+    private static final long TTL_MILLIS = TimeUnit.MINUTES.toMillis(5);
+
+    private final AtomicLong clock = new AtomicLong(1_000_000L);
+
+    @Test
+    public void testRepeatedUnitRequestIsServedFromResponseCache() {
+        CountingCristinApiClient client = new CountingCristinApiClient();
+        FetchCristinUnit handler = new FetchCristinUnit(client);
+        handler.setResponseCache(new ResponseCache(Config.DEFAULT_RESPONSE_CACHE_MAX_BYTES, TTL_MILLIS));
+
+        GatewayResponse first = handler.handleRequest(unitEvent(null, null), null);
+        GatewayResponse second = handler.handleRequest(unitEvent("nb", null), null);
+        String entityTag = first.getHeaders().get(GatewayResponse.ETAG_HEADER);
+        GatewayResponse conditional = handler.handleRequest(unitEvent("nb", entityTag), null);
+
+        assertEquals(1, client.calls.get());
+        assertEquals(200, second.getStatusCode());
+        assertEquals(first.getBody(), second.getBody());
+        assertEquals(entityTag, second.getHeaders().get(GatewayResponse.ETAG_HEADER));
+        String serverTiming = second.getHeaders().get(RequestTimings.SERVER_TIMING_HEADER);
+        assertTrue(serverTiming, serverTiming.contains("response-hit=1"));
+        assertEquals(304, conditional.getStatusCode());
+        assertEquals("", conditional.getBody());
+
+        handler.handleRequest(unitEvent("en", null), null);
+        assertEquals("another language is another entry", 2, client.calls.get());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedResponsesAreEvictedOverByteBudget() {
+        GatewayResponse response = new GatewayResponse(repeat('x', 1000), 200);
+        ResponseCache probe = new ResponseCache(Long.MAX_VALUE, TTL_MILLIS, clock::get);
+        probe.put("a", response);
+        long entryBytes = probe.getBytes();
+        ResponseCache cache = new ResponseCache(entryBytes * 2, TTL_MILLIS, clock::get);
+
+        cache.put("a", response);
+        cache.put("b", response);
+        assertTrue(cache.get("a").isPresent());
+        cache.put("c", response);
+
+        assertTrue(cache.get("a").isPresent());
+        assertFalse(cache.get("b").isPresent());
+        assertTrue(cache.get("c").isPresent());
+        assertEquals(1, cache.getEvictionCount());
+        assertEquals(entryBytes * 2, cache.getBytes());
+
+        clock.addAndGet(TTL_MILLIS);
+        assertFalse(cache.get("a").isPresent());
+        assertEquals(entryBytes, cache.getBytes());
+    }
+
+    @Test
+    public void testErrorsAndOversizedResponsesAreNotCached() {
+        ResponseCache cache = new ResponseCache(1024, TTL_MILLIS, clock::get);
+
+        cache.put("error", new GatewayResponse("{}", 500));
+        cache.put("large", new GatewayResponse(repeat('x', 1024), 200));
+
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.getBytes());
+    }
+
+    private static String repeat(char character, int count) {
+        StringBuilder builder = new StringBuilder(count);
+        for (int i = 0; i < count; i++) {
+            builder.append(character);
+        }
+        return builder.toString();
+    }
+
+    private static Map<String, Object> unitEvent(String language, String ifNoneMatch) {
+        Map<String, String> pathParameters = new HashMap<>();
+        pathParameters.put("id", UNIT_ID);
+        Map<String, Object> event = new HashMap<>();
+        event.put("pathParameters", pathParameters);
+        if (language != null) {
+            Map<String, String> queryParameters = new HashMap<>();
+            queryParameters.put("language", language);
+            event.put("queryStringParameters", queryParameters);
+        }
+        if (ifNoneMatch != null) {
+            Map<String, String> headers = new HashMap<>();
+            headers.put(GatewayResponse.IF_NONE_MATCH_HEADER, ifNoneMatch);
+            event.put("headers", headers);
+        }
+        return event;
+    }
+
+    private static class CountingCristinApiClient extends CristinApiClient {
+
+        private final AtomicInteger calls = new AtomicInteger();
+
+        @Override
+        protected Unit getUnit(String id, String language) throws IOException {
+            calls.incrementAndGet();
+            Unit unit = new Unit();
+            unit.cristinUnitId = id;
+            return unit;
+        }
+    }
+
+}
@@ -0,0 +1,159 @@
+package no.unit.nva.cristin.institutions;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class SingleFlightTest {
+
+    private static final LookupKey NTNU_NB = new LookupKey("194", "nb");
+    private static final String NTNU = "NTNU";
+    private static final String MOCK_EXCEPTION = "Mock exception";
+    private static final int CALLERS = 4;
+    private static final String HANDLER = "TestHandler";
+
+    @Test
+    public void testConcurrentCallersShareOneLoad() throws Exception {
+        SingleFlight<LookupKey, String> singleFlight = new SingleFlight<>();
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+
+        List<Future<String>> results = runConcurrently(singleFlight, () -> {
+            loads.incrementAndGet();
+            release.await(1, TimeUnit.SECONDS);
+            return NTNU;
+        }, release);
+
+        for (Future<String> result : results) {
+            assertEquals(NTNU, result.get());
+        }
+        assertEquals(1, loads.get());
+        assertEquals(CALLERS - 1, singleFlight.getDeduplicatedCount());
+    }
+
+    @Test
+    public void testConcurrentCallersShareFailure() throws Exception {
+        SingleFlight<LookupKey, String> singleFlight = new SingleFlight<>();
+        CountDownLatch release = new CountDownLatch(1);
+
+        List<Future<String>> results = runConcurrently(singleFlight, () -> {
+            release.await(1, TimeUnit.SECONDS);
+            throw new IOException(MOCK_EXCEPTION);
+        }, release);
+
+        for (Future<String> result : results) {
+            try {
+                result.get();
+                fail();
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof IOException);
+            }
+        }
+    }
+
+    @Test
+    public void testCoalescedCallsAreCountedInMetricLine() throws Exception {
+        SingleFlight<LookupKey, String> singleFlight = new SingleFlight<>();
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executorService = Executors.newSingleThreadExecutor();
+        Future<String> leader = executorService.submit(() -> singleFlight.execute(NTNU_NB, () -> {
+            loading.countDown();
+            try {
+                release.await(1, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                throw new IOException(e);
+            }
+            return NTNU;
+        }));
+        executorService.shutdown();
+        loading.await(1, TimeUnit.SECONDS);
+
+        RequestTimings timings = RequestTimings.start(HANDLER);
+        Thread releaser = new Thread(() -> {
+            while (singleFlight.getDeduplicatedCount() < 1) {
+                Thread.onSpinWait();
+            }
+            release.countDown();
+        });
+        releaser.start();
+        assertEquals(NTNU, singleFlight.execute(NTNU_NB, () -> "second load"));
+        timings.finish(new GatewayResponse("{}", 200));
+
+        assertEquals(NTNU, leader.get());
+        String line = MetricsLog.getInstance().toMetricLine(timings, 200, 1L);
+        assertTrue(line, line.contains("\"cache_coalesced\":1"));
+    }
+
+    @Test
+    public void testCallerStopsWaitingAtItsDeadline() throws Exception {
+        SingleFlight<LookupKey, String> singleFlight = new SingleFlight<>();
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executorService = Executors.newSingleThreadExecutor();
+        Future<String> leader = executorService.submit(() -> singleFlight.execute(NTNU_NB, () -> {
+            loading.countDown();
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                throw new IOException(e);
+            }
+            return NTNU;
+        }));
+        executorService.shutdown();
+        loading.await(1, TimeUnit.SECONDS);
+
+        RequestTimings timings = RequestTimings.start(HANDLER, Deadline.in(100));
+        long started = System.nanoTime();
+        try {
+            singleFlight.execute(NTNU_NB, () -> "second load");
+            fail("the follower gives up at its deadline");
+        } catch (DeadlineExceededException expected) {
+            assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started) < 2000);
+        } finally {
+            timings.finish(new GatewayResponse("{}", 200));
+            release.countDown();
+        }
+        assertEquals(NTNU, leader.get());
+    }
+
+    private List<Future<String>> runConcurrently(SingleFlight<LookupKey, String> singleFlight,
+                                                 InterruptibleLoader loader,
+                                                 CountDownLatch release) throws InterruptedException {
+        ExecutorService executorService = Executors.newFixedThreadPool(CALLERS);
+        List<Future<String>> results = new ArrayList<>();
+        for (int i = 0; i < CALLERS; i++) {
+            results.add(executorService.submit(() -> singleFlight.execute(NTNU_NB, () -> {
+                try {
+                    return loader.load();
+                } catch (InterruptedException e) {
+                    throw new IOException(e);
+                }
+            })));
+        }
+        while (singleFlight.getDeduplicatedCount() < CALLERS - 1) {
+            Thread.sleep(1);
+        }
+        release.countDown();
+        executorService.shutdown();
+        return results;
+    }
+
+    private interface InterruptibleLoader {
+
+        String load() throws IOException, InterruptedException;
+    }
+}
@@ -0,0 +1,155 @@
+package no.unit.nva.cristin.institutions;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class StaleCacheTest {
+
+    private static final String UNIT_ID = "194.0.0.0";
+    private static final String LANGUAGE = "nb";
+    private static final long TTL = TimeUnit.SECONDS.toMillis(Config.getInstance().getCacheTtlSeconds());
+    private static final long STALE_WHILE_REVALIDATE =
+            TimeUnit.SECONDS.toMillis(Config.getInstance().getCacheStaleWhileRevalidateSeconds());
+    private static final long STALE_IF_ERROR =
+            TimeUnit.SECONDS.toMillis(Config.getInstance().getCacheStaleIfErrorSeconds());
+
+    private final AtomicLong clock = new AtomicLong(1_000_000L);
+    private final FlakyCristinApiClient upstream = new FlakyCristinApiClient();
+    private final CachingCristinApiClient cachingClient = new CachingCristinApiClient(upstream, Config.getInstance(),
+            Optional.empty(), clock::get);
+
+    @Test
+    public void testExpiredEntryIsServedWhileRefreshedInBackground() throws Exception {
+        Unit first = cachingClient.getUnit(UNIT_ID, LANGUAGE);
+        clock.addAndGet(TTL + STALE_WHILE_REVALIDATE / 2);
+        upstream.refreshed = new CountDownLatch(1);
+
+        GatewayResponse response = new GatewayResponse();
+        RequestTimings timings = RequestTimings.start("StaleCacheTest");
+        Unit stale = cachingClient.getUnit(UNIT_ID, LANGUAGE);
+        timings.finish(response);
+
+        assertSame(first, stale);
+        assertTrue(upstream.refreshed.await(5, TimeUnit.SECONDS));
+        assertTrue(response.getHeaders().containsKey(RequestTimings.STALE_AGE_HEADER));
+        assertTrue(response.getHeaders().get(RequestTimings.SERVER_TIMING_HEADER).contains("stale=1"));
+        Unit refreshed = awaitReplacement(first);
+        assertNotSame(first, refreshed);
+        assertEquals(2, upstream.calls.get());
+    }
+
+    @Test
+    public void testExpiredEntryIsServedWhenUpstreamFails() throws Exception {
+        Unit first = cachingClient.getUnit(UNIT_ID, LANGUAGE);
+        clock.addAndGet(TTL + STALE_WHILE_REVALIDATE + 1);
+        upstream.failing = true;
+
+        GatewayResponse response = new GatewayResponse();
+        RequestTimings timings = RequestTimings.start("StaleCacheTest");
+        Unit stale = cachingClient.getUnit(UNIT_ID, LANGUAGE);
+        timings.finish(response);
+
+        assertSame(first, stale);
+        assertEquals(Long.toString(TimeUnit.MILLISECONDS.toSeconds(TTL + STALE_WHILE_REVALIDATE + 1)),
+                response.getHeaders().get(RequestTimings.STALE_AGE_HEADER));
+        assertTrue(response.getHeaders().get(RequestTimings.SERVER_TIMING_HEADER).contains("stale-if-error=1"));
+    }
+
+    @Test(expected = IOException.class)
+    public void testUpstreamFailureIsReportedAfterStaleIfErrorWindow() throws Exception {
+        cachingClient.getUnit(UNIT_ID, LANGUAGE);
+        clock.addAndGet(TTL + STALE_IF_ERROR + 1);
+        upstream.failing = true;
+        cachingClient.getUnit(UNIT_ID, LANGUAGE);
+    }
+
+    @Test(expected = IOException.class)
+    public void testZeroStaleWindowsServeNoExpiredRecords() throws Exception {
+        Config config = Config.getInstance();
+        config.setCacheStaleWhileRevalidateSeconds(0);
+        config.setCacheStaleIfErrorSeconds(0);
+        CachingCristinApiClient strict;
+        try {
+            strict = new CachingCristinApiClient(upstream, config, Optional.empty(), clock::get);
+        } finally {
+            config.setCacheStaleWhileRevalidateSeconds((int) TimeUnit.MILLISECONDS.toSeconds(STALE_WHILE_REVALIDATE));
+            config.setCacheStaleIfErrorSeconds((int) TimeUnit.MILLISECONDS.toSeconds(STALE_IF_ERROR));
+        }
+        strict.getUnit(UNIT_ID, LANGUAGE);
+        clock.addAndGet(TTL + 1);
+        upstream.failing = true;
+        strict.getUnit(UNIT_ID, LANGUAGE);
+    }
+
+    @Test
+    public void testSnapshotRecordSeedsCacheAndIsRefetchedAfterTimeToLive() throws Exception {
+        Unit bundled = new Unit();
+        bundled.cristinUnitId = UNIT_ID;
+        bundled.unitName = Map.of(LANGUAGE, "Snapshot name");
+        ByteArrayOutputStream snapshot = new ByteArrayOutputStream();
+        new CatalogSnapshotWriter().write(List.of(), List.of(bundled), snapshot);
+        CachingCristinApiClient seeded = new CachingCristinApiClient(upstream, Config.getInstance(),
+                Optional.of(new CatalogSnapshot(ByteBuffer.wrap(snapshot.toByteArray()))), clock::get);
+
+        assertEquals("Snapshot name", seeded.getUnit(UNIT_ID, LANGUAGE).unitName.get(LANGUAGE));
+        assertEquals(0, upstream.calls.get());
+        assertEquals(1, seeded.getUnitCache().size());
+
+        clock.addAndGet(TTL + STALE_WHILE_REVALIDATE + 1);
+        Unit refetched = seeded.getUnit(UNIT_ID, LANGUAGE);
+
+        assertEquals(1, upstream.calls.get());
+        assertNull("the upstream record replaces the snapshot record", refetched.unitName);
+    }
+
+    private Unit awaitReplacement(Unit first) throws Exception {
+        for (int i = 0; i < 100; i++) {
+            Unit current = cachingClient.getUnit(UNIT_ID, LANGUAGE);
+            if (current != first) {
+                return current;
+            }
+            Thread.sleep(10);
+        }
+        return first;
+    }
+
+    private static class FlakyCristinApiClient extends CristinApiClient {
+
+        private final AtomicInteger calls = new AtomicInteger();
+        private volatile boolean failing;
+        private volatile CountDownLatch refreshed = new CountDownLatch(0);
+
+        @Override
+        protected Validated<Unit> getUnitIfModified(String id, String language, Validators validators)
+                throws IOException {
+            calls.incrementAndGet();
+            try {
+                if (failing) {
+                    throw new IOException("Unexpected response status 503");
+                }
+                Unit unit = new Unit();
+                unit.cristinUnitId = id;
+                return Validated.of(unit, Validators.NONE);
+            } finally {
+                refreshed.countDown();
+            }
+        }
+    }
+
+}
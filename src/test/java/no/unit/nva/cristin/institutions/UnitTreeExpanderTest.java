@@ -0,0 +1,124 @@
+package no.unit.nva.cristin.institutions;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class UnitTreeExpanderTest {
+
+    private static final String LANGUAGE = "nb";
+    private static final String ROOT = "1.0.0.0";
+    private static final String FACULTY = "1.1.0.0";
+    private static final String BROKEN_FACULTY = "1.2.0.0";
+    private static final String DEPARTMENT = "1.1.1.0";
+    private static final String GROUP = "1.1.1.1";
+
+    private final PresentationConverter presentationConverter = new PresentationConverter();
+    private final ParallelExecutor parallelExecutor = new ParallelExecutor(2);
+
+    @Test
+    public void testSubunitsAreExpandedToRequestedDepthWithoutRevisitingUnits() throws IOException {
+        TreeCristinApiClient client = new TreeCristinApiClient();
+        UnitPresentation root = presentationConverter.asUnitPresentation(client.getUnit(ROOT, LANGUAGE));
+
+        new UnitTreeExpander(client, presentationConverter, parallelExecutor, 100).expand(root, 3, LANGUAGE);
+
+        SubunitPresentation faculty = root.subunits.get(0);
+        assertEquals(FACULTY, faculty.cristinUnitId);
+        assertEquals("root is not repeated", Collections.singletonList(DEPARTMENT), ids(faculty.subunits));
+        SubunitPresentation department = faculty.subunits.get(0);
+        assertEquals(Collections.singletonList(GROUP), ids(department.subunits));
+        assertNull("depth limit reached", department.subunits.get(0).subunits);
+        assertNull("lookup failed", root.subunits.get(1).subunits);
+        assertTrue(root.truncated);
+        assertEquals(Arrays.asList(ROOT, FACULTY, DEPARTMENT, BROKEN_FACULTY), client.sortedFetches());
+    }
+
+    @Test
+    public void testDepthOneLeavesPresentationUnchanged() throws IOException {
+        TreeCristinApiClient client = new TreeCristinApiClient();
+        UnitPresentation root = presentationConverter.asUnitPresentation(client.getUnit(ROOT, LANGUAGE));
+
+        new UnitTreeExpander(client, presentationConverter, parallelExecutor, 100).expand(root, 1, LANGUAGE);
+
+        assertNull(root.subunits.get(0).subunits);
+        assertNull(root.truncated);
+    }
+
+    @Test
+    public void testNodeBudgetStopsExpansion() throws IOException {
+        TreeCristinApiClient client = new TreeCristinApiClient();
+        UnitPresentation root = presentationConverter.asUnitPresentation(client.getUnit(ROOT, LANGUAGE));
+
+        new UnitTreeExpander(client, presentationConverter, parallelExecutor, 2).expand(root, 5, LANGUAGE);
+
+        assertNull(root.subunits.get(0).subunits);
+        assertTrue(root.truncated);
+    }
+
+    @Test
+    public void testNodeBudgetTruncationIsRecordedAsPartial() {
+        TreeCristinApiClient client = new TreeCristinApiClient();
+        UnitPresentation root = presentationConverter.asUnitPresentation(
+                TreeCristinApiClient.unit(ROOT, DEPARTMENT));
+
+        RequestTimings timings = RequestTimings.start("UnitTreeExpanderTest");
+        new UnitTreeExpander(client, presentationConverter, parallelExecutor, 1).expand(root, 2, LANGUAGE);
+        timings.finish(new GatewayResponse("{}", 200));
+
+        assertEquals(List.of(DEPARTMENT), client.sortedFetches());
+        assertTrue(root.truncated);
+        assertFalse(timings.isComplete());
+    }
+
+    private static List<String> ids(List<SubunitPresentation> subunits) {
+        return subunits.stream().map(subunit -> subunit.cristinUnitId).collect(Collectors.toList());
+    }
+
+    private static class TreeCristinApiClient extends CristinApiClient {
+
+        private final List<String> fetched = Collections.synchronizedList(new ArrayList<>());
+
+        @Override
+        protected Unit getUnit(String id, String language) throws IOException {
+            fetched.add(id);
+            switch (id) {
+                case ROOT:
+                    return unit(ROOT, FACULTY, BROKEN_FACULTY);
+                case FACULTY:
+                    return unit(FACULTY, DEPARTMENT, ROOT);
+                case DEPARTMENT:
+                    return unit(DEPARTMENT, GROUP);
+                default:
+                    throw new IOException("Unexpected response status 500");
+            }
+        }
+
+        private List<String> sortedFetches() {
+            return fetched.stream().sorted().collect(Collectors.toList());
+        }
+
+        private static Unit unit(String id, String... subunitIds) {
+            Unit unit = new Unit();
+            unit.cristinUnitId = id;
+            unit.unitName = Collections.singletonMap(LANGUAGE, id);
+            unit.subunits = Arrays.stream(subunitIds).map(subunitId -> {
+                Unit subunit = new Unit();
+                subunit.cristinUnitId = subunitId;
+                return subunit;
+            }).collect(Collectors.toList());
+            return unit;
+        }
+    }
+
+}